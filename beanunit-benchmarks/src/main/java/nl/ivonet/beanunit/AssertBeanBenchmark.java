@@ -0,0 +1,62 @@
+/*
+ * Copyright 2011 Ivo Woltring
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nl.ivonet.beanunit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import builder.AddressDto;
+import immutable.InventoryDto;
+import simplepojo.Person;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The throughput of the complete assertion of the hand written fixtures, with a warm {@link BeanMetadataCache}.
+ *
+ * @author Ivo Woltring
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AssertBeanBenchmark {
+
+    @Benchmark
+    public void pojoPerson() {
+        PojoContractAsserter.assertBean(Person.class);
+    }
+
+    @Benchmark
+    public void builderAddressDto() {
+        BuilderBeanAsserter.assertBean(AddressDto.class);
+    }
+
+    @Benchmark
+    public void constructedInventoryDto() {
+        ConstructedBeanAsserter.assertBean(InventoryDto.class);
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2011 Ivo Woltring
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nl.ivonet.beanunit;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with the {@link GCProfiler}, so every result reports the allocation rate next to the
+ * throughput.
+ * <p/>
+ * Takes the normal JMH command line options, e.g. <code>java -jar benchmarks.jar WideBeanBenchmark -p
+ * properties=100</code>.
+ *
+ * @author Ivo Woltring
+ */
+public final class BenchmarkRunner {
+
+    private BenchmarkRunner() {
+        //All static so don't create
+    }
+
+    public static void main(final String[] args) throws RunnerException, CommandLineOptionException {
+        new Runner(new OptionsBuilder().parent(new CommandLineOptions(args))
+                                       .addProfiler(GCProfiler.class)
+                                       .build()).run();
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2011 Ivo Woltring
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nl.ivonet.beanunit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import builder.AddressDto;
+import immutable.InventoryDto;
+import simplepojo.Person;
+
+import java.lang.reflect.Constructor;
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The createObject variants of the asserters and of the {@link Asserter} itself.
+ *
+ * @author Ivo Woltring
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CreateObjectBenchmark {
+
+    private Constructor<?> constructor;
+    private Object[] arguments;
+
+    @Setup
+    public void findConstructor() throws NoSuchMethodException {
+        this.constructor = InventoryDto.class.getConstructor(BigDecimal.class, BigDecimal.class);
+        this.arguments = Asserter.createConstructorParameterList(this.constructor);
+    }
+
+    @Benchmark
+    public Object pojo() {
+        return PojoContractAsserter.createObject(Person.class);
+    }
+
+    @Benchmark
+    public Object builder() {
+        return BuilderBeanAsserter.createObject(AddressDto.class);
+    }
+
+    @Benchmark
+    public Object constructed() {
+        return ConstructedBeanAsserter.createObject(InventoryDto.class);
+    }
+
+    @Benchmark
+    public Object constructor() {
+        return Asserter.createObject(this.constructor);
+    }
+
+    @Benchmark
+    public Object constructorWithArguments() {
+        return Asserter.createObject(this.constructor, this.arguments);
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2011 Ivo Woltring
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nl.ivonet.beanunit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * How the assertion of a POJO with 100 properties of mixed types depends on the depth of its class hierarchy and the
+ * cost of its equals and hashCode.
+ *
+ * @author Ivo Woltring
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DeepBeanBenchmark {
+
+    @Param({"0", "5", "20"})
+    public int depth;
+
+    @Param({"CORRECT", "SLOW"})
+    public SyntheticBean.Equality equality;
+
+    private Class<?> pojo;
+
+    @Setup
+    public void generate() {
+        this.pojo = SyntheticBean.pojo(100).depth(this.depth).equality(this.equality)
+                                 .types(String.class, int.class, Date.class, Long.class, BigDecimal.class, List.class)
+                                 .define();
+    }
+
+    @Benchmark
+    public void pojo() {
+        PojoContractAsserter.assertBean(this.pojo);
+    }
+}
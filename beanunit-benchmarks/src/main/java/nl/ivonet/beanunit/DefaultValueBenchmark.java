@@ -0,0 +1,72 @@
+/*
+ * Copyright 2011 Ivo Woltring
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nl.ivonet.beanunit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import simplepojo.Person;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The resolution of the default values of the different kinds of types: registered objects, primitives, arrays and
+ * objects created with their default constructor.
+ *
+ * @author Ivo Woltring
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DefaultValueBenchmark {
+
+    @Benchmark
+    public Object string() {
+        return Asserter.retrieveDefaultValueByType(String.class);
+    }
+
+    @Benchmark
+    public Object primitiveInt() {
+        return Asserter.retrieveDefaultValueByType(int.class);
+    }
+
+    @Benchmark
+    public Object date() {
+        return Asserter.retrieveDefaultValueByType(Date.class);
+    }
+
+    @Benchmark
+    public Object stringArray() {
+        return Asserter.retrieveDefaultValueByType(String[].class);
+    }
+
+    @Benchmark
+    public Object defaultConstructor() {
+        return Asserter.retrieveDefaultValueByType(Person.class);
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2011 Ivo Woltring
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nl.ivonet.beanunit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * How the assertion of a POJO and of a bean with a Builder scales with the number of properties, see
+ * {@link SyntheticBean}.
+ *
+ * @author Ivo Woltring
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WideBeanBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int properties;
+
+    private Class<?> pojo;
+    private Class<?> built;
+
+    @Setup
+    public void generate() {
+        this.pojo = SyntheticBean.pojo(this.properties).define();
+        this.built = SyntheticBean.builder(this.properties).define();
+    }
+
+    @Benchmark
+    public void pojo() {
+        PojoContractAsserter.assertBean(this.pojo);
+    }
+
+    @Benchmark
+    public void builder() {
+        BuilderBeanAsserter.assertBean(this.built);
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2011 Ivo Woltring
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nl.ivonet.beanunit;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Reads the bytes allocated by the current thread and the garbage collections of the JVM.
+ * <p/>
+ * The allocated bytes are only known on JVMs providing <code>com.sun.management.ThreadMXBean</code> (HotSpot and
+ * OpenJ9), otherwise {@link #UNKNOWN} is returned.
+ *
+ * @author Ivo Woltring
+ */
+final class Allocations {
+    static final long UNKNOWN = -1L;
+
+    private static final Counter COUNTER = createCounter();
+
+    private Allocations() {
+        //All static so don't create
+    }
+
+    /**
+     * @return true if the allocated bytes of a thread can be read
+     */
+    static boolean isSupported() {
+        return COUNTER != null;
+    }
+
+    /**
+     * @return the total number of bytes allocated by the current thread so far or {@link #UNKNOWN}
+     */
+    static long currentThread() {
+        return COUNTER == null ? UNKNOWN : COUNTER.allocatedBytes();
+    }
+
+    /**
+     * @param start the bytes allocated at the start, as returned by {@link #currentThread()}
+     * @return the bytes allocated by the current thread since the start or {@link #UNKNOWN}
+     */
+    static long since(final long start) {
+        if (start == UNKNOWN) {
+            return UNKNOWN;
+        }
+        return currentThread() - start;
+    }
+
+    /**
+     * @return the number of garbage collections of all collectors so far
+     */
+    static long gcCount() {
+        long count = 0;
+        for (final GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, collector.getCollectionCount());
+        }
+        return count;
+    }
+
+    /**
+     * @return the accumulated time of all garbage collections so far in milliseconds
+     */
+    static long gcMillis() {
+        long millis = 0;
+        for (final GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            millis += Math.max(0, collector.getCollectionTime());
+        }
+        return millis;
+    }
+
+    private static Counter createCounter() {
+        try {
+            return Counter.create();
+        } catch (LinkageError e) {
+            return null;
+        }
+    }
+
+    /**
+     * Only loaded when <code>com.sun.management</code> is available.
+     */
+    private static final class Counter {
+        private final com.sun.management.ThreadMXBean threads;
+
+        private Counter(final com.sun.management.ThreadMXBean threads) {
+            this.threads = threads;
+        }
+
+        static Counter create() {
+            try {
+                final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+                if (!(threads instanceof com.sun.management.ThreadMXBean)) {
+                    return null;
+                }
+                final com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) threads;
+                if (!allocations.isThreadAllocatedMemorySupported()) {
+                    return null;
+                }
+                if (!allocations.isThreadAllocatedMemoryEnabled()) {
+                    allocations.setThreadAllocatedMemoryEnabled(true);
+                }
+                return new Counter(allocations);
+            } catch (UnsupportedOperationException e) {
+                return null;
+            } catch (SecurityException e) {
+                return null;
+            }
+        }
+
+        long allocatedBytes() {
+            return this.threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+    }
+}
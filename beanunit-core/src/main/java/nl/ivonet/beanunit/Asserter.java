@@ -0,0 +1,308 @@
+/*
+ * Copyright 2011 Ivo Woltring
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nl.ivonet.beanunit;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import static nl.ivonet.beanunit.Verify.fail;
+
+/**
+ * Parent class for all Asserters.
+ * This class implements all the plumbing code to make the work of the other {@link nl.ivonet.beanunit.Asserter}s
+ * easier.
+ * <p/>
+ * One can (de)register basic type arguments
+ * <p/>
+ * Note that if used in a test with the Before annotation to register new type it is good practice to de-register them
+ * in the After annotation. Even better is a {@link TypeArgumentScope} per test, e.g. the TypeArgumentsRule of
+ * beanunit-junit4 or the TypeArgumentsExtension of beanunit-junit5: every test gets its own registrations, so tests
+ * can also run in parallel.
+ *
+ * @author Ivo Woltring
+ */
+public abstract class Asserter {
+    private static final float FLOAT = 3.14159F;
+    private static final double DOUBLE = 3.14159;
+    private static final long LONG = 42L;
+    static final int TEST_ARRAY_SIZE = 42;
+    static final String JAVA_LANG_OBJECT = "java.lang.Object";
+    static final String ALWAYS_EXCLUDED = "class";
+    protected static final String EQUALS_METHOD_NAME = "equals";
+    protected static final String HASH_CODE_METHOD_NAME = "hashCode";
+    protected static final String TO_STRING_METHOD_NAME = "toString";
+
+    /**
+     * The original types and default arguments used to reset all values when it is wanted.
+     */
+    static final TypeArguments DEFAULT_TYPE_ARGUMENTS;
+
+    static {
+        final Map<Class<?>, Object> typeArguments = new HashMap<Class<?>, Object>();
+        typeArguments.put(Collection.class, new ArrayList());
+        typeArguments.put(List.class, new ArrayList());
+        typeArguments.put(Set.class, new HashSet());
+        typeArguments.put(SortedSet.class, new TreeSet());
+        typeArguments.put(Map.class, new HashMap());
+        typeArguments.put(SortedMap.class, new TreeMap());
+        typeArguments.put(Boolean.class, true);
+        typeArguments.put(Boolean.TYPE, true);
+        typeArguments.put(Character.class, 'Z');
+        typeArguments.put(Character.TYPE, 'Z');
+        typeArguments.put(Byte.class, (byte) 42);
+        typeArguments.put(Byte.TYPE, (byte) 42);
+        typeArguments.put(Short.class, (short) 42);
+        typeArguments.put(String.class, "String");
+        typeArguments.put(Short.TYPE, (short) 42);
+        typeArguments.put(Integer.class, 42);
+        typeArguments.put(Integer.TYPE, 42);
+        typeArguments.put(Long.class, LONG);
+        typeArguments.put(Long.TYPE, LONG);
+        typeArguments.put(Float.class, FLOAT);
+        typeArguments.put(Float.TYPE, FLOAT);
+        typeArguments.put(Double.class, DOUBLE);
+        typeArguments.put(Double.TYPE, DOUBLE);
+        typeArguments.put(BigDecimal.class, new BigDecimal("3.14159"));
+        typeArguments.put(java.sql.Date.class, new java.sql.Date(new Date().getTime()));
+        typeArguments.put(java.util.Date.class, new java.util.Date(new Date().getTime()));
+        typeArguments.put(Timestamp.class, new Timestamp(new Date().getTime()));
+        typeArguments.put(Calendar.class, Calendar.getInstance());
+        DEFAULT_TYPE_ARGUMENTS = TypeArguments.of(typeArguments);
+        TypeArguments.initialize(DEFAULT_TYPE_ARGUMENTS);
+    }
+
+    /**
+     * Retrieves the default value based on a Type.
+     * The default values are the registered type arguments currently in use, see {@link #typeArguments()}.
+     *
+     * @param type the Type (Class) to get the default value for
+     * @return an instance of the wanted type with a default value.
+     */
+    static Object retrieveDefaultValueByType(final Class type) {
+        return retrieveDefaultValueByType(typeArguments(), type);
+    }
+
+    /**
+     * Retrieves the default value based on a Type, see {@link DefaultValue} for the way it is resolved.
+     *
+     * @param typeArguments the registered type arguments to use
+     * @param type          the Type (Class) to get the default value for
+     * @return an instance of the wanted type with a default value.
+     */
+    static Object retrieveDefaultValueByType(final TypeArguments typeArguments, final Class type) {
+        final Timing timing = Timing.start(BeanUnitEvent.Phase.DEFAULT_VALUE);
+        final Object value = typeArguments.resolve(type).get();
+        Timing.finish(timing, type, null);
+        return value;
+    }
+
+    /**
+     * Registers the specified type that will default to the specified <code>defaultArgument</code> as the argument to
+     * setter methods. Note this method will override any existing default arguments for a type.
+     * <p/>
+     * Within a {@link TypeArgumentScope} the registration is only visible to the current thread until the scope is
+     * closed.
+     *
+     * @param type            the type to register
+     * @param defaultArgument the default argument to use in setters
+     */
+    public static void registerTypeAndDefaultArgument(final Class<?> type, final Object defaultArgument) {
+        TypeArguments.register(type, defaultArgument);
+    }
+
+    /**
+     * Removes the specified type, so that there wil no longer be a default argument for the type.
+     *
+     * @param type the type to deregister.
+     */
+    public static void deregisterType(final Class<?> type) {
+        TypeArguments.deregister(type);
+    }
+
+    /**
+     * Resets the types and default arguments to the original list.
+     */
+    public static void resetToDefaultTypes() {
+        TypeArguments.replace(DEFAULT_TYPE_ARGUMENTS);
+    }
+
+    /**
+     * @return the registered types and default arguments in use by the current thread, an immutable snapshot
+     */
+    static TypeArguments typeArguments() {
+        return TypeArguments.current();
+    }
+
+    /**
+     * Tells if the default values of all the types are registered (shared) instances.
+     * Arrays and objects created with their default constructor are new on every retrieval.
+     *
+     * @param typeArguments the registered type arguments to use
+     * @param types         the types to check
+     * @return true if retrieving the default values again would give the same instances
+     */
+    static boolean areSharedDefaultValues(final TypeArguments typeArguments, final Class<?>[] types) {
+        for (final Class<?> type : types) {
+            if (!typeArguments.resolve(type).isShared()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Creates the list of parameters based on default values for a provided constructor.
+     *
+     * @param constructor the constructor to create the parameter list for
+     * @return array with the constructor parameters
+     */
+    static Object[] createConstructorParameterList(final Constructor<?> constructor) {
+        return createParameterList(constructor.getParameterTypes());
+    }
+
+    /**
+     * Creates the list of parameters for the method based on the default values provided by this class.
+     *
+     * @param method the method to get the parameters for
+     * @return object array containing the default values for the parameters
+     */
+    static Object[] createMethodParameterList(final Method method) {
+        return createParameterList(method.getParameterTypes());
+    }
+
+    /**
+     * Creates the list of parameters based on the default values of the parameter types.
+     *
+     * @param parameterTypes the types of the parameters
+     * @return object array containing the default values for the parameters
+     */
+    static Object[] createParameterList(final Class<?>[] parameterTypes) {
+        return createParameterList(typeArguments(), parameterTypes);
+    }
+
+    /**
+     * Creates the list of parameters based on the default values of the parameter types.
+     *
+     * @param typeArguments  the registered type arguments to use
+     * @param parameterTypes the types of the parameters
+     * @return object array containing the default values for the parameters
+     */
+    static Object[] createParameterList(final TypeArguments typeArguments, final Class<?>[] parameterTypes) {
+        final Object[] arguments = new Object[parameterTypes.length];
+        for (int i = 0; i < parameterTypes.length; i++) {
+            arguments[i] = retrieveDefaultValueByType(typeArguments, parameterTypes[i]);
+        }
+        return arguments;
+    }
+
+    static Object createObject(final Constructor<?> constructor, final Object[] arguments) {
+        final Class<?> type = constructor.getDeclaringClass();
+        return createObject(type, BeanMetadataCache.get(type).instantiator(constructor), arguments);
+    }
+
+    /**
+     * Creates an object with an already compiled instantiator.
+     *
+     * @param type         the class instantiated
+     * @param instantiator the instantiator of the constructor to invoke
+     * @param arguments    the constructor arguments
+     * @return the new object
+     */
+    static Object createObject(final Class<?> type, final Invokers.Instantiator instantiator,
+                               final Object[] arguments) {
+        try {
+            final Timing timing = Timing.start(BeanUnitEvent.Phase.INSTANTIATION);
+            final Object object = instantiator.newInstance(arguments);
+            Timing.finish(timing, type, null);
+            return object;
+        } catch (InstantiationException e) {
+            fail(e.getMessage());
+        } catch (IllegalAccessException e) {
+            fail(e.getMessage());
+        } catch (IllegalArgumentException e) {
+            fail(e.getMessage());
+        } catch (InvocationTargetException e) {
+            fail(e.getMessage());
+        }
+        fail("No object created.");
+        return null;
+    }
+
+    /**
+     * Creates the object belonging to the constructor based on default values.
+     *
+     * @param constructor the constructor to invoke
+     * @return object belonging to the constructor.
+     */
+    static Object createObject(final Constructor<?> constructor) {
+        return createObject(constructor, createConstructorParameterList(constructor));
+    }
+
+    /**
+     * Retrieves the class declaring the equals method of the class under test from the {@link BeanMetadataCache}.
+     *
+     * @param classUnderTest the class to look up
+     * @return the declaring class of the equals method
+     * @throws NoSuchMethodException if there is no public equals method
+     */
+    static Class<?> retrieveEqualsMethodDeclaringClass(final Class<?> classUnderTest) throws NoSuchMethodException {
+        return BeanMetadataCache.get(classUnderTest).getEqualsDeclaringClass();
+    }
+
+    /**
+     * Retrieves the class declaring the hashCode method of the class under test from the {@link BeanMetadataCache}.
+     *
+     * @param classUnderTest the class to look up
+     * @return the declaring class of the hashCode method
+     * @throws NoSuchMethodException if there is no public hashCode method
+     */
+    static Class<?> retrieveHashCodeMethodDeclaringClass(final Class<?> classUnderTest) throws NoSuchMethodException {
+        return BeanMetadataCache.get(classUnderTest).getHashCodeDeclaringClass();
+    }
+
+    //FIXME this test is not finished
+    static <T> void assertToString(final Class<T> classUnderTest) {
+        try {
+            final Class<?> declaringClass = classUnderTest.getMethod(TO_STRING_METHOD_NAME).getDeclaringClass();
+            if (classUnderTest.getSimpleName().equals(declaringClass.getSimpleName())) {
+
+            }
+        } catch (NoSuchMethodException e) {
+            fail("The toString method should always be available");
+        }
+    }
+
+    static class OtherType {
+    }
+
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2011 Ivo Woltring
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nl.ivonet.beanunit;
+
+/**
+ * A class found by the {@link BeanScanner} that looks like a bean, with the asserter that applies to it.
+ *
+ * @author Ivo Woltring
+ */
+public final class BeanCandidate {
+    private final Class<?> type;
+    private final BulkAsserter.Mode mode;
+
+    BeanCandidate(final Class<?> type, final BulkAsserter.Mode mode) {
+        this.type = type;
+        this.mode = mode;
+    }
+
+    /**
+     * @param type the bean
+     * @return the candidate with the asserter that applies, even if the {@link BeanScanner} would skip the class
+     */
+    public static BeanCandidate of(final Class<?> type) {
+        final BeanCandidate candidate = BeanScanner.classify(type);
+        return candidate == null ? new BeanCandidate(type, BulkAsserter.Mode.detect(type)) : candidate;
+    }
+
+    public Class<?> getType() {
+        return this.type;
+    }
+
+    /**
+     * @return the asserter that applies, never {@link BulkAsserter.Mode#AUTO}
+     */
+    public BulkAsserter.Mode getMode() {
+        return this.mode;
+    }
+
+    @Override
+    public String toString() {
+        return this.type.getName() + " (" + this.mode + ")";
+    }
+}
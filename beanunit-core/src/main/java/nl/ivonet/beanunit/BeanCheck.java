@@ -0,0 +1,159 @@
+/*
+ * Copyright 2011 Ivo Woltring
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nl.ivonet.beanunit;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * One check on one bean, e.g. the "properties" of <code>Person</code>.
+ * <p/>
+ * Every bean has a "properties" check and, when it overrides equals itself, an "equalsAndHashCode" check. Together
+ * they are what {@link PojoContractAsserter#assertBean}, {@link BuilderBeanAsserter#assertBean} or
+ * {@link ConstructedBeanAsserter#assertBean} do, so test runners can report them separately.
+ *
+ * @author Ivo Woltring
+ */
+public final class BeanCheck {
+    private final Class<?> bean;
+    private final BulkAsserter.Mode mode;
+    private final Kind kind;
+    private final TypeArguments typeArguments;
+
+    private BeanCheck(final Class<?> bean, final BulkAsserter.Mode mode, final Kind kind,
+                      final TypeArguments typeArguments) {
+        this.bean = bean;
+        this.mode = mode;
+        this.kind = kind;
+        this.typeArguments = typeArguments;
+    }
+
+    /**
+     * @param candidate the bean
+     * @return the checks of the bean
+     */
+    public static List<BeanCheck> of(final BeanCandidate candidate) {
+        final List<BeanCheck> checks = new ArrayList<BeanCheck>(2);
+        checks.add(new BeanCheck(candidate.getType(), candidate.getMode(), Kind.PROPERTIES, null));
+        if (overridesEquals(candidate.getType())) {
+            checks.add(new BeanCheck(candidate.getType(), candidate.getMode(), Kind.EQUALS_AND_HASH_CODE, null));
+        }
+        return Collections.unmodifiableList(checks);
+    }
+
+    /**
+     * Binds the check to the types registered by the current thread, so it verifies with them on any thread.
+     *
+     * @return the bound check
+     */
+    public BeanCheck withCurrentTypes() {
+        return new BeanCheck(this.bean, this.mode, this.kind, Asserter.typeArguments());
+    }
+
+    public Class<?> getBean() {
+        return this.bean;
+    }
+
+    public BulkAsserter.Mode getMode() {
+        return this.mode;
+    }
+
+    /**
+     * @return the name of the check, "properties" or "equalsAndHashCode"
+     */
+    public String getName() {
+        return this.kind.checkName;
+    }
+
+    /**
+     * Runs the check with the bound types or, if not bound, with the types of the current thread.
+     *
+     * @throws AssertionError if the bean does not pass
+     */
+    public void verify() {
+        if (this.typeArguments == null) {
+            this.kind.verify(this.bean, this.mode);
+            return;
+        }
+        final TypeArgumentScope scope = TypeArgumentScope.open(this.typeArguments);
+        try {
+            this.kind.verify(this.bean, this.mode);
+        } finally {
+            scope.close();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return this.bean.getName() + "." + getName() + " (" + this.mode + ")";
+    }
+
+    /**
+     * Same rule as the assertBean methods: equals is only checked when the bean itself overrides it.
+     */
+    private static boolean overridesEquals(final Class<?> bean) {
+        try {
+            return bean.getSimpleName().equals(BeanMetadataCache.get(bean).getEqualsDeclaringClass().getSimpleName());
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    private enum Kind {
+        PROPERTIES("properties") {
+            @Override
+            void verify(final Class<?> bean, final BulkAsserter.Mode mode) {
+                switch (mode) {
+                    case BUILDER:
+                        BuilderBeanAsserter.assertBuildObjectGetterBehavior(bean);
+                        break;
+                    case CONSTRUCTED:
+                        ConstructedBeanAsserter.assertGettersOnConstructorImmutableObject(bean);
+                        break;
+                    default:
+                        PojoContractAsserter.assertBasicGetterSetterBehavior(bean);
+                        break;
+                }
+            }
+        },
+        EQUALS_AND_HASH_CODE("equalsAndHashCode") {
+            @Override
+            void verify(final Class<?> bean, final BulkAsserter.Mode mode) {
+                switch (mode) {
+                    case BUILDER:
+                        BuilderBeanAsserter.assertEqualsHashCode(bean);
+                        break;
+                    case CONSTRUCTED:
+                        ConstructedBeanAsserter.assertEqualsHashCode(bean);
+                        break;
+                    default:
+                        PojoContractAsserter.assertEqualsHashCode(bean);
+                        break;
+                }
+            }
+        };
+
+        private final String checkName;
+
+        Kind(final String checkName) {
+            this.checkName = checkName;
+        }
+
+        abstract void verify(Class<?> bean, BulkAsserter.Mode mode);
+    }
+}
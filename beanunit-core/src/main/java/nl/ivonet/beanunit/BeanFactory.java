@@ -0,0 +1,285 @@
+/*
+ * Copyright 2011 Ivo Woltring
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nl.ivonet.beanunit;
+
+import java.beans.IntrospectionException;
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import static nl.ivonet.beanunit.Verify.fail;
+
+/**
+ * Creates test data: objects filled with the same default values the {@link Asserter}s use.
+ * <p/>
+ * The way to create an object is compiled once when the factory is created. After that {@link #create()} only calls
+ * the constructor, setters or builder methods without any assertions, so keep the factory around when creating many
+ * objects. Factories are thread safe and {@link #stream(long)} splits well for parallel streams:
+ * <pre>
+ * final BeanFactory&lt;Person&gt; persons = BeanFactory.of(Person.class);
+ * final List&lt;Person&gt; million = persons.stream(1000000).parallel().collect(Collectors.toList());
+ * </pre>
+ *
+ * @param <T> the type of the objects created
+ * @author Ivo Woltring
+ */
+public final class BeanFactory<T> {
+    private static final String BUILD_METHOD_NAME = "build";
+
+    private final Class<T> type;
+    private final Invokers.Instantiator instantiator;
+    private final Invokers.Setter[] setters;
+    private final String[] properties;
+    private final DefaultArguments arguments;
+    private final BuildPlan buildPlan;
+
+    private BeanFactory(final Class<T> type, final Invokers.Instantiator instantiator,
+                        final List<Invokers.Setter> setters, final List<String> properties,
+                        final List<Class<?>[]> parameterTypes, final BuildPlan buildPlan) {
+        this.type = type;
+        this.instantiator = instantiator;
+        this.setters = setters.toArray(new Invokers.Setter[setters.size()]);
+        this.properties = properties.toArray(new String[properties.size()]);
+        this.arguments = new DefaultArguments(parameterTypes);
+        this.buildPlan = buildPlan;
+    }
+
+    /**
+     * Compiles a factory the way the asserters would create the object:
+     * <ul>
+     * <li>with its nested Builder and build() method if it has a "Builder";</li>
+     * <li>with the default constructor and all the setters if it has a public default constructor;</li>
+     * <li>with the public constructor having the most parameters otherwise.</li>
+     * </ul>
+     *
+     * @param type     the class to create objects of
+     * @param excluded the properties (or builder methods) not to set
+     * @param <T>      the type of the objects created
+     * @return the factory
+     */
+    public static <T> BeanFactory<T> of(final Class<T> type, final String... excluded) {
+        final BeanMetadata metadata = BeanMetadataCache.get(type);
+        if (metadata.getBuilder() != null) {
+            return forBuilder(type, metadata.getBuilder(), BUILD_METHOD_NAME, excluded);
+        }
+        Constructor<?> widest = null;
+        for (final Constructor<?> constructor : metadata.getDeclaredConstructors()) {
+            if (!Modifier.isPublic(constructor.getModifiers())) {
+                continue;
+            }
+            if (constructor.getParameterTypes().length == 0) {
+                return forSetters(type, excluded);
+            }
+            if (widest == null || constructor.getParameterTypes().length > widest.getParameterTypes().length) {
+                widest = constructor;
+            }
+        }
+        if (widest == null) {
+            fail(String.format("No public constructor or Builder found for [%s].", type.getSimpleName()));
+        }
+        @SuppressWarnings({"unchecked"}) final Constructor<T> constructor = (Constructor<T>) widest;
+        return forConstructor(constructor);
+    }
+
+    /**
+     * Compiles a factory that creates objects with the default constructor and calls all the setters.
+     *
+     * @param type     the class to create objects of
+     * @param excluded the properties not to set
+     * @param <T>      the type of the objects created
+     * @return the factory
+     */
+    public static <T> BeanFactory<T> forSetters(final Class<T> type, final String... excluded) {
+        final List<String> blacklist = Arrays.asList(excluded);
+        final BeanMetadata metadata = BeanMetadataCache.get(type);
+        final List<Invokers.Setter> setters = new ArrayList<Invokers.Setter>();
+        final List<String> properties = new ArrayList<String>();
+        final List<Class<?>[]> parameterTypes = new ArrayList<Class<?>[]>();
+        parameterTypes.add(new Class<?>[0]);
+        try {
+            for (final PropertyDescriptor descriptor : metadata.getPropertyDescriptors()) {
+                final Method writeMethod = descriptor.getWriteMethod();
+                if (writeMethod == null || blacklist.contains(descriptor.getName())) {
+                    continue;
+                }
+                setters.add(metadata.setter(writeMethod));
+                properties.add(descriptor.getName());
+                parameterTypes.add(writeMethod.getParameterTypes());
+            }
+            return new BeanFactory<T>(type, metadata.instantiator(type.getConstructor()), setters, properties,
+                                      parameterTypes, null);
+        } catch (IntrospectionException e) {
+            fail(String.format("Failed while introspecting [%s].", type));
+        } catch (NoSuchMethodException e) {
+            fail(String.format("No public default constructor found for [%s].", type.getSimpleName()));
+        }
+        return null;
+    }
+
+    /**
+     * Compiles a factory that creates objects with the given constructor.
+     *
+     * @param constructor the constructor to call
+     * @param <T>         the type of the objects created
+     * @return the factory
+     */
+    public static <T> BeanFactory<T> forConstructor(final Constructor<T> constructor) {
+        final BeanMetadata metadata = BeanMetadataCache.get(constructor.getDeclaringClass());
+        return new BeanFactory<T>(constructor.getDeclaringClass(), metadata.instantiator(constructor),
+                                  Collections.<Invokers.Setter>emptyList(), Collections.<String>emptyList(),
+                                  Collections.<Class<?>[]>singletonList(constructor.getParameterTypes()), null);
+    }
+
+    /**
+     * Compiles a factory that creates objects with a Builder.
+     *
+     * @param type            the class to create objects of
+     * @param builder         the Builder class
+     * @param buildMethodName the name of the method that builds the object
+     * @param excluded        the builder methods not to call
+     * @param <T>             the type of the objects created
+     * @return the factory
+     */
+    public static <T> BeanFactory<T> forBuilder(final Class<T> type, final Class<?> builder,
+                                                final String buildMethodName, final String... excluded) {
+        final List<String> blacklist = new ArrayList<String>(Arrays.asList(excluded));
+        blacklist.add(Asserter.ALWAYS_EXCLUDED);
+        try {
+            return new BeanFactory<T>(type, null, Collections.<Invokers.Setter>emptyList(),
+                                      Collections.<String>emptyList(), Collections.<Class<?>[]>emptyList(),
+                                      BeanMetadataCache.get(builder).buildPlan(buildMethodName, blacklist));
+        } catch (NoSuchMethodException e) {
+            fail(e.getMessage());
+        }
+        return null;
+    }
+
+    /**
+     * @return the class of the objects created
+     */
+    public Class<T> getType() {
+        return this.type;
+    }
+
+    /**
+     * Creates a new object.
+     *
+     * @return the object
+     */
+    public T create() {
+        try {
+            if (this.buildPlan != null) {
+                return this.type.cast(this.buildPlan.build());
+            }
+            final DefaultArguments.Binding bound = this.arguments.current();
+            final Object object = Asserter.createObject(this.type, this.instantiator, bound.argumentsOf(0));
+            for (int i = 0; i < this.setters.length; i++) {
+                Timing.set(this.setters[i], object, this.properties[i], bound.argumentsOf(i + 1)[0]);
+            }
+            return this.type.cast(object);
+        } catch (IllegalAccessException e) {
+            fail(e.getMessage());
+        } catch (InvocationTargetException e) {
+            fail(e.getMessage());
+        }
+        return null;
+    }
+
+    /**
+     * @param size the number of objects
+     * @return a stream of size new objects, use {@link Stream#parallel()} to create them in parallel
+     */
+    public Stream<T> stream(final long size) {
+        return StreamSupport.stream(spliterator(size), false);
+    }
+
+    /**
+     * @param size the number of objects
+     * @return a sized spliterator creating size new objects, splitting evenly for parallel processing
+     */
+    public Spliterator<T> spliterator(final long size) {
+        if (size < 0) {
+            throw new IllegalArgumentException("size < 0: " + size);
+        }
+        return new FactorySpliterator<T>(this, 0, size);
+    }
+
+    /**
+     * Creates the objects of a range. Only the range is split, every object is created by the factory itself.
+     */
+    private static final class FactorySpliterator<T> implements Spliterator<T> {
+        private final BeanFactory<T> factory;
+        private long index;
+        private final long fence;
+
+        FactorySpliterator(final BeanFactory<T> factory, final long origin, final long fence) {
+            this.factory = factory;
+            this.index = origin;
+            this.fence = fence;
+        }
+
+        @Override
+        public boolean tryAdvance(final Consumer<? super T> action) {
+            if (this.index >= this.fence) {
+                return false;
+            }
+            this.index++;
+            action.accept(this.factory.create());
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(final Consumer<? super T> action) {
+            final long end = this.fence;
+            for (long i = this.index; i < end; i++) {
+                action.accept(this.factory.create());
+            }
+            this.index = end;
+        }
+
+        @Override
+        public Spliterator<T> trySplit() {
+            final long origin = this.index;
+            final long middle = (origin + this.fence) >>> 1;
+            if (origin >= middle) {
+                return null;
+            }
+            this.index = middle;
+            return new FactorySpliterator<T>(this.factory, origin, middle);
+        }
+
+        @Override
+        public long estimateSize() {
+            return this.fence - this.index;
+        }
+
+        @Override
+        public int characteristics() {
+            return SIZED | SUBSIZED | NONNULL | IMMUTABLE;
+        }
+    }
+}
@@ -0,0 +1,296 @@
+/*
+ * Copyright 2011 Ivo Woltring
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.ivonet.beanunit;
+
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Everything the {@link Asserter}s need to know about a class, discovered once.
+ * <p/>
+ * Instances are immutable and shared between threads through the {@link BeanMetadataCache}.
+ * The arrays returned are the cached arrays themselves and must not be modified.
+ *
+ * @author Ivo Woltring
+ */
+final class BeanMetadata {
+    private static final String BUILDER_NAME = "Builder";
+
+    private final Class<?> type;
+    private final PropertyDescriptor[] propertyDescriptors;
+    private final Map<String, PropertyDescriptor> propertyDescriptorsByName;
+    private final IntrospectionException introspectionException;
+    private final Class<?> equalsDeclaringClass;
+    private final Class<?> hashCodeDeclaringClass;
+    private final Constructor<?>[] declaredConstructors;
+    private final Class<?> builder;
+    private final Map<InvocationStrategy, ConcurrentMap<Member, Object>> invokers;
+    private final ConcurrentMap<Method, PrimitiveAccessor> primitiveAccessors;
+    private final ConcurrentMap<List<Object>, BuildPlan> buildPlans;
+    private final ConcurrentMap<InvocationStrategy, BeanVerifier> verifiers;
+
+    private BeanMetadata(final Class<?> type) {
+        this.type = type;
+
+        PropertyDescriptor[] descriptors = null;
+        IntrospectionException failure = null;
+        try {
+            descriptors = Introspector.getBeanInfo(type).getPropertyDescriptors();
+        } catch (final IntrospectionException e) {
+            failure = e;
+        } finally {
+            //The descriptors are kept here, the cache of the Introspector would keep the class loaded
+            Introspector.flushFromCaches(type);
+        }
+        this.propertyDescriptors = descriptors;
+        this.introspectionException = failure;
+        this.propertyDescriptorsByName = indexByName(descriptors);
+
+        this.equalsDeclaringClass = retrieveDeclaringClass(type, Asserter.EQUALS_METHOD_NAME, Object.class);
+        this.hashCodeDeclaringClass = retrieveDeclaringClass(type, Asserter.HASH_CODE_METHOD_NAME);
+        this.declaredConstructors = type.getDeclaredConstructors();
+        this.builder = findBuilder(type);
+        this.invokers = new EnumMap<InvocationStrategy, ConcurrentMap<Member, Object>>(InvocationStrategy.class);
+        for (final InvocationStrategy strategy : InvocationStrategy.values()) {
+            this.invokers.put(strategy, new ConcurrentHashMap<Member, Object>());
+        }
+        this.primitiveAccessors = new ConcurrentHashMap<Method, PrimitiveAccessor>();
+        this.buildPlans = new ConcurrentHashMap<List<Object>, BuildPlan>();
+        this.verifiers = new ConcurrentHashMap<InvocationStrategy, BeanVerifier>();
+    }
+
+    /**
+     * Introspects the given type.
+     * Use {@link BeanMetadataCache#get(Class)} in stead of calling this method directly.
+     *
+     * @param type the class to introspect
+     * @return the metadata of the type
+     */
+    static BeanMetadata introspect(final Class<?> type) {
+        return new BeanMetadata(type);
+    }
+
+    Class<?> getType() {
+        return this.type;
+    }
+
+    /**
+     * @return the property descriptors as found by the {@link Introspector}
+     * @throws IntrospectionException if the class could not be introspected
+     */
+    PropertyDescriptor[] getPropertyDescriptors() throws IntrospectionException {
+        if (this.introspectionException != null) {
+            throw this.introspectionException;
+        }
+        return this.propertyDescriptors;
+    }
+
+    /**
+     * @param property the name of the property, e.g. "firstName"
+     * @return the descriptor of the property or null if the class has no such property
+     * @throws IntrospectionException if the class could not be introspected
+     */
+    PropertyDescriptor getPropertyDescriptor(final String property) throws IntrospectionException {
+        if (this.introspectionException != null) {
+            throw this.introspectionException;
+        }
+        return this.propertyDescriptorsByName.get(property);
+    }
+
+    /**
+     * @return the class declaring the equals method used by instances of the type
+     * @throws NoSuchMethodException if the type has no public equals method (e.g. interfaces)
+     */
+    Class<?> getEqualsDeclaringClass() throws NoSuchMethodException {
+        if (this.equalsDeclaringClass == null) {
+            throw new NoSuchMethodException(this.type.getName() + "." + Asserter.EQUALS_METHOD_NAME);
+        }
+        return this.equalsDeclaringClass;
+    }
+
+    /**
+     * @return the class declaring the hashCode method used by instances of the type
+     * @throws NoSuchMethodException if the type has no public hashCode method (e.g. interfaces)
+     */
+    Class<?> getHashCodeDeclaringClass() throws NoSuchMethodException {
+        if (this.hashCodeDeclaringClass == null) {
+            throw new NoSuchMethodException(this.type.getName() + "." + Asserter.HASH_CODE_METHOD_NAME);
+        }
+        return this.hashCodeDeclaringClass;
+    }
+
+    Constructor<?>[] getDeclaredConstructors() {
+        return this.declaredConstructors;
+    }
+
+    /**
+     * @return the nested class called "Builder" or null if the type does not have one
+     */
+    Class<?> getBuilder() {
+        return this.builder;
+    }
+
+    /**
+     * @param readMethod a read method of this type
+     * @return the cached getter for the read method using the current {@link InvocationStrategy}
+     */
+    Invokers.Getter getter(final Method readMethod) {
+        final InvocationStrategy strategy = InvocationStrategy.current();
+        final ConcurrentMap<Member, Object> cache = this.invokers.get(strategy);
+        Invokers.Getter getter = (Invokers.Getter) cache.get(readMethod);
+        if (getter == null) {
+            getter = strategy.getter(readMethod);
+            cache.putIfAbsent(readMethod, getter);
+        }
+        return getter;
+    }
+
+    /**
+     * @param writeMethod a write method of this type
+     * @return the cached setter for the write method using the current {@link InvocationStrategy}
+     */
+    Invokers.Setter setter(final Method writeMethod) {
+        final InvocationStrategy strategy = InvocationStrategy.current();
+        final ConcurrentMap<Member, Object> cache = this.invokers.get(strategy);
+        Invokers.Setter setter = (Invokers.Setter) cache.get(writeMethod);
+        if (setter == null) {
+            setter = strategy.setter(writeMethod);
+            cache.putIfAbsent(writeMethod, setter);
+        }
+        return setter;
+    }
+
+    /**
+     * @param method a method of this type
+     * @return the cached invoker for the method using the current {@link InvocationStrategy}
+     */
+    Invokers.MethodInvoker invoker(final Method method) {
+        final InvocationStrategy strategy = InvocationStrategy.current();
+        final ConcurrentMap<Member, Object> cache = this.invokers.get(strategy);
+        Invokers.MethodInvoker invoker = (Invokers.MethodInvoker) cache.get(method);
+        if (invoker == null) {
+            invoker = strategy.invoker(method);
+            cache.putIfAbsent(method, invoker);
+        }
+        return invoker;
+    }
+
+    /**
+     * @param constructor a constructor of this type
+     * @return the cached instantiator for the constructor using the current {@link InvocationStrategy}
+     */
+    Invokers.Instantiator instantiator(final Constructor<?> constructor) {
+        final InvocationStrategy strategy = InvocationStrategy.current();
+        final ConcurrentMap<Member, Object> cache = this.invokers.get(strategy);
+        Invokers.Instantiator instantiator = (Invokers.Instantiator) cache.get(constructor);
+        if (instantiator == null) {
+            instantiator = strategy.instantiator(constructor);
+            cache.putIfAbsent(constructor, instantiator);
+        }
+        return instantiator;
+    }
+
+    /**
+     * @param descriptor a read/write property of this type
+     * @return the cached exactly typed accessor of the property, {@link PrimitiveAccessor#UNAVAILABLE} if the
+     * property is not primitive
+     */
+    PrimitiveAccessor primitiveAccessor(final PropertyDescriptor descriptor) {
+        final Method readMethod = descriptor.getReadMethod();
+        PrimitiveAccessor accessor = this.primitiveAccessors.get(readMethod);
+        if (accessor == null) {
+            accessor = PrimitiveAccessor.of(readMethod, descriptor.getWriteMethod());
+            this.primitiveAccessors.putIfAbsent(readMethod, accessor);
+        }
+        return accessor;
+    }
+
+    /**
+     * Only for a Builder type.
+     *
+     * @param buildMethodName the name of the method that builds the object
+     * @param excludedMethods the builder methods not to call
+     * @return the cached plan to build objects with this builder using the current {@link InvocationStrategy}
+     * @throws NoSuchMethodException if the builder has no public build method
+     */
+    BuildPlan buildPlan(final String buildMethodName, final Collection<String> excludedMethods)
+            throws NoSuchMethodException {
+        final List<Object> key = Arrays.<Object>asList(InvocationStrategy.current(), buildMethodName,
+                                                       new HashSet<String>(excludedMethods));
+        BuildPlan plan = this.buildPlans.get(key);
+        if (plan == null) {
+            plan = BuildPlan.compile(this, buildMethodName, excludedMethods);
+            this.buildPlans.putIfAbsent(key, plan);
+        }
+        return plan;
+    }
+
+    /**
+     * @return the cached verifier of the properties using the current {@link InvocationStrategy}
+     */
+    BeanVerifier verifier() {
+        final InvocationStrategy strategy = InvocationStrategy.current();
+        BeanVerifier verifier = this.verifiers.get(strategy);
+        if (verifier == null) {
+            verifier = new BeanVerifier(this);
+            this.verifiers.putIfAbsent(strategy, verifier);
+        }
+        return verifier;
+    }
+
+    private static Map<String, PropertyDescriptor> indexByName(final PropertyDescriptor[] descriptors) {
+        if (descriptors == null) {
+            return Collections.emptyMap();
+        }
+        final Map<String, PropertyDescriptor> index = new HashMap<String, PropertyDescriptor>(descriptors.length * 2);
+        for (final PropertyDescriptor descriptor : descriptors) {
+            index.put(descriptor.getName(), descriptor);
+        }
+        return index;
+    }
+
+    private static Class<?> retrieveDeclaringClass(final Class<?> type, final String methodName,
+                                                   final Class<?>... parameterTypes) {
+        try {
+            return type.getMethod(methodName, parameterTypes).getDeclaringClass();
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    private static Class<?> findBuilder(final Class<?> type) {
+        for (final Class<?> declaredClass : type.getDeclaredClasses()) {
+            if (BUILDER_NAME.equals(declaredClass.getSimpleName())) {
+                return declaredClass;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,295 @@
+/*
+ * Copyright 2011 Ivo Woltring
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.ivonet.beanunit;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Central cache of the introspection results of all the classes tested by the {@link Asserter}s.
+ * <p/>
+ * Introspecting a class is expensive and all asserters (and all overloads of their methods) need the same information,
+ * so it is collected once per class and shared. The cache is thread safe.
+ * <p/>
+ * The metadata is kept in a {@link ClassValue}, so a cached class is found without locking and the cache does not keep
+ * a class (or its class loader) from being unloaded. A class is introspected once, threads asking for the same class
+ * at the same time wait for the first one.
+ * <p/>
+ * Memory is kept bounded by a maximum number of classes. When the cache is full an entry is evicted according to the
+ * {@link EvictionPolicy}. The default maximum size can be set with the system property
+ * <code>beanunit.metadata.maximumSize</code> and both can be changed at runtime with
+ * {@link #configure(int, EvictionPolicy)}. The classes are queued in the order they were introspected and evicted from
+ * the head of the queue, so an eviction takes constant time. Least recently used is approximated by giving a class
+ * that was asked for since it was queued a second chance at the back of the queue; recency is counted in
+ * introspections, not in lookups.
+ *
+ * @author Ivo Woltring
+ */
+public final class BeanMetadataCache {
+
+    /**
+     * Decides which entry is evicted when the cache is full.
+     */
+    public enum EvictionPolicy {
+        /**
+         * Evicts the class that has not been asked for the longest.
+         */
+        LEAST_RECENTLY_USED,
+        /**
+         * Evicts the class that was introspected first.
+         */
+        FIRST_IN_FIRST_OUT
+    }
+
+    static final String MAXIMUM_SIZE_PROPERTY = "beanunit.metadata.maximumSize";
+    static final int DEFAULT_MAXIMUM_SIZE = 10000;
+
+    private static final Object EVICTION_LOCK = new Object();
+    private static final LongAdder HITS = new LongAdder();
+    private static final LongAdder MISSES = new LongAdder();
+    private static final AtomicLong EVICTIONS = new AtomicLong();
+    private static final AtomicLong CLOCK = new AtomicLong();
+    private static final ReferenceQueue<Class<?>> UNLOADED = new ReferenceQueue<Class<?>>();
+    private static final Set<Entry> ENTRIES = ConcurrentHashMap.<Entry>newKeySet();
+    /**
+     * The cached entries in eviction order, may hold entries that are no longer cached.
+     */
+    private static final Queue<Entry> ORDER = new ConcurrentLinkedQueue<Entry>();
+    private static final ClassValue<Slot> SLOTS = new ClassValue<Slot>() {
+        @Override
+        protected Slot computeValue(final Class<?> type) {
+            return new Slot(type);
+        }
+    };
+
+    private static volatile int maximumSize = Integer.getInteger(MAXIMUM_SIZE_PROPERTY, DEFAULT_MAXIMUM_SIZE);
+    private static volatile EvictionPolicy evictionPolicy = EvictionPolicy.LEAST_RECENTLY_USED;
+
+    private BeanMetadataCache() {
+        //All static so don't create
+    }
+
+    /**
+     * Retrieves the metadata of a class and introspects the class if it is not cached yet.
+     *
+     * @param type the class to get the metadata for
+     * @return the (shared) metadata of the class
+     */
+    static BeanMetadata get(final Class<?> type) {
+        final Slot slot = SLOTS.get(type);
+        final BeanMetadata metadata = slot.metadata;
+        if (metadata != null) {
+            HITS.increment();
+            slot.entry.touch();
+            return metadata;
+        }
+        return slot.load(type);
+    }
+
+    /**
+     * Changes the maximum size and eviction policy of the cache.
+     * All cached entries are dropped.
+     *
+     * @param maximumSize the maximum number of classes to keep (must be positive)
+     * @param policy      the policy deciding which class to evict when the cache is full
+     */
+    public static void configure(final int maximumSize, final EvictionPolicy policy) {
+        if (maximumSize < 1) {
+            throw new IllegalArgumentException("The maximum size must be positive but was: " + maximumSize);
+        }
+        if (policy == null) {
+            throw new IllegalArgumentException("An eviction policy must be provided.");
+        }
+        synchronized (EVICTION_LOCK) {
+            BeanMetadataCache.maximumSize = maximumSize;
+            evictionPolicy = policy;
+            evictAll();
+        }
+    }
+
+    /**
+     * Drops all cached entries and resets the statistics.
+     */
+    public static void clear() {
+        synchronized (EVICTION_LOCK) {
+            evictAll();
+        }
+        HITS.reset();
+        MISSES.reset();
+        EVICTIONS.set(0);
+    }
+
+    /**
+     * @return the number of classes currently cached
+     */
+    public static int size() {
+        expungeUnloaded();
+        return ENTRIES.size();
+    }
+
+    /**
+     * @return the number of times the metadata of a class was found in the cache
+     */
+    public static long getHitCount() {
+        return HITS.sum();
+    }
+
+    /**
+     * @return the number of times a class had to be introspected
+     */
+    public static long getMissCount() {
+        return MISSES.sum();
+    }
+
+    /**
+     * @return the number of classes evicted because the cache was full
+     */
+    public static long getEvictionCount() {
+        return EVICTIONS.get();
+    }
+
+    private static void expungeUnloaded() {
+        Reference<? extends Class<?>> unloaded;
+        while ((unloaded = UNLOADED.poll()) != null) {
+            ENTRIES.remove(unloaded);
+            ORDER.remove(unloaded);
+        }
+    }
+
+    private static void evictIfFull() {
+        expungeUnloaded();
+        if (ENTRIES.size() <= maximumSize) {
+            return;
+        }
+        synchronized (EVICTION_LOCK) {
+            final boolean leastRecentlyUsed = evictionPolicy == EvictionPolicy.LEAST_RECENTLY_USED;
+            while (ENTRIES.size() > maximumSize) {
+                final Entry eldest = ORDER.poll();
+                if (eldest == null) {
+                    //Lost by a concurrent clear, queue what is left
+                    ORDER.addAll(ENTRIES);
+                } else if (!ENTRIES.contains(eldest)) {
+                    continue;
+                } else if (leastRecentlyUsed && eldest.usedSinceQueued()) {
+                    eldest.requeued();
+                    ORDER.add(eldest);
+                } else if (eldest.evict()) {
+                    EVICTIONS.incrementAndGet();
+                }
+            }
+        }
+    }
+
+    private static void evictAll() {
+        for (final Entry entry : ENTRIES) {
+            entry.evict();
+        }
+        ENTRIES.clear();
+        ORDER.clear();
+    }
+
+    /**
+     * The metadata of one class, stored in the class itself by the {@link ClassValue}.
+     */
+    private static final class Slot {
+        private final Entry entry;
+        private volatile BeanMetadata metadata;
+
+        Slot(final Class<?> type) {
+            this.entry = new Entry(type);
+        }
+
+        BeanMetadata load(final Class<?> type) {
+            final BeanMetadata loaded;
+            synchronized (this) {
+                if (this.metadata != null) {
+                    HITS.increment();
+                    return this.metadata;
+                }
+                MISSES.increment();
+                final Timing timing = Timing.start(BeanUnitEvent.Phase.INTROSPECTION);
+                loaded = BeanMetadata.introspect(type);
+                Timing.finish(timing, type, null);
+                this.metadata = loaded;
+                this.entry.inserted();
+                ENTRIES.add(this.entry);
+                ORDER.add(this.entry);
+            }
+            evictIfFull();
+            return loaded;
+        }
+
+        void clear() {
+            this.metadata = null;
+        }
+    }
+
+    /**
+     * Tracks a cached class for eviction without keeping it loaded.
+     */
+    private static final class Entry extends WeakReference<Class<?>> {
+        private volatile long queued;
+        private volatile long lastUsed;
+
+        Entry(final Class<?> type) {
+            super(type, UNLOADED);
+        }
+
+        void inserted() {
+            this.queued = CLOCK.getAndIncrement();
+            this.lastUsed = this.queued;
+        }
+
+        void requeued() {
+            this.queued = CLOCK.get();
+        }
+
+        /**
+         * Writes only when an introspection happened since the last use, so lookups hardly ever write.
+         */
+        void touch() {
+            final long now = CLOCK.get();
+            if (this.lastUsed != now) {
+                this.lastUsed = now;
+            }
+        }
+
+        /**
+         * @return true if the class was asked for after it was queued
+         */
+        boolean usedSinceQueued() {
+            return this.lastUsed > this.queued;
+        }
+
+        /**
+         * @return true if the class was still cached
+         */
+        boolean evict() {
+            final Class<?> type = get();
+            if (type != null) {
+                SLOTS.get(type).clear();
+            }
+            return ENTRIES.remove(this) && type != null;
+        }
+    }
+}
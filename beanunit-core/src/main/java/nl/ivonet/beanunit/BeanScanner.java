@@ -0,0 +1,553 @@
+/*
+ * Copyright 2011 Ivo Woltring
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nl.ivonet.beanunit;
+
+import java.beans.IntrospectionException;
+import java.beans.PropertyDescriptor;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Modifier;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Enumeration;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Consumer;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Finds the beans in directories and jar files.
+ * <p/>
+ * Every class file found is first read, memory mapped when in a directory, to see if it could be a bean at all
+ * (see {@link #prefilter(boolean)}). Only then is it loaded with <code>Class.forName(name, false, loader)</code>, so
+ * no static initializer is run, and classified:
+ * <ul>
+ * <li>a nested class called "Builder": {@link BuilderBeanAsserter};</li>
+ * <li>setters and a public default constructor: {@link PojoContractAsserter};</li>
+ * <li>no setters but getters and a public constructor with parameters: {@link ConstructedBeanAsserter}.</li>
+ * </ul>
+ * Everything else (interfaces, abstract and nested classes, utilities) is skipped.
+ * <p/>
+ * Directories are scanned in parallel per sub directory and jars per batch of entries. Candidates are handed out
+ * while the scan is still running, see {@link #scan(Consumer)} and {@link #stream()}. Scanners are immutable.
+ *
+ * @author Ivo Woltring
+ */
+public final class BeanScanner {
+    private static final String CLASS_FILE_SUFFIX = ".class";
+    private static final String INNER_CLASS_SEPARATOR = "$";
+    private static final int BATCH_SIZE = 64;
+    private static final Object END_OF_SCAN = new Object();
+
+    private final ClassLoader loader;
+    private final List<Location> locations;
+    private final List<String> packages;
+    private final ForkJoinPool pool;
+    private final boolean prefilter;
+
+    private BeanScanner(final ClassLoader loader, final List<Location> locations, final List<String> packages,
+                        final ForkJoinPool pool, final boolean prefilter) {
+        this.loader = loader;
+        this.locations = locations;
+        this.packages = packages;
+        this.pool = pool;
+        this.prefilter = prefilter;
+    }
+
+    /**
+     * @return a scanner of all the directories and jars on the "java.class.path"
+     */
+    public static BeanScanner classpath() {
+        final List<File> roots = new ArrayList<File>();
+        for (final String entry : System.getProperty("java.class.path").split(File.pathSeparator)) {
+            if (!entry.isEmpty()) {
+                roots.add(new File(entry));
+            }
+        }
+        return of(Thread.currentThread().getContextClassLoader(), roots.toArray(new File[roots.size()]));
+    }
+
+    /**
+     * @param loader the class loader to load the classes found with
+     * @param roots  class directories and jar files
+     * @return a scanner of the roots
+     */
+    public static BeanScanner of(final ClassLoader loader, final File... roots) {
+        final List<Location> locations = new ArrayList<Location>();
+        for (final File root : roots) {
+            locations.add(new Location(root, "", true));
+        }
+        return new BeanScanner(loader, locations, Collections.<String>emptyList(), ForkJoinPool.commonPool(),
+                               true);
+    }
+
+    /**
+     * @param packageName         the package, e.g. "nl.ivonet.dto"
+     * @param loader              the class loader to find the package and load its classes with
+     * @param includeSubPackages  true to also scan the sub packages
+     * @return a scanner of the package wherever the class loader finds it
+     */
+    public static BeanScanner forPackage(final String packageName, final ClassLoader loader,
+                                         final boolean includeSubPackages) {
+        final String path = packageName.replace('.', '/');
+        final List<Location> locations = new ArrayList<Location>();
+        try {
+            final Enumeration<URL> resources = loader.getResources(path);
+            while (resources.hasMoreElements()) {
+                final URL resource = resources.nextElement();
+                if ("jar".equals(resource.getProtocol())) {
+                    final File jar = toFile(((JarURLConnection) resource.openConnection()).getJarFileURL());
+                    locations.add(new Location(jar, path + "/", includeSubPackages));
+                } else if ("file".equals(resource.getProtocol())) {
+                    locations.add(new Location(toFile(resource), packageName + ".", includeSubPackages));
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not read package " + packageName, e);
+        }
+        return new BeanScanner(loader, locations, Collections.<String>emptyList(), ForkJoinPool.commonPool(),
+                               true);
+    }
+
+    /**
+     * @param prefixes the package prefixes to limit the scan to, e.g. "nl.ivonet"
+     * @return a scanner only finding classes in these packages
+     */
+    public BeanScanner packages(final String... prefixes) {
+        return new BeanScanner(this.loader, this.locations, Arrays.asList(prefixes), this.pool, this.prefilter);
+    }
+
+    /**
+     * @param forkJoinPool the pool to scan on
+     * @return a scanner scanning on the given pool
+     */
+    public BeanScanner pool(final ForkJoinPool forkJoinPool) {
+        return new BeanScanner(this.loader, this.locations, this.packages, forkJoinPool, this.prefilter);
+    }
+
+    /**
+     * By default the class files are read before loading and only the classes that look like a bean are loaded.
+     *
+     * @param readClassFiles false to load every class found and classify the loaded class only
+     * @return a scanner with or without the pre-filter
+     */
+    public BeanScanner prefilter(final boolean readClassFiles) {
+        return new BeanScanner(this.loader, this.locations, this.packages, this.pool, readClassFiles);
+    }
+
+    /**
+     * Scans and hands every candidate to the consumer as soon as it is found, from the threads of the pool.
+     * Returns when the scan is finished.
+     *
+     * @param consumer the thread safe consumer of the candidates
+     */
+    public void scan(final Consumer<? super BeanCandidate> consumer) {
+        this.pool.invoke(new ScanTask(classifying(consumer), this.prefilter));
+    }
+
+    /**
+     * @return all the top level classes found, loaded but not initialized, sorted by name
+     */
+    List<Class<?>> classes() {
+        final List<Class<?>> classes = Collections.synchronizedList(new ArrayList<Class<?>>());
+        this.pool.invoke(new ScanTask(new Consumer<Class<?>>() {
+            @Override
+            public void accept(final Class<?> type) {
+                classes.add(type);
+            }
+        }, false));
+        final List<Class<?>> sorted = new ArrayList<Class<?>>(classes);
+        Collections.sort(sorted, new Comparator<Class<?>>() {
+            @Override
+            public int compare(final Class<?> first, final Class<?> second) {
+                return first.getName().compareTo(second.getName());
+            }
+        });
+        return sorted;
+    }
+
+    /**
+     * Starts the scan in the background. The stream blocks until the next candidate is found and ends with the scan.
+     *
+     * @return the candidates in the order they are found
+     */
+    public Stream<BeanCandidate> stream() {
+        final BlockingQueue<Object> found = new LinkedBlockingQueue<Object>();
+        final ScanTask scan = new ScanTask(classifying(new Consumer<BeanCandidate>() {
+            @Override
+            public void accept(final BeanCandidate candidate) {
+                found.add(candidate);
+            }
+        }), this.prefilter);
+        this.pool.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    scan.invoke();
+                } catch (RuntimeException e) {
+                    found.add(e);
+                } finally {
+                    found.add(END_OF_SCAN);
+                }
+            }
+        });
+        final Iterator<BeanCandidate> candidates = new Iterator<BeanCandidate>() {
+            private Object next;
+
+            @Override
+            public boolean hasNext() {
+                if (this.next == null) {
+                    try {
+                        this.next = found.take();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new IllegalStateException("Interrupted while scanning", e);
+                    }
+                }
+                if (this.next instanceof RuntimeException) {
+                    throw (RuntimeException) this.next;
+                }
+                return this.next != END_OF_SCAN;
+            }
+
+            @Override
+            public BeanCandidate next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                final BeanCandidate candidate = (BeanCandidate) this.next;
+                this.next = null;
+                return candidate;
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(candidates, Spliterator.NONNULL), false);
+    }
+
+    /**
+     * Tells which asserter applies to a class.
+     *
+     * @param type the class
+     * @return the candidate or null if the class does not look like a bean
+     */
+    static BeanCandidate classify(final Class<?> type) {
+        if (type.isInterface() || type.isEnum() || type.isAnnotation() || type.isMemberClass()
+            || type.isAnonymousClass() || type.isLocalClass() || Modifier.isAbstract(type.getModifiers())
+            || !Modifier.isPublic(type.getModifiers())) {
+            return null;
+        }
+        final BeanMetadata metadata = BeanMetadataCache.get(type);
+        if (metadata.getBuilder() != null) {
+            return new BeanCandidate(type, BulkAsserter.Mode.BUILDER);
+        }
+        final PropertyDescriptor[] descriptors;
+        try {
+            descriptors = metadata.getPropertyDescriptors();
+        } catch (IntrospectionException e) {
+            return null;
+        }
+        boolean setters = false;
+        boolean getters = false;
+        for (final PropertyDescriptor descriptor : descriptors) {
+            setters |= descriptor.getWriteMethod() != null;
+            getters |= descriptor.getReadMethod() != null && !Asserter.ALWAYS_EXCLUDED.equals(descriptor.getName());
+        }
+        boolean defaultConstructor = false;
+        boolean argumentsConstructor = false;
+        for (final Constructor<?> constructor : metadata.getDeclaredConstructors()) {
+            if (Modifier.isPublic(constructor.getModifiers())) {
+                defaultConstructor |= constructor.getParameterTypes().length == 0;
+                argumentsConstructor |= constructor.getParameterTypes().length > 0;
+            }
+        }
+        if (setters && defaultConstructor) {
+            return new BeanCandidate(type, BulkAsserter.Mode.POJO);
+        }
+        if (!setters && getters && argumentsConstructor) {
+            return new BeanCandidate(type, BulkAsserter.Mode.CONSTRUCTED);
+        }
+        return null;
+    }
+
+    private static Consumer<Class<?>> classifying(final Consumer<? super BeanCandidate> consumer) {
+        return new Consumer<Class<?>>() {
+            @Override
+            public void accept(final Class<?> type) {
+                final BeanCandidate candidate = classify(type);
+                if (candidate != null) {
+                    consumer.accept(candidate);
+                }
+            }
+        };
+    }
+
+    private void loadAll(final List<String> classNames, final Consumer<Class<?>> consumer) {
+        for (final String className : classNames) {
+            final Class<?> type;
+            try {
+                type = Class.forName(className, false, this.loader);
+            } catch (ClassNotFoundException e) {
+                continue;
+            } catch (LinkageError e) {
+                continue;
+            }
+            consumer.accept(type);
+        }
+    }
+
+    private boolean isInPackages(final String className) {
+        if (this.packages.isEmpty()) {
+            return true;
+        }
+        for (final String prefix : this.packages) {
+            if (className.startsWith(prefix + ".")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Reads the class file to decide if the class is worth loading. When the file can not be read or parsed the
+     * loaded class decides.
+     */
+    private static boolean isCandidate(final File classFile) {
+        try {
+            return ClassFileSummary.parse(classFile).isCandidate();
+        } catch (IOException e) {
+            return true;
+        } catch (IllegalArgumentException e) {
+            return true;
+        }
+    }
+
+    private static boolean isCandidate(final JarFile jar, final JarEntry entry) {
+        try {
+            final InputStream in = jar.getInputStream(entry);
+            try {
+                return ClassFileSummary.parse(in, entry.getSize()).isCandidate();
+            } finally {
+                in.close();
+            }
+        } catch (IOException e) {
+            return true;
+        } catch (IllegalArgumentException e) {
+            return true;
+        }
+    }
+
+    private static boolean isTopLevelClassFile(final String name) {
+        return name.endsWith(CLASS_FILE_SUFFIX) && !name.contains(INNER_CLASS_SEPARATOR)
+               && !name.endsWith("package-info" + CLASS_FILE_SUFFIX)
+               && !name.endsWith("module-info" + CLASS_FILE_SUFFIX);
+    }
+
+    private static String className(final String prefix, final String fileName) {
+        return prefix + fileName.substring(0, fileName.length() - CLASS_FILE_SUFFIX.length());
+    }
+
+    private static File toFile(final URL url) {
+        try {
+            return new File(url.toURI());
+        } catch (URISyntaxException e) {
+            throw new IllegalStateException("Not a valid file location: " + url, e);
+        }
+    }
+
+    /**
+     * A directory or jar to scan. For a directory the prefix is the package name of its classes (with a trailing
+     * dot), for a jar the path of the entries to scan (with a trailing slash).
+     */
+    private static final class Location {
+        private final File file;
+        private final String prefix;
+        private final boolean recursive;
+
+        Location(final File file, final String prefix, final boolean recursive) {
+            this.file = file;
+            this.prefix = prefix;
+            this.recursive = recursive;
+        }
+    }
+
+    /**
+     * Forks a task per location.
+     */
+    private final class ScanTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final transient Consumer<Class<?>> consumer;
+        private final boolean prefilter;
+
+        ScanTask(final Consumer<Class<?>> consumer, final boolean prefilter) {
+            this.consumer = consumer;
+            this.prefilter = prefilter;
+        }
+
+        @Override
+        protected void compute() {
+            final List<RecursiveAction> tasks = new ArrayList<RecursiveAction>();
+            for (final Location location : BeanScanner.this.locations) {
+                if (location.file.isDirectory()) {
+                    tasks.add(new DirectoryTask(location.file, location.prefix, location.recursive, this.consumer,
+                                                this.prefilter));
+                } else if (location.file.isFile()) {
+                    tasks.add(new JarTask(location, this.consumer, this.prefilter));
+                }
+            }
+            invokeAll(tasks);
+        }
+    }
+
+    /**
+     * Loads the classes of one directory and forks a task per sub directory.
+     */
+    private final class DirectoryTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final File directory;
+        private final String packagePrefix;
+        private final boolean recursive;
+        private final transient Consumer<Class<?>> consumer;
+        private final boolean prefilter;
+
+        DirectoryTask(final File directory, final String packagePrefix, final boolean recursive,
+                      final Consumer<Class<?>> consumer, final boolean prefilter) {
+            this.directory = directory;
+            this.packagePrefix = packagePrefix;
+            this.recursive = recursive;
+            this.consumer = consumer;
+            this.prefilter = prefilter;
+        }
+
+        @Override
+        protected void compute() {
+            final File[] files = this.directory.listFiles();
+            if (files == null) {
+                return;
+            }
+            final List<RecursiveAction> subDirectories = new ArrayList<RecursiveAction>();
+            final List<String> classNames = new ArrayList<String>();
+            for (final File file : files) {
+                if (file.isDirectory()) {
+                    if (this.recursive) {
+                        subDirectories.add(new DirectoryTask(file, this.packagePrefix + file.getName() + ".", true,
+                                                             this.consumer, this.prefilter));
+                    }
+                } else if (isTopLevelClassFile(file.getName())) {
+                    final String className = className(this.packagePrefix, file.getName());
+                    if (isInPackages(className) && (!this.prefilter || isCandidate(file))) {
+                        classNames.add(className);
+                    }
+                }
+            }
+            for (final RecursiveAction subDirectory : subDirectories) {
+                subDirectory.fork();
+            }
+            loadAll(classNames, this.consumer);
+            for (final RecursiveAction subDirectory : subDirectories) {
+                subDirectory.join();
+            }
+        }
+    }
+
+    /**
+     * Lists the class entries of a jar, reads them if pre-filtering and loads the candidates in parallel batches.
+     * Jar entries are compressed, so they are read into memory instead of being memory mapped.
+     */
+    private final class JarTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final transient Location location;
+        private final transient Consumer<Class<?>> consumer;
+        private final boolean prefilter;
+
+        JarTask(final Location location, final Consumer<Class<?>> consumer, final boolean prefilter) {
+            this.location = location;
+            this.consumer = consumer;
+            this.prefilter = prefilter;
+        }
+
+        @Override
+        protected void compute() {
+            final List<BatchTask> batches = new ArrayList<BatchTask>();
+            List<String> batch = new ArrayList<String>(BATCH_SIZE);
+            try {
+                final JarFile jar = new JarFile(this.location.file);
+                try {
+                    final Enumeration<JarEntry> entries = jar.entries();
+                    while (entries.hasMoreElements()) {
+                        final JarEntry entry = entries.nextElement();
+                        final String name = entry.getName();
+                        if (!name.startsWith(this.location.prefix) || !isTopLevelClassFile(name)
+                            || !this.location.recursive && name.indexOf('/', this.location.prefix.length()) >= 0) {
+                            continue;
+                        }
+                        final String className = className("", name).replace('/', '.');
+                        if (!isInPackages(className) || this.prefilter && !isCandidate(jar, entry)) {
+                            continue;
+                        }
+                        batch.add(className);
+                        if (batch.size() == BATCH_SIZE) {
+                            final BatchTask task = new BatchTask(batch, this.consumer);
+                            task.fork();
+                            batches.add(task);
+                            batch = new ArrayList<String>(BATCH_SIZE);
+                        }
+                    }
+                } finally {
+                    jar.close();
+                }
+            } catch (IOException e) {
+                return;
+            }
+            loadAll(batch, this.consumer);
+            for (final BatchTask task : batches) {
+                task.join();
+            }
+        }
+    }
+
+    private final class BatchTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final transient List<String> classNames;
+        private final transient Consumer<Class<?>> consumer;
+
+        BatchTask(final List<String> classNames, final Consumer<Class<?>> consumer) {
+            this.classNames = classNames;
+            this.consumer = consumer;
+        }
+
+        @Override
+        protected void compute() {
+            loadAll(this.classNames, this.consumer);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2011 Ivo Woltring
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nl.ivonet.beanunit;
+
+/**
+ * The timing and allocations of one completed phase of verifying a bean, as reported to the
+ * {@link BeanUnitListener}s.
+ *
+ * @author Ivo Woltring
+ */
+public final class BeanUnitEvent {
+
+    /**
+     * The phases of verifying a bean that are timed.
+     */
+    public enum Phase {
+        /**
+         * Introspecting a class the first time it is asked for (cached after that).
+         */
+        INTROSPECTION,
+        /**
+         * Invoking a constructor, of a bean or of its Builder.
+         */
+        INSTANTIATION,
+        /**
+         * Resolving the default value of a type. The class of the event is the type resolved, not the bean.
+         */
+        DEFAULT_VALUE,
+        /**
+         * Invoking a setter.
+         */
+        SETTER,
+        /**
+         * Invoking a getter.
+         */
+        GETTER,
+        /**
+         * Invoking equals and hashCode. The property is the one just changed, or null for the general contract.
+         */
+        EQUALS_HASH_CODE,
+        /**
+         * Calling the builder methods and build method of a Builder, excluding the instantiation of the Builder.
+         */
+        BUILD
+    }
+
+    private final Phase phase;
+    private final Class<?> type;
+    private final String property;
+    private final long nanos;
+    private final long allocatedBytes;
+
+    BeanUnitEvent(final Phase phase, final Class<?> type, final String property, final long nanos,
+                  final long allocatedBytes) {
+        this.phase = phase;
+        this.type = type;
+        this.property = property;
+        this.nanos = nanos;
+        this.allocatedBytes = allocatedBytes;
+    }
+
+    public Phase getPhase() {
+        return this.phase;
+    }
+
+    /**
+     * @return the class involved, the bean (or Builder) or for {@link Phase#DEFAULT_VALUE} the type resolved
+     */
+    public Class<?> getType() {
+        return this.type;
+    }
+
+    /**
+     * @return the name of the property involved or null if the phase is not about one property
+     */
+    public String getProperty() {
+        return this.property;
+    }
+
+    /**
+     * @return the duration of the phase in nanoseconds
+     */
+    public long getNanos() {
+        return this.nanos;
+    }
+
+    /**
+     * @return the bytes allocated by the thread during the phase or -1 if the JVM can not tell
+     */
+    public long getAllocatedBytes() {
+        return this.allocatedBytes;
+    }
+
+    @Override
+    public String toString() {
+        return this.phase + " " + this.type.getName() + (this.property == null ? "" : "." + this.property) + " "
+               + this.nanos + "ns " + this.allocatedBytes + "B";
+    }
+}
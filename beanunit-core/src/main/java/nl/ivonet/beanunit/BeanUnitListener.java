@@ -0,0 +1,39 @@
+/*
+ * Copyright 2011 Ivo Woltring
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nl.ivonet.beanunit;
+
+/**
+ * Is told how long every phase of verifying a bean took.
+ * <p/>
+ * Listeners are registered with {@link BeanUnitListeners} or found on the classpath through the
+ * {@link java.util.ServiceLoader} (a <code>META-INF/services/nl.ivonet.beanunit.BeanUnitListener</code> file). As long
+ * as no listener is registered nothing is timed at all.
+ * <p/>
+ * Beans are verified in parallel, so a listener must be thread safe and should be quick.
+ *
+ * @author Ivo Woltring
+ * @see TimingAggregator
+ */
+public interface BeanUnitListener {
+
+    /**
+     * Called when a phase completed. Phases that fail are not reported.
+     *
+     * @param event the timing of the phase
+     */
+    void phaseCompleted(BeanUnitEvent event);
+}
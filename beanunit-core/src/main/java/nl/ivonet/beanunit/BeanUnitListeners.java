@@ -0,0 +1,119 @@
+/*
+ * Copyright 2011 Ivo Woltring
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nl.ivonet.beanunit;
+
+import java.util.Arrays;
+import java.util.ServiceLoader;
+
+/**
+ * The registry of the {@link BeanUnitListener}s.
+ * <p/>
+ * On first use the listeners found by the {@link ServiceLoader} are registered. Setting the system property
+ * <code>beanunit.timings</code> to a number N also registers a {@link TimingAggregator} that prints the N slowest
+ * classes and all phases to standard error when the JVM exits, e.g. <code>-Dbeanunit.timings=20</code>.
+ * <p/>
+ * While a Java Flight Recorder recording runs the phases are also emitted as JFR events, see
+ * {@link FlightRecorderEvents}.
+ *
+ * @author Ivo Woltring
+ */
+public final class BeanUnitListeners {
+    static final String TIMINGS_PROPERTY = "beanunit.timings";
+
+    private static final BeanUnitListener[] NONE = new BeanUnitListener[0];
+    private static final Object LOCK = new Object();
+
+    /**
+     * Copy on write so the hot path only reads a volatile field.
+     */
+    private static volatile BeanUnitListener[] listeners = NONE;
+
+    static {
+        for (final BeanUnitListener listener : ServiceLoader.load(BeanUnitListener.class)) {
+            add(listener);
+        }
+        final Integer top = Integer.getInteger(TIMINGS_PROPERTY);
+        if (top != null) {
+            final TimingAggregator aggregator = new TimingAggregator();
+            add(aggregator);
+            Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    aggregator.print(System.err, top);
+                }
+            }, "beanunit-timings"));
+        }
+        if (!"false".equalsIgnoreCase(System.getProperty(FlightRecorderEvents.ENABLED_PROPERTY))) {
+            try {
+                FlightRecorderEvents.install();
+            } catch (LinkageError e) {
+                //No jdk.jfr in this JVM
+            } catch (SecurityException e) {
+                //Not allowed to follow the recordings
+            }
+        }
+    }
+
+    private BeanUnitListeners() {
+        //All static so don't create
+    }
+
+    /**
+     * Registers a listener. Registering the same listener twice makes it receive every event twice.
+     *
+     * @param listener the listener to add
+     */
+    public static void add(final BeanUnitListener listener) {
+        if (listener == null) {
+            throw new IllegalArgumentException("A listener must be provided.");
+        }
+        synchronized (LOCK) {
+            final BeanUnitListener[] added = Arrays.copyOf(listeners, listeners.length + 1);
+            added[listeners.length] = listener;
+            listeners = added;
+        }
+    }
+
+    /**
+     * Deregisters (one registration of) a listener.
+     *
+     * @param listener the listener to remove
+     * @return true if the listener was registered
+     */
+    public static boolean remove(final BeanUnitListener listener) {
+        synchronized (LOCK) {
+            final BeanUnitListener[] current = listeners;
+            for (int i = 0; i < current.length; i++) {
+                if (current[i] == listener) {
+                    final BeanUnitListener[] removed = new BeanUnitListener[current.length - 1];
+                    System.arraycopy(current, 0, removed, 0, i);
+                    System.arraycopy(current, i + 1, removed, i, removed.length - i);
+                    listeners = removed;
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * @return the registered listeners, must not be modified
+     */
+    static BeanUnitListener[] current() {
+        return listeners;
+    }
+}
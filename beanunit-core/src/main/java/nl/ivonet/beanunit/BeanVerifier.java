@@ -0,0 +1,215 @@
+/*
+ * Copyright 2011 Ivo Woltring
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.ivonet.beanunit;
+
+import java.beans.IntrospectionException;
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.List;
+
+import static nl.ivonet.beanunit.Verify.assertEquals;
+import static nl.ivonet.beanunit.Verify.assertFalse;
+import static nl.ivonet.beanunit.Verify.assertTrue;
+import static nl.ivonet.beanunit.Verify.fail;
+
+/**
+ * The property checks of one bean class compiled into a fixed list of steps.
+ * <p/>
+ * All the decisions the generic asserter loops make per property (is it writable, is it primitive, which accessor to
+ * use) are taken once when the verifier is compiled. Every step calls its getter or setter through the accessor the
+ * {@link BeanMetadata} holds for the current {@link InvocationStrategy}.
+ * <p/>
+ * Verifiers are cached per strategy in the {@link BeanMetadata} of the class, so they are evicted and unloaded
+ * together with it.
+ *
+ * @author Ivo Woltring
+ */
+final class BeanVerifier {
+
+    private final IntrospectionException introspectionException;
+    private final Step[] steps;
+
+    /**
+     * Use {@link #of(Class)} in stead of calling this constructor directly.
+     *
+     * @param metadata the metadata of the bean class
+     */
+    BeanVerifier(final BeanMetadata metadata) {
+        PropertyDescriptor[] descriptors = null;
+        IntrospectionException failure = null;
+        try {
+            descriptors = metadata.getPropertyDescriptors();
+        } catch (IntrospectionException e) {
+            failure = e;
+        }
+        this.introspectionException = failure;
+        this.steps = compile(metadata.getType(), metadata, descriptors);
+    }
+
+    /**
+     * @param type the bean class
+     * @return the (cached) verifier of the class for the current {@link InvocationStrategy}
+     */
+    static BeanVerifier of(final Class<?> type) {
+        return BeanMetadataCache.get(type).verifier();
+    }
+
+    /**
+     * Asserts for every writable property that setting it on only one of two equal instances makes them unequal and
+     * setting it on both makes them equal with the same hashCode again. Non primitive properties are also checked
+     * with null values.
+     *
+     * @param one       an instance equal to two
+     * @param two       an instance equal to one
+     * @param blacklist the names of the properties not to check
+     * @throws InvocationTargetException if a setter throws an exception
+     * @throws IllegalAccessException    if a setter can not be accessed
+     * @throws IntrospectionException    if the class could not be introspected
+     */
+    void assertEqualsHashCodePerProperty(final Object one, final Object two, final List<String> blacklist)
+            throws InvocationTargetException, IllegalAccessException, IntrospectionException {
+        checkIntrospection();
+        for (final Step step : this.steps) {
+            if (step.setter == null || blacklist.contains(step.name)) {
+                continue;
+            }
+            final Object arg = Asserter.retrieveDefaultValueByType(step.type);
+            try {
+                Timing.set(step.setter, one, step.name, arg);
+
+                assertFalse(step.setDiffersMessage, Timing.areEqual(one, two, step.name));
+
+                Timing.set(step.setter, two, step.name, arg);
+
+                assertTrue(step.setEqualMessage, Timing.areEqual(one, two, step.name));
+
+                assertTrue(step.setHashCodeMessage, Timing.haveEqualHashCodes(one, two, step.name));
+
+                if (!step.primitive) {
+                    Timing.set(step.setter, one, step.name, null);
+
+                    assertFalse(step.nullDiffersMessage, Timing.areEqual(one, two, step.name));
+
+                    Timing.set(step.setter, two, step.name, null);
+
+                    assertTrue(step.nullEqualMessage, Timing.areEqual(one, two, step.name));
+
+                    assertTrue(step.nullHashCodeMessage, Timing.haveEqualHashCodes(one, two, step.name));
+                }
+            } catch (Verify.Abort e) {
+                //Recorded in the report, make both equal again for the next property
+                step.setter.set(one, arg);
+                step.setter.set(two, arg);
+            }
+        }
+    }
+
+    /**
+     * Asserts that the object has no writable properties and that every getter returns the default value of its
+     * type, as an object constructed with default values should.
+     *
+     * @param object    the constructed object
+     * @param blacklist the names of the properties not to check
+     * @throws InvocationTargetException if a getter throws an exception
+     * @throws IllegalAccessException    if a getter can not be accessed
+     * @throws IntrospectionException    if the class could not be introspected
+     */
+    void assertImmutableWithDefaults(final Object object, final List<String> blacklist)
+            throws InvocationTargetException, IllegalAccessException, IntrospectionException {
+        checkIntrospection();
+        for (final Step step : this.steps) {
+            try {
+                if (step.setter != null) {
+                    fail("This object is not immutable. It has a writeMethod for: " + step.name);
+                }
+                if (blacklist.contains(step.name)) {
+                    continue;
+                }
+                assertEquals(Asserter.retrieveDefaultValueByType(step.type),
+                             Timing.get(step.getter, object, step.name));
+            } catch (Verify.Abort e) {
+                //Recorded in the report, continue with the next property
+            }
+        }
+    }
+
+    private void checkIntrospection() throws IntrospectionException {
+        if (this.introspectionException != null) {
+            throw this.introspectionException;
+        }
+    }
+
+    private static Step[] compile(final Class<?> type, final BeanMetadata metadata,
+                                  final PropertyDescriptor[] descriptors) {
+        if (descriptors == null) {
+            return new Step[0];
+        }
+        final Step[] steps = new Step[descriptors.length];
+        for (int i = 0; i < descriptors.length; i++) {
+            steps[i] = new Step(type, metadata, descriptors[i]);
+        }
+        return steps;
+    }
+
+    /**
+     * Everything needed to check one property, including the messages of the writable ones so checking a property
+     * builds no strings.
+     */
+    private static final class Step {
+        private final String name;
+        private final Class<?> type;
+        private final boolean primitive;
+        private final Invokers.Getter getter;
+        private final Invokers.Setter setter;
+        private final String setDiffersMessage;
+        private final String setEqualMessage;
+        private final String setHashCodeMessage;
+        private final String nullDiffersMessage;
+        private final String nullEqualMessage;
+        private final String nullHashCodeMessage;
+
+        private Step(final Class<?> bean, final BeanMetadata metadata, final PropertyDescriptor descriptor) {
+            this.name = descriptor.getName();
+            this.type = descriptor.getPropertyType();
+            this.primitive = this.type != null && this.type.isPrimitive();
+            final Method readMethod = descriptor.getReadMethod();
+            final Method writeMethod = descriptor.getWriteMethod();
+            this.getter = readMethod == null ? null : metadata.getter(readMethod);
+            this.setter = writeMethod == null ? null : metadata.setter(writeMethod);
+            if (writeMethod == null) {
+                this.setDiffersMessage = null;
+                this.setEqualMessage = null;
+                this.setHashCodeMessage = null;
+                this.nullDiffersMessage = null;
+                this.nullEqualMessage = null;
+                this.nullHashCodeMessage = null;
+                return;
+            }
+            final String method = "Instances of " + bean.getSimpleName() + " with method " + writeMethod.getName();
+            this.setDiffersMessage =
+                    "Instances with o1 having " + this.name + " set and o2 having it not set are equal";
+            this.setEqualMessage = method + "() set and second instance having it set to the same object are not equal";
+            this.setHashCodeMessage =
+                    method + "() set and second instance having it set to the same object have different hashCode";
+            this.nullDiffersMessage =
+                    "Instances with o1 having " + this.name + " set to null and o2 having it not set are equal";
+            this.nullEqualMessage = method + "() set to null and second instance having it set tonull are not equal";
+            this.nullHashCodeMessage =
+                    method + "() set to null and second instance having it set to null have different hashCode";
+        }
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2011 Ivo Woltring
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nl.ivonet.beanunit;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static nl.ivonet.beanunit.Verify.assertFalse;
+import static nl.ivonet.beanunit.Verify.assertTrue;
+import static nl.ivonet.beanunit.Verify.fail;
+
+/**
+ * The precompiled way a Builder creates its object: the constructor, the builder methods to call in order and the
+ * build method, all bound to their invokers.
+ * <p/>
+ * The structure of the Builder is checked once while compiling. Building an object after that is nothing more than
+ * walking the invocations with their {@link DefaultArguments}.
+ * <p/>
+ * Plans are cached per Builder in its {@link BeanMetadata}.
+ *
+ * @author Ivo Woltring
+ */
+final class BuildPlan {
+    private static final String METHOD_IGNORE_CHARACTER = "$";
+
+    private final Class<?> builderType;
+    private final Invokers.Instantiator instantiator;
+    private final Invokers.MethodInvoker[] steps;
+    private final Invokers.MethodInvoker buildMethod;
+    /**
+     * The arguments of the constructor (index 0) and of every step (index i + 1).
+     */
+    private final DefaultArguments arguments;
+
+    private BuildPlan(final Class<?> builderType, final Invokers.Instantiator instantiator,
+                      final List<Invokers.MethodInvoker> steps, final Invokers.MethodInvoker buildMethod,
+                      final List<Class<?>[]> parameterTypes) {
+        this.builderType = builderType;
+        this.instantiator = instantiator;
+        this.steps = steps.toArray(new Invokers.MethodInvoker[steps.size()]);
+        this.buildMethod = buildMethod;
+        this.arguments = new DefaultArguments(parameterTypes);
+    }
+
+    /**
+     * Discovers and checks the structure of the builder and binds all the invocations needed to build an object.
+     *
+     * @param metadata        the metadata of the builder
+     * @param buildMethodName the name of the method that builds the object
+     * @param excludedMethods the builder methods not to call
+     * @return the plan
+     * @throws NoSuchMethodException if the builder has no public build method
+     */
+    static BuildPlan compile(final BeanMetadata metadata, final String buildMethodName,
+                             final Collection<String> excludedMethods) throws NoSuchMethodException {
+        final Class<?> builderUnderTest = metadata.getType();
+        final Constructor<?>[] constructors = metadata.getDeclaredConstructors();
+        if (constructors.length > 1) {
+            fail("There should only be one constructor in a Builder class");
+        }
+        final Method buildMethod = builderUnderTest.getMethod(buildMethodName);
+
+        final List<Class<?>[]> parameterTypes = new ArrayList<Class<?>[]>();
+        parameterTypes.add(constructors[0].getParameterTypes());
+
+        final Method[] methods = builderUnderTest.getDeclaredMethods();
+        assertFalse("There should be builder methods ", methods.length == 0);
+        boolean hasBuilderMethods = false;
+        final List<Invokers.MethodInvoker> steps = new ArrayList<Invokers.MethodInvoker>();
+        for (final Method method : methods) {
+            final boolean builderMethod = isReturnTypeTheBuilder(builderUnderTest, method);
+            hasBuilderMethods |= builderMethod;
+            if (excludedMethods.contains(method.getName()) || buildMethodName.equals(method.getName())) {
+                continue;
+            }
+            if (builderMethod) {
+                steps.add(metadata.invoker(method));
+                parameterTypes.add(method.getParameterTypes());
+            } else if (!method.getName().contains(METHOD_IGNORE_CHARACTER)) {
+                fail(String.format("The return type of method %s is not the Builder type.", method.getName()));
+            }
+        }
+        assertTrue("No builder methods found in the builder. Do the builder methods have the Builder as returnType?",
+                   hasBuilderMethods);
+        return new BuildPlan(builderUnderTest, metadata.instantiator(constructors[0]), steps,
+                             metadata.invoker(buildMethod), parameterTypes);
+    }
+
+    /**
+     * Builds a new object by instantiating the builder, calling all the builder methods and the build method.
+     *
+     * @return the built object
+     * @throws IllegalAccessException    if a builder method is not accessible
+     * @throws InvocationTargetException if a builder method or the build method throws an exception
+     */
+    Object build() throws IllegalAccessException, InvocationTargetException {
+        final DefaultArguments.Binding bound = this.arguments.current();
+        final Object builder = Asserter.createObject(this.builderType, this.instantiator, bound.argumentsOf(0));
+        final Timing timing = Timing.start(BeanUnitEvent.Phase.BUILD);
+        for (int i = 0; i < this.steps.length; i++) {
+            this.steps[i].invoke(builder, bound.argumentsOf(i + 1));
+        }
+        final Object built = this.buildMethod.invoke(builder, Invokers.NO_ARGUMENTS);
+        Timing.finish(timing, this.builderType, null);
+        return built;
+    }
+
+    private static boolean isReturnTypeTheBuilder(final Class<?> builderUnderTest, final Method method) {
+        return builderUnderTest.getSimpleName().equals(method.getReturnType().getSimpleName());
+    }
+}
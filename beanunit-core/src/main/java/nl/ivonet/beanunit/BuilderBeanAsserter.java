@@ -16,11 +16,8 @@
 
 package nl.ivonet.beanunit;
 
-import java.beans.BeanInfo;
 import java.beans.IntrospectionException;
-import java.beans.Introspector;
 import java.beans.PropertyDescriptor;
-import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
@@ -28,10 +25,10 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
-import static org.junit.Assert.assertEquals;
-import static org.junit.Assert.assertFalse;
-import static org.junit.Assert.assertTrue;
-import static org.junit.Assert.fail;
+import static nl.ivonet.beanunit.Verify.assertEquals;
+import static nl.ivonet.beanunit.Verify.assertFalse;
+import static nl.ivonet.beanunit.Verify.assertTrue;
+import static nl.ivonet.beanunit.Verify.fail;
 
 /**
  * Asserts "simple" beans that are constructed using the "Builder" pattern as documented
@@ -51,9 +48,7 @@ import static org.junit.Assert.fail;
  */
 public class BuilderBeanAsserter extends Asserter {
 
-    private static final String BUILDER_NAME = "Builder";
     private static final String BUILD_METHOD_NAME = "build";
-    private static final String METHOD_IGNORE_CHARACTER = "$";
 
     /**
      * Tests a bean created by a builder.
@@ -78,20 +73,24 @@ public class BuilderBeanAsserter extends Asserter {
             @SuppressWarnings({"unchecked"})
             final T objectUnderTest = (T) createObject(builderUnderTest, buildMethodName, excludedBuilderMethods);
 
-            final BeanInfo beanInfo = Introspector.getBeanInfo(classUnderTest);
-            final PropertyDescriptor[] descriptors = beanInfo.getPropertyDescriptors();
+            final BeanMetadata metadata = BeanMetadataCache.get(classUnderTest);
+            final PropertyDescriptor[] descriptors = metadata.getPropertyDescriptors();
             for (final PropertyDescriptor descriptor : descriptors) {
-                if (descriptor.getWriteMethod() != null) {
-                    fail("This object is not immutable. It has a writeMethod for: " + descriptor.getName());
+                try {
+                    if (descriptor.getWriteMethod() != null) {
+                        fail("This object is not immutable. It has a writeMethod for: " + descriptor.getName());
+                    }
+                    if (blackListClassProperties.contains(descriptor.getDisplayName())) {
+                        continue;
+                    }
+
+                    final Object arg = retrieveDefaultValueByType(descriptor.getPropertyType());
+                    final Method readMethod = descriptor.getReadMethod();
+                    assertEquals("Not the expected value for method %s", readMethod.getName(), arg,
+                                 Timing.get(metadata.getter(readMethod), objectUnderTest, descriptor.getName()));
+                } catch (Verify.Abort e) {
+                    //Recorded in the report, continue with the next property
                 }
-                if (blackListClassProperties.contains(descriptor.getDisplayName())) {
-                    continue;
-                }
-
-                final Object arg = retrieveDefaultValueByType(descriptor.getPropertyType());
-                final Method readMethod = descriptor.getReadMethod();
-                assertEquals(String.format("Not the expected value for method %s", readMethod.getName()), arg,
-                                    readMethod.invoke(objectUnderTest));
             }
         } catch (InvocationTargetException e) {
             fail(e.getMessage());
@@ -109,41 +108,12 @@ public class BuilderBeanAsserter extends Asserter {
             throws NoSuchMethodException, IllegalAccessException, InvocationTargetException {
         final List<String> blacklistBuilderMethods = convertExclusions(excludedBuilderMethods);
         blacklistBuilderMethods.add(ALWAYS_EXCLUDED);
-        blacklistBuilderMethods.add(buildMethodName);
-
-        final Constructor[] constructors = builderUnderTest.getDeclaredConstructors();
-        if (constructors.length > 1) {
-            fail("There should only be one constructor in a Builder class");
-        }
-        final Method buildMethod = builderUnderTest.getMethod(buildMethodName);
-
-        @SuppressWarnings({"unchecked"})
-        final B builder = (B) createObject(constructors[0]);
-
-        final Method[] methods = builderUnderTest.getDeclaredMethods();
-        assertFalse("There should be builder methods ", methods.length == 0);
-        boolean hasBuilderMethods = false;
-        for (final Method method : methods) {
-            if (blacklistBuilderMethods.contains(method.getName())) {
-                if (isReturnTypeTheBuilder(builderUnderTest, method)) {
-                    hasBuilderMethods = true;
-                }
-                continue;
-            }
-            if (isReturnTypeTheBuilder(builderUnderTest, method)) {
-                hasBuilderMethods = true;
-                method.invoke(builder, createMethodParameterList(method));
-            } else if (methodToTest(method)) {
-                fail(String.format("The return type of method %s is not the Builder type.", method.getName()));
-            }
-        }
-        assertTrue("No builder methods found in the builder. Do the builder methods have the Builder as returnType?",
-                          hasBuilderMethods);
-        return buildMethod.invoke(builder);
+        return BeanMetadataCache.get(builderUnderTest).buildPlan(buildMethodName, blacklistBuilderMethods).build();
     }
 
     /**
      * Creates the object created by the Builder called "Builder" and a build method called "build".
+     * Use a {@link BeanFactory} to create many objects.
      *
      * @param classUnderTest      the class created
      * @param exclusionProperties properties not to use during the build
@@ -166,14 +136,6 @@ public class BuilderBeanAsserter extends Asserter {
         return null;
     }
 
-    private static boolean isReturnTypeTheBuilder(final Class builderUnderTest, final Method method) {
-        return builderUnderTest.getSimpleName().equals(method.getReturnType().getSimpleName());
-    }
-
-    private static boolean methodToTest(final Method method) {
-        return !method.getName().contains(METHOD_IGNORE_CHARACTER);
-    }
-
     private static List<String> convertExclusions(final List<String> excludedBuilderMethods) {
         final List<String> blacklistBuilderMethods;
         if (excludedBuilderMethods != null) {
@@ -234,7 +196,7 @@ public class BuilderBeanAsserter extends Asserter {
                                                                                    excludedProperties);
 
             final Class<?> equalsDeclaringClass = retrieveEqualsMethodDeclaringClass(classUnderTest);
-            final Class<?> hashCodeDeclaringClass = classUnderTest.getMethod(HASH_CODE_METHOD_NAME).getDeclaringClass();
+            final Class<?> hashCodeDeclaringClass = retrieveHashCodeMethodDeclaringClass(classUnderTest);
             if (doesNotOverrideObjectMethod(equalsDeclaringClass)) {
                 fail("If this test is run the equals() method must be overridden by the class under test.");
             }
@@ -246,6 +208,7 @@ public class BuilderBeanAsserter extends Asserter {
                                           classUnderTest));
             }
 
+            final Timing timing = Timing.start(BeanUnitEvent.Phase.EQUALS_HASH_CODE);
             assertTrue("Two instances build the same way are not equal (o1.equals(o2))", one.equals(two));
             assertTrue("Two instances build the same way do not have the same hashcode",
                               one.hashCode() == two.hashCode());
@@ -256,6 +219,7 @@ public class BuilderBeanAsserter extends Asserter {
             assertFalse("Equaling different types of object should not be equal", one.equals(new OtherType()));
             //noinspection ObjectEqualsNull
             assertFalse("Equaling null type should not be equal", one.equals(null));
+            Timing.finish(timing, classUnderTest, null);
 
         } catch (IllegalAccessException e) {
             fail(e.getMessage());
@@ -362,11 +326,9 @@ public class BuilderBeanAsserter extends Asserter {
     }
 
     private static Class<?> findBuilder(final Class classUnderTest) {
-        final Class<?>[] declaredClasses = classUnderTest.getDeclaredClasses();
-        for (final Class<?> declaredClass : declaredClasses) {
-            if (BUILDER_NAME.equals(declaredClass.getSimpleName())) {
-                return declaredClass;
-            }
+        final Class<?> builder = BeanMetadataCache.get(classUnderTest).getBuilder();
+        if (builder != null) {
+            return builder;
         }
         fail(String.format("No Builder class found for class under test [%s].", classUnderTest.getSimpleName()));
         return null;
@@ -382,6 +344,11 @@ public class BuilderBeanAsserter extends Asserter {
      * @param <T>                  the type of the classUnderTest
      */
     public static <T> void assertBean(final Class<T> classUnderTest, final String... exclusionMethodNames) {
+        final long key = ResultCache.key("BuilderBeanAsserter.assertBean", classUnderTest, null, exclusionMethodNames);
+        if (ResultCache.lookup(key) != ResultCache.MISS) {
+            return;
+        }
+        final long start = System.nanoTime();
         assertBuildObjectGetterBehavior(classUnderTest, exclusionMethodNames);
         try {
             final Class<?> declaringClass = retrieveEqualsMethodDeclaringClass(classUnderTest);
@@ -391,6 +358,7 @@ public class BuilderBeanAsserter extends Asserter {
         } catch (NoSuchMethodException e) {
             fail("Should never be possible unless the equals class has been removed from Object");
         }
+        ResultCache.passed(key, BulkAsserter.Mode.BUILDER, start);
     }
 
     /**
@@ -406,6 +374,12 @@ public class BuilderBeanAsserter extends Asserter {
      */
     public static <T, B> void assertBean(final Class<T> classUnderTest, final Class<B> builderUnderTest,
                                          final String... exclusionProperties) {
+        final long key = ResultCache.key("BuilderBeanAsserter.assertBean", classUnderTest, builderUnderTest,
+                                         exclusionProperties);
+        if (ResultCache.lookup(key) != ResultCache.MISS) {
+            return;
+        }
+        final long start = System.nanoTime();
         assertBuildObjectGetterBehavior(classUnderTest, builderUnderTest, exclusionProperties);
         try {
             final Class<?> declaringClass = retrieveEqualsMethodDeclaringClass(classUnderTest);
@@ -416,6 +390,7 @@ public class BuilderBeanAsserter extends Asserter {
         } catch (NoSuchMethodException e) {
             fail("Should never be possible unless the equals class has been removed from Object");
         }
+        ResultCache.passed(key, BulkAsserter.Mode.BUILDER, start);
     }
 
     /**
@@ -434,6 +409,13 @@ public class BuilderBeanAsserter extends Asserter {
     public static <T, B> void assertBean(final Class<T> classUnderTest, final Class<B> builderUnderTest,
                                          final String buildMethodName, final List<String> excludedBuilderMethods,
                                          final List<String> excludedClassProperties) {
+        final long key = ResultCache.key("BuilderBeanAsserter.assertBean", classUnderTest, builderUnderTest,
+                                         buildMethodName, String.valueOf(excludedBuilderMethods),
+                                         String.valueOf(excludedClassProperties));
+        if (ResultCache.lookup(key) != ResultCache.MISS) {
+            return;
+        }
+        final long start = System.nanoTime();
         assertBuildObjectGetterBehavior(classUnderTest, builderUnderTest, buildMethodName, excludedBuilderMethods,
                                                excludedClassProperties);
         try {
@@ -445,11 +427,7 @@ public class BuilderBeanAsserter extends Asserter {
         } catch (NoSuchMethodException e) {
             fail("Should never be possible unless the equals class has been removed from Object");
         }
-    }
-
-    private static Class<?> retrieveEqualsMethodDeclaringClass(final Class<?> classUnderTest)
-            throws NoSuchMethodException {
-        return classUnderTest.getMethod(EQUALS_METHOD_NAME, Object.class).getDeclaringClass();
+        ResultCache.passed(key, BulkAsserter.Mode.BUILDER, start);
     }
 
 }
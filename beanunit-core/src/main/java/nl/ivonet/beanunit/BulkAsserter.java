@@ -0,0 +1,375 @@
+/*
+ * Copyright 2011 Ivo Woltring
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nl.ivonet.beanunit;
+
+import java.beans.IntrospectionException;
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Consumer;
+
+/**
+ * Verifies many beans at once, in parallel on a {@link ForkJoinPool}.
+ * <p/>
+ * Every bean is routed to the {@link PojoContractAsserter}, {@link BuilderBeanAsserter} or
+ * {@link ConstructedBeanAsserter} and all outcomes are collected in a {@link BulkResult} instead of failing on the
+ * first bean:
+ * <pre>
+ * BulkAsserter.assertBeans(Arrays.&lt;Class&lt;?&gt;&gt;asList(Person.class, AddressDto.class)).assertSuccessful();
+ * </pre>
+ * The types registered by the calling thread (see {@link TypeArgumentScope}) are used by all the worker threads.
+ * <p/>
+ * Use {@link #assertScanned(BeanScanner, Consumer)} to find and verify the beans in one go.
+ * <p/>
+ * Beans that passed before are not verified again when the {@link ResultCache} is used. The surefire forks of a
+ * build share the beans of {@link #assertBeans(Collection, Mode, ForkJoinPool)} through the {@link WorkQueue}. With
+ * a {@link Shard} configured only the beans of that shard are verified.
+ * <p/>
+ * By default the common pool is used. Set the system property "beanunit.parallelism" or call
+ * {@link #configure(ForkJoinPool)} to use a dedicated pool.
+ *
+ * @author Ivo Woltring
+ */
+public final class BulkAsserter {
+    public static final String PARALLELISM_PROPERTY = "beanunit.parallelism";
+
+    private static volatile ForkJoinPool pool = createPool();
+
+    private BulkAsserter() {
+        //All static so don't create
+    }
+
+    /**
+     * The asserter to verify a bean with.
+     */
+    public enum Mode {
+        /**
+         * Chooses per bean: BUILDER if it has a nested "Builder" class, POJO if it has setters and CONSTRUCTED
+         * otherwise.
+         */
+        AUTO,
+        POJO,
+        CONSTRUCTED,
+        BUILDER;
+
+        /**
+         * @param type the bean
+         * @return the asserter that applies to the bean, never AUTO
+         */
+        static Mode detect(final Class<?> type) {
+            final BeanMetadata metadata = BeanMetadataCache.get(type);
+            if (metadata.getBuilder() != null) {
+                return BUILDER;
+            }
+            try {
+                for (final PropertyDescriptor descriptor : metadata.getPropertyDescriptors()) {
+                    if (descriptor.getWriteMethod() != null) {
+                        return POJO;
+                    }
+                }
+            } catch (IntrospectionException e) {
+                return POJO;
+            }
+            return CONSTRUCTED;
+        }
+    }
+
+    /**
+     * Uses the given pool for all bulk verifications from now on.
+     *
+     * @param forkJoinPool the pool, null to use the default again
+     */
+    public static void configure(final ForkJoinPool forkJoinPool) {
+        pool = forkJoinPool == null ? createPool() : forkJoinPool;
+    }
+
+    /**
+     * @return the pool bulk verifications run on
+     */
+    public static ForkJoinPool pool() {
+        return pool;
+    }
+
+    /**
+     * Verifies the beans choosing the asserter per bean.
+     *
+     * @param classes the beans to verify
+     * @return the outcome per bean
+     */
+    public static BulkResult assertBeans(final Collection<Class<?>> classes) {
+        return assertBeans(classes, Mode.AUTO);
+    }
+
+    /**
+     * Verifies the beans on the configured pool.
+     *
+     * @param classes the beans to verify
+     * @param mode    the asserter to use
+     * @return the outcome per bean
+     */
+    public static BulkResult assertBeans(final Collection<Class<?>> classes, final Mode mode) {
+        return assertBeans(classes, mode, pool);
+    }
+
+    /**
+     * Verifies the beans on the given pool.
+     *
+     * @param classes      the beans to verify
+     * @param mode         the asserter to use
+     * @param forkJoinPool the pool to verify on
+     * @return the outcome per bean
+     */
+    public static BulkResult assertBeans(final Collection<Class<?>> classes, final Mode mode,
+                                         final ForkJoinPool forkJoinPool) {
+        final Class<?>[] types = inShard(classes.toArray(new Class<?>[classes.size()]));
+        final BulkResult.BeanResult[] results = new BulkResult.BeanResult[types.length];
+        final long gcCount = Allocations.gcCount();
+        final long gcMillis = Allocations.gcMillis();
+        final WorkQueue queue = WorkQueue.installed();
+        if (queue != null) {
+            queue.verify(types, results, mode, Asserter.typeArguments(), forkJoinPool);
+        } else {
+            final Mode[] modes = new Mode[types.length];
+            Arrays.fill(modes, mode);
+            forkJoinPool.invoke(new VerifyTask(types, modes, results, 0, types.length, Asserter.typeArguments()));
+        }
+        return new BulkResult(Arrays.asList(results), Allocations.gcCount() - gcCount,
+                              Allocations.gcMillis() - gcMillis);
+    }
+
+    /**
+     * Verifies all the concrete top level classes of a package (not its sub packages) as found by the class loader
+     * of the current thread.
+     *
+     * @param packageName the package, e.g. "nl.ivonet.dto"
+     * @param mode        the asserter to use
+     * @return the outcome per bean
+     */
+    public static BulkResult assertPackage(final String packageName, final Mode mode) {
+        return assertBeans(findClasses(packageName, Thread.currentThread().getContextClassLoader()), mode);
+    }
+
+    /**
+     * Verifies the beans while they are being found, so the first results are there before the scan is done.
+     * Every candidate is verified with the asserter the scanner chose for it.
+     *
+     * @param scanner  the scanner finding the beans
+     * @param onResult the thread safe consumer of every result as soon as it is known
+     * @return the outcome per bean
+     */
+    public static BulkResult assertScanned(final BeanScanner scanner,
+                                           final Consumer<? super BulkResult.BeanResult> onResult) {
+        if (Shard.installed() != null) {
+            return assertScannedShard(scanner, onResult);
+        }
+        final TypeArguments typeArguments = Asserter.typeArguments();
+        final List<BulkResult.BeanResult> results =
+                Collections.synchronizedList(new ArrayList<BulkResult.BeanResult>());
+        final long gcCount = Allocations.gcCount();
+        final long gcMillis = Allocations.gcMillis();
+        scanner.pool(pool).scan(new Consumer<BeanCandidate>() {
+            @Override
+            public void accept(final BeanCandidate candidate) {
+                final BulkResult.BeanResult result;
+                final TypeArgumentScope scope = TypeArgumentScope.open(typeArguments);
+                try {
+                    result = verify(candidate.getType(), candidate.getMode());
+                } finally {
+                    scope.close();
+                }
+                results.add(result);
+                onResult.accept(result);
+            }
+        });
+        return new BulkResult(new ArrayList<BulkResult.BeanResult>(results), Allocations.gcCount() - gcCount,
+                              Allocations.gcMillis() - gcMillis);
+    }
+
+    /**
+     * Finds all the beans first, as the shards can only be planned when all the beans are known.
+     */
+    private static BulkResult assertScannedShard(final BeanScanner scanner,
+                                                 final Consumer<? super BulkResult.BeanResult> onResult) {
+        final List<BeanCandidate> candidates = Collections.synchronizedList(new ArrayList<BeanCandidate>());
+        scanner.pool(pool).scan(new Consumer<BeanCandidate>() {
+            @Override
+            public void accept(final BeanCandidate candidate) {
+                candidates.add(candidate);
+            }
+        });
+        Collections.sort(candidates, new Comparator<BeanCandidate>() {
+            @Override
+            public int compare(final BeanCandidate one, final BeanCandidate two) {
+                return one.getType().getName().compareTo(two.getType().getName());
+            }
+        });
+        final Class<?>[] all = new Class<?>[candidates.size()];
+        for (int i = 0; i < all.length; i++) {
+            all[i] = candidates.get(i).getType();
+        }
+        final boolean[] selected = Shard.installed().select(all);
+        final List<Class<?>> types = new ArrayList<Class<?>>();
+        final List<Mode> modes = new ArrayList<Mode>();
+        for (int i = 0; i < all.length; i++) {
+            if (selected[i]) {
+                types.add(all[i]);
+                modes.add(candidates.get(i).getMode());
+            }
+        }
+        final BulkResult.BeanResult[] results = new BulkResult.BeanResult[types.size()];
+        final long gcCount = Allocations.gcCount();
+        final long gcMillis = Allocations.gcMillis();
+        pool.invoke(new VerifyTask(types.toArray(new Class<?>[types.size()]), modes.toArray(new Mode[modes.size()]),
+                                   results, 0, results.length, Asserter.typeArguments()));
+        for (final BulkResult.BeanResult result : results) {
+            onResult.accept(result);
+        }
+        return new BulkResult(Arrays.asList(results), Allocations.gcCount() - gcCount,
+                              Allocations.gcMillis() - gcMillis);
+    }
+
+    /**
+     * @param types the beans
+     * @return the beans of the configured {@link Shard}, all of them if there is none
+     */
+    private static Class<?>[] inShard(final Class<?>[] types) {
+        final Shard shard = Shard.installed();
+        if (shard == null) {
+            return types;
+        }
+        final boolean[] selected = shard.select(types);
+        final List<Class<?>> inShard = new ArrayList<Class<?>>();
+        for (int i = 0; i < types.length; i++) {
+            if (selected[i]) {
+                inShard.add(types[i]);
+            }
+        }
+        return inShard.toArray(new Class<?>[inShard.size()]);
+    }
+
+    /**
+     * Verifies one bean and collects its violations.
+     *
+     * @param type the bean
+     * @param mode the asserter to use
+     * @return the outcome
+     */
+    static BulkResult.BeanResult verify(final Class<?> type, final Mode mode) {
+        final long start = System.nanoTime();
+        final long key = ResultCache.key("BulkAsserter." + mode, type, null);
+        final long entry = ResultCache.lookup(key);
+        if (entry != ResultCache.MISS) {
+            return new BulkResult.BeanResult(VerificationReport.cached(type, ResultCache.mode(entry)),
+                                             System.nanoTime() - start);
+        }
+        final VerificationReport report = VerificationReport.verify(type, mode);
+        if (report.isPassed()) {
+            ResultCache.passed(key, report.getMode(), start);
+        }
+        final long nanos = System.nanoTime() - start;
+        CostHistory.record(type.getName(), nanos);
+        return new BulkResult.BeanResult(report, nanos);
+    }
+
+    static List<Class<?>> findClasses(final String packageName, final ClassLoader loader) {
+        final List<Class<?>> classes = new ArrayList<Class<?>>();
+        for (final Class<?> type : BeanScanner.forPackage(packageName, loader, false).classes()) {
+            if (isConcreteClass(type)) {
+                classes.add(type);
+            }
+        }
+        return classes;
+    }
+
+    private static boolean isConcreteClass(final Class<?> type) {
+        return !type.isInterface() && !type.isEnum() && !type.isAnnotation()
+               && !Modifier.isAbstract(type.getModifiers());
+    }
+
+    private static ForkJoinPool createPool() {
+        return createPool(System.getProperty(PARALLELISM_PROPERTY));
+    }
+
+    /**
+     * Runs in the static initializer, so an invalid parallelism falls back to the common pool with a warning instead
+     * of making the class unusable.
+     *
+     * @param parallelism the value of the "beanunit.parallelism" property
+     * @return the pool to verify the beans in
+     */
+    static ForkJoinPool createPool(final String parallelism) {
+        if (parallelism == null || parallelism.trim().isEmpty()) {
+            return ForkJoinPool.commonPool();
+        }
+        try {
+            return new ForkJoinPool(Integer.parseInt(parallelism.trim()));
+        } catch (final IllegalArgumentException e) {
+            System.err.println("beanunit: ignoring " + PARALLELISM_PROPERTY + "=" + parallelism
+                               + ", it is not a valid parallelism");
+            return ForkJoinPool.commonPool();
+        }
+    }
+
+    /**
+     * Splits the beans in halves until one bean is left and verifies it in the scope of the caller.
+     */
+    private static final class VerifyTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Class<?>[] types;
+        private final Mode[] modes;
+        private final BulkResult.BeanResult[] results;
+        private final int from;
+        private final int to;
+        private final transient TypeArguments typeArguments;
+
+        VerifyTask(final Class<?>[] types, final Mode[] modes, final BulkResult.BeanResult[] results, final int from,
+                   final int to, final TypeArguments typeArguments) {
+            this.types = types;
+            this.modes = modes;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+            this.typeArguments = typeArguments;
+        }
+
+        @Override
+        protected void compute() {
+            if (this.to - this.from > 1) {
+                final int middle = (this.from + this.to) >>> 1;
+                invokeAll(new VerifyTask(this.types, this.modes, this.results, this.from, middle, this.typeArguments),
+                          new VerifyTask(this.types, this.modes, this.results, middle, this.to, this.typeArguments));
+                return;
+            }
+            for (int i = this.from; i < this.to; i++) {
+                final TypeArgumentScope scope = TypeArgumentScope.open(this.typeArguments);
+                try {
+                    this.results[i] = verify(this.types[i], this.modes[i]);
+                } finally {
+                    scope.close();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,212 @@
+/*
+ * Copyright 2011 Ivo Woltring
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nl.ivonet.beanunit;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The aggregated outcome of verifying many beans with the {@link BulkAsserter}.
+ * <p/>
+ * Failures are collected instead of thrown. Call {@link #assertSuccessful()} to turn them into one
+ * {@link AssertionError} at the end of a test.
+ *
+ * @author Ivo Woltring
+ */
+public final class BulkResult {
+    private final List<BeanResult> results;
+    private final List<BeanResult> failures;
+    private final long gcCount;
+    private final long gcMillis;
+
+    BulkResult(final List<BeanResult> results, final long gcCount, final long gcMillis) {
+        this.gcCount = gcCount;
+        this.gcMillis = gcMillis;
+        this.results = Collections.unmodifiableList(new ArrayList<BeanResult>(results));
+        final List<BeanResult> failed = new ArrayList<BeanResult>();
+        for (final BeanResult result : results) {
+            if (!result.isSuccessful()) {
+                failed.add(result);
+            }
+        }
+        this.failures = Collections.unmodifiableList(failed);
+    }
+
+    /**
+     * @return the results of all the verified beans in the order they were given
+     */
+    public List<BeanResult> getResults() {
+        return this.results;
+    }
+
+    /**
+     * @return the results of the beans that failed verification
+     */
+    public List<BeanResult> getFailures() {
+        return this.failures;
+    }
+
+    public boolean isSuccessful() {
+        return this.failures.isEmpty();
+    }
+
+    /**
+     * @return the bytes allocated verifying all the beans or -1 if the JVM can not tell
+     */
+    public long getAllocatedBytes() {
+        long bytes = 0;
+        for (final BeanResult result : this.results) {
+            if (result.getAllocatedBytes() == Allocations.UNKNOWN) {
+                return Allocations.UNKNOWN;
+            }
+            bytes += result.getAllocatedBytes();
+        }
+        return bytes;
+    }
+
+    /**
+     * The collections of the whole JVM during the run, including those caused by other threads.
+     *
+     * @return the number of garbage collections during the run
+     */
+    public long getGcCount() {
+        return this.gcCount;
+    }
+
+    /**
+     * @return the accumulated time of the garbage collections during the run in milliseconds
+     */
+    public long getGcMillis() {
+        return this.gcMillis;
+    }
+
+    /**
+     * @return the number of beans that were not verified because they passed before
+     */
+    public int getCachedCount() {
+        int cached = 0;
+        for (final BeanResult result : this.results) {
+            if (result.isCached()) {
+                cached++;
+            }
+        }
+        return cached;
+    }
+
+    /**
+     * Fails with one message listing every bean that failed verification.
+     */
+    public void assertSuccessful() {
+        if (isSuccessful()) {
+            return;
+        }
+        final StringBuilder message = new StringBuilder();
+        message.append(this.failures.size()).append(" of ").append(this.results.size())
+               .append(" beans failed verification:");
+        for (final BeanResult failure : this.failures) {
+            message.append("\n  ").append(failure.getType().getName()).append(" (").append(failure.getMode())
+                   .append("): ").append(failure.getReport().getMessage());
+        }
+        final AssertionError error = new AssertionError(message.toString());
+        for (final BeanResult failure : this.failures) {
+            error.addSuppressed(failure.getFailure());
+        }
+        throw error;
+    }
+
+    @Override
+    public String toString() {
+        return "BulkResult{" + this.results.size() + " verified, " + this.failures.size() + " failed, "
+               + getCachedCount() + " cached, "
+               + getAllocatedBytes() + " bytes allocated, " + this.gcCount + " GCs in " + this.gcMillis + "ms}";
+    }
+
+    /**
+     * The outcome of verifying one bean.
+     */
+    public static final class BeanResult {
+        private final VerificationReport report;
+        private final long nanos;
+        private volatile AssertionError failure;
+
+        BeanResult(final VerificationReport report, final long nanos) {
+            this.report = report;
+            this.nanos = nanos;
+        }
+
+        public Class<?> getType() {
+            return this.report.getType();
+        }
+
+        /**
+         * @return the asserter used, never {@link BulkAsserter.Mode#AUTO}
+         */
+        public BulkAsserter.Mode getMode() {
+            return this.report.getMode();
+        }
+
+        /**
+         * @return all the violations found on the bean
+         */
+        public VerificationReport getReport() {
+            return this.report;
+        }
+
+        /**
+         * The error is only created when asked for.
+         *
+         * @return the reason the verification failed or null if it succeeded
+         */
+        public Throwable getFailure() {
+            if (this.failure == null) {
+                this.failure = this.report.toAssertionError();
+            }
+            return this.failure;
+        }
+
+        public boolean isSuccessful() {
+            return this.report.isPassed();
+        }
+
+        /**
+         * @return true if the bean was not verified because it passed before
+         */
+        public boolean isCached() {
+            return this.report.isCached();
+        }
+
+        /**
+         * @return the time the verification took in nanoseconds
+         */
+        public long getNanos() {
+            return this.nanos;
+        }
+
+        /**
+         * @return the bytes allocated verifying the bean or -1 if the JVM can not tell
+         */
+        public long getAllocatedBytes() {
+            return this.report.getAllocatedBytes();
+        }
+
+        @Override
+        public String toString() {
+            return this.report.toString();
+        }
+    }
+}
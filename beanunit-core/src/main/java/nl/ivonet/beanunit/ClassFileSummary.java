@@ -0,0 +1,394 @@
+/*
+ * Copyright 2011 Ivo Woltring
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nl.ivonet.beanunit;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+
+/**
+ * What the {@link BeanScanner} needs to know about a class, read from its class file without loading it.
+ * <p/>
+ * Only the constant pool, the method table and the InnerClasses attribute are read. Properties inherited from a
+ * super class other than Object can not be seen this way, so such classes are accepted when their constructors fit
+ * and left to the loaded class to decide.
+ *
+ * @author Ivo Woltring
+ */
+final class ClassFileSummary {
+    private static final int MAGIC = 0xCAFEBABE;
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final int ACC_PUBLIC = 0x0001;
+    private static final int ACC_STATIC = 0x0008;
+    private static final int ACC_INTERFACE = 0x0200;
+    private static final int ACC_ABSTRACT = 0x0400;
+    private static final int ACC_SYNTHETIC = 0x1000;
+    private static final int ACC_ANNOTATION = 0x2000;
+    private static final int ACC_ENUM = 0x4000;
+    private static final int ACC_MODULE = 0x8000;
+    private static final int NOT_A_BEAN = ACC_INTERFACE | ACC_ABSTRACT | ACC_SYNTHETIC | ACC_ANNOTATION | ACC_ENUM
+                                          | ACC_MODULE;
+
+    private static final String OBJECT = "java/lang/Object";
+    private static final String CONSTRUCTOR = "<init>";
+    private static final String INNER_CLASSES = "InnerClasses";
+    private static final String BUILDER_NAME = "Builder";
+
+    private final String className;
+    private final int access;
+    private final boolean inheritsProperties;
+    private final boolean builder;
+    private final int getters;
+    private final int setters;
+    private final boolean publicDefaultConstructor;
+    private final boolean publicArgumentsConstructor;
+    private final boolean equals;
+    private final boolean hashCode;
+
+    private ClassFileSummary(final Parser parser) {
+        this.className = parser.className;
+        this.access = parser.access;
+        this.inheritsProperties = !OBJECT.equals(parser.superName);
+        this.builder = parser.builder;
+        this.getters = parser.getters;
+        this.setters = parser.setters;
+        this.publicDefaultConstructor = parser.publicDefaultConstructor;
+        this.publicArgumentsConstructor = parser.publicArgumentsConstructor;
+        this.equals = parser.equals;
+        this.hashCode = parser.hashCode;
+    }
+
+    /**
+     * @param buffer the complete class file, read from its position on
+     * @return the summary
+     * @throws IllegalArgumentException if the buffer does not hold a class file
+     */
+    static ClassFileSummary parse(final ByteBuffer buffer) {
+        try {
+            return new ClassFileSummary(new Parser(buffer));
+        } catch (IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Truncated class file", e);
+        }
+    }
+
+    /**
+     * Memory maps the class file and parses it.
+     *
+     * @param classFile the class file
+     * @return the summary
+     * @throws IOException if the file could not be read
+     */
+    static ClassFileSummary parse(final File classFile) throws IOException {
+        final RandomAccessFile file = new RandomAccessFile(classFile, "r");
+        try {
+            final FileChannel channel = file.getChannel();
+            return parse(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        } finally {
+            file.close();
+        }
+    }
+
+    /**
+     * @param in   the class file, e.g. a jar entry, not closed
+     * @param size the size of the class file or -1 if unknown
+     * @return the summary
+     * @throws IOException if the stream could not be read
+     */
+    static ClassFileSummary parse(final InputStream in, final long size) throws IOException {
+        byte[] bytes = new byte[size < 0 ? 4096 : (int) size];
+        int length = 0;
+        int read;
+        while ((read = in.read(bytes, length, bytes.length - length)) >= 0) {
+            length += read;
+            if (length == bytes.length) {
+                if (size >= 0) {
+                    break;
+                }
+                final byte[] larger = new byte[bytes.length * 2];
+                System.arraycopy(bytes, 0, larger, 0, length);
+                bytes = larger;
+            }
+        }
+        return parse(ByteBuffer.wrap(bytes, 0, length));
+    }
+
+    /**
+     * The same decision as {@link BeanScanner#classify(Class)} as far as the class file tells.
+     *
+     * @return the asserter that applies, {@link BulkAsserter.Mode#AUTO} if only the loaded class can tell or null if
+     *         the class is no bean
+     */
+    BulkAsserter.Mode getMode() {
+        if ((this.access & ACC_PUBLIC) == 0 || (this.access & NOT_A_BEAN) != 0) {
+            return null;
+        }
+        if (this.builder) {
+            return BulkAsserter.Mode.BUILDER;
+        }
+        if (this.inheritsProperties) {
+            return this.publicDefaultConstructor || this.publicArgumentsConstructor ? BulkAsserter.Mode.AUTO : null;
+        }
+        if (this.setters > 0 && this.publicDefaultConstructor) {
+            return BulkAsserter.Mode.POJO;
+        }
+        if (this.setters == 0 && this.getters > 0 && this.publicArgumentsConstructor) {
+            return BulkAsserter.Mode.CONSTRUCTED;
+        }
+        return null;
+    }
+
+    /**
+     * @return true if the class is worth loading
+     */
+    boolean isCandidate() {
+        return getMode() != null;
+    }
+
+    /**
+     * @return the binary name, e.g. "simplepojo.Person"
+     */
+    String getClassName() {
+        return this.className;
+    }
+
+    int getGetters() {
+        return this.getters;
+    }
+
+    int getSetters() {
+        return this.setters;
+    }
+
+    boolean hasBuilder() {
+        return this.builder;
+    }
+
+    boolean overridesEquals() {
+        return this.equals;
+    }
+
+    boolean overridesHashCode() {
+        return this.hashCode;
+    }
+
+    @Override
+    public String toString() {
+        return this.className + " (" + getMode() + ")";
+    }
+
+    /**
+     * Reads the class file with absolute offsets so the buffer itself is never moved.
+     */
+    private static final class Parser {
+        private final ByteBuffer buffer;
+        private final int[] offsets;
+        private int position;
+
+        private String className;
+        private String superName;
+        private int access;
+        private boolean builder;
+        private int getters;
+        private int setters;
+        private boolean publicDefaultConstructor;
+        private boolean publicArgumentsConstructor;
+        private boolean equals;
+        private boolean hashCode;
+
+        Parser(final ByteBuffer buffer) {
+            this.buffer = buffer;
+            this.position = buffer.position();
+            if (u4() != MAGIC) {
+                throw new IllegalArgumentException("Not a class file");
+            }
+            this.position += 4;
+            this.offsets = new int[u2()];
+            readConstantPool();
+            this.access = u2();
+            final int thisClass = u2();
+            this.className = classNameAt(thisClass).replace('/', '.');
+            final int superClass = u2();
+            this.superName = superClass == 0 ? null : classNameAt(superClass);
+            final int interfaces = u2();
+            this.position += 2 * interfaces;
+            final int fields = u2();
+            for (int i = 0; i < fields; i++) {
+                this.position += 6;
+                skipAttributes();
+            }
+            final int methods = u2();
+            for (int i = 0; i < methods; i++) {
+                readMethod(u2(), utf8At(u2()), utf8At(u2()));
+                skipAttributes();
+            }
+            readClassAttributes(thisClass);
+        }
+
+        private void readConstantPool() {
+            for (int i = 1; i < this.offsets.length; i++) {
+                this.offsets[i] = this.position;
+                final int tag = u1();
+                switch (tag) {
+                    case 1:
+                        final int length = u2();
+                        this.position += length;
+                        break;
+                    case 3:
+                    case 4:
+                    case 9:
+                    case 10:
+                    case 11:
+                    case 12:
+                    case 17:
+                    case 18:
+                        this.position += 4;
+                        break;
+                    case 5:
+                    case 6:
+                        this.position += 8;
+                        i++;
+                        break;
+                    case 7:
+                    case 8:
+                    case 16:
+                    case 19:
+                    case 20:
+                        this.position += 2;
+                        break;
+                    case 15:
+                        this.position += 3;
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown constant pool tag " + tag);
+                }
+            }
+        }
+
+        private void readMethod(final int flags, final String name, final String descriptor) {
+            if (CONSTRUCTOR.equals(name)) {
+                if ((flags & ACC_PUBLIC) != 0) {
+                    if ("()V".equals(descriptor)) {
+                        this.publicDefaultConstructor = true;
+                    } else {
+                        this.publicArgumentsConstructor = true;
+                    }
+                }
+                return;
+            }
+            if ("equals".equals(name) && "(Ljava/lang/Object;)Z".equals(descriptor)) {
+                this.equals = true;
+            } else if ("hashCode".equals(name) && "()I".equals(descriptor)) {
+                this.hashCode = true;
+            }
+            if ((flags & ACC_PUBLIC) == 0 || (flags & ACC_STATIC) != 0) {
+                return;
+            }
+            if (isProperty(name, "get") && descriptor.startsWith("()") && !descriptor.endsWith(")V")
+                || isProperty(name, "is") && "()Z".equals(descriptor)) {
+                this.getters++;
+            } else if (isProperty(name, "set") && descriptor.endsWith(")V") && parameterCount(descriptor) == 1) {
+                this.setters++;
+            }
+        }
+
+        private void readClassAttributes(final int thisClass) {
+            final int attributes = u2();
+            for (int i = 0; i < attributes; i++) {
+                final String name = utf8At(u2());
+                final int length = u4();
+                final int end = this.position + length;
+                if (INNER_CLASSES.equals(name)) {
+                    final int classes = u2();
+                    for (int j = 0; j < classes; j++) {
+                        u2();
+                        final int outer = u2();
+                        final int innerName = u2();
+                        u2();
+                        if (outer == thisClass && innerName != 0 && BUILDER_NAME.equals(utf8At(innerName))) {
+                            this.builder = true;
+                        }
+                    }
+                }
+                this.position = end;
+            }
+        }
+
+        private void skipAttributes() {
+            final int attributes = u2();
+            for (int i = 0; i < attributes; i++) {
+                this.position += 2;
+                final int length = u4();
+                this.position += length;
+            }
+        }
+
+        private String classNameAt(final int index) {
+            return utf8At(this.buffer.getShort(this.offsets[index] + 1) & 0xFFFF);
+        }
+
+        private String utf8At(final int index) {
+            final int offset = this.offsets[index];
+            final int length = this.buffer.getShort(offset + 1) & 0xFFFF;
+            final byte[] bytes = new byte[length];
+            for (int i = 0; i < length; i++) {
+                bytes[i] = this.buffer.get(offset + 3 + i);
+            }
+            return new String(bytes, UTF_8);
+        }
+
+        private int u1() {
+            return this.buffer.get(this.position++) & 0xFF;
+        }
+
+        private int u2() {
+            final int value = this.buffer.getShort(this.position) & 0xFFFF;
+            this.position += 2;
+            return value;
+        }
+
+        private int u4() {
+            final int value = this.buffer.getInt(this.position);
+            this.position += 4;
+            return value;
+        }
+
+        private static boolean isProperty(final String name, final String prefix) {
+            return name.length() > prefix.length() && name.startsWith(prefix);
+        }
+
+        private static int parameterCount(final String descriptor) {
+            int count = 0;
+            int i = 1;
+            while (descriptor.charAt(i) != ')') {
+                while (descriptor.charAt(i) == '[') {
+                    i++;
+                }
+                if (descriptor.charAt(i) == 'L') {
+                    i = descriptor.indexOf(';', i);
+                }
+                i++;
+                count++;
+            }
+            return count;
+        }
+    }
+}
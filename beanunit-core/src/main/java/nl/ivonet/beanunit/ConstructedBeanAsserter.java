@@ -15,23 +15,18 @@
  */
 package nl.ivonet.beanunit;
 
-import java.beans.BeanInfo;
 import java.beans.IntrospectionException;
-import java.beans.Introspector;
-import java.beans.PropertyDescriptor;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
-import static org.junit.Assert.assertEquals;
-import static org.junit.Assert.assertFalse;
-import static org.junit.Assert.assertNotNull;
-import static org.junit.Assert.assertTrue;
-import static org.junit.Assert.fail;
+import static nl.ivonet.beanunit.Verify.assertFalse;
+import static nl.ivonet.beanunit.Verify.assertNotNull;
+import static nl.ivonet.beanunit.Verify.assertTrue;
+import static nl.ivonet.beanunit.Verify.fail;
 
 /**
  * Test utility for testing beans that are immutable after construction.
@@ -72,26 +67,13 @@ public class ConstructedBeanAsserter extends Asserter {
         blacklist.add("class");
 
         try {
-            final Constructor[] constructors = classUnderTest.getDeclaredConstructors();
-            for (final Constructor constructor : constructors) {
+            final BeanVerifier verifier = BeanVerifier.of(classUnderTest);
+            for (final Constructor constructor : BeanMetadataCache.get(classUnderTest).getDeclaredConstructors()) {
                 @SuppressWarnings({"unchecked"}) final T object = (T) createObject(constructor);
 
                 assertNotNull("Could not create the object", object);
 
-                final BeanInfo beanInfo = Introspector.getBeanInfo(classUnderTest);
-                final PropertyDescriptor[] descriptors = beanInfo.getPropertyDescriptors();
-                for (final PropertyDescriptor descriptor : descriptors) {
-                    if (descriptor.getWriteMethod() != null) {
-                        fail("This object is not immutable. It has a writeMethod for: " + descriptor.getName());
-                    }
-                    if (blacklist.contains(descriptor.getDisplayName())) {
-                        continue;
-                    }
-
-                    final Object arg = retrieveDefaultValueByType(descriptor.getPropertyType());
-                    final Method readMethod = descriptor.getReadMethod();
-                    assertEquals(arg, readMethod.invoke(object));
-                }
+                verifier.assertImmutableWithDefaults(object, blacklist);
             }
 
         } catch (InvocationTargetException e) {
@@ -120,15 +102,13 @@ public class ConstructedBeanAsserter extends Asserter {
     protected static <T> void assertEqualsHashCode(final Class<T> classUnderTest) {
         try {
 
-            final Constructor[] constructors = classUnderTest.getDeclaredConstructors();
+            final Constructor[] constructors = BeanMetadataCache.get(classUnderTest).getDeclaredConstructors();
             for (final Constructor constructor : constructors) {
                 @SuppressWarnings({"unchecked"}) final T one = (T) createObject(constructor);
                 @SuppressWarnings({"unchecked"}) final T two = (T) createObject(constructor);
 
-                final Class<?> equalsDeclaringClass = classUnderTest.getMethod(EQUALS_METHOD_NAME, Object.class)
-                                                              .getDeclaringClass();
-                final Class<?> hashCodeDeclaringClass = classUnderTest.getMethod(HASH_CODE_METHOD_NAME)
-                                                                .getDeclaringClass();
+                final Class<?> equalsDeclaringClass = retrieveEqualsMethodDeclaringClass(classUnderTest);
+                final Class<?> hashCodeDeclaringClass = retrieveHashCodeMethodDeclaringClass(classUnderTest);
                 if (doesNotOverrideObjectMethod(equalsDeclaringClass)) {
                     fail("If this test is run the equals() method must be overridden by the class under test.");
                 }
@@ -140,6 +120,7 @@ public class ConstructedBeanAsserter extends Asserter {
                                               classUnderTest));
                 }
 
+                final Timing timing = Timing.start(BeanUnitEvent.Phase.EQUALS_HASH_CODE);
                 assertTrue("Two instances build the same way are not equal (o1.equals(o2))", one.equals(two));
                 assertTrue("Two instances build the same way do not have the same hashcode",
                                   one.hashCode() == two.hashCode());
@@ -150,6 +131,7 @@ public class ConstructedBeanAsserter extends Asserter {
                 assertFalse("Equaling different types of object should not be equal", one.equals(new OtherType()));
                 //noinspection ObjectEqualsNull
                 assertFalse("Equaling null type should not be equal", one.equals(null));
+                Timing.finish(timing, classUnderTest, null);
             }
 
         } catch (NoSuchMethodException e) {
@@ -166,7 +148,7 @@ public class ConstructedBeanAsserter extends Asserter {
      */
     public static <T> T createObject(final Class<T> classUnderTest) {
         //noinspection unchecked
-        return (T) createObject(classUnderTest.getDeclaredConstructors()[0]);
+        return (T) createObject(BeanMetadataCache.get(classUnderTest).getDeclaredConstructors()[0]);
     }
 
     /**
@@ -179,6 +161,12 @@ public class ConstructedBeanAsserter extends Asserter {
      * @param <T>                the type of the class under test.
      */
     public static <T> void assertBean(final Class<T> classUnderTest, final String... excludedProperties) {
+        final long key = ResultCache.key("ConstructedBeanAsserter.assertBean", classUnderTest, null,
+                                         excludedProperties);
+        if (ResultCache.lookup(key) != ResultCache.MISS) {
+            return;
+        }
+        final long start = System.nanoTime();
         assertGettersOnConstructorImmutableObject(classUnderTest, excludedProperties);
         try {
             final Class<?> declaringClass = retrieveEqualsMethodDeclaringClass(classUnderTest);
@@ -188,11 +176,7 @@ public class ConstructedBeanAsserter extends Asserter {
         } catch (NoSuchMethodException e) {
             fail("Should never be possible unless the equals class has been removed from Object");
         }
-    }
-
-    private static Class<?> retrieveEqualsMethodDeclaringClass(final Class<?> classUnderTest)
-            throws NoSuchMethodException {
-        return classUnderTest.getMethod(EQUALS_METHOD_NAME, Object.class).getDeclaringClass();
+        ResultCache.passed(key, BulkAsserter.Mode.CONSTRUCTED, start);
     }
 
     private static boolean doesNotOverrideObjectMethod(final Class<?> clazz) {
@@ -0,0 +1,219 @@
+/*
+ * Copyright 2011 Ivo Woltring
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nl.ivonet.beanunit;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+
+/**
+ * Remembers how long verifying a bean took, so work can be planned with the cost of the previous runs.
+ * <p/>
+ * Run with -Dbeanunit.costs=target/beanunit.costs to record the cost of every bean verified by the
+ * {@link BulkAsserter}. The cost is kept per class name, so a changed bean keeps its estimate, and smoothed over the
+ * runs: every new measurement counts for a quarter. The costs are kept in a {@link MappedHashTable}, so the surefire
+ * forks of a build share the file.
+ * <p/>
+ * While sharding (see {@link Shard}) every shard records in a file of its own, e.g. target/beanunit.costs.shard-3-of-8,
+ * and plans with the frozen costs of -Dbeanunit.costs.plan. Merge the files of the shards into that file for the next
+ * build with <code>java -cp beanunit-core.jar nl.ivonet.beanunit.CostHistory beanunit.costs.plan
+ * target/beanunit.costs.shard-*</code>.
+ *
+ * @author Ivo Woltring
+ */
+final class CostHistory {
+    static final String COSTS_PROPERTY = "beanunit.costs";
+    static final long UNKNOWN = 0;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private static volatile CostHistory installed = openConfigured();
+
+    private final MappedHashTable table;
+
+    private CostHistory(final MappedHashTable table) {
+        this.table = table;
+    }
+
+    /**
+     * @param file the file to keep the costs in, created if it does not exist
+     * @return the history
+     * @throws IOException if the file can not be used
+     */
+    static CostHistory open(final File file) throws IOException {
+        return new CostHistory(MappedHashTable.open(file));
+    }
+
+    /**
+     * Merges the costs recorded by the shards of a build into the costs to plan the next build with.
+     *
+     * @param args the file to merge into followed by the files recorded by the shards
+     * @throws IOException if a file can not be used
+     */
+    public static void main(final String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: CostHistory <costs to merge into> <recorded costs>...");
+            System.exit(2);
+        }
+        final CostHistory target = open(new File(args[0]));
+        try {
+            for (int i = 1; i < args.length; i++) {
+                final CostHistory recorded = open(new File(args[i]));
+                try {
+                    target.merge(recorded);
+                } finally {
+                    recorded.close();
+                }
+            }
+        } finally {
+            target.close();
+        }
+    }
+
+    /**
+     * @param path  the file given by the system property
+     * @param shard the shard of this run or null
+     * @return the file to record the costs of this run in
+     */
+    static File file(final String path, final Shard shard) {
+        if (shard == null) {
+            return new File(path);
+        }
+        return new File(path + ".shard-" + shard.getNumber() + "-of-" + shard.getCount());
+    }
+
+    /**
+     * @return the history in use or null if costs are not recorded
+     */
+    static CostHistory installed() {
+        return installed;
+    }
+
+    /**
+     * Uses the given history from now on.
+     *
+     * @param history the history, null to stop recording
+     * @return the history used before, null if there was none
+     */
+    static CostHistory install(final CostHistory history) {
+        final CostHistory previous = installed;
+        installed = history;
+        return previous;
+    }
+
+    /**
+     * Records the cost of a verification in the installed history, if any.
+     *
+     * @param className the name of the bean
+     * @param nanos     the time the verification took
+     */
+    static void record(final String className, final long nanos) {
+        final CostHistory history = installed;
+        if (history == null) {
+            return;
+        }
+        try {
+            history.add(className, nanos);
+        } catch (IOException e) {
+            disable(history, e);
+        }
+    }
+
+    /**
+     * @param className the name of the bean
+     * @return the estimated time to verify the bean in nanoseconds or {@link #UNKNOWN} if it was never measured
+     * @throws IOException if the file can not be read
+     */
+    long estimate(final String className) throws IOException {
+        return this.table.get(key(className));
+    }
+
+    /**
+     * @param className the name of the bean
+     * @param nanos     the time the verification took
+     * @throws IOException if the file can not be written
+     */
+    void add(final String className, final long nanos) throws IOException {
+        addSample(key(className), nanos);
+    }
+
+    /**
+     * Adds the costs of the other history as if they were measured in this one.
+     *
+     * @param other the history to merge, e.g. recorded by a shard
+     * @throws IOException if a file can not be used
+     */
+    void merge(final CostHistory other) throws IOException {
+        final long[] entries = other.table.entries();
+        for (int i = 0; i < entries.length; i += 2) {
+            addSample(entries[i], entries[i + 1]);
+        }
+    }
+
+    private void addSample(final long key, final long nanos) throws IOException {
+        final long sample = Math.max(1, nanos);
+        long previous = this.table.get(key);
+        while (true) {
+            final long smoothed = previous == UNKNOWN ? sample
+                                                      : Math.max(1, previous - (previous >> 2) + (sample >> 2));
+            final long found = this.table.compareAndPut(key, previous, smoothed);
+            if (found == previous) {
+                return;
+            }
+            previous = found;
+        }
+    }
+
+    void close() throws IOException {
+        this.table.close();
+    }
+
+    /**
+     * @return the 64 bit FNV-1a hash of the name
+     */
+    static long key(final String className) {
+        long hash = FNV_OFFSET;
+        for (final byte each : className.getBytes(UTF_8)) {
+            hash ^= each & 0xFF;
+            hash *= FNV_PRIME;
+        }
+        return hash;
+    }
+
+    private static CostHistory openConfigured() {
+        final String path = System.getProperty(COSTS_PROPERTY);
+        if (path == null || path.trim().isEmpty()) {
+            return null;
+        }
+        final File file = file(path.trim(), Shard.installed());
+        try {
+            return open(file);
+        } catch (IOException e) {
+            System.err.println("beanunit: not recording costs in " + file + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static synchronized void disable(final CostHistory history, final IOException e) {
+        if (installed == history) {
+            installed = null;
+            System.err.println("beanunit: not recording costs in " + history.table.getFile() + ": " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2011 Ivo Woltring
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nl.ivonet.beanunit;
+
+import java.util.List;
+
+/**
+ * The default value argument lists of a fixed sequence of invocations, e.g. a constructor followed by setters.
+ * <p/>
+ * The lists are bound per snapshot of the registered type arguments, so they are resolved once and refreshed after a
+ * type is (de)registered or another {@link TypeArgumentScope} is used. Lists containing values that must be new for
+ * every call (arrays and default constructed objects) are created on every call.
+ *
+ * @author Ivo Woltring
+ */
+final class DefaultArguments {
+    private final Class<?>[][] parameterTypes;
+    private volatile Binding binding;
+
+    /**
+     * @param parameterTypes the parameter types of every invocation in order
+     */
+    DefaultArguments(final List<Class<?>[]> parameterTypes) {
+        this.parameterTypes = parameterTypes.toArray(new Class<?>[parameterTypes.size()][]);
+    }
+
+    /**
+     * Use one binding for all the invocations that together create one object.
+     *
+     * @return the binding for the registered type arguments in use by the current thread
+     */
+    Binding current() {
+        final TypeArguments typeArguments = Asserter.typeArguments();
+        Binding current = this.binding;
+        if (current == null || current.typeArguments != typeArguments) {
+            current = new Binding(typeArguments, this.parameterTypes);
+            this.binding = current;
+        }
+        return current;
+    }
+
+    /**
+     * The argument lists as resolved for one snapshot of the registered type arguments.
+     */
+    static final class Binding {
+        private final TypeArguments typeArguments;
+        private final Class<?>[][] parameterTypes;
+        private final Object[][] shared;
+
+        private Binding(final TypeArguments typeArguments, final Class<?>[][] parameterTypes) {
+            this.typeArguments = typeArguments;
+            this.parameterTypes = parameterTypes;
+            this.shared = new Object[parameterTypes.length][];
+            for (int i = 0; i < parameterTypes.length; i++) {
+                if (Asserter.areSharedDefaultValues(typeArguments, parameterTypes[i])) {
+                    this.shared[i] = Asserter.createParameterList(typeArguments, parameterTypes[i]);
+                }
+            }
+        }
+
+        /**
+         * @param invocation the index of the invocation
+         * @return the arguments for the invocation, must not be modified
+         */
+        Object[] argumentsOf(final int invocation) {
+            final Object[] arguments = this.shared[invocation];
+            return arguments == null
+                   ? Asserter.createParameterList(this.typeArguments, this.parameterTypes[invocation])
+                   : arguments;
+        }
+    }
+}
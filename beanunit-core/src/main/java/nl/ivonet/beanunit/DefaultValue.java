@@ -0,0 +1,226 @@
+/*
+ * Copyright 2011 Ivo Woltring
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nl.ivonet.beanunit;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Modifier;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+
+import static nl.ivonet.beanunit.Verify.fail;
+
+/**
+ * How the default value of one type is obtained, resolved once per type and {@link TypeArguments} snapshot.
+ * <p/>
+ * The resolution order is:
+ * <ol>
+ * <li>arrays: a new array of {@link Asserter#TEST_ARRAY_SIZE} elements;</li>
+ * <li>enums: the first constant;</li>
+ * <li>the registered default argument of the type itself;</li>
+ * <li>a new instance made with the default constructor (even if private);</li>
+ * <li>the default argument of the nearest registered superclass or interface that is an instance of the type,
+ * e.g. the <code>SortedMap</code> default for a <code>NavigableMap</code>;</li>
+ * <li>any other registered default argument that is an instance of the type, e.g. the <code>Collection</code>
+ * default for an <code>Iterable</code>.</li>
+ * </ol>
+ * Types without any of these are unresolvable and fail on every retrieval without searching again.
+ *
+ * @author Ivo Woltring
+ */
+abstract class DefaultValue {
+
+    /**
+     * @return the default value, fails if there is none
+     */
+    abstract Object get();
+
+    /**
+     * @return true if {@link #get()} returns the same instance every time
+     */
+    abstract boolean isShared();
+
+    /**
+     * Resolves how to get the default value of a type.
+     *
+     * @param typeArguments the registered types and default arguments
+     * @param type          the type to resolve
+     * @return the resolution, never null
+     */
+    static DefaultValue resolve(final Map<Class<?>, Object> typeArguments, final Class<?> type) {
+        if (type.isArray()) {
+            return new NewArray(type.getComponentType());
+        }
+        if (type.isEnum()) {
+            return new Shared(type.getEnumConstants()[0]);
+        }
+        if (typeArguments.containsKey(type)) {
+            return new Shared(typeArguments.get(type));
+        }
+        if (!type.isInterface() && !Modifier.isAbstract(type.getModifiers()) && !type.isPrimitive()) {
+            try {
+                final Constructor<?> constructor = type.getDeclaredConstructor();
+                constructor.setAccessible(true);
+                return new NewInstance(constructor);
+            } catch (NoSuchMethodException e) {
+                //resolve through the registered types
+            } catch (RuntimeException e) {
+                //not accessible, resolve through the registered types
+            }
+        }
+        final Object nearest = findNearestRegisteredSupertype(typeArguments, type);
+        if (nearest != null) {
+            return new Shared(nearest);
+        }
+        final Object instance = findRegisteredInstance(typeArguments, type);
+        if (instance != null) {
+            return new Shared(instance);
+        }
+        return new Unresolvable(type.getName() + ".<init>()");
+    }
+
+    //Breadth first through the superclasses and interfaces so the nearest registered type wins.
+    private static Object findNearestRegisteredSupertype(final Map<Class<?>, Object> typeArguments,
+                                                         final Class<?> type) {
+        final Queue<Class<?>> queue = new ArrayDeque<Class<?>>();
+        final Set<Class<?>> visited = new HashSet<Class<?>>();
+        queue.add(type);
+        while (!queue.isEmpty()) {
+            final Class<?> current = queue.remove();
+            if (!visited.add(current)) {
+                continue;
+            }
+            final Object value = typeArguments.get(current);
+            if (current != type && type.isInstance(value)) {
+                return value;
+            }
+            if (current.getSuperclass() != null) {
+                queue.add(current.getSuperclass());
+            }
+            Collections.addAll(queue, current.getInterfaces());
+        }
+        return null;
+    }
+
+    //Ordered by name to make the choice independent of the registration order.
+    private static Object findRegisteredInstance(final Map<Class<?>, Object> typeArguments, final Class<?> type) {
+        final List<Class<?>> registered = new ArrayList<Class<?>>(typeArguments.keySet());
+        Collections.sort(registered, new Comparator<Class<?>>() {
+            @Override
+            public int compare(final Class<?> one, final Class<?> other) {
+                return one.getName().compareTo(other.getName());
+            }
+        });
+        for (final Class<?> candidate : registered) {
+            final Object value = typeArguments.get(candidate);
+            if (type.isInstance(value)) {
+                return value;
+            }
+        }
+        return null;
+    }
+
+    private static final class Shared extends DefaultValue {
+        private final Object value;
+
+        Shared(final Object value) {
+            this.value = value;
+        }
+
+        @Override
+        Object get() {
+            return this.value;
+        }
+
+        @Override
+        boolean isShared() {
+            return true;
+        }
+    }
+
+    private static final class NewArray extends DefaultValue {
+        private final Class<?> componentType;
+
+        NewArray(final Class<?> componentType) {
+            this.componentType = componentType;
+        }
+
+        @Override
+        Object get() {
+            return Array.newInstance(this.componentType, Asserter.TEST_ARRAY_SIZE);
+        }
+
+        @Override
+        boolean isShared() {
+            return false;
+        }
+    }
+
+    private static final class NewInstance extends DefaultValue {
+        private final Constructor<?> constructor;
+
+        NewInstance(final Constructor<?> constructor) {
+            this.constructor = constructor;
+        }
+
+        @Override
+        Object get() {
+            try {
+                return this.constructor.newInstance();
+            } catch (InstantiationException e) {
+                fail(e.getMessage());
+            } catch (IllegalAccessException e) {
+                fail(e.getMessage());
+            } catch (InvocationTargetException e) {
+                fail(e.getMessage());
+            }
+            return null;
+        }
+
+        @Override
+        boolean isShared() {
+            return false;
+        }
+    }
+
+    private static final class Unresolvable extends DefaultValue {
+        private final String message;
+
+        Unresolvable(final String message) {
+            this.message = message;
+        }
+
+        @Override
+        Object get() {
+            fail(this.message);
+            return null;
+        }
+
+        @Override
+        boolean isShared() {
+            return false;
+        }
+    }
+}
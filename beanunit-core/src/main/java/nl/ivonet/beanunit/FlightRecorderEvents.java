@@ -0,0 +1,182 @@
+/*
+ * Copyright 2011 Ivo Woltring
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nl.ivonet.beanunit;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.FlightRecorderListener;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Emits the phases of verifying beans as Java Flight Recorder events, so they show up in the same timeline as the
+ * garbage collections, class loading and compilations of the JVM.
+ * <p/>
+ * The events are only created while a recording is running: the recorder registers itself with {@link Timing} when a
+ * recording starts and removes itself when the last one stops. Without a recording the phases are not even timed. An
+ * event begins when its phase starts and is committed when the phase ends, so its start time and duration are those
+ * of the phase.
+ * <p/>
+ * Only installed when the JVM has <code>jdk.jfr</code> and the system property <code>beanunit.jfr</code> is not
+ * <code>false</code>.
+ *
+ * @author Ivo Woltring
+ */
+final class FlightRecorderEvents implements Timing.Recorder {
+    static final String ENABLED_PROPERTY = "beanunit.jfr";
+
+    private static final FlightRecorderEvents RECORDER = new FlightRecorderEvents();
+    private static final Object LOCK = new Object();
+    private static final Set<Long> RUNNING = new HashSet<Long>();
+
+    private FlightRecorderEvents() {
+    }
+
+    /**
+     * Starts following the recordings of the Flight Recorder.
+     */
+    static void install() {
+        FlightRecorder.addListener(new FlightRecorderListener() {
+            @Override
+            public void recorderInitialized(final FlightRecorder recorder) {
+                for (final Recording recording : recorder.getRecordings()) {
+                    recordingStateChanged(recording);
+                }
+            }
+
+            @Override
+            public void recordingStateChanged(final Recording recording) {
+                update(recording.getId(), recording.getState() == RecordingState.RUNNING);
+            }
+        });
+    }
+
+    private static void update(final long recording, final boolean running) {
+        synchronized (LOCK) {
+            final boolean wasRecording = !RUNNING.isEmpty();
+            if (running) {
+                RUNNING.add(recording);
+            } else {
+                RUNNING.remove(recording);
+            }
+            if (!wasRecording && !RUNNING.isEmpty()) {
+                Timing.record(RECORDER);
+            } else if (wasRecording && RUNNING.isEmpty()) {
+                Timing.record(null);
+            }
+        }
+    }
+
+    @Override
+    public Object begin(final BeanUnitEvent.Phase phase) {
+        final PhaseEvent event;
+        switch (phase) {
+            case INTROSPECTION:
+                event = new BeanIntrospected();
+                break;
+            case INSTANTIATION:
+                event = new BeanInstantiated();
+                break;
+            case GETTER:
+            case SETTER: {
+                final PropertyChecked checked = new PropertyChecked();
+                checked.accessor = phase == BeanUnitEvent.Phase.GETTER ? "getter" : "setter";
+                event = checked;
+                break;
+            }
+            case EQUALS_HASH_CODE:
+                event = new EqualsHashCodeChecked();
+                break;
+            case BUILD:
+                event = new BuilderBuilt();
+                break;
+            default:
+                return null;
+        }
+        if (!event.isEnabled()) {
+            return null;
+        }
+        event.begin();
+        return event;
+    }
+
+    @Override
+    public void end(final Object event, final Class<?> type, final String property, final long allocatedBytes) {
+        final PhaseEvent phaseEvent = (PhaseEvent) event;
+        phaseEvent.end();
+        if (!phaseEvent.shouldCommit()) {
+            return;
+        }
+        phaseEvent.beanClass = type;
+        phaseEvent.property = property;
+        phaseEvent.allocated = allocatedBytes;
+        phaseEvent.commit();
+    }
+
+    @Category("beanunit")
+    abstract static class PhaseEvent extends Event {
+        @Label("Class")
+        Class<?> beanClass;
+
+        @Label("Property")
+        String property;
+
+        @Label("Allocated")
+        @DataAmount(DataAmount.BYTES)
+        long allocated;
+    }
+
+    @Name("nl.ivonet.beanunit.BeanIntrospected")
+    @Label("Bean Introspected")
+    @Description("A class introspected for the first time")
+    static final class BeanIntrospected extends PhaseEvent {
+    }
+
+    @Name("nl.ivonet.beanunit.BeanInstantiated")
+    @Label("Bean Instantiated")
+    @Description("A constructor of a bean or Builder invoked")
+    static final class BeanInstantiated extends PhaseEvent {
+    }
+
+    @Name("nl.ivonet.beanunit.PropertyChecked")
+    @Label("Property Checked")
+    @Description("A getter or setter of a property invoked")
+    static final class PropertyChecked extends PhaseEvent {
+        @Label("Accessor")
+        String accessor;
+    }
+
+    @Name("nl.ivonet.beanunit.EqualsHashCodeChecked")
+    @Label("Equals HashCode Checked")
+    @Description("The equals and hashCode of a bean invoked, after changing the property if there is one")
+    static final class EqualsHashCodeChecked extends PhaseEvent {
+    }
+
+    @Name("nl.ivonet.beanunit.BuilderBuilt")
+    @Label("Builder Built")
+    @Description("The builder methods and build method of a Builder invoked")
+    static final class BuilderBuilt extends PhaseEvent {
+    }
+}
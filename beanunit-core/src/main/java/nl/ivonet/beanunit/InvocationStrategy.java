@@ -0,0 +1,196 @@
+/*
+ * Copyright 2011 Ivo Woltring
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.ivonet.beanunit;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Locale;
+
+/**
+ * The ways the {@link Asserter}s can call getters, setters, builder methods and constructors.
+ * <p/>
+ * When no strategy is chosen with {@link #use(InvocationStrategy)} or the system property
+ * <code>beanunit.invocation</code> (reflection, method_handle or lambda) the cheapest strategy is picked by timing all
+ * of them on a small bean the first time one is needed.
+ * <p/>
+ * Whatever the strategy the outcome of the asserts is the same. Members that can not be called with the chosen
+ * strategy (e.g. methods of non public classes) are called with a strategy that can.
+ *
+ * @author Ivo Woltring
+ */
+public enum InvocationStrategy {
+    /**
+     * {@link Method#invoke(Object, Object...)} and {@link Constructor#newInstance(Object...)}.
+     */
+    REFLECTION {
+        @Override
+        Invokers.Getter getter(final Method readMethod) {
+            return Invokers.reflectionGetter(readMethod);
+        }
+
+        @Override
+        Invokers.Setter setter(final Method writeMethod) {
+            return Invokers.reflectionSetter(writeMethod);
+        }
+    },
+    /**
+     * Cached {@link java.lang.invoke.MethodHandle}s.
+     */
+    METHOD_HANDLE {
+        @Override
+        Invokers.Getter getter(final Method readMethod) {
+            return Invokers.methodHandleGetter(readMethod);
+        }
+
+        @Override
+        Invokers.Setter setter(final Method writeMethod) {
+            return Invokers.methodHandleSetter(writeMethod);
+        }
+    },
+    /**
+     * Getters and setters implemented by {@link java.util.function.Function} and
+     * {@link java.util.function.BiConsumer} classes generated by the {@link java.lang.invoke.LambdaMetafactory}.
+     * Builder methods and constructors are called with cached method handles.
+     */
+    LAMBDA {
+        @Override
+        Invokers.Getter getter(final Method readMethod) {
+            return Invokers.lambdaGetter(readMethod);
+        }
+
+        @Override
+        Invokers.Setter setter(final Method writeMethod) {
+            return Invokers.lambdaSetter(writeMethod);
+        }
+    };
+
+    static final String STRATEGY_PROPERTY = "beanunit.invocation";
+    private static final int CALIBRATION_ROUNDS = 5;
+    private static final int CALIBRATION_INVOCATIONS = 20000;
+
+    private static volatile InvocationStrategy current;
+
+    abstract Invokers.Getter getter(Method readMethod);
+
+    abstract Invokers.Setter setter(Method writeMethod);
+
+    Invokers.MethodInvoker invoker(final Method method) {
+        return this == REFLECTION ? Invokers.reflectionInvoker(method) : Invokers.methodHandleInvoker(method);
+    }
+
+    Invokers.Instantiator instantiator(final Constructor<?> constructor) {
+        return this == REFLECTION
+               ? Invokers.reflectionInstantiator(constructor)
+               : Invokers.methodHandleInstantiator(constructor);
+    }
+
+    /**
+     * @return the strategy used by all the asserters
+     */
+    public static InvocationStrategy current() {
+        InvocationStrategy strategy = current;
+        if (strategy == null) {
+            synchronized (InvocationStrategy.class) {
+                strategy = current;
+                if (strategy == null) {
+                    strategy = fromSystemProperty();
+                    if (strategy == null) {
+                        strategy = cheapest();
+                    }
+                    current = strategy;
+                }
+            }
+        }
+        return strategy;
+    }
+
+    /**
+     * Makes all asserters use the given strategy from now on.
+     *
+     * @param strategy the strategy to use or null to measure the cheapest again when needed
+     */
+    public static void use(final InvocationStrategy strategy) {
+        current = strategy;
+    }
+
+    private static InvocationStrategy fromSystemProperty() {
+        final String name = System.getProperty(STRATEGY_PROPERTY);
+        if (name == null || name.trim().isEmpty()) {
+            return null;
+        }
+        return valueOf(name.trim().toUpperCase(Locale.ENGLISH));
+    }
+
+    /**
+     * Times a number of getter/setter round trips for every strategy and returns the fastest.
+     */
+    static InvocationStrategy cheapest() {
+        InvocationStrategy cheapest = REFLECTION;
+        long lowest = Long.MAX_VALUE;
+        for (final InvocationStrategy strategy : values()) {
+            final long cost = measure(strategy);
+            if (cost < lowest) {
+                lowest = cost;
+                cheapest = strategy;
+            }
+        }
+        return cheapest;
+    }
+
+    private static long measure(final InvocationStrategy strategy) {
+        try {
+            final Method readMethod = CalibrationBean.class.getMethod("getValue");
+            final Method writeMethod = CalibrationBean.class.getMethod("setValue", Object.class);
+            final Invokers.Getter getter = strategy.getter(readMethod);
+            final Invokers.Setter setter = strategy.setter(writeMethod);
+            final CalibrationBean bean = new CalibrationBean();
+            long lowest = Long.MAX_VALUE;
+            for (int round = 0; round < CALIBRATION_ROUNDS; round++) {
+                final long start = System.nanoTime();
+                for (int i = 0; i < CALIBRATION_INVOCATIONS; i++) {
+                    setter.set(bean, bean);
+                    if (getter.get(bean) != bean) {
+                        return Long.MAX_VALUE;
+                    }
+                }
+                lowest = Math.min(lowest, System.nanoTime() - start);
+            }
+            return lowest;
+        } catch (NoSuchMethodException e) {
+            return Long.MAX_VALUE;
+        } catch (IllegalAccessException e) {
+            return Long.MAX_VALUE;
+        } catch (InvocationTargetException e) {
+            return Long.MAX_VALUE;
+        }
+    }
+
+    /**
+     * The bean the strategies are timed with.
+     */
+    static final class CalibrationBean {
+        private Object value;
+
+        public Object getValue() {
+            return this.value;
+        }
+
+        public void setValue(final Object value) {
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,337 @@
+/*
+ * Copyright 2011 Ivo Woltring
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.ivonet.beanunit;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * The accessors used by the {@link Asserter}s to call getters, setters, builder methods and constructors and their
+ * implementations for every {@link InvocationStrategy}.
+ * <p/>
+ * All accessors report problems the same way core reflection does: exceptions thrown by the invoked member are
+ * wrapped in an {@link InvocationTargetException}. Members that can not be accessed with a {@link MethodHandle} or
+ * a generated lambda fall back to core reflection so the behavior never depends on the chosen strategy.
+ *
+ * @author Ivo Woltring
+ */
+final class Invokers {
+    static final Object[] NO_ARGUMENTS = new Object[0];
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    private Invokers() {
+        //All static so don't create
+    }
+
+    /**
+     * Reads a property of a bean.
+     */
+    interface Getter {
+        Object get(Object bean) throws IllegalAccessException, InvocationTargetException;
+    }
+
+    /**
+     * Writes a property of a bean.
+     */
+    interface Setter {
+        void set(Object bean, Object value) throws IllegalAccessException, InvocationTargetException;
+    }
+
+    /**
+     * Invokes a method with any number of parameters.
+     */
+    interface MethodInvoker {
+        Object invoke(Object target, Object[] arguments) throws IllegalAccessException, InvocationTargetException;
+    }
+
+    /**
+     * Invokes a constructor.
+     */
+    interface Instantiator {
+        Object newInstance(Object[] arguments)
+                throws InstantiationException, IllegalAccessException, InvocationTargetException;
+    }
+
+    // ---------------------------------------------------------------------------------------------- core reflection
+
+    static Getter reflectionGetter(final Method readMethod) {
+        return new Getter() {
+            @Override
+            public Object get(final Object bean) throws IllegalAccessException, InvocationTargetException {
+                return readMethod.invoke(bean);
+            }
+        };
+    }
+
+    static Setter reflectionSetter(final Method writeMethod) {
+        return new Setter() {
+            @Override
+            public void set(final Object bean, final Object value)
+                    throws IllegalAccessException, InvocationTargetException {
+                writeMethod.invoke(bean, value);
+            }
+        };
+    }
+
+    static MethodInvoker reflectionInvoker(final Method method) {
+        return new MethodInvoker() {
+            @Override
+            public Object invoke(final Object target, final Object[] arguments)
+                    throws IllegalAccessException, InvocationTargetException {
+                return method.invoke(target, arguments);
+            }
+        };
+    }
+
+    static Instantiator reflectionInstantiator(final Constructor<?> constructor) {
+        return new Instantiator() {
+            @Override
+            public Object newInstance(final Object[] arguments)
+                    throws InstantiationException, IllegalAccessException, InvocationTargetException {
+                return constructor.newInstance(arguments);
+            }
+        };
+    }
+
+    // ---------------------------------------------------------------------------------------------- method handles
+
+    static Getter methodHandleGetter(final Method readMethod) {
+        final MethodHandle handle = unreflect(readMethod);
+        if (handle == null) {
+            return reflectionGetter(readMethod);
+        }
+        final MethodHandle getter = handle.asType(MethodType.methodType(Object.class, Object.class));
+        return new Getter() {
+            @Override
+            public Object get(final Object bean) throws InvocationTargetException {
+                try {
+                    return getter.invokeExact(bean);
+                } catch (Throwable e) {
+                    throw new InvocationTargetException(e);
+                }
+            }
+        };
+    }
+
+    static Setter methodHandleSetter(final Method writeMethod) {
+        final MethodHandle handle = unreflect(writeMethod);
+        if (handle == null) {
+            return reflectionSetter(writeMethod);
+        }
+        final MethodHandle setter = handle.asType(MethodType.methodType(void.class, Object.class, Object.class));
+        return new Setter() {
+            @Override
+            public void set(final Object bean, final Object value) throws InvocationTargetException {
+                try {
+                    setter.invokeExact(bean, value);
+                } catch (Throwable e) {
+                    throw new InvocationTargetException(e);
+                }
+            }
+        };
+    }
+
+    static MethodInvoker methodHandleInvoker(final Method method) {
+        MethodHandle handle = unreflect(method);
+        if (handle == null) {
+            return reflectionInvoker(method);
+        }
+        if (Modifier.isStatic(method.getModifiers())) {
+            handle = MethodHandles.dropArguments(handle, 0, Object.class);
+        }
+        final int parameterCount = method.getParameterTypes().length;
+        final MethodHandle invoker = handle.asType(MethodType.genericMethodType(parameterCount + 1))
+                                           .asSpreader(Object[].class, parameterCount);
+        return new MethodInvoker() {
+            @Override
+            public Object invoke(final Object target, final Object[] arguments) throws InvocationTargetException {
+                try {
+                    return invoker.invokeExact(target, arguments);
+                } catch (Throwable e) {
+                    throw new InvocationTargetException(e);
+                }
+            }
+        };
+    }
+
+    static Instantiator methodHandleInstantiator(final Constructor<?> constructor) {
+        if (Modifier.isAbstract(constructor.getDeclaringClass().getModifiers())) {
+            return reflectionInstantiator(constructor);
+        }
+        final int parameterCount = constructor.getParameterTypes().length;
+        final MethodHandle instantiator;
+        try {
+            instantiator = LOOKUP.unreflectConstructor(constructor)
+                                 .asType(MethodType.genericMethodType(parameterCount))
+                                 .asSpreader(Object[].class, parameterCount);
+        } catch (IllegalAccessException e) {
+            return reflectionInstantiator(constructor);
+        } catch (IllegalArgumentException e) {
+            //Too many parameters for a method handle, which has fewer slots than a constructor
+            return reflectionInstantiator(constructor);
+        }
+        return new Instantiator() {
+            @Override
+            public Object newInstance(final Object[] arguments) throws InvocationTargetException {
+                try {
+                    return instantiator.invokeExact(arguments);
+                } catch (Throwable e) {
+                    throw new InvocationTargetException(e);
+                }
+            }
+        };
+    }
+
+    // ---------------------------------------------------------------------------------------------- generated lambdas
+
+    static Getter lambdaGetter(final Method readMethod) {
+        final MethodHandle handle = lambdaCompatibleHandle(readMethod);
+        if (handle == null) {
+            return methodHandleGetter(readMethod);
+        }
+        @SuppressWarnings("unchecked") final Function<Object, Object> function = (Function<Object, Object>) metafactory(
+                handle, Function.class, "apply", MethodType.methodType(Object.class, Object.class),
+                MethodType.methodType(wrap(readMethod.getReturnType()), readMethod.getDeclaringClass()));
+        if (function == null) {
+            return methodHandleGetter(readMethod);
+        }
+        return new Getter() {
+            @Override
+            public Object get(final Object bean) throws InvocationTargetException {
+                try {
+                    return function.apply(bean);
+                } catch (Throwable e) {
+                    throw new InvocationTargetException(e);
+                }
+            }
+        };
+    }
+
+    static Setter lambdaSetter(final Method writeMethod) {
+        final MethodHandle handle = lambdaCompatibleHandle(writeMethod);
+        if (handle == null) {
+            return methodHandleSetter(writeMethod);
+        }
+        @SuppressWarnings("unchecked") final BiConsumer<Object, Object> consumer = (BiConsumer<Object, Object>) metafactory(
+                handle, BiConsumer.class, "accept", MethodType.methodType(void.class, Object.class, Object.class),
+                MethodType.methodType(void.class, writeMethod.getDeclaringClass(),
+                                      wrap(writeMethod.getParameterTypes()[0])));
+        if (consumer == null) {
+            return methodHandleSetter(writeMethod);
+        }
+        return new Setter() {
+            @Override
+            public void set(final Object bean, final Object value) throws InvocationTargetException {
+                try {
+                    consumer.accept(bean, value);
+                } catch (Throwable e) {
+                    throw new InvocationTargetException(e);
+                }
+            }
+        };
+    }
+
+    /**
+     * Spins a lambda class implementing the functional interface by calling the implementation directly.
+     *
+     * @return the lambda instance or null if the JVM refused to create it
+     */
+    private static Object metafactory(final MethodHandle implementation, final Class<?> functionalInterface,
+                                      final String methodName, final MethodType erasedType,
+                                      final MethodType instantiatedType) {
+        try {
+            final CallSite site = LambdaMetafactory.metafactory(LOOKUP, methodName,
+                                                                MethodType.methodType(functionalInterface),
+                                                                erasedType, implementation, instantiatedType);
+            return site.getTarget().invoke();
+        } catch (Throwable e) {
+            return null;
+        }
+    }
+
+    /**
+     * A generated lambda calls the member directly from a class defined next to this one, so the member and all the
+     * types in its signature must be accessible and visible from here. For everything else null is returned.
+     */
+    private static MethodHandle lambdaCompatibleHandle(final Method method) {
+        if (Modifier.isStatic(method.getModifiers()) || !isAccessibleFromHere(method.getDeclaringClass())) {
+            return null;
+        }
+        if (!isVisibleFromHere(method.getReturnType())) {
+            return null;
+        }
+        for (final Class<?> parameterType : method.getParameterTypes()) {
+            if (!isVisibleFromHere(parameterType)) {
+                return null;
+            }
+        }
+        return unreflect(method);
+    }
+
+    private static boolean isAccessibleFromHere(final Class<?> type) {
+        if (!isVisibleFromHere(type)) {
+            return false;
+        }
+        if (Invokers.class.getPackage().equals(type.getPackage())) {
+            return true;
+        }
+        for (Class<?> current = type; current != null; current = current.getEnclosingClass()) {
+            if (!Modifier.isPublic(current.getModifiers())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isVisibleFromHere(final Class<?> type) {
+        Class<?> component = type;
+        while (component.isArray()) {
+            component = component.getComponentType();
+        }
+        if (component.isPrimitive()) {
+            return true;
+        }
+        try {
+            return Class.forName(component.getName(), false, Invokers.class.getClassLoader()) == component;
+        } catch (ClassNotFoundException e) {
+            return false;
+        } catch (LinkageError e) {
+            return false;
+        }
+    }
+
+    private static MethodHandle unreflect(final Method method) {
+        try {
+            return LOOKUP.unreflect(method);
+        } catch (IllegalAccessException e) {
+            return null;
+        }
+    }
+
+    private static Class<?> wrap(final Class<?> type) {
+        return MethodType.methodType(type).wrap().returnType();
+    }
+}
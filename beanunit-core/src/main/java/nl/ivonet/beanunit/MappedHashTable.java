@@ -0,0 +1,372 @@
+/*
+ * Copyright 2011 Ivo Woltring
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nl.ivonet.beanunit;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A long to long hash table in a memory mapped file, shared by all the JVMs that open the same file.
+ * <p/>
+ * The file is a 16 byte header (magic, format, capacity and size) followed by the slots of the table, 16 bytes each:
+ * the key and the value. Collisions are resolved by linear probing. Reads hold a shared and writes an exclusive
+ * {@link FileLock} on the file, so surefire forks can use the same table at the same time. A table grown by another
+ * JVM is mapped again.
+ * <p/>
+ * Key 0 and value 0 mean "empty", so key 0 is stored as 1 and a value can not be 0. The table doubles when it is
+ * three quarters full and starts empty again when it would outgrow {@link #MAXIMUM_CAPACITY} slots, so stale keys
+ * can not fill the disk. A file that is not a table (or a table of another format) is overwritten.
+ * <p/>
+ * File locks are held per JVM, so the threads of a JVM can not lock the same file through two channels. Opening a file
+ * that is already open in this JVM returns the open table, which is closed when all that opened it closed it.
+ *
+ * @author Ivo Woltring
+ */
+final class MappedHashTable implements Closeable {
+    static final int INITIAL_CAPACITY = 1 << 10;
+    static final int MAXIMUM_CAPACITY = 1 << 22;
+
+    private static final int MAGIC = 0x42554854;
+    private static final int FORMAT = 1;
+    private static final int HEADER = 16;
+    private static final int CAPACITY_OFFSET = 8;
+    private static final int SIZE_OFFSET = 12;
+    private static final int SLOT = 16;
+
+    /**
+     * The open tables by canonical file, guarded by itself.
+     */
+    private static final Map<File, MappedHashTable> OPEN = new HashMap<File, MappedHashTable>();
+
+    private final File file;
+    private final File canonicalFile;
+    private final RandomAccessFile randomAccessFile;
+    private final FileChannel channel;
+    private final ByteBuffer header = ByteBuffer.allocate(HEADER);
+    private MappedByteBuffer buffer;
+    private int capacity;
+    private int users = 1;
+
+    private MappedHashTable(final File file, final File canonicalFile) throws IOException {
+        this.file = file;
+        this.canonicalFile = canonicalFile;
+        this.randomAccessFile = new RandomAccessFile(file, "rw");
+        this.channel = this.randomAccessFile.getChannel();
+    }
+
+    /**
+     * Opens the table in the file, creating the file if it does not exist.
+     *
+     * @param file the file of the table
+     * @return the table, the same instance as long as the file is open in this JVM
+     * @throws IOException if the file can not be read or written
+     */
+    static MappedHashTable open(final File file) throws IOException {
+        final File parent = file.getAbsoluteFile().getParentFile();
+        if (parent != null && !parent.isDirectory() && !parent.mkdirs() && !parent.isDirectory()) {
+            throw new IOException("Can not create directory " + parent);
+        }
+        final File canonicalFile = file.getCanonicalFile();
+        synchronized (OPEN) {
+            final MappedHashTable open = OPEN.get(canonicalFile);
+            if (open != null) {
+                open.users++;
+                return open;
+            }
+            final MappedHashTable table = create(file, canonicalFile);
+            OPEN.put(canonicalFile, table);
+            return table;
+        }
+    }
+
+    private static MappedHashTable create(final File file, final File canonicalFile) throws IOException {
+        final MappedHashTable table = new MappedHashTable(file, canonicalFile);
+        try {
+            final FileLock lock = table.channel.lock();
+            try {
+                if (!table.attach()) {
+                    table.initialize(INITIAL_CAPACITY);
+                }
+            } finally {
+                lock.release();
+            }
+        } catch (IOException e) {
+            table.randomAccessFile.close();
+            throw e;
+        }
+        return table;
+    }
+
+    File getFile() {
+        return this.file;
+    }
+
+    /**
+     * @param key the key
+     * @return the value of the key or 0 if it has none
+     * @throws IOException if the file can not be read
+     */
+    synchronized long get(final long key) throws IOException {
+        final long stored = stored(key);
+        final FileLock lock = this.channel.lock(0, Long.MAX_VALUE, true);
+        try {
+            if (!attach()) {
+                return 0;
+            }
+            final int slot = find(stored);
+            return slot < 0 ? 0 : this.buffer.getLong(offset(slot) + 8);
+        } finally {
+            lock.release();
+        }
+    }
+
+    /**
+     * @param key   the key
+     * @param value the value, not 0
+     * @throws IOException if the file can not be written
+     */
+    void put(final long key, final long value) throws IOException {
+        update(key, 0, value, false);
+    }
+
+    /**
+     * Sets the value of the key only if it has the expected value, atomically for all the JVMs using the file.
+     *
+     * @param key      the key
+     * @param expected the value the key must have, 0 if it must have none
+     * @param value    the new value, not 0
+     * @return the value of the key before, equal to expected if the value was set
+     * @throws IOException if the file can not be written
+     */
+    long compareAndPut(final long key, final long expected, final long value) throws IOException {
+        return update(key, expected, value, true);
+    }
+
+    private synchronized long update(final long key, final long expected, final long value, final boolean compare)
+            throws IOException {
+        if (value == 0) {
+            throw new IllegalArgumentException("A value can not be 0");
+        }
+        final long stored = stored(key);
+        final FileLock lock = this.channel.lock();
+        try {
+            if (!attach()) {
+                initialize(INITIAL_CAPACITY);
+            }
+            int slot = find(stored);
+            final long previous = slot < 0 ? 0 : this.buffer.getLong(offset(slot) + 8);
+            if (compare && previous != expected) {
+                return previous;
+            }
+            if (slot < 0) {
+                if ((count() + 1) * 4L > this.capacity * 3L) {
+                    grow();
+                    slot = find(stored);
+                }
+                slot = -slot - 1;
+                this.buffer.putInt(SIZE_OFFSET, count() + 1);
+            }
+            this.buffer.putLong(offset(slot) + 8, value);
+            this.buffer.putLong(offset(slot), stored);
+            return previous;
+        } finally {
+            lock.release();
+        }
+    }
+
+    /**
+     * @return the number of keys in the table
+     * @throws IOException if the file can not be read
+     */
+    synchronized int size() throws IOException {
+        final FileLock lock = this.channel.lock(0, Long.MAX_VALUE, true);
+        try {
+            return attach() ? count() : 0;
+        } finally {
+            lock.release();
+        }
+    }
+
+    /**
+     * @return the keys in the table each followed by its value, key 0 is returned as 1
+     * @throws IOException if the file can not be read
+     */
+    synchronized long[] entries() throws IOException {
+        final FileLock lock = this.channel.lock(0, Long.MAX_VALUE, true);
+        try {
+            if (!attach()) {
+                return new long[0];
+            }
+            final long[] entries = new long[2 * count()];
+            int index = 0;
+            for (int slot = 0; slot < this.capacity && index < entries.length; slot++) {
+                final long key = this.buffer.getLong(offset(slot));
+                if (key != 0) {
+                    entries[index++] = key;
+                    entries[index++] = this.buffer.getLong(offset(slot) + 8);
+                }
+            }
+            return entries;
+        } finally {
+            lock.release();
+        }
+    }
+
+    /**
+     * Removes all the keys.
+     *
+     * @throws IOException if the file can not be written
+     */
+    synchronized void clear() throws IOException {
+        final FileLock lock = this.channel.lock();
+        try {
+            initialize(INITIAL_CAPACITY);
+        } finally {
+            lock.release();
+        }
+    }
+
+    /**
+     * Closes the file when all that opened the table closed it.
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (OPEN) {
+            if (this.users == 0 || --this.users > 0) {
+                return;
+            }
+            OPEN.remove(this.canonicalFile);
+        }
+        synchronized (this) {
+            this.buffer = null;
+            this.randomAccessFile.close();
+        }
+    }
+
+    private static long stored(final long key) {
+        return key == 0 ? 1 : key;
+    }
+
+    private static int offset(final int slot) {
+        return HEADER + slot * SLOT;
+    }
+
+    private static int mix(final long key) {
+        final long mixed = (key ^ (key >>> 33)) * 0xff51afd7ed558ccdL;
+        return (int) (mixed ^ (mixed >>> 29));
+    }
+
+    /**
+     * @return the slot of the key or (-(insertion slot) - 1) if the key is not in the table
+     */
+    private int find(final long stored) {
+        final int mask = this.capacity - 1;
+        int slot = mix(stored) & mask;
+        while (true) {
+            final long found = this.buffer.getLong(offset(slot));
+            if (found == stored) {
+                return slot;
+            }
+            if (found == 0) {
+                return -slot - 1;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private int count() {
+        return this.buffer.getInt(SIZE_OFFSET);
+    }
+
+    /**
+     * Reads the header and maps the file again if another JVM changed the capacity of the table.
+     *
+     * @return false if the file does not hold a table
+     */
+    private boolean attach() throws IOException {
+        //Through Buffer, ByteBuffer.clear() does not exist on Java 8
+        ((Buffer) this.header).clear();
+        while (this.header.hasRemaining()) {
+            if (this.channel.read(this.header, this.header.position()) < 0) {
+                return false;
+            }
+        }
+        final int tableCapacity = this.header.getInt(CAPACITY_OFFSET);
+        if (this.header.getInt(0) != MAGIC || this.header.getInt(4) != FORMAT || Integer.bitCount(tableCapacity) != 1
+            || tableCapacity > MAXIMUM_CAPACITY || this.channel.size() < offset(tableCapacity)) {
+            return false;
+        }
+        if (this.buffer == null || tableCapacity != this.capacity) {
+            this.buffer = this.channel.map(FileChannel.MapMode.READ_WRITE, 0, offset(tableCapacity));
+            this.capacity = tableCapacity;
+        }
+        return true;
+    }
+
+    /**
+     * Creates an empty table. The file is never made shorter, another JVM may still have it mapped.
+     */
+    private void initialize(final int tableCapacity) throws IOException {
+        this.buffer = this.channel.map(FileChannel.MapMode.READ_WRITE, 0, offset(tableCapacity));
+        this.capacity = tableCapacity;
+        for (int position = HEADER; position < offset(tableCapacity); position += 8) {
+            this.buffer.putLong(position, 0);
+        }
+        this.buffer.putInt(SIZE_OFFSET, 0);
+        this.buffer.putInt(CAPACITY_OFFSET, tableCapacity);
+        this.buffer.putInt(4, FORMAT);
+        this.buffer.putInt(0, MAGIC);
+    }
+
+    /**
+     * Doubles the table and inserts all the keys again, or starts empty if the table would become too big.
+     */
+    private void grow() throws IOException {
+        if (this.capacity >= MAXIMUM_CAPACITY) {
+            initialize(INITIAL_CAPACITY);
+            return;
+        }
+        final int count = count();
+        final long[] keys = new long[count];
+        final long[] values = new long[count];
+        int index = 0;
+        for (int slot = 0; slot < this.capacity && index < count; slot++) {
+            final long key = this.buffer.getLong(offset(slot));
+            if (key != 0) {
+                keys[index] = key;
+                values[index] = this.buffer.getLong(offset(slot) + 8);
+                index++;
+            }
+        }
+        initialize(this.capacity * 2);
+        for (int i = 0; i < index; i++) {
+            final int slot = -find(keys[i]) - 1;
+            this.buffer.putLong(offset(slot) + 8, values[i]);
+            this.buffer.putLong(offset(slot), keys[i]);
+        }
+        this.buffer.putInt(SIZE_OFFSET, index);
+    }
+}
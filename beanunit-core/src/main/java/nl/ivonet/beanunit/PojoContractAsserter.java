@@ -15,9 +15,7 @@
  */
 package nl.ivonet.beanunit;
 
-import java.beans.BeanInfo;
 import java.beans.IntrospectionException;
-import java.beans.Introspector;
 import java.beans.PropertyDescriptor;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
@@ -28,11 +26,11 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
-import static org.junit.Assert.assertEquals;
-import static org.junit.Assert.assertFalse;
-import static org.junit.Assert.assertSame;
-import static org.junit.Assert.assertTrue;
-import static org.junit.Assert.fail;
+import static nl.ivonet.beanunit.Verify.assertEquals;
+import static nl.ivonet.beanunit.Verify.assertFalse;
+import static nl.ivonet.beanunit.Verify.assertSame;
+import static nl.ivonet.beanunit.Verify.assertTrue;
+import static nl.ivonet.beanunit.Verify.fail;
 
 /**
  * Test utility class that makes easy work of testing default behavior pojos (beans).
@@ -62,7 +60,7 @@ public final class PojoContractAsserter extends Asserter {
      * FindBugz says this is not correct but I don't see the bad in it :-)
      * <p/>
      * Uses a default argument for basic collection types, primitive types, Dates, java.sql.Dates, and Timestamps.
-     * See {@link PojoContractAsserter#TYPE_ARGUMENTS}.
+     * See {@link TypeArguments}.
      *
      * @param classUnderTest the object on which to invoke the getter and setter
      * @param property       the property name, e.g. "firstName"
@@ -83,10 +81,26 @@ public final class PojoContractAsserter extends Asserter {
     protected static <T> void assertBasicGetterSetterBehavior(final Class<T> classUnderTest, final String property,
                                                               final Object argument) {
         try {
-            final T testObject = classUnderTest.newInstance();
-            final PropertyDescriptor descriptor = new PropertyDescriptor(property, classUnderTest);
-            Object arg = argument;
+            final T testObject = Timing.newInstance(classUnderTest);
+            final BeanMetadata metadata = BeanMetadataCache.get(classUnderTest);
+            final PropertyDescriptor descriptor = metadata.getPropertyDescriptor(property);
+            if (descriptor == null || descriptor.getReadMethod() == null || descriptor.getWriteMethod() == null) {
+                throw new IntrospectionException("No getter and setter for property: " + property);
+            }
             final Class type = descriptor.getPropertyType();
+            final PrimitiveDefaults primitives = typeArguments().primitives();
+            if (argument == null && type.isPrimitive() && primitives.isRegistered(type)) {
+                final PrimitiveAccessor accessor = metadata.primitiveAccessor(descriptor);
+                if (accessor.isAvailable()) {
+                    Timing.set(accessor, testObject, property, primitives);
+                    if (!Timing.hasDefaultValue(accessor, testObject, property, primitives)) {
+                        assertEquals("%s getter/setter failed test", property, typeArguments().get(type),
+                                     accessor.get(testObject));
+                    }
+                    return;
+                }
+            }
+            Object arg = argument;
             if (arg == null) {
                 arg = retrieveDefaultValueByType(type);
             }
@@ -94,12 +108,12 @@ public final class PojoContractAsserter extends Asserter {
             final Method writeMethod = descriptor.getWriteMethod();
             final Method readMethod = descriptor.getReadMethod();
 
-            writeMethod.invoke(testObject, arg);
-            final Object propertyValue = readMethod.invoke(testObject);
+            Timing.set(metadata.setter(writeMethod), testObject, property, arg);
+            final Object propertyValue = Timing.get(metadata.getter(readMethod), testObject, property);
             if (type.isPrimitive()) {
-                assertEquals(property + " getter/setter failed test", arg, propertyValue);
+                assertEquals("%s getter/setter failed test", property, arg, propertyValue);
             } else {
-                assertSame(property + " getter/setter failed test", arg, propertyValue);
+                assertSame("%s getter/setter failed test", property, arg, propertyValue);
             }
         } catch (final IntrospectionException e) {
             fail("Error creating PropertyDescriptor for property [" + property
@@ -146,14 +160,17 @@ public final class PojoContractAsserter extends Asserter {
         final List<String> blacklist =
                 excludedProperties == null ? Collections.<String>emptyList() : Arrays.asList(excludedProperties);
         try {
-            final BeanInfo beanInfo = Introspector.getBeanInfo(classUnderTest);
-            final PropertyDescriptor[] descriptors = beanInfo.getPropertyDescriptors();
+            final PropertyDescriptor[] descriptors = BeanMetadataCache.get(classUnderTest).getPropertyDescriptors();
             for (final PropertyDescriptor descriptor : descriptors) {
                 if (descriptor.getWriteMethod() == null) {
                     continue;
                 }
                 if (!blacklist.contains(descriptor.getDisplayName())) {
-                    assertBasicGetterSetterBehavior(classUnderTest, descriptor.getDisplayName());
+                    try {
+                        assertBasicGetterSetterBehavior(classUnderTest, descriptor.getDisplayName());
+                    } catch (Verify.Abort e) {
+                        //Recorded in the report, continue with the next property
+                    }
                 }
             }
         } catch (final IntrospectionException e) {
@@ -182,11 +199,11 @@ public final class PojoContractAsserter extends Asserter {
                                        : new ArrayList<String>(Arrays.asList(excludedProperties));
         blacklist.add(ALWAYS_EXCLUDED);
         try {
-            final T one = classUnderTest.newInstance();
-            final T two = classUnderTest.newInstance();
+            final T one = Timing.newInstance(classUnderTest);
+            final T two = Timing.newInstance(classUnderTest);
 
             final Class<?> equalsDeclaringClass = retrieveEqualsMethodDeclaringClass(classUnderTest);
-            final Class<?> hashCodeDeclaringClass = classUnderTest.getMethod(HASH_CODE_METHOD_NAME).getDeclaringClass();
+            final Class<?> hashCodeDeclaringClass = retrieveHashCodeMethodDeclaringClass(classUnderTest);
             if (equalsDeclaringClass.getName().equals(JAVA_LANG_OBJECT) && hashCodeDeclaringClass.getName()
                                                                                    .equals(JAVA_LANG_OBJECT)) {
                 fail(String.format("The Class<%s> under test does not override the equals and hashCode method",
@@ -198,63 +215,16 @@ public final class PojoContractAsserter extends Asserter {
                                           classUnderTest));
             }
 
+            final Timing timing = Timing.start(BeanUnitEvent.Phase.EQUALS_HASH_CODE);
             assertTrue("Instances with default constructor not equal (o1.equals(o2))", one.equals(two));
             assertTrue("Instances with default constructor not equal (o1.equals(o1))", one.equals(one));
             assertTrue("Instances with default constructor not equal (o2.equals(o1))", two.equals(one));
             assertFalse("Equaling different types of object should not be equal", one.equals(new OtherType()));
             //noinspection ObjectEqualsNull
             assertFalse("Equaling null type should not be equal", one.equals(null));
+            Timing.finish(timing, classUnderTest, null);
 
-            final BeanInfo beanInfo = Introspector.getBeanInfo(classUnderTest);
-            final PropertyDescriptor[] descriptors = beanInfo.getPropertyDescriptors();
-            for (final PropertyDescriptor descriptor : descriptors) {
-                if (descriptor.getWriteMethod() == null) {
-                    continue;
-                }
-                if (blacklist.contains(descriptor.getDisplayName())) {
-                    continue;
-                }
-
-                final Object arg;
-                final Class type = descriptor.getPropertyType();
-                arg = retrieveDefaultValueByType(type);
-
-                final Method writeMethod = descriptor.getWriteMethod();
-                writeMethod.invoke(one, arg);
-
-                assertFalse("Instances with o1 having " + descriptor.getName()
-                            + " set and o2 having it not set are equal", one.equals(two));
-
-                writeMethod.invoke(two, arg);
-
-                assertTrue("Instances of " + classUnderTest.getSimpleName() + " with method " + writeMethod.getName()
-                           + "() set and second instance having it set to the same object are not equal",
-                                  one.equals(two));
-
-                assertTrue("Instances of " + classUnderTest.getSimpleName() + " with method " + writeMethod.getName()
-                           + "() set and second instance having it set to the same object have different hashCode",
-                                  one.hashCode() == two.hashCode());
-
-                if (!type.isPrimitive()) {
-                    final Object a = null;
-                    writeMethod.invoke(one, a);
-
-                    assertFalse("Instances with o1 having " + descriptor.getName()
-                                + " set to null and o2 having it not set are equal", one.equals(two));
-
-                    writeMethod.invoke(two, a);
-
-                    assertTrue("Instances of " + classUnderTest.getSimpleName() + " with method "
-                               + writeMethod.getName()
-                               + "() set to null and second instance having it set tonull are not equal",
-                                      one.equals(two));
-
-                    assertTrue("Instances of " + classUnderTest.getSimpleName() + " with method "
-                               + writeMethod.getName()
-                               + "() set to null and second instance having it set to null have different hashCode",
-                                      one.hashCode() == two.hashCode());
-                }
-            }
+            BeanVerifier.of(classUnderTest).assertEqualsHashCodePerProperty(one, two, blacklist);
         } catch (InstantiationException e) {
             fail(e.getMessage());
         } catch (IllegalAccessException e) {
@@ -278,6 +248,11 @@ public final class PojoContractAsserter extends Asserter {
      * @param <T>                the type of the class to test
      */
     public static <T> void assertBean(final Class<T> classUnderTest, final String... excludedProperties) {
+        final long key = ResultCache.key("PojoContractAsserter.assertBean", classUnderTest, null, excludedProperties);
+        if (ResultCache.lookup(key) != ResultCache.MISS) {
+            return;
+        }
+        final long start = System.nanoTime();
 
         assertBasicGetterSetterBehavior(classUnderTest, excludedProperties);
 
@@ -289,11 +264,7 @@ public final class PojoContractAsserter extends Asserter {
         } catch (NoSuchMethodException e) {
             fail("Should never be possible unless the equals class has been removed from Object");
         }
-    }
-
-    private static Class<?> retrieveEqualsMethodDeclaringClass(final Class<?> classUnderTest)
-            throws NoSuchMethodException {
-        return classUnderTest.getMethod(EQUALS_METHOD_NAME, Object.class).getDeclaringClass();
+        ResultCache.passed(key, BulkAsserter.Mode.POJO, start);
     }
 
     public static <T> T createObject(final Class<T> classUnderTest, final String... exclusionProperties) {
@@ -301,9 +272,9 @@ public final class PojoContractAsserter extends Asserter {
                 exclusionProperties == null ? Collections.<String>emptyList() : Arrays.asList(exclusionProperties);
         T testObject = null;
         try {
-            final BeanInfo beanInfo = Introspector.getBeanInfo(classUnderTest);
-            final PropertyDescriptor[] descriptors = beanInfo.getPropertyDescriptors();
-            testObject = classUnderTest.newInstance();
+            final BeanMetadata metadata = BeanMetadataCache.get(classUnderTest);
+            final PropertyDescriptor[] descriptors = metadata.getPropertyDescriptors();
+            testObject = Timing.newInstance(classUnderTest);
             for (final PropertyDescriptor descriptor : descriptors) {
                 if (descriptor.getWriteMethod() == null) {
                     continue;
@@ -311,7 +282,8 @@ public final class PojoContractAsserter extends Asserter {
                 if (!blacklist.contains(descriptor.getDisplayName())) {
                     assertBasicGetterSetterBehavior(classUnderTest, descriptor.getDisplayName());
                     final Method writeMethod = descriptor.getWriteMethod();
-                    writeMethod.invoke(testObject, retrieveDefaultValueByType(descriptor.getPropertyType()));
+                    Timing.set(metadata.setter(writeMethod), testObject, descriptor.getName(),
+                               retrieveDefaultValueByType(descriptor.getPropertyType()));
                 }
             }
         } catch (final IntrospectionException e) {
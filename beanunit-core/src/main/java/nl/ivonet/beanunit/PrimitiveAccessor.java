@@ -0,0 +1,175 @@
+/*
+ * Copyright 2011 Ivo Woltring
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.ivonet.beanunit;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+/**
+ * Getter and setter of a primitive property invoked with exactly typed method handles.
+ * <p/>
+ * The value from the {@link PrimitiveDefaults} is passed to the setter and compared with the result of the getter as a
+ * primitive, so a round trip does not box anything and allocates nothing.
+ *
+ * @author Ivo Woltring
+ */
+final class PrimitiveAccessor {
+    /**
+     * Marks properties that can not be accessed this way.
+     */
+    static final PrimitiveAccessor UNAVAILABLE = new PrimitiveAccessor(null, null, null);
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    private final Class<?> type;
+    private final MethodHandle getter;
+    private final MethodHandle setter;
+
+    private PrimitiveAccessor(final Class<?> type, final MethodHandle getter, final MethodHandle setter) {
+        this.type = type;
+        this.getter = getter;
+        this.setter = setter;
+    }
+
+    /**
+     * Creates the accessor for a primitive property.
+     *
+     * @param readMethod  the getter of the property
+     * @param writeMethod the setter of the property
+     * @return the accessor or {@link #UNAVAILABLE} if the property is not primitive or the methods are not accessible
+     */
+    static PrimitiveAccessor of(final Method readMethod, final Method writeMethod) {
+        final Class<?> type = readMethod.getReturnType();
+        if (!type.isPrimitive() || type == void.class || writeMethod.getParameterTypes().length != 1
+            || writeMethod.getParameterTypes()[0] != type) {
+            return UNAVAILABLE;
+        }
+        try {
+            final MethodHandle getter = LOOKUP.unreflect(readMethod)
+                                              .asType(MethodType.methodType(type, Object.class));
+            final MethodHandle setter = LOOKUP.unreflect(writeMethod)
+                                              .asType(MethodType.methodType(void.class, Object.class, type));
+            return new PrimitiveAccessor(type, getter, setter);
+        } catch (IllegalAccessException e) {
+            return UNAVAILABLE;
+        }
+    }
+
+    boolean isAvailable() {
+        return this != UNAVAILABLE;
+    }
+
+    /**
+     * Sets the registered default value of the primitive type and reads it back.
+     *
+     * @param bean     the bean to invoke the setter and getter on
+     * @param defaults the registered primitive default values
+     * @return true if the getter returned exactly what was set
+     * @throws InvocationTargetException if the getter or setter throws an exception
+     */
+    boolean roundTrip(final Object bean, final PrimitiveDefaults defaults) throws InvocationTargetException {
+        set(bean, defaults);
+        return hasDefaultValue(bean, defaults);
+    }
+
+    /**
+     * Sets the registered default value of the primitive type without boxing it.
+     *
+     * @param bean     the bean to invoke the setter on
+     * @param defaults the registered primitive default values
+     * @throws InvocationTargetException if the setter throws an exception
+     */
+    void set(final Object bean, final PrimitiveDefaults defaults) throws InvocationTargetException {
+        try {
+            if (this.type == int.class) {
+                this.setter.invokeExact(bean, defaults.intValue());
+            } else if (this.type == long.class) {
+                this.setter.invokeExact(bean, defaults.longValue());
+            } else if (this.type == double.class) {
+                this.setter.invokeExact(bean, defaults.doubleValue());
+            } else if (this.type == boolean.class) {
+                this.setter.invokeExact(bean, defaults.booleanValue());
+            } else if (this.type == float.class) {
+                this.setter.invokeExact(bean, defaults.floatValue());
+            } else if (this.type == char.class) {
+                this.setter.invokeExact(bean, defaults.charValue());
+            } else if (this.type == short.class) {
+                this.setter.invokeExact(bean, defaults.shortValue());
+            } else {
+                this.setter.invokeExact(bean, defaults.byteValue());
+            }
+        } catch (Throwable e) {
+            throw new InvocationTargetException(e);
+        }
+    }
+
+    /**
+     * Compares the result of the getter with the registered default value without boxing it.
+     *
+     * @param bean     the bean to invoke the getter on
+     * @param defaults the registered primitive default values
+     * @return true if the getter returns the registered default value
+     * @throws InvocationTargetException if the getter throws an exception
+     */
+    boolean hasDefaultValue(final Object bean, final PrimitiveDefaults defaults) throws InvocationTargetException {
+        try {
+            if (this.type == int.class) {
+                return (int) this.getter.invokeExact(bean) == defaults.intValue();
+            }
+            if (this.type == long.class) {
+                return (long) this.getter.invokeExact(bean) == defaults.longValue();
+            }
+            if (this.type == double.class) {
+                return Double.doubleToLongBits((double) this.getter.invokeExact(bean))
+                       == Double.doubleToLongBits(defaults.doubleValue());
+            }
+            if (this.type == boolean.class) {
+                return (boolean) this.getter.invokeExact(bean) == defaults.booleanValue();
+            }
+            if (this.type == float.class) {
+                return Float.floatToIntBits((float) this.getter.invokeExact(bean))
+                       == Float.floatToIntBits(defaults.floatValue());
+            }
+            if (this.type == char.class) {
+                return (char) this.getter.invokeExact(bean) == defaults.charValue();
+            }
+            if (this.type == short.class) {
+                return (short) this.getter.invokeExact(bean) == defaults.shortValue();
+            }
+            return (byte) this.getter.invokeExact(bean) == defaults.byteValue();
+        } catch (Throwable e) {
+            throw new InvocationTargetException(e);
+        }
+    }
+
+    /**
+     * Boxes the result of the getter, only to tell what went wrong.
+     *
+     * @param bean the bean to invoke the getter on
+     * @return the value of the property
+     * @throws InvocationTargetException if the getter throws an exception
+     */
+    Object get(final Object bean) throws InvocationTargetException {
+        try {
+            return this.getter.invoke(bean);
+        } catch (Throwable e) {
+            throw new InvocationTargetException(e);
+        }
+    }
+}
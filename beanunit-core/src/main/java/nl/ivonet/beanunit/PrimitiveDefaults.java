@@ -0,0 +1,131 @@
+/*
+ * Copyright 2011 Ivo Woltring
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.ivonet.beanunit;
+
+import java.util.Map;
+
+/**
+ * The default values of the primitive types kept as primitives.
+ * <p/>
+ * Every {@link TypeArguments} snapshot has one of these tables mirroring its primitive entries, so the primitive
+ * property checks can read their argument without touching a wrapper object. Every value is stored as its raw bits
+ * in a long. Instances are immutable.
+ *
+ * @author Ivo Woltring
+ */
+final class PrimitiveDefaults {
+    private static final Class<?>[] TYPES = {
+            boolean.class, char.class, byte.class, short.class, int.class, long.class, float.class, double.class};
+
+    private final long[] values = new long[TYPES.length];
+    private final boolean[] registered = new boolean[TYPES.length];
+
+    private PrimitiveDefaults(final Map<Class<?>, Object> typeArguments) {
+        for (int i = 0; i < TYPES.length; i++) {
+            if (typeArguments.containsKey(TYPES[i])) {
+                register(i, typeArguments.get(TYPES[i]));
+            }
+        }
+    }
+
+    /**
+     * Takes the primitive entries of the given type arguments.
+     *
+     * @param typeArguments the type arguments to take the primitive entries from
+     * @return the table
+     */
+    static PrimitiveDefaults of(final Map<Class<?>, Object> typeArguments) {
+        return new PrimitiveDefaults(typeArguments);
+    }
+
+    /**
+     * @param type a primitive type
+     * @return true if a default value is registered for the type
+     */
+    boolean isRegistered(final Class<?> type) {
+        final int index = indexOf(type);
+        return index >= 0 && this.registered[index];
+    }
+
+    /**
+     * Keeps the default value of a primitive type. Values that are not of the wrapper type belonging to the
+     * primitive type are not kept and leave the type unregistered.
+     */
+    private void register(final int index, final Object value) {
+        final Class<?> type = TYPES[index];
+        if (value instanceof Boolean && type == boolean.class) {
+            this.values[index] = (Boolean) value ? 1L : 0L;
+        } else if (value instanceof Character && type == char.class) {
+            this.values[index] = (Character) value;
+        } else if (value instanceof Byte && type == byte.class) {
+            this.values[index] = (Byte) value;
+        } else if (value instanceof Short && type == short.class) {
+            this.values[index] = (Short) value;
+        } else if (value instanceof Integer && type == int.class) {
+            this.values[index] = (Integer) value;
+        } else if (value instanceof Long && type == long.class) {
+            this.values[index] = (Long) value;
+        } else if (value instanceof Float && type == float.class) {
+            this.values[index] = Float.floatToRawIntBits((Float) value);
+        } else if (value instanceof Double && type == double.class) {
+            this.values[index] = Double.doubleToRawLongBits((Double) value);
+        } else {
+            return;
+        }
+        this.registered[index] = true;
+    }
+
+    boolean booleanValue() {
+        return this.values[0] != 0L;
+    }
+
+    char charValue() {
+        return (char) this.values[1];
+    }
+
+    byte byteValue() {
+        return (byte) this.values[2];
+    }
+
+    short shortValue() {
+        return (short) this.values[3];
+    }
+
+    int intValue() {
+        return (int) this.values[4];
+    }
+
+    long longValue() {
+        return this.values[5];
+    }
+
+    float floatValue() {
+        return Float.intBitsToFloat((int) this.values[6]);
+    }
+
+    double doubleValue() {
+        return Double.longBitsToDouble(this.values[7]);
+    }
+
+    private static int indexOf(final Class<?> type) {
+        for (int i = 0; i < TYPES.length; i++) {
+            if (TYPES[i] == type) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,366 @@
+/*
+ * Copyright 2011 Ivo Woltring
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nl.ivonet.beanunit;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Field;
+import java.net.URISyntaxException;
+import java.nio.charset.Charset;
+import java.security.CodeSource;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Remembers the beans that passed verification, so an unchanged bean is not verified again in the next build.
+ * <p/>
+ * Run with -Dbeanunit.cache=target/beanunit.cache to use it. The key of a verification is a hash of:
+ * <ul>
+ * <li>the class files of the bean, its super classes, interfaces, nested classes and the types of its fields,
+ * leaving out the classes of the JDK;</li>
+ * <li>the builder class and its super types when a builder is given;</li>
+ * <li>the jar of beanunit itself or all its class files, so a new beanunit verifies everything again;</li>
+ * <li>the registered types and their default arguments (see {@link TypeArguments#fingerprint()});</li>
+ * <li>the asserter and its options like the excluded properties.</li>
+ * </ul>
+ * Only passes are stored, a failing bean is verified again to tell what is wrong with it. A class of which the
+ * class file can not be read (e.g. defined at runtime) is never cached, nor is anything when beanunit is not loaded
+ * from a jar or directory.
+ * <p/>
+ * The keys are kept in a {@link MappedHashTable}, so the surefire forks of a build share the file. When the file can
+ * not be used a warning is printed and the beans are verified as if there was no cache.
+ *
+ * @author Ivo Woltring
+ */
+final class ResultCache {
+    static final String CACHE_PROPERTY = "beanunit.cache";
+    static final long MISS = 0;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final byte[] UNREADABLE = new byte[0];
+    private static final ClassValue<byte[]> CLASS_DIGESTS = new ClassValue<byte[]>() {
+        @Override
+        protected byte[] computeValue(final Class<?> type) {
+            return digestClassFile(type);
+        }
+    };
+    private static final int MODE_BITS = 2;
+    private static final long MODE_MASK = (1 << MODE_BITS) - 1;
+
+    private static volatile ResultCache installed = openConfigured();
+
+    private final MappedHashTable table;
+
+    private ResultCache(final MappedHashTable table) {
+        this.table = table;
+    }
+
+    /**
+     * @param file the file to keep the results in, created if it does not exist
+     * @return the cache
+     * @throws IOException if the file can not be used
+     */
+    static ResultCache open(final File file) throws IOException {
+        return new ResultCache(MappedHashTable.open(file));
+    }
+
+    /**
+     * Uses the given cache for all verifications from now on.
+     *
+     * @param cache the cache, null to verify everything again
+     * @return the cache used before, null if there was none
+     */
+    static ResultCache install(final ResultCache cache) {
+        final ResultCache previous = installed;
+        installed = cache;
+        return previous;
+    }
+
+    /**
+     * @param asserter the name of the asserter
+     * @param type     the bean
+     * @param builder  the builder of the bean, null if none is given
+     * @param options  the options of the asserter, e.g. the excluded properties
+     * @return the key of the verification or {@link #MISS} if there is no cache or the bean can not be cached
+     */
+    static long key(final String asserter, final Class<?> type, final Class<?> builder, final String... options) {
+        if (installed == null) {
+            return MISS;
+        }
+        return digest(asserter, type, builder, options);
+    }
+
+    /**
+     * The key of a verification whether a cache is used or not, see {@link WorkQueue}.
+     *
+     * @param asserter the name of the asserter
+     * @param type     the bean
+     * @param builder  the builder of the bean, null if none is given
+     * @param options  the options of the asserter, e.g. the excluded properties
+     * @return the key of the verification or {@link #MISS} if the bean can not be cached
+     */
+    static long digest(final String asserter, final Class<?> type, final Class<?> builder, final String... options) {
+        final Set<Class<?>> classes = new LinkedHashSet<Class<?>>();
+        collect(type, classes, true);
+        if (builder != null) {
+            collect(builder, classes, false);
+        }
+        if (BeanUnitDigest.VALUE == UNREADABLE) {
+            return MISS;
+        }
+        final MessageDigest digest = sha256();
+        digest.update(BeanUnitDigest.VALUE);
+        for (final Class<?> each : classes) {
+            final byte[] classDigest = CLASS_DIGESTS.get(each);
+            if (classDigest == UNREADABLE) {
+                return MISS;
+            }
+            digest.update(classDigest);
+        }
+        update(digest, Asserter.typeArguments().fingerprint());
+        update(digest, asserter);
+        if (options != null) {
+            for (final String option : options) {
+                update(digest, String.valueOf(option));
+            }
+        }
+        final byte[] hash = digest.digest();
+        long key = 0;
+        for (int i = 0; i < 8; i++) {
+            key = (key << 8) | (hash[i] & 0xFF);
+        }
+        return key == MISS ? 1 : key;
+    }
+
+    /**
+     * @param key the key of the verification
+     * @return the stored entry of a passed verification or {@link #MISS}
+     */
+    static long lookup(final long key) {
+        final ResultCache cache = installed;
+        if (key == MISS || cache == null) {
+            return MISS;
+        }
+        try {
+            return cache.table.get(key);
+        } catch (IOException e) {
+            disable(cache, e);
+            return MISS;
+        }
+    }
+
+    /**
+     * Stores a passed verification.
+     *
+     * @param key        the key of the verification, nothing is stored if it is {@link #MISS}
+     * @param mode       the asserter used, not {@link BulkAsserter.Mode#AUTO}
+     * @param startNanos the {@link System#nanoTime()} the verification started
+     */
+    static void passed(final long key, final BulkAsserter.Mode mode, final long startNanos) {
+        final ResultCache cache = installed;
+        if (key == MISS || cache == null) {
+            return;
+        }
+        final long nanos = Math.max(0, System.nanoTime() - startNanos);
+        try {
+            cache.table.put(key, (nanos << MODE_BITS) | mode.ordinal());
+        } catch (IOException e) {
+            disable(cache, e);
+        }
+    }
+
+    /**
+     * @param entry a stored entry
+     * @return the asserter used by the verification
+     */
+    static BulkAsserter.Mode mode(final long entry) {
+        return BulkAsserter.Mode.values()[(int) (entry & MODE_MASK)];
+    }
+
+    /**
+     * @param entry a stored entry
+     * @return the time the verification took in nanoseconds
+     */
+    static long nanos(final long entry) {
+        return entry >>> MODE_BITS;
+    }
+
+    /**
+     * @return the number of passed verifications stored
+     * @throws IOException if the file can not be read
+     */
+    int size() throws IOException {
+        return this.table.size();
+    }
+
+    void close() throws IOException {
+        this.table.close();
+    }
+
+    private static ResultCache openConfigured() {
+        final String path = System.getProperty(CACHE_PROPERTY);
+        if (path == null || path.trim().isEmpty()) {
+            return null;
+        }
+        try {
+            return open(new File(path.trim()));
+        } catch (IOException e) {
+            System.err.println("beanunit: not caching results in " + path + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static synchronized void disable(final ResultCache cache, final IOException e) {
+        if (installed == cache) {
+            installed = null;
+            System.err.println("beanunit: not caching results in " + cache.table.getFile() + ": " + e.getMessage());
+        }
+    }
+
+    private static void collect(final Class<?> type, final Set<Class<?>> classes, final boolean withMembers) {
+        if (type == null || type.isPrimitive() || type.getClassLoader() == null || !classes.add(type)) {
+            return;
+        }
+        collect(type.getSuperclass(), classes, withMembers);
+        for (final Class<?> each : type.getInterfaces()) {
+            collect(each, classes, false);
+        }
+        if (!withMembers) {
+            return;
+        }
+        for (final Class<?> nested : type.getDeclaredClasses()) {
+            collect(nested, classes, false);
+        }
+        for (final Field field : type.getDeclaredFields()) {
+            Class<?> fieldType = field.getType();
+            while (fieldType.isArray()) {
+                fieldType = fieldType.getComponentType();
+            }
+            collect(fieldType, classes, false);
+        }
+    }
+
+    private static byte[] digestClassFile(final Class<?> type) {
+        final InputStream in = type.getClassLoader().getResourceAsStream(type.getName().replace('.', '/') + ".class");
+        if (in == null) {
+            return UNREADABLE;
+        }
+        final MessageDigest digest = sha256();
+        try {
+            update(digest, in);
+        } catch (IOException e) {
+            return UNREADABLE;
+        }
+        return digest.digest();
+    }
+
+    /**
+     * Digests the jar beanunit is loaded from or, when it is loaded from a directory, all the class files of its
+     * package.
+     */
+    private static byte[] digestBeanUnit() {
+        final File location = beanUnitLocation();
+        if (location == null) {
+            return UNREADABLE;
+        }
+        final MessageDigest digest = sha256();
+        update(digest, String.valueOf(ResultCache.class.getPackage().getImplementationVersion()));
+        try {
+            if (location.isDirectory()) {
+                final String path = ResultCache.class.getPackage().getName().replace('.', '/');
+                updateClassFiles(digest, new File(location, path), path);
+            } else {
+                update(digest, new FileInputStream(location));
+            }
+        } catch (IOException e) {
+            return UNREADABLE;
+        }
+        return digest.digest();
+    }
+
+    private static File beanUnitLocation() {
+        try {
+            final CodeSource codeSource = ResultCache.class.getProtectionDomain().getCodeSource();
+            if (codeSource == null || codeSource.getLocation() == null
+                || !"file".equals(codeSource.getLocation().getProtocol())) {
+                return null;
+            }
+            return new File(codeSource.getLocation().toURI());
+        } catch (URISyntaxException e) {
+            return null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        } catch (SecurityException e) {
+            return null;
+        }
+    }
+
+    private static void updateClassFiles(final MessageDigest digest, final File directory, final String path)
+            throws IOException {
+        final File[] files = directory.listFiles();
+        if (files == null) {
+            throw new IOException("Can not list " + directory);
+        }
+        Arrays.sort(files);
+        for (final File file : files) {
+            final String name = path + '/' + file.getName();
+            if (file.isDirectory()) {
+                updateClassFiles(digest, file, name);
+            } else if (file.getName().endsWith(".class")) {
+                update(digest, name);
+                update(digest, new FileInputStream(file));
+            }
+        }
+    }
+
+    private static void update(final MessageDigest digest, final InputStream in) throws IOException {
+        try {
+            final byte[] chunk = new byte[8192];
+            int read;
+            while ((read = in.read(chunk)) != -1) {
+                digest.update(chunk, 0, read);
+            }
+        } finally {
+            in.close();
+        }
+    }
+
+    private static void update(final MessageDigest digest, final String value) {
+        digest.update(value.getBytes(UTF_8));
+        digest.update((byte) 0);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Every JVM supports SHA-256", e);
+        }
+    }
+
+    /**
+     * Computed on first use.
+     */
+    private static final class BeanUnitDigest {
+        static final byte[] VALUE = digestBeanUnit();
+    }
+}
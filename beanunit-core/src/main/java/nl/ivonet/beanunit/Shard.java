@@ -0,0 +1,224 @@
+/*
+ * Copyright 2011 Ivo Woltring
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nl.ivonet.beanunit;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Splits the beans of a bulk verification over the executors of a CI build, e.g. -Dbeanunit.shard=3/8 verifies the
+ * third of eight shards.
+ * <p/>
+ * Every executor computes the same plan from the names of the beans and their costs, so it plans with a frozen costs
+ * file that is the same everywhere: -Dbeanunit.costs.plan=beanunit.costs.plan. It is only read. The costs measured
+ * by a shard are recorded in a file of its own when -Dbeanunit.costs is set; merge those into the plan for the next
+ * build, see {@link CostHistory}. The plan:
+ * <ul>
+ * <li>a bean that was never measured goes to the shard of the hash of its name, so it stays there when other beans
+ * are added or removed;</li>
+ * <li>the measured beans are handed out most expensive first to the shard with the least work (longest processing
+ * time first), counting the new beans at the average cost. Costs are rounded down to a power of two, so a bean
+ * only moves when its cost changes a lot.</li>
+ * </ul>
+ *
+ * @author Ivo Woltring
+ */
+final class Shard {
+    static final String SHARD_PROPERTY = "beanunit.shard";
+    static final String PLAN_PROPERTY = "beanunit.costs.plan";
+
+    /**
+     * Assigned before the plan is opened, as opening it initializes the {@link CostHistory} which asks for the shard.
+     */
+    private static volatile Shard installed = configured(System.getProperty(SHARD_PROPERTY));
+    private static volatile CostHistory plan = openPlan();
+
+    private final int number;
+    private final int count;
+
+    Shard(final int number, final int count) {
+        if (count < 1 || number < 1 || number > count) {
+            throw new IllegalArgumentException(String.format("Shard %d/%d does not exist", number, count));
+        }
+        this.number = number;
+        this.count = count;
+    }
+
+    /**
+     * @param value the shard like "3/8", the first shard is 1
+     * @return the shard
+     */
+    static Shard parse(final String value) {
+        final int slash = value.indexOf('/');
+        if (slash < 0) {
+            throw new IllegalArgumentException(String.format("Not a shard like 3/8 [%s]", value));
+        }
+        try {
+            return new Shard(Integer.parseInt(value.substring(0, slash).trim()),
+                             Integer.parseInt(value.substring(slash + 1).trim()));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(String.format("Not a shard like 3/8 [%s]", value), e);
+        }
+    }
+
+    /**
+     * @return the shard to verify or null if all beans are verified
+     */
+    static Shard installed() {
+        return installed;
+    }
+
+    /**
+     * Verifies only the beans of the given shard from now on.
+     *
+     * @param shard the shard, null to verify all beans
+     * @return the shard used before, null if there was none
+     */
+    static Shard install(final Shard shard) {
+        final Shard previous = installed;
+        installed = shard;
+        return previous;
+    }
+
+    /**
+     * Plans the shards with the given costs from now on.
+     *
+     * @param costs the costs, null to plan as if no bean was ever measured
+     * @return the costs used before, null if there were none
+     */
+    static CostHistory installPlan(final CostHistory costs) {
+        final CostHistory previous = plan;
+        plan = costs;
+        return previous;
+    }
+
+    int getNumber() {
+        return this.number;
+    }
+
+    int getCount() {
+        return this.count;
+    }
+
+    /**
+     * @param types the beans
+     * @return true per bean that belongs to this shard
+     */
+    boolean[] select(final Class<?>[] types) {
+        final String[] names = new String[types.length];
+        for (int i = 0; i < types.length; i++) {
+            names[i] = types[i].getName();
+        }
+        final int[] plan = plan(names, costs(names), this.count);
+        final boolean[] selected = new boolean[types.length];
+        for (int i = 0; i < types.length; i++) {
+            selected[i] = plan[i] == this.number - 1;
+        }
+        return selected;
+    }
+
+    /**
+     * @param names the names of the beans
+     * @param costs the cost per bean, {@link CostHistory#UNKNOWN} if it was never measured
+     * @param count the number of shards
+     * @return the shard per bean, starting at 0
+     */
+    static int[] plan(final String[] names, final long[] costs, final int count) {
+        final int[] plan = new int[names.length];
+        final long[] rounded = new long[names.length];
+        final long[] load = new long[count];
+        final List<Integer> measured = new ArrayList<Integer>();
+        long total = 0;
+        for (int i = 0; i < names.length; i++) {
+            rounded[i] = Long.highestOneBit(costs[i]);
+            if (costs[i] == CostHistory.UNKNOWN) {
+                plan[i] = (int) Math.floorMod(CostHistory.key(names[i]), (long) count);
+            } else {
+                measured.add(i);
+                total += rounded[i];
+            }
+        }
+        final long average = measured.isEmpty() ? 1 : Math.max(1, total / measured.size());
+        for (int i = 0; i < names.length; i++) {
+            if (costs[i] == CostHistory.UNKNOWN) {
+                load[plan[i]] += average;
+            }
+        }
+        final Integer[] order = measured.toArray(new Integer[measured.size()]);
+        Arrays.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(final Integer one, final Integer two) {
+                if (rounded[one] != rounded[two]) {
+                    return rounded[one] > rounded[two] ? -1 : 1;
+                }
+                return names[one].compareTo(names[two]);
+            }
+        });
+        for (final Integer index : order) {
+            int lightest = 0;
+            for (int shard = 1; shard < count; shard++) {
+                if (load[shard] < load[lightest]) {
+                    lightest = shard;
+                }
+            }
+            plan[index] = lightest;
+            load[lightest] += rounded[index];
+        }
+        return plan;
+    }
+
+    @Override
+    public String toString() {
+        return this.number + "/" + this.count;
+    }
+
+    private static long[] costs(final String[] names) {
+        final long[] costs = new long[names.length];
+        final CostHistory history = plan;
+        for (int i = 0; i < names.length && history != null; i++) {
+            try {
+                costs[i] = history.estimate(names[i]);
+            } catch (IOException e) {
+                throw new IllegalStateException("Can not read the recorded costs to plan the shards", e);
+            }
+        }
+        return costs;
+    }
+
+    /**
+     * Fails when the plan can not be read while sharding: executors planning with different costs would skip beans.
+     */
+    private static CostHistory openPlan() {
+        final String path = System.getProperty(PLAN_PROPERTY);
+        if (installed == null || path == null || path.trim().isEmpty()) {
+            return null;
+        }
+        try {
+            return CostHistory.open(new File(path.trim()));
+        } catch (IOException e) {
+            throw new IllegalStateException("Can not read the costs to plan the shards with from " + path, e);
+        }
+    }
+
+    private static Shard configured(final String value) {
+        return value == null || value.trim().isEmpty() ? null : parse(value.trim());
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright 2011 Ivo Woltring
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nl.ivonet.beanunit;
+
+import java.lang.reflect.InvocationTargetException;
+
+/**
+ * The timing hooks of the phases reported to the {@link BeanUnitListener}s and the {@link Recorder}.
+ * <p/>
+ * Without listeners or recorder a hook is two volatile reads: the clock is not read and nothing is allocated. A phase
+ * that throws is not reported. With listeners the bytes allocated by the thread during the phase are measured too, as
+ * far as the JVM supports it.
+ *
+ * @author Ivo Woltring
+ */
+final class Timing {
+    private static volatile Recorder recorder;
+
+    private final BeanUnitEvent.Phase phase;
+    private final Recorder phaseRecorder;
+    private final Object recorded;
+    private final long startBytes;
+    private final long startNanos;
+
+    private Timing(final BeanUnitEvent.Phase phase, final Recorder phaseRecorder) {
+        this.phase = phase;
+        this.phaseRecorder = phaseRecorder;
+        this.recorded = phaseRecorder == null ? null : phaseRecorder.begin(phase);
+        //Read after this object is allocated so it is not counted
+        this.startBytes = Allocations.currentThread();
+        this.startNanos = System.nanoTime();
+    }
+
+    /**
+     * Records every phase that starts from now on with the recorder.
+     *
+     * @param recorder the recorder or null to stop recording
+     */
+    static void record(final Recorder recorder) {
+        Timing.recorder = recorder;
+    }
+
+    /**
+     * @param phase the phase that starts
+     * @return the start of the phase to pass to {@link #finish(Timing, Class, String)} or null if nothing is listening
+     */
+    static Timing start(final BeanUnitEvent.Phase phase) {
+        if (BeanUnitListeners.current().length == 0) {
+            final Recorder current = recorder;
+            return current == null ? null : new Timing(phase, current);
+        }
+        return new Timing(phase, recorder);
+    }
+
+    /**
+     * Reports a phase to the recorder and the listeners if it was timed.
+     *
+     * @param timing   the result of {@link #start(BeanUnitEvent.Phase)}
+     * @param type     the class involved
+     * @param property the property involved or null
+     */
+    static void finish(final Timing timing, final Class<?> type, final String property) {
+        if (timing == null) {
+            return;
+        }
+        final long nanos = System.nanoTime() - timing.startNanos;
+        final long bytes = Allocations.since(timing.startBytes);
+        if (timing.recorded != null) {
+            timing.phaseRecorder.end(timing.recorded, type, property, bytes);
+        }
+        final BeanUnitListener[] listeners = BeanUnitListeners.current();
+        if (listeners.length == 0) {
+            return;
+        }
+        final BeanUnitEvent event = new BeanUnitEvent(timing.phase, type, property, nanos, bytes);
+        for (final BeanUnitListener listener : listeners) {
+            listener.phaseCompleted(event);
+        }
+    }
+
+    static <T> T newInstance(final Class<T> type) throws InstantiationException, IllegalAccessException {
+        final Timing timing = start(BeanUnitEvent.Phase.INSTANTIATION);
+        final T instance = type.newInstance();
+        finish(timing, type, null);
+        return instance;
+    }
+
+    static Object get(final Invokers.Getter getter, final Object bean, final String property)
+            throws IllegalAccessException, InvocationTargetException {
+        final Timing timing = start(BeanUnitEvent.Phase.GETTER);
+        final Object value = getter.get(bean);
+        finish(timing, bean.getClass(), property);
+        return value;
+    }
+
+    static void set(final Invokers.Setter setter, final Object bean, final String property, final Object value)
+            throws IllegalAccessException, InvocationTargetException {
+        final Timing timing = start(BeanUnitEvent.Phase.SETTER);
+        setter.set(bean, value);
+        finish(timing, bean.getClass(), property);
+    }
+
+    /**
+     * Sets the registered default value of a primitive property, see {@link PrimitiveAccessor#set}.
+     */
+    static void set(final PrimitiveAccessor accessor, final Object bean, final String property,
+                    final PrimitiveDefaults defaults) throws InvocationTargetException {
+        final Timing timing = start(BeanUnitEvent.Phase.SETTER);
+        accessor.set(bean, defaults);
+        finish(timing, bean.getClass(), property);
+    }
+
+    /**
+     * @return true if the primitive property has the registered default value, see
+     * {@link PrimitiveAccessor#hasDefaultValue}
+     */
+    static boolean hasDefaultValue(final PrimitiveAccessor accessor, final Object bean, final String property,
+                                   final PrimitiveDefaults defaults) throws InvocationTargetException {
+        final Timing timing = start(BeanUnitEvent.Phase.GETTER);
+        final boolean equal = accessor.hasDefaultValue(bean, defaults);
+        finish(timing, bean.getClass(), property);
+        return equal;
+    }
+
+    /**
+     * @return one.equals(two)
+     */
+    static boolean areEqual(final Object one, final Object two, final String property) {
+        final Timing timing = start(BeanUnitEvent.Phase.EQUALS_HASH_CODE);
+        final boolean equal = one.equals(two);
+        finish(timing, one.getClass(), property);
+        return equal;
+    }
+
+    /**
+     * @return one.hashCode() == two.hashCode()
+     */
+    static boolean haveEqualHashCodes(final Object one, final Object two, final String property) {
+        final Timing timing = start(BeanUnitEvent.Phase.EQUALS_HASH_CODE);
+        final boolean equal = one.hashCode() == two.hashCode();
+        finish(timing, one.getClass(), property);
+        return equal;
+    }
+
+    /**
+     * Brackets the phases with events of its own, e.g. to give them a start and duration in a profiler timeline.
+     */
+    interface Recorder {
+        /**
+         * @param phase the phase that starts
+         * @return the event begun for the phase or null if the phase is not recorded
+         */
+        Object begin(BeanUnitEvent.Phase phase);
+
+        /**
+         * @param event          the event returned by {@link #begin(BeanUnitEvent.Phase)}
+         * @param type           the class involved
+         * @param property       the property involved or null
+         * @param allocatedBytes the bytes allocated during the phase or {@link Allocations#UNKNOWN}
+         */
+        void end(Object event, Class<?> type, String property, long allocatedBytes);
+    }
+}
@@ -0,0 +1,238 @@
+/*
+ * Copyright 2011 Ivo Woltring
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nl.ivonet.beanunit;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * A {@link BeanUnitListener} that adds up the time spent and the bytes allocated per class and per phase, to find the
+ * beans that make a run slow or churn the heap.
+ * <p/>
+ * The {@link BeanUnitEvent.Phase#DEFAULT_VALUE} phase is about the type of a property (e.g. String), not a bean, so it
+ * only counts per phase.
+ * <p/>
+ * Register it with {@link BeanUnitListeners#add(BeanUnitListener)} and print the {@link #report(int)} at the end of the
+ * run, or let it be done by setting the system property <code>beanunit.timings</code>.
+ *
+ * @author Ivo Woltring
+ */
+public final class TimingAggregator implements BeanUnitListener {
+    private static final Comparator<Total> SLOWEST_FIRST = new Comparator<Total>() {
+        @Override
+        public int compare(final Total one, final Total two) {
+            return Long.compare(two.getNanos(), one.getNanos());
+        }
+    };
+
+    private static final Comparator<Total> MOST_ALLOCATING_FIRST = new Comparator<Total>() {
+        @Override
+        public int compare(final Total one, final Total two) {
+            return Long.compare(two.getAllocatedBytes(), one.getAllocatedBytes());
+        }
+    };
+
+    private static final Function<Class<?>, Accumulator> NEW_ACCUMULATOR = new Function<Class<?>, Accumulator>() {
+        @Override
+        public Accumulator apply(final Class<?> type) {
+            return new Accumulator();
+        }
+    };
+
+    private final ConcurrentMap<Class<?>, Accumulator> classes = new ConcurrentHashMap<Class<?>, Accumulator>();
+    private final Accumulator[] phases = new Accumulator[BeanUnitEvent.Phase.values().length];
+
+    public TimingAggregator() {
+        for (int i = 0; i < this.phases.length; i++) {
+            this.phases[i] = new Accumulator();
+        }
+    }
+
+    @Override
+    public void phaseCompleted(final BeanUnitEvent event) {
+        if (event.getPhase() != BeanUnitEvent.Phase.DEFAULT_VALUE) {
+            this.classes.computeIfAbsent(event.getType(), NEW_ACCUMULATOR).add(event);
+        }
+        this.phases[event.getPhase().ordinal()].add(event);
+    }
+
+    /**
+     * @param top the maximum number of classes to return
+     * @return the classes that took the most time, slowest first
+     */
+    public List<Total> getSlowestClasses(final int top) {
+        return topClasses(top, SLOWEST_FIRST);
+    }
+
+    /**
+     * @param top the maximum number of classes to return
+     * @return the classes that allocated the most bytes, most allocating first
+     */
+    public List<Total> getMostAllocatingClasses(final int top) {
+        return topClasses(top, MOST_ALLOCATING_FIRST);
+    }
+
+    private List<Total> topClasses(final int top, final Comparator<Total> order) {
+        final List<Total> totals = new ArrayList<Total>(this.classes.size());
+        for (final Map.Entry<Class<?>, Accumulator> entry : this.classes.entrySet()) {
+            totals.add(entry.getValue().total(entry.getKey().getName()));
+        }
+        Collections.sort(totals, order);
+        return totals.subList(0, Math.min(Math.max(top, 0), totals.size()));
+    }
+
+    /**
+     * @return the time spent in every phase, slowest first
+     */
+    public List<Total> getPhases() {
+        final List<Total> totals = new ArrayList<Total>(this.phases.length);
+        for (final BeanUnitEvent.Phase phase : BeanUnitEvent.Phase.values()) {
+            totals.add(this.phases[phase.ordinal()].total(phase.name()));
+        }
+        Collections.sort(totals, SLOWEST_FIRST);
+        return totals;
+    }
+
+    /**
+     * Forgets everything added up so far.
+     */
+    public void reset() {
+        this.classes.clear();
+        for (final Accumulator phase : this.phases) {
+            phase.reset();
+        }
+    }
+
+    /**
+     * @param top the maximum number of classes to list
+     * @return a table of the slowest classes, the most allocating classes and all phases
+     */
+    public String report(final int top) {
+        final List<Total> slowest = getSlowestClasses(top);
+        final StringBuilder report = new StringBuilder();
+        report.append("beanunit timings, the ").append(slowest.size()).append(" slowest of ")
+              .append(this.classes.size()).append(" classes:\n");
+        append(report, slowest);
+        report.append("most allocating:\n");
+        append(report, getMostAllocatingClasses(top));
+        report.append("per phase:\n");
+        append(report, getPhases());
+        return report.toString();
+    }
+
+    /**
+     * Prints the {@link #report(int)}.
+     *
+     * @param out the stream to print to
+     * @param top the maximum number of classes to list
+     */
+    public void print(final PrintStream out, final int top) {
+        out.print(report(top));
+        out.flush();
+    }
+
+    private static void append(final StringBuilder report, final List<Total> totals) {
+        for (final Total total : totals) {
+            report.append(String.format(Locale.ROOT, "%14.3f ms %14.1f KB %10d events  %s\n",
+                                        total.getNanos() / 1e6, total.getAllocatedBytes() / 1024.0,
+                                        total.getCount(), total.getName()));
+        }
+    }
+
+    /**
+     * The time spent and bytes allocated on a class or in a phase.
+     */
+    public static final class Total {
+        private final String name;
+        private final long count;
+        private final long nanos;
+        private final long allocatedBytes;
+
+        Total(final String name, final long count, final long nanos, final long allocatedBytes) {
+            this.name = name;
+            this.count = count;
+            this.nanos = nanos;
+            this.allocatedBytes = allocatedBytes;
+        }
+
+        /**
+         * @return the name of the class or phase
+         */
+        public String getName() {
+            return this.name;
+        }
+
+        /**
+         * @return the number of events added up
+         */
+        public long getCount() {
+            return this.count;
+        }
+
+        /**
+         * @return the total time in nanoseconds
+         */
+        public long getNanos() {
+            return this.nanos;
+        }
+
+        /**
+         * @return the total bytes allocated, 0 if the JVM can not tell
+         */
+        public long getAllocatedBytes() {
+            return this.allocatedBytes;
+        }
+
+        @Override
+        public String toString() {
+            return this.name + " " + this.nanos + "ns " + this.allocatedBytes + "B (" + this.count + ")";
+        }
+    }
+
+    private static final class Accumulator {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder nanos = new LongAdder();
+        private final LongAdder bytes = new LongAdder();
+
+        void add(final BeanUnitEvent event) {
+            this.count.increment();
+            this.nanos.add(event.getNanos());
+            if (event.getAllocatedBytes() > 0) {
+                this.bytes.add(event.getAllocatedBytes());
+            }
+        }
+
+        void reset() {
+            this.count.reset();
+            this.nanos.reset();
+            this.bytes.reset();
+        }
+
+        Total total(final String name) {
+            return new Total(name, this.count.sum(), this.nanos.sum(), this.bytes.sum());
+        }
+    }
+}
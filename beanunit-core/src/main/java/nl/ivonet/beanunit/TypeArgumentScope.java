@@ -0,0 +1,81 @@
+/*
+ * Copyright 2011 Ivo Woltring
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nl.ivonet.beanunit;
+
+import java.io.Closeable;
+
+/**
+ * A copy on write scope of the registered types and default arguments of the current thread.
+ * <p/>
+ * Within the scope all (de)registrations and resets only affect the current thread and are gone when the scope is
+ * closed. Opening and closing a scope only swap a reference, so a scope per test costs nothing:
+ * <pre>
+ * try (TypeArgumentScope scope = TypeArgumentScope.open()) {
+ *     Asserter.registerTypeAndDefaultArgument(Address.class, address);
+ *     PojoContractAsserter.assertBean(Person.class);
+ * }
+ * </pre>
+ * Scopes can be nested and must be closed by the thread that opened them, innermost first.
+ * The TypeArgumentsRule of beanunit-junit4 and the TypeArgumentsExtension of beanunit-junit5 open a scope per test.
+ *
+ * @author Ivo Woltring
+ */
+public final class TypeArgumentScope implements Closeable {
+    private final Thread owner;
+    private final TypeArguments previous;
+    private boolean closed;
+
+    private TypeArgumentScope(final TypeArguments snapshot) {
+        this.owner = Thread.currentThread();
+        this.previous = TypeArguments.enter(snapshot);
+    }
+
+    /**
+     * Opens a scope starting with the types and default arguments currently in use by this thread.
+     *
+     * @return the open scope
+     */
+    public static TypeArgumentScope open() {
+        return new TypeArgumentScope(Asserter.typeArguments());
+    }
+
+    /**
+     * Opens a scope using the given snapshot, e.g. to run with the registrations of another thread.
+     *
+     * @param snapshot the snapshot to use
+     * @return the open scope
+     */
+    static TypeArgumentScope open(final TypeArguments snapshot) {
+        return new TypeArgumentScope(snapshot);
+    }
+
+    /**
+     * Restores the types and default arguments in use before the scope was opened.
+     * Closing a scope more than once has no effect.
+     */
+    @Override
+    public void close() {
+        if (this.closed) {
+            return;
+        }
+        if (Thread.currentThread() != this.owner) {
+            throw new IllegalStateException("A TypeArgumentScope must be closed by the thread that opened it.");
+        }
+        this.closed = true;
+        TypeArguments.enter(this.previous);
+    }
+}
@@ -0,0 +1,227 @@
+/*
+ * Copyright 2011 Ivo Woltring
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nl.ivonet.beanunit;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * An immutable snapshot of the registered types and their default arguments.
+ * <p/>
+ * Registering or deregistering a type creates a new snapshot (copy on write), so a snapshot can be read by any number
+ * of threads without locking and caches the resolved {@link DefaultValue} of every type asked for. The snapshot in use
+ * is the one of the innermost open {@link TypeArgumentScope} of the current thread or, outside of scopes, the global
+ * snapshot.
+ *
+ * @author Ivo Woltring
+ */
+final class TypeArguments {
+
+    private static final AtomicReference<TypeArguments> GLOBAL = new AtomicReference<TypeArguments>();
+    private static final ThreadLocal<TypeArguments> SCOPED = new ThreadLocal<TypeArguments>();
+
+    private final Map<Class<?>, Object> values;
+    private final PrimitiveDefaults primitives;
+    private final ClassValue<DefaultValue> defaultValues;
+    private volatile String fingerprint;
+
+    private TypeArguments(final Map<Class<?>, Object> values) {
+        this.values = Collections.unmodifiableMap(values);
+        this.primitives = PrimitiveDefaults.of(this.values);
+        this.defaultValues = new ClassValue<DefaultValue>() {
+            @Override
+            protected DefaultValue computeValue(final Class<?> type) {
+                return DefaultValue.resolve(TypeArguments.this.values, type);
+            }
+        };
+    }
+
+    /**
+     * @param values the types and their default arguments, copied
+     * @return the snapshot
+     */
+    static TypeArguments of(final Map<Class<?>, Object> values) {
+        return new TypeArguments(new HashMap<Class<?>, Object>(values));
+    }
+
+    Object get(final Class<?> type) {
+        return this.values.get(type);
+    }
+
+    boolean containsKey(final Class<?> type) {
+        return this.values.containsKey(type);
+    }
+
+    /**
+     * @param type the type to get the default value of
+     * @return how to get the default value of the type, resolved once per snapshot
+     */
+    DefaultValue resolve(final Class<?> type) {
+        return this.defaultValues.get(type);
+    }
+
+    /**
+     * @return the types and their default arguments, unmodifiable
+     */
+    Map<Class<?>, Object> asMap() {
+        return this.values;
+    }
+
+    /**
+     * Describes the registered types for the {@link ResultCache}. Values are described by their class and, for
+     * strings, numbers, booleans, characters, enums and classes, by their value. Two instances of another class are
+     * considered the same default argument.
+     *
+     * @return the registered types and their default arguments sorted by type name
+     */
+    String fingerprint() {
+        if (this.fingerprint == null) {
+            final Map<String, String> sorted = new TreeMap<String, String>();
+            for (final Map.Entry<Class<?>, Object> entry : this.values.entrySet()) {
+                sorted.put(entry.getKey().getName(), describe(entry.getValue()));
+            }
+            this.fingerprint = sorted.toString();
+        }
+        return this.fingerprint;
+    }
+
+    private static String describe(final Object value) {
+        if (value == null) {
+            return "null";
+        }
+        if (value instanceof String || value instanceof Number || value instanceof Boolean
+            || value instanceof Character || value instanceof Enum || value instanceof Class) {
+            return value.getClass().getName() + ':' + value;
+        }
+        return value.getClass().getName();
+    }
+
+    /**
+     * @return the default values of the primitive types of this snapshot
+     */
+    PrimitiveDefaults primitives() {
+        return this.primitives;
+    }
+
+    /**
+     * @param type            the type to register
+     * @param defaultArgument the default argument of the type
+     * @return a new snapshot with the type registered
+     */
+    TypeArguments with(final Class<?> type, final Object defaultArgument) {
+        final Map<Class<?>, Object> copy = new HashMap<Class<?>, Object>(this.values);
+        copy.put(type, defaultArgument);
+        return new TypeArguments(copy);
+    }
+
+    /**
+     * @param type the type to deregister
+     * @return a new snapshot without the type
+     */
+    TypeArguments without(final Class<?> type) {
+        if (!this.values.containsKey(type)) {
+            return this;
+        }
+        final Map<Class<?>, Object> copy = new HashMap<Class<?>, Object>(this.values);
+        copy.remove(type);
+        return new TypeArguments(copy);
+    }
+
+    /**
+     * @return the snapshot of the innermost open scope of the current thread or the global one
+     */
+    static TypeArguments current() {
+        final TypeArguments scoped = SCOPED.get();
+        return scoped == null ? GLOBAL.get() : scoped;
+    }
+
+    /**
+     * Initializes the global snapshot.
+     *
+     * @param defaults the snapshot to start with
+     */
+    static void initialize(final TypeArguments defaults) {
+        GLOBAL.compareAndSet(null, defaults);
+    }
+
+    /**
+     * Registers a type in the innermost open scope of the current thread or globally.
+     *
+     * @param type            the type to register
+     * @param defaultArgument the default argument of the type
+     */
+    static void register(final Class<?> type, final Object defaultArgument) {
+        final TypeArguments scoped = SCOPED.get();
+        if (scoped != null) {
+            SCOPED.set(scoped.with(type, defaultArgument));
+            return;
+        }
+        TypeArguments global;
+        do {
+            global = GLOBAL.get();
+        } while (!GLOBAL.compareAndSet(global, global.with(type, defaultArgument)));
+    }
+
+    /**
+     * Deregisters a type in the innermost open scope of the current thread or globally.
+     *
+     * @param type the type to deregister
+     */
+    static void deregister(final Class<?> type) {
+        final TypeArguments scoped = SCOPED.get();
+        if (scoped != null) {
+            SCOPED.set(scoped.without(type));
+            return;
+        }
+        TypeArguments global;
+        do {
+            global = GLOBAL.get();
+        } while (!GLOBAL.compareAndSet(global, global.without(type)));
+    }
+
+    /**
+     * Replaces the snapshot of the innermost open scope of the current thread or the global one.
+     *
+     * @param snapshot the new snapshot
+     */
+    static void replace(final TypeArguments snapshot) {
+        if (SCOPED.get() != null) {
+            SCOPED.set(snapshot);
+        } else {
+            GLOBAL.set(snapshot);
+        }
+    }
+
+    /**
+     * Makes the given snapshot the one of the current thread.
+     *
+     * @param snapshot the snapshot, null to use the global one again
+     * @return the snapshot of the current thread before, null if it used the global one
+     */
+    static TypeArguments enter(final TypeArguments snapshot) {
+        final TypeArguments previous = SCOPED.get();
+        if (snapshot == null) {
+            SCOPED.remove();
+        } else {
+            SCOPED.set(snapshot);
+        }
+        return previous;
+    }
+}
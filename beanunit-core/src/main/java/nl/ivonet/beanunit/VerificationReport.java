@@ -0,0 +1,323 @@
+/*
+ * Copyright 2011 Ivo Woltring
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nl.ivonet.beanunit;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Every violation found on one bean, collected without failing:
+ * <pre>
+ * final VerificationReport report = VerificationReport.verify(Person.class);
+ * for (final VerificationReport.Violation violation : report.getViolations()) {
+ *     ...
+ * }
+ * </pre>
+ * Where the asserters stop at the first failed assertion, the report continues with the next property and the next
+ * check. No exception is created for a violation; {@link #assertPassed()} turns the report into an
+ * {@link AssertionError} at the end of a test.
+ * <p/>
+ * The report also tells how long every check took and how many bytes it allocated, see {@link #getMeasurements()}.
+ *
+ * @author Ivo Woltring
+ */
+public final class VerificationReport {
+    private final Class<?> type;
+    private final BulkAsserter.Mode mode;
+    private final List<Violation> violations;
+    private final List<Measurement> measurements;
+    private final boolean cached;
+
+    private VerificationReport(final Class<?> type, final BulkAsserter.Mode mode, final List<Violation> violations,
+                               final List<Measurement> measurements, final boolean cached) {
+        this.type = type;
+        this.mode = mode;
+        this.violations = Collections.unmodifiableList(violations);
+        this.measurements = Collections.unmodifiableList(measurements);
+        this.cached = cached;
+    }
+
+    /**
+     * Verifies the bean with the asserter that applies to it.
+     *
+     * @param type the bean
+     * @return the report
+     */
+    public static VerificationReport verify(final Class<?> type) {
+        return verify(type, BulkAsserter.Mode.AUTO);
+    }
+
+    /**
+     * Verifies all the {@link BeanCheck}s of the bean and collects their violations. Exceptions thrown by the bean
+     * itself are collected as violations too.
+     *
+     * @param type the bean
+     * @param mode the asserter to use
+     * @return the report
+     */
+    public static VerificationReport verify(final Class<?> type, final BulkAsserter.Mode mode) {
+        final List<Violation> violations = new ArrayList<Violation>(0);
+        final List<Measurement> measurements = new ArrayList<Measurement>(2);
+        final Verify.Collector collector = new Verify.Collector(violations);
+        final Verify.Collector previous = Verify.collectWith(collector);
+        BulkAsserter.Mode used = mode;
+        try {
+            if (used == BulkAsserter.Mode.AUTO) {
+                used = BulkAsserter.Mode.detect(type);
+            }
+            for (final BeanCheck check : BeanCheck.of(new BeanCandidate(type, used))) {
+                collector.check(check.getName());
+                final long startBytes = Allocations.currentThread();
+                final long startNanos = System.nanoTime();
+                try {
+                    check.verify();
+                } catch (Verify.Abort e) {
+                    //Recorded, continue with the next check
+                } catch (RuntimeException e) {
+                    collector.error(e);
+                } catch (AssertionError e) {
+                    //E.g. an assert in the bean itself
+                    collector.error(e);
+                } catch (StackOverflowError e) {
+                    //E.g. equals or hashCode following a reference back
+                    collector.error(e);
+                }
+                final long nanos = System.nanoTime() - startNanos;
+                measurements.add(new Measurement(check.getName(), nanos, Allocations.since(startBytes)));
+            }
+        } catch (RuntimeException e) {
+            collector.error(e);
+        } catch (LinkageError e) {
+            collector.error(e);
+        } catch (AssertionError e) {
+            collector.error(e);
+        } catch (StackOverflowError e) {
+            collector.error(e);
+        } finally {
+            Verify.collectWith(previous);
+        }
+        return new VerificationReport(type, used, violations, measurements, false);
+    }
+
+    /**
+     * @param type  the bean
+     * @param mode  the asserter used
+     * @param error the error thrown while verifying the bean outside the checks
+     * @return a failed report with the error as its only violation
+     */
+    static VerificationReport failed(final Class<?> type, final BulkAsserter.Mode mode, final Throwable error) {
+        final List<Violation> violations = Collections.singletonList(
+                new Violation("verification", String.valueOf(error), error));
+        return new VerificationReport(type, mode, violations, Collections.<Measurement>emptyList(), false);
+    }
+
+    /**
+     * @param type the bean that passed before or in another JVM
+     * @param mode the asserter it passed with
+     * @return a passed report without measurements
+     */
+    static VerificationReport cached(final Class<?> type, final BulkAsserter.Mode mode) {
+        return new VerificationReport(type, mode, Collections.<Violation>emptyList(),
+                                      Collections.<Measurement>emptyList(), true);
+    }
+
+    public Class<?> getType() {
+        return this.type;
+    }
+
+    /**
+     * @return the asserter used, never {@link BulkAsserter.Mode#AUTO}
+     */
+    public BulkAsserter.Mode getMode() {
+        return this.mode;
+    }
+
+    /**
+     * @return the violations in the order they were found
+     */
+    public List<Violation> getViolations() {
+        return this.violations;
+    }
+
+    public boolean isPassed() {
+        return this.violations.isEmpty();
+    }
+
+    /**
+     * @return true if the bean was not verified because it passed before (see {@link ResultCache}) or in another
+     * JVM (see {@link WorkQueue})
+     */
+    public boolean isCached() {
+        return this.cached;
+    }
+
+    /**
+     * @return the time and allocations of every check in the order they ran
+     */
+    public List<Measurement> getMeasurements() {
+        return this.measurements;
+    }
+
+    /**
+     * @return the time all the checks took in nanoseconds
+     */
+    public long getNanos() {
+        long nanos = 0;
+        for (final Measurement measurement : this.measurements) {
+            nanos += measurement.getNanos();
+        }
+        return nanos;
+    }
+
+    /**
+     * @return the bytes allocated by all the checks or -1 if the JVM can not tell
+     */
+    public long getAllocatedBytes() {
+        long bytes = 0;
+        for (final Measurement measurement : this.measurements) {
+            if (measurement.getAllocatedBytes() == Allocations.UNKNOWN) {
+                return Allocations.UNKNOWN;
+            }
+            bytes += measurement.getAllocatedBytes();
+        }
+        return bytes;
+    }
+
+    /**
+     * @return the only violation message or a message listing all the violations
+     */
+    public String getMessage() {
+        if (this.violations.size() == 1) {
+            return this.violations.get(0).getMessage();
+        }
+        final StringBuilder message = new StringBuilder();
+        message.append(this.violations.size()).append(" violations in ").append(this.type.getName()).append(':');
+        for (final Violation violation : this.violations) {
+            message.append("\n  ").append(violation);
+        }
+        return message.toString();
+    }
+
+    /**
+     * @return the error to fail a test with, null if the bean passed
+     */
+    public AssertionError toAssertionError() {
+        if (isPassed()) {
+            return null;
+        }
+        final AssertionError error = new AssertionError(getMessage());
+        for (final Violation violation : this.violations) {
+            if (violation.getError() != null) {
+                error.addSuppressed(violation.getError());
+            }
+        }
+        return error;
+    }
+
+    /**
+     * Fails with all the violations if there are any.
+     */
+    public void assertPassed() {
+        final AssertionError error = toAssertionError();
+        if (error != null) {
+            throw error;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return this.type.getName() + " (" + this.mode + "): " + (isPassed() ? "ok" : getMessage())
+               + (this.cached ? " (cached)" : "");
+    }
+
+    /**
+     * The time one check took and the bytes it allocated.
+     */
+    public static final class Measurement {
+        private final String check;
+        private final long nanos;
+        private final long allocatedBytes;
+
+        Measurement(final String check, final long nanos, final long allocatedBytes) {
+            this.check = check;
+            this.nanos = nanos;
+            this.allocatedBytes = allocatedBytes;
+        }
+
+        /**
+         * @return the name of the {@link BeanCheck}
+         */
+        public String getCheck() {
+            return this.check;
+        }
+
+        public long getNanos() {
+            return this.nanos;
+        }
+
+        /**
+         * @return the bytes allocated by the check or -1 if the JVM can not tell
+         */
+        public long getAllocatedBytes() {
+            return this.allocatedBytes;
+        }
+
+        @Override
+        public String toString() {
+            return this.check + ": " + this.nanos + "ns " + this.allocatedBytes + "B";
+        }
+    }
+
+    /**
+     * One failed assertion or unexpected exception.
+     */
+    public static final class Violation {
+        private final String check;
+        private final String message;
+        private final Throwable error;
+
+        Violation(final String check, final String message, final Throwable error) {
+            this.check = check;
+            this.message = message;
+            this.error = error;
+        }
+
+        /**
+         * @return the name of the {@link BeanCheck} that found the violation
+         */
+        public String getCheck() {
+            return this.check;
+        }
+
+        public String getMessage() {
+            return this.message;
+        }
+
+        /**
+         * @return the exception thrown by the bean or null if an assertion failed
+         */
+        public Throwable getError() {
+            return this.error;
+        }
+
+        @Override
+        public String toString() {
+            return this.check + ": " + this.message;
+        }
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright 2011 Ivo Woltring
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nl.ivonet.beanunit;
+
+import java.util.List;
+
+/**
+ * The assertions of the asserters.
+ * <p/>
+ * Normally a failed assertion throws a plain {@link AssertionError} right away, with the same messages as the JUnit
+ * assertions, so every test framework reports it as a failure without beanunit depending on one. While collecting
+ * for a {@link VerificationReport} a failed assertion is recorded instead and only the current check is abandoned,
+ * by throwing one shared {@link Abort} without a stack trace. So no exception is created for a violation and the
+ * verification continues with the next property or check.
+ *
+ * @author Ivo Woltring
+ */
+final class Verify {
+    private static final Abort ABORT = new Abort();
+    private static final ThreadLocal<Collector> COLLECTOR = new ThreadLocal<Collector>();
+
+    private Verify() {
+        //All static so don't create
+    }
+
+    /**
+     * Thrown to abandon the current check after its violation was recorded. Catch it where the verification can
+     * continue with the next property or check.
+     */
+    static final class Abort extends Error {
+        private static final long serialVersionUID = 1L;
+
+        private Abort() {
+            super("Violation recorded", null, false, false);
+        }
+    }
+
+    /**
+     * Where the violations of the current thread go.
+     */
+    static final class Collector {
+        private final List<VerificationReport.Violation> violations;
+        private String check;
+
+        Collector(final List<VerificationReport.Violation> violations) {
+            this.violations = violations;
+        }
+
+        /**
+         * @param name the name of the check the next violations belong to
+         */
+        void check(final String name) {
+            this.check = name;
+        }
+
+        void error(final Throwable error) {
+            this.violations.add(new VerificationReport.Violation(this.check, String.valueOf(error), error));
+        }
+    }
+
+    /**
+     * Collects the violations of the current thread from now on.
+     *
+     * @param collector the collector or null to fail right away again
+     * @return the collector that was active, to restore afterwards
+     */
+    static Collector collectWith(final Collector collector) {
+        final Collector previous = COLLECTOR.get();
+        if (collector == null) {
+            COLLECTOR.remove();
+        } else {
+            COLLECTOR.set(collector);
+        }
+        return previous;
+    }
+
+    static void fail(final String message) {
+        final Collector collector = COLLECTOR.get();
+        if (collector == null) {
+            throw message == null ? new AssertionError() : new AssertionError(message);
+        }
+        collector.violations.add(new VerificationReport.Violation(collector.check, message, null));
+        throw ABORT;
+    }
+
+    static void assertTrue(final String message, final boolean condition) {
+        if (!condition) {
+            fail(message);
+        }
+    }
+
+    static void assertFalse(final String message, final boolean condition) {
+        if (condition) {
+            fail(message);
+        }
+    }
+
+    static void assertNotNull(final String message, final Object object) {
+        if (object == null) {
+            fail(message);
+        }
+    }
+
+    static void assertEquals(final Object expected, final Object actual) {
+        assertEquals(null, expected, actual);
+    }
+
+    static void assertEquals(final String message, final Object expected, final Object actual) {
+        if (expected == null ? actual == null : expected.equals(actual)) {
+            return;
+        }
+        failNotEquals(message, expected, actual);
+    }
+
+    /**
+     * As {@link #assertEquals(String, Object, Object)} but the message is only formatted from the template and its
+     * argument when the assertion fails.
+     */
+    static void assertEquals(final String template, final Object argument, final Object expected,
+                             final Object actual) {
+        if (expected == null ? actual == null : expected.equals(actual)) {
+            return;
+        }
+        failNotEquals(String.format(template, argument), expected, actual);
+    }
+
+    private static void failNotEquals(final String message, final Object expected, final Object actual) {
+        final String expectedString = String.valueOf(expected);
+        final String actualString = String.valueOf(actual);
+        if (expectedString.equals(actualString)) {
+            fail(format(message, "expected: " + classAndValue(expected, expectedString) + " but was: "
+                                 + classAndValue(actual, actualString)));
+        }
+        fail(format(message, "expected:<" + expectedString + "> but was:<" + actualString + ">"));
+    }
+
+    static void assertSame(final String template, final Object argument, final Object expected,
+                           final Object actual) {
+        if (expected != actual) {
+            assertSame(String.format(template, argument), expected, actual);
+        }
+    }
+
+    static void assertSame(final String message, final Object expected, final Object actual) {
+        if (expected != actual) {
+            fail(format(message, "expected same:<" + expected + "> was not:<" + actual + ">"));
+        }
+    }
+
+    private static String format(final String message, final String comparison) {
+        return message == null || message.isEmpty() ? comparison : message + " " + comparison;
+    }
+
+    private static String classAndValue(final Object value, final String valueString) {
+        return (value == null ? "null" : value.getClass().getName()) + "<" + valueString + ">";
+    }
+}
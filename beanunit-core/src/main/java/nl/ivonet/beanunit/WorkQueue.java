@@ -0,0 +1,620 @@
+/*
+ * Copyright 2011 Ivo Woltring
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nl.ivonet.beanunit;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Shares the bulk verifications of the JVMs of one build, so a JVM that is done helps the ones that are not.
+ * <p/>
+ * Run the surefire forks with -Dbeanunit.queue=target/beanunit-queue to use it. Every JVM that starts a bulk
+ * verification publishes its beans with their estimated cost (see {@link CostHistory}) in a journal in that
+ * directory. The worker threads of all the JVMs then take the most expensive bean that nobody took yet (longest
+ * processing time first), whether it is their own or published by another JVM. A bean is taken by claiming its key
+ * in a {@link MappedHashTable}, so it is verified only once; the JVM that published it uses the outcome of the claim:
+ * a pass is reported as a cached result and a failure is verified again to tell what is wrong. A JVM that is done with
+ * its own beans keeps taking the beans of the others until every published bean is verified.
+ * <p/>
+ * Another JVM only takes a bean if it computes the same {@link ResultCache#digest key} for it, i.e. it loads the same
+ * class files and has the same types registered. Every JVM writes a heartbeat; the claims of a JVM that stopped
+ * beating are taken over and the files are emptied when a JVM finds no other one alive.
+ *
+ * @author Ivo Woltring
+ */
+final class WorkQueue {
+    static final String QUEUE_PROPERTY = "beanunit.queue";
+    static final long HEARTBEAT_MILLIS = 1000;
+    static final long DEAD_AFTER_MILLIS = 5000;
+
+    private static final long POLL_MILLIS = 5;
+    private static final ForkJoinPool.ManagedBlocker PAUSE = new ForkJoinPool.ManagedBlocker() {
+        @Override
+        public boolean block() throws InterruptedException {
+            Thread.sleep(POLL_MILLIS);
+            return true;
+        }
+
+        @Override
+        public boolean isReleasable() {
+            return false;
+        }
+    };
+    private static final long ANY_JVM = 1;
+    private static final int STATE_BITS = 2;
+    private static final long STATE_MASK = (1 << STATE_BITS) - 1;
+    private static final long CLAIMED = 1;
+    private static final long PASSED = 2;
+    private static final long FAILED = 3;
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final Comparator<Work> MOST_EXPENSIVE_FIRST = new Comparator<Work>() {
+        @Override
+        public int compare(final Work one, final Work two) {
+            return one.cost == two.cost ? 0 : (one.cost > two.cost ? -1 : 1);
+        }
+    };
+
+    private static volatile WorkQueue installed = openConfigured();
+
+    private final File directory;
+    private final MappedHashTable claims;
+    private final MappedHashTable alive;
+    private final RandomAccessFile journalFile;
+    private final FileChannel journal;
+    private final long token;
+    private final List<Work> published = new ArrayList<Work>();
+    private final ByteBuffer chunk = ByteBuffer.allocate(8192);
+    private final StringBuilder partial = new StringBuilder();
+    private long journalPosition;
+    private volatile boolean closed;
+
+    private WorkQueue(final File directory) throws IOException {
+        this.directory = directory;
+        this.token = ThreadLocalRandom.current().nextLong(ANY_JVM + 1, Long.MAX_VALUE >>> STATE_BITS);
+        this.claims = MappedHashTable.open(new File(directory, "claims"));
+        this.alive = MappedHashTable.open(new File(directory, "alive"));
+        this.journalFile = new RandomAccessFile(new File(directory, "journal"), "rw");
+        this.journal = this.journalFile.getChannel();
+    }
+
+    /**
+     * Joins the queue in the directory, starting a new one if no other JVM is alive.
+     *
+     * @param directory the directory shared by the JVMs, created if it does not exist
+     * @return the queue
+     * @throws IOException if the files in the directory can not be used
+     */
+    static WorkQueue open(final File directory) throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs() && !directory.isDirectory()) {
+            throw new IOException("Can not create directory " + directory);
+        }
+        final WorkQueue queue = new WorkQueue(directory);
+        try {
+            final FileLock lock = queue.journal.lock();
+            try {
+                if (System.currentTimeMillis() - queue.alive.get(ANY_JVM) > DEAD_AFTER_MILLIS) {
+                    queue.claims.clear();
+                    queue.alive.clear();
+                    queue.journal.truncate(0);
+                }
+                queue.beat();
+            } finally {
+                lock.release();
+            }
+        } catch (IOException e) {
+            queue.close();
+            throw e;
+        }
+        queue.startHeartbeat();
+        return queue;
+    }
+
+    /**
+     * @return the queue in use or null if bulk verifications are not shared
+     */
+    static WorkQueue installed() {
+        return installed;
+    }
+
+    /**
+     * Uses the given queue for all bulk verifications from now on.
+     *
+     * @param queue the queue, null to verify all beans in this JVM
+     * @return the queue used before, null if there was none
+     */
+    static WorkQueue install(final WorkQueue queue) {
+        final WorkQueue previous = installed;
+        installed = queue;
+        return previous;
+    }
+
+    /**
+     * Verifies the beans together with the other JVMs. A bean that can not be shared is verified in this JVM.
+     *
+     * @param types         the beans
+     * @param results       the outcome per bean
+     * @param mode          the asserter to use
+     * @param typeArguments the types registered by the caller
+     * @param pool          the pool to run the worker threads of this JVM on
+     */
+    void verify(final Class<?>[] types, final BulkResult.BeanResult[] results, final BulkAsserter.Mode mode,
+                final TypeArguments typeArguments, final ForkJoinPool pool) {
+        final Run run = new Run(types, results, mode, typeArguments, Thread.currentThread().getContextClassLoader());
+        final List<Worker> workers = new ArrayList<Worker>();
+        for (int i = 0; i < Math.max(1, pool.getParallelism()); i++) {
+            workers.add(new Worker(run));
+        }
+        pool.invoke(new RecursiveAction() {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected void compute() {
+                invokeAll(workers);
+            }
+        });
+        run.completeLocally();
+    }
+
+    void close() {
+        this.closed = true;
+        try {
+            this.journalFile.close();
+        } catch (IOException e) {
+            //Nothing left to do
+        }
+        try {
+            this.claims.close();
+        } catch (IOException e) {
+            //Nothing left to do
+        }
+        try {
+            this.alive.close();
+        } catch (IOException e) {
+            //Nothing left to do
+        }
+    }
+
+    private static WorkQueue openConfigured() {
+        final String path = System.getProperty(QUEUE_PROPERTY);
+        if (path == null || path.trim().isEmpty()) {
+            return null;
+        }
+        try {
+            return open(new File(path.trim()));
+        } catch (IOException e) {
+            System.err.println("beanunit: not sharing bulk verifications in " + path + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private void disable(final IOException e) {
+        synchronized (WorkQueue.class) {
+            if (installed == this) {
+                installed = null;
+                System.err.println("beanunit: not sharing bulk verifications in " + this.directory + ": "
+                                   + e.getMessage());
+            }
+        }
+        close();
+    }
+
+    private void beat() throws IOException {
+        final long now = System.currentTimeMillis();
+        this.alive.put(this.token, now);
+        this.alive.put(ANY_JVM, now);
+    }
+
+    private void startHeartbeat() {
+        final Thread heartbeat = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                while (!WorkQueue.this.closed) {
+                    try {
+                        Thread.sleep(HEARTBEAT_MILLIS);
+                        beat();
+                    } catch (InterruptedException e) {
+                        return;
+                    } catch (IOException e) {
+                        return;
+                    }
+                }
+            }
+        }, "beanunit-heartbeat");
+        heartbeat.setDaemon(true);
+        heartbeat.start();
+    }
+
+    private boolean isAlive(final long owner) throws IOException {
+        return owner == this.token || System.currentTimeMillis() - this.alive.get(owner) <= DEAD_AFTER_MILLIS;
+    }
+
+    /**
+     * Appends the beans to the journal. Synchronized like {@link #published()}, as the file lock is held per JVM.
+     */
+    private synchronized void publish(final List<Work> works) throws IOException {
+        final StringBuilder lines = new StringBuilder();
+        for (final Work work : works) {
+            lines.append(this.token).append(' ').append(work.key).append(' ').append(work.mode).append(' ')
+                 .append(work.cost).append(' ').append(work.className).append('\n');
+        }
+        final ByteBuffer bytes = ByteBuffer.wrap(lines.toString().getBytes(UTF_8));
+        final FileLock lock = this.journal.lock();
+        try {
+            long position = this.journal.size();
+            while (bytes.hasRemaining()) {
+                position += this.journal.write(bytes, position);
+            }
+        } finally {
+            lock.release();
+        }
+    }
+
+    /**
+     * @return all the beans ever published by the JVMs alive when this one joined and later
+     */
+    private synchronized List<Work> published() throws IOException {
+        final FileLock lock = this.journal.lock(0, Long.MAX_VALUE, true);
+        try {
+            while (true) {
+                //Through Buffer, ByteBuffer.clear() does not exist on Java 8
+                ((Buffer) this.chunk).clear();
+                final int read = this.journal.read(this.chunk, this.journalPosition);
+                if (read <= 0) {
+                    break;
+                }
+                this.journalPosition += read;
+                this.partial.append(new String(this.chunk.array(), 0, read, UTF_8));
+                int end;
+                while ((end = this.partial.indexOf("\n")) >= 0) {
+                    this.published.add(Work.parse(this.partial.substring(0, end)));
+                    this.partial.delete(0, end + 1);
+                }
+            }
+        } finally {
+            lock.release();
+        }
+        return this.published;
+    }
+
+    /**
+     * A bean to verify, published by this or another JVM.
+     */
+    private static final class Work {
+        private final long owner;
+        private final long key;
+        private final BulkAsserter.Mode mode;
+        private final long cost;
+        private final String className;
+        private final int index;
+
+        Work(final long owner, final long key, final BulkAsserter.Mode mode, final long cost, final String className,
+             final int index) {
+            this.owner = owner;
+            this.key = key;
+            this.mode = mode;
+            this.cost = cost;
+            this.className = className;
+            this.index = index;
+        }
+
+        static Work parse(final String line) {
+            final String[] fields = line.split(" ");
+            return new Work(Long.parseLong(fields[0]), Long.parseLong(fields[1]),
+                            BulkAsserter.Mode.valueOf(fields[2]), Long.parseLong(fields[3]), fields[4], -1);
+        }
+    }
+
+    /**
+     * One bulk verification of this JVM, the state shared by its worker threads.
+     */
+    private final class Run {
+        private final Class<?>[] types;
+        private final BulkResult.BeanResult[] results;
+        private final BulkAsserter.Mode mode;
+        private final TypeArguments typeArguments;
+        private final ClassLoader loader;
+        private final List<Work> candidates = new ArrayList<Work>();
+        private final List<Work> waiting = new ArrayList<Work>();
+        private int seen;
+        private int remaining;
+        private boolean shared = true;
+
+        Run(final Class<?>[] types, final BulkResult.BeanResult[] results, final BulkAsserter.Mode mode,
+            final TypeArguments typeArguments, final ClassLoader loader) {
+            this.types = types;
+            this.results = results;
+            this.mode = mode;
+            this.typeArguments = typeArguments;
+            this.loader = loader;
+            this.remaining = types.length;
+            final long[] costs = estimate(types);
+            final List<Work> own = new ArrayList<Work>();
+            final TypeArgumentScope scope = TypeArgumentScope.open(typeArguments);
+            try {
+                for (int i = 0; i < types.length; i++) {
+                    final long key = ResultCache.digest("BulkAsserter." + mode, types[i], null);
+                    final Work work = new Work(WorkQueue.this.token, key, mode, costs[i], types[i].getName(), i);
+                    this.candidates.add(work);
+                    if (key != ResultCache.MISS) {
+                        own.add(work);
+                    }
+                }
+            } finally {
+                scope.close();
+            }
+            try {
+                publish(own);
+            } catch (IOException e) {
+                stopSharing(e);
+            }
+            Collections.sort(this.candidates, MOST_EXPENSIVE_FIRST);
+        }
+
+        /**
+         * @return true if all the beans of this run are verified and no bean published by another JVM is left to take
+         */
+        synchronized boolean isDrained() {
+            return this.remaining == 0 && (!this.shared || this.candidates.isEmpty() && this.waiting.isEmpty());
+        }
+
+        /**
+         * @return the next bean for this JVM to verify or null if there is none right now
+         */
+        synchronized Work next() {
+            try {
+                if (this.shared) {
+                    refresh();
+                }
+                final Iterator<Work> iterator = this.candidates.iterator();
+                while (iterator.hasNext()) {
+                    final Work work = iterator.next();
+                    iterator.remove();
+                    if (work.key == ResultCache.MISS || !this.shared) {
+                        return work;
+                    }
+                    if (work.index < 0 && !verifiesTheSame(work)) {
+                        continue;
+                    }
+                    if (claim(work, 0) == 0) {
+                        return work;
+                    }
+                    if (work.index >= 0) {
+                        //A bean of another JVM claimed by a third one is left to its owner
+                        this.waiting.add(work);
+                    }
+                }
+                final Iterator<Work> waitingFor = this.waiting.iterator();
+                while (waitingFor.hasNext()) {
+                    final Work work = waitingFor.next();
+                    if (!this.shared) {
+                        waitingFor.remove();
+                        return work;
+                    }
+                    final long claim = WorkQueue.this.claims.get(work.key);
+                    final long state = claim & STATE_MASK;
+                    if (state == PASSED) {
+                        waitingFor.remove();
+                        complete(work, new BulkResult.BeanResult(
+                                VerificationReport.cached(this.types[work.index], resolve(work)), 0));
+                    } else if (state == FAILED) {
+                        waitingFor.remove();
+                        return work;
+                    } else if (!isAlive(claim >>> STATE_BITS) && claim(work, claim) == claim) {
+                        waitingFor.remove();
+                        return work;
+                    }
+                }
+            } catch (IOException e) {
+                stopSharing(e);
+            }
+            return null;
+        }
+
+        /**
+         * Verifies the bean and tells the other JVMs the outcome. A bean that throws an error fails, so nobody waits
+         * for it forever.
+         */
+        void verify(final Work work) {
+            final Class<?> type = work.index >= 0 ? this.types[work.index] : load(work);
+            BulkResult.BeanResult result;
+            try {
+                result = BulkAsserter.verify(type, work.mode);
+            } catch (Throwable e) {
+                result = new BulkResult.BeanResult(VerificationReport.failed(type, work.mode, e), 0);
+            }
+            if (work.key != ResultCache.MISS && isShared()) {
+                try {
+                    WorkQueue.this.claims.put(work.key, (WorkQueue.this.token << STATE_BITS)
+                                                        | (result.isSuccessful() ? PASSED : FAILED));
+                } catch (IOException e) {
+                    stopSharing(e);
+                }
+            }
+            if (work.index >= 0) {
+                complete(work, result);
+            }
+        }
+
+        /**
+         * Verifies the beans left after the worker threads stopped early, e.g. when interrupted.
+         */
+        void completeLocally() {
+            final TypeArgumentScope scope = TypeArgumentScope.open(this.typeArguments);
+            try {
+                for (int i = 0; i < this.types.length; i++) {
+                    if (this.results[i] == null) {
+                        this.results[i] = BulkAsserter.verify(this.types[i], this.mode);
+                    }
+                }
+            } finally {
+                scope.close();
+            }
+        }
+
+        TypeArguments getTypeArguments() {
+            return this.typeArguments;
+        }
+
+        private synchronized boolean isShared() {
+            return this.shared;
+        }
+
+        private synchronized void complete(final Work work, final BulkResult.BeanResult result) {
+            this.results[work.index] = result;
+            this.remaining--;
+        }
+
+        private synchronized void stopSharing(final IOException e) {
+            this.shared = false;
+            disable(e);
+        }
+
+        /**
+         * @return the value of the claim before, the given expected value if this JVM claimed the bean
+         */
+        private long claim(final Work work, final long expected) throws IOException {
+            return WorkQueue.this.claims.compareAndPut(work.key, expected, (WorkQueue.this.token << STATE_BITS)
+                                                                           | CLAIMED);
+        }
+
+        private void refresh() throws IOException {
+            final List<Work> all = published();
+            boolean added = false;
+            for (; this.seen < all.size(); this.seen++) {
+                final Work work = all.get(this.seen);
+                if (work.owner != WorkQueue.this.token && isAlive(work.owner)) {
+                    this.candidates.add(work);
+                    added = true;
+                }
+            }
+            if (added) {
+                Collections.sort(this.candidates, MOST_EXPENSIVE_FIRST);
+            }
+        }
+
+        /**
+         * @return true if this JVM loads the same bean with the same registered types as the JVM that published it
+         */
+        private boolean verifiesTheSame(final Work work) {
+            final Class<?> type = load(work);
+            if (type == null) {
+                return false;
+            }
+            final TypeArgumentScope scope = TypeArgumentScope.open(this.typeArguments);
+            try {
+                return ResultCache.digest("BulkAsserter." + work.mode, type, null) == work.key;
+            } finally {
+                scope.close();
+            }
+        }
+
+        private Class<?> load(final Work work) {
+            try {
+                return Class.forName(work.className, false, this.loader);
+            } catch (ClassNotFoundException e) {
+                return null;
+            } catch (LinkageError e) {
+                return null;
+            }
+        }
+
+        private BulkAsserter.Mode resolve(final Work work) {
+            return work.mode == BulkAsserter.Mode.AUTO ? BulkAsserter.Mode.detect(this.types[work.index])
+                                                       : work.mode;
+        }
+    }
+
+    /**
+     * A bean that was never measured is estimated at the average of the beans that were.
+     *
+     * @param types the beans
+     * @return the estimated cost per bean in nanoseconds, 1 for all of them if no costs are recorded
+     */
+    static long[] estimate(final Class<?>[] types) {
+        final long[] costs = new long[types.length];
+        final CostHistory history = CostHistory.installed();
+        long total = 0;
+        int known = 0;
+        for (int i = 0; i < types.length && history != null; i++) {
+            try {
+                costs[i] = history.estimate(types[i].getName());
+            } catch (IOException e) {
+                costs[i] = CostHistory.UNKNOWN;
+            }
+            if (costs[i] != CostHistory.UNKNOWN) {
+                total += costs[i];
+                known++;
+            }
+        }
+        final long average = known == 0 ? 1 : Math.max(1, total / known);
+        for (int i = 0; i < types.length; i++) {
+            if (costs[i] == CostHistory.UNKNOWN) {
+                costs[i] = average;
+            }
+        }
+        return costs;
+    }
+
+    /**
+     * Takes beans until all the beans of its run are verified, here or by another JVM, and no bean published by another
+     * JVM is left. Waits for the other JVMs as a managed blocker, so the pool can compensate.
+     */
+    private static final class Worker extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final transient Run run;
+
+        Worker(final Run run) {
+            this.run = run;
+        }
+
+        @Override
+        protected void compute() {
+            final TypeArgumentScope scope = TypeArgumentScope.open(this.run.getTypeArguments());
+            try {
+                while (true) {
+                    final Work work = this.run.next();
+                    if (work != null) {
+                        this.run.verify(work);
+                    } else if (this.run.isDrained()) {
+                        return;
+                    } else {
+                        ForkJoinPool.managedBlock(PAUSE);
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                scope.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2011 Ivo Woltring
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nl.ivonet.beanunit;
+
+import java.lang.management.ManagementFactory;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the {@link Allocations} class.
+ *
+ * @author Ivo Woltring
+ */
+public class AllocationsTest {
+
+    @Test
+    public void testAllocatedBytesOfCurrentThread() throws Exception {
+        Assume.assumeTrue(Allocations.isSupported());
+        final long start = Allocations.currentThread();
+
+        final byte[] allocated = new byte[64 * 1024];
+
+        assertTrue(Allocations.since(start) >= allocated.length);
+    }
+
+    @Test
+    public void testUnknownStaysUnknown() throws Exception {
+        assertEquals(Allocations.UNKNOWN, Allocations.since(Allocations.UNKNOWN));
+    }
+
+    @Test
+    public void testExplicitGarbageCollectionIsCounted() throws Exception {
+        Assume.assumeFalse(ManagementFactory.getGarbageCollectorMXBeans().isEmpty());
+        Assume.assumeFalse(ManagementFactory.getRuntimeMXBean().getInputArguments()
+                .contains("-XX:+DisableExplicitGC"));
+        final long count = Allocations.gcCount();
+
+        System.gc();
+
+        assertTrue(Allocations.gcCount() > count);
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2011 Ivo Woltring
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nl.ivonet.beanunit;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+
+import org.junit.After;
+import org.junit.Test;
+
+import builder.SimpleBuilderBean;
+import immutable.InventoryDto;
+import simplepojo.SimpleBean;
+import simplepojo.WrongSinpleBean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the {@link BeanFactory} class.
+ *
+ * @author Ivo Woltring
+ */
+public class BeanFactoryTest {
+
+    @After
+    public void tearDown() throws Exception {
+        Asserter.resetToDefaultTypes();
+    }
+
+    @Test
+    public void testSetters() throws Exception {
+        final BeanFactory<SimpleBean> factory = BeanFactory.of(SimpleBean.class, "times");
+
+        final SimpleBean bean = factory.create();
+
+        assertEquals("String", bean.getHello());
+        assertTrue(bean.isTrueOrFalse());
+        assertNull(bean.getTimes());
+        assertNotSame(bean, factory.create());
+        assertEquals(bean, factory.create());
+    }
+
+    @Test
+    public void testSettersAreTheCachedInvokersOfTheStrategy() throws Exception {
+        final InvocationStrategy current = InvocationStrategy.current();
+        try {
+            InvocationStrategy.use(InvocationStrategy.REFLECTION);
+            final BeanFactory<SimpleBean> factory = BeanFactory.forSetters(SimpleBean.class);
+            final BeanMetadata metadata = BeanMetadataCache.get(SimpleBean.class);
+            final Field settersField = BeanFactory.class.getDeclaredField("setters");
+            settersField.setAccessible(true);
+            final Field propertiesField = BeanFactory.class.getDeclaredField("properties");
+            propertiesField.setAccessible(true);
+            final Invokers.Setter[] setters = (Invokers.Setter[]) settersField.get(factory);
+            final String[] properties = (String[]) propertiesField.get(factory);
+
+            assertTrue(setters.length > 0);
+            for (int i = 0; i < setters.length; i++) {
+                final Method writeMethod = metadata.getPropertyDescriptor(properties[i]).getWriteMethod();
+                assertSame(metadata.setter(writeMethod), setters[i]);
+            }
+        } finally {
+            InvocationStrategy.use(current);
+        }
+    }
+
+    @Test
+    public void testNoAssertionsWhileCreating() throws Exception {
+        //The getter of wrong does not return what was set, so the PojoContractAsserter would fail
+        assertEquals("Stringwrong", BeanFactory.of(WrongSinpleBean.class).create().getWrong());
+    }
+
+    @Test
+    public void testConstructorAndBuilder() throws Exception {
+        final InventoryDto inventory = BeanFactory.of(InventoryDto.class).create();
+        assertEquals(Asserter.typeArguments().get(java.math.BigDecimal.class), inventory.getInsuredAmount());
+        assertEquals("String", BeanFactory.of(SimpleBuilderBean.class).create().getFoo());
+
+        Asserter.registerTypeAndDefaultArgument(String.class, "Registered");
+
+        assertEquals("Registered", BeanFactory.of(SimpleBuilderBean.class).create().getFoo());
+    }
+
+    @Test
+    public void testParallelStream() throws Exception {
+        final BeanFactory<SimpleBean> factory = BeanFactory.of(SimpleBean.class);
+
+        assertEquals(100000, factory.stream(100000).parallel().collect(Collectors.toList()).size());
+        assertEquals(1, factory.stream(100000).parallel().distinct().count());
+    }
+
+    @Test
+    public void testSpliterator() throws Exception {
+        final Spliterator<SimpleBean> spliterator = BeanFactory.of(SimpleBean.class).spliterator(11);
+        assertTrue(spliterator.hasCharacteristics(Spliterator.SIZED | Spliterator.SUBSIZED));
+
+        final Spliterator<SimpleBean> prefix = spliterator.trySplit();
+
+        assertEquals(5, prefix.getExactSizeIfKnown());
+        assertEquals(6, spliterator.getExactSizeIfKnown());
+        assertTrue(spliterator.tryAdvance(bean -> { }));
+        assertEquals(5, spliterator.getExactSizeIfKnown());
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright 2011 Ivo Woltring
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nl.ivonet.beanunit;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import builder.AddressDto;
+import simplepojo.Address;
+import simplepojo.Person;
+import simplepojo.SimpleBean;
+import simplepojo.ZipCode;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Unit tests for the {@link BeanMetadataCache} class.
+ *
+ * @author Ivo Woltring
+ */
+public class BeanMetadataCacheTest {
+
+    @Before
+    public void setUp() throws Exception {
+        BeanMetadataCache.clear();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        BeanMetadataCache.configure(BeanMetadataCache.DEFAULT_MAXIMUM_SIZE,
+                                    BeanMetadataCache.EvictionPolicy.LEAST_RECENTLY_USED);
+        BeanMetadataCache.clear();
+    }
+
+    @Test
+    public void testIntrospectedOnlyOnce() throws Exception {
+        PojoContractAsserter.assertBean(Person.class);
+        final long misses = BeanMetadataCache.getMissCount();
+        PojoContractAsserter.assertBean(Person.class);
+        PojoContractAsserter.assertBean(Person.class, "name");
+
+        assertEquals(misses, BeanMetadataCache.getMissCount());
+        assertSame(BeanMetadataCache.get(Person.class), BeanMetadataCache.get(Person.class));
+    }
+
+    @Test
+    public void testMetadata() throws Exception {
+        final BeanMetadata metadata = BeanMetadataCache.get(AddressDto.class);
+        assertSame(AddressDto.Builder.class, metadata.getBuilder());
+        assertSame(AddressDto.class, metadata.getEqualsDeclaringClass());
+        assertSame(AddressDto.class, metadata.getHashCodeDeclaringClass());
+        assertNull(BeanMetadataCache.get(SimpleBean.class).getBuilder());
+        assertSame(Address.class, BeanMetadataCache.get(Address.class).getHashCodeDeclaringClass());
+        assertSame(Object.class, BeanMetadataCache.get(Address.class).getEqualsDeclaringClass());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEviction() throws Exception {
+        BeanMetadataCache.configure(2, BeanMetadataCache.EvictionPolicy.LEAST_RECENTLY_USED);
+        final BeanMetadata person = BeanMetadataCache.get(Person.class);
+        BeanMetadataCache.get(Address.class);
+        BeanMetadataCache.get(Person.class);
+        BeanMetadataCache.get(ZipCode.class);
+
+        assertEquals(2, BeanMetadataCache.size());
+        assertEquals(1, BeanMetadataCache.getEvictionCount());
+        assertSame(person, BeanMetadataCache.get(Person.class));
+    }
+
+    @Test
+    public void testClassInUseSurvivesManyEvictions() throws Exception {
+        BeanMetadataCache.configure(2, BeanMetadataCache.EvictionPolicy.LEAST_RECENTLY_USED);
+        final BeanMetadata person = BeanMetadataCache.get(Person.class);
+        for (final Class<?> type : new Class<?>[]{Address.class, ZipCode.class, SimpleBean.class, AddressDto.class}) {
+            BeanMetadataCache.get(type);
+            BeanMetadataCache.get(Person.class);
+        }
+
+        assertEquals(2, BeanMetadataCache.size());
+        assertEquals(3, BeanMetadataCache.getEvictionCount());
+        assertSame(person, BeanMetadataCache.get(Person.class));
+    }
+
+    @Test
+    public void testFirstInFirstOutEviction() throws Exception {
+        BeanMetadataCache.configure(2, BeanMetadataCache.EvictionPolicy.FIRST_IN_FIRST_OUT);
+        BeanMetadataCache.get(Person.class);
+        BeanMetadataCache.get(Address.class);
+        BeanMetadataCache.get(Person.class);
+        BeanMetadataCache.get(ZipCode.class);
+        final long misses = BeanMetadataCache.getMissCount();
+        BeanMetadataCache.get(Person.class);
+
+        assertEquals(misses + 1, BeanMetadataCache.getMissCount());
+    }
+
+    @Test
+    public void testConcurrentMissIsIntrospectedOnce() throws Exception {
+        final int threads = 8;
+        final CountDownLatch start = new CountDownLatch(1);
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            final List<Future<BeanMetadata>> futures = new ArrayList<Future<BeanMetadata>>();
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit(new Callable<BeanMetadata>() {
+                    @Override
+                    public BeanMetadata call() throws Exception {
+                        start.await();
+                        return BeanMetadataCache.get(Person.class);
+                    }
+                }));
+            }
+            start.countDown();
+            final BeanMetadata metadata = futures.get(0).get();
+            for (final Future<BeanMetadata> future : futures) {
+                assertSame(metadata, future.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(1, BeanMetadataCache.getMissCount());
+        assertEquals(threads - 1, BeanMetadataCache.getHitCount());
+    }
+
+    @Test
+    public void testCachedClassCanBeUnloaded() throws Exception {
+        Class<?> bean = SyntheticBean.pojo(3).define();
+        BeanMetadataCache.get(bean);
+        assertEquals(1, BeanMetadataCache.size());
+        final WeakReference<Class<?>> reference = new WeakReference<Class<?>>(bean);
+        bean = null;
+        for (int i = 0; i < 50 && reference.get() != null; i++) {
+            System.gc();
+            Thread.sleep(20);
+        }
+        assertNull(reference.get());
+        assertEquals(0, BeanMetadataCache.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testIllegalMaximumSize() throws Exception {
+        BeanMetadataCache.configure(0, BeanMetadataCache.EvictionPolicy.LEAST_RECENTLY_USED);
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright 2011 Ivo Woltring
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package nl.ivonet.beanunit;
+
+import java.io.File;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import builder.SimpleBuilderBean;
+import immutable.Employee;
+import simplepojo.PrivateConstructor;
+import simplepojo.SimpleBean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the {@link BeanScanner} class.
+ *
+ * @author Ivo Woltring
+ */
+public class BeanScannerTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private TypeArgumentScope scope;
+
+    @Before
+    public void openScope() throws Exception {
+        this.scope = TypeArgumentScope.open();
+    }
+
+    @After
+    public void closeScope() throws Exception {
+        this.scope.close();
+    }
+
+    @Test
+    public void testClassify() throws Exception {
+        assertEquals(BulkAsserter.Mode.BUILDER, BeanScanner.classify(SimpleBuilderBean.class).getMode());
+        assertEquals(BulkAsserter.Mode.POJO, BeanScanner.classify(SimpleBean.class).getMode());
+        assertEquals(BulkAsserter.Mode.CONSTRUCTED, BeanScanner.classify(Employee.class).getMode());
+        assertNull(BeanScanner.classify(PrivateConstructor.class));
+        assertNull(BeanScanner.classify(Asserter.class));
+        assertNull(BeanScanner.classify(BulkAsserter.Mode.class));
+        assertNull(BeanScanner.classify(SimpleBuilderBean.Builder.class));
+    }
+
+    @Test
+    public void testScanDirectory() throws Exception {
+        final Map<Class<?>, BulkAsserter.Mode> found = new HashMap<Class<?>, BulkAsserter.Mode>();
+        scanner().pool(new ForkJoinPool(2)).scan(new Consumer<BeanCandidate>() {
+            @Override
+            public void accept(final BeanCandidate candidate) {
+                synchronized (found) {
+                    found.put(candidate.getType(), candidate.getMode());
+                }
+            }
+        });
+
+        assertEquals(BulkAsserter.Mode.BUILDER, found.get(SimpleBuilderBean.class));
+        assertEquals(BulkAsserter.Mode.POJO, found.get(SimpleBean.class));
+        assertEquals(BulkAsserter.Mode.CONSTRUCTED, found.get(Employee.class));
+        assertFalse(found.containsKey(PrivateConstructor.class));
+        for (final Class<?> type : found.keySet()) {
+            assertFalse(type.getName(), type.getName().startsWith("nl."));
+        }
+    }
+
+    @Test
+    public void testStream() throws Exception {
+        final List<Class<?>> streamed = scanner().stream().map(BeanCandidate::getType).collect(Collectors.toList());
+
+        final List<Class<?>> scanned = Collections.synchronizedList(new ArrayList<Class<?>>());
+        scanner().scan(candidate -> scanned.add(candidate.getType()));
+
+        assertEquals(scanned.size(), streamed.size());
+        assertTrue(streamed.containsAll(scanned));
+    }
+
+    @Test
+    public void testPackage() throws Exception {
+        final List<Class<?>> classes = BeanScanner.forPackage("immutable", getClass().getClassLoader(), false)
+                                                  .classes();
+
+        assertEquals(5, classes.size());
+        assertEquals(immutable.BusinessLocationDto.class, classes.get(0));
+    }
+
+    @Test
+    public void testPackageInDirectoryWithPlus() throws Exception {
+        final File classes = this.folder.newFolder("c++ classes");
+        final File immutable = new File(classes, "immutable");
+        assertTrue(immutable.mkdir());
+        Files.copy(new File(Employee.class.getResource("Person.class").toURI()).toPath(),
+                   new File(immutable, "Person.class").toPath());
+
+        try (URLClassLoader loader = new URLClassLoader(new URL[]{classes.toURI().toURL()}, null)) {
+            final List<Class<?>> found = BeanScanner.forPackage("immutable", loader, false).classes();
+
+            assertEquals(1, found.size());
+            assertEquals(immutable.Person.class.getName(), found.get(0).getName());
+        }
+    }
+
+    @Test
+    public void testAssertScanned() throws Exception {
+        final List<BulkResult.BeanResult> seen = Collections.synchronizedList(new ArrayList<BulkResult.BeanResult>());
+        final BulkResult result = BulkAsserter.assertScanned(scanner().packages("builder"), seen::add);
+
+        assertEquals(seen.size(), result.getResults().size());
+        assertFalse(result.isSuccessful());
+        for (final BulkResult.BeanResult bean : result.getResults()) {
+            assertEquals(BulkAsserter.Mode.BUILDER, bean.getMode());
+            if (bean.getType() == SimpleBuilderBean.class) {
+                assertTrue(bean.isSuccessful());
+            }
+        }
+    }
+
+    private static BeanScanner scanner() throws Exception {
+        final File testClasses = new File(SimpleBean.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+        return BeanScanner.of(BeanScannerTest.class.getClassLoader(), testClasses)
+                          .packages("builder", "immutable", "simplepojo");
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2011 Ivo Woltring
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nl.ivonet.beanunit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import builder.SimpleBuilderBean;
+import simplepojo.Person;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the {@link BeanUnitListeners} and the events they receive.
+ *
+ * @author Ivo Woltring
+ */
+public class BeanUnitListenersTest {
+
+    private final List<BeanUnitEvent> events = Collections.synchronizedList(new ArrayList<BeanUnitEvent>());
+    private final BeanUnitListener listener = events::add;
+
+    private TypeArgumentScope scope;
+
+    @Before
+    public void setUp() throws Exception {
+        this.scope = TypeArgumentScope.open();
+        BeanUnitListeners.add(this.listener);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        BeanUnitListeners.remove(this.listener);
+        this.scope.close();
+    }
+
+    @Test
+    public void testPojoPhases() throws Exception {
+        BeanMetadataCache.clear();
+        VerificationReport.verify(Person.class).assertPassed();
+
+        final Set<BeanUnitEvent.Phase> phases = EnumSet.noneOf(BeanUnitEvent.Phase.class);
+        for (final BeanUnitEvent event : snapshot()) {
+            assertTrue(event.toString(), event.getNanos() >= 0);
+            if (event.getType() == Person.class) {
+                phases.add(event.getPhase());
+            }
+        }
+        assertEquals(EnumSet.of(BeanUnitEvent.Phase.INTROSPECTION, BeanUnitEvent.Phase.INSTANTIATION,
+                                BeanUnitEvent.Phase.SETTER, BeanUnitEvent.Phase.GETTER,
+                                BeanUnitEvent.Phase.EQUALS_HASH_CODE), phases);
+        assertTrue(hasEvent(BeanUnitEvent.Phase.DEFAULT_VALUE, String.class, null));
+        assertTrue(hasEvent(BeanUnitEvent.Phase.SETTER, Person.class, "name"));
+        assertTrue(hasEvent(BeanUnitEvent.Phase.GETTER, Person.class, "name"));
+        assertTrue(hasEvent(BeanUnitEvent.Phase.EQUALS_HASH_CODE, Person.class, "name"));
+        assertTrue(hasEvent(BeanUnitEvent.Phase.EQUALS_HASH_CODE, Person.class, null));
+    }
+
+    @Test
+    public void testBuild() throws Exception {
+        VerificationReport.verify(SimpleBuilderBean.class).assertPassed();
+
+        assertTrue(hasEvent(BeanUnitEvent.Phase.BUILD, SimpleBuilderBean.Builder.class, null));
+        assertTrue(hasEvent(BeanUnitEvent.Phase.INSTANTIATION, SimpleBuilderBean.Builder.class, null));
+    }
+
+    @Test
+    public void testRemove() throws Exception {
+        assertTrue(BeanUnitListeners.remove(this.listener));
+        assertFalse(BeanUnitListeners.remove(this.listener));
+
+        VerificationReport.verify(Person.class).assertPassed();
+
+        assertTrue(this.events.isEmpty());
+        assertNull(Timing.start(BeanUnitEvent.Phase.GETTER));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testAddNull() throws Exception {
+        BeanUnitListeners.add(null);
+    }
+
+    private boolean hasEvent(final BeanUnitEvent.Phase phase, final Class<?> type, final String property) {
+        for (final BeanUnitEvent event : snapshot()) {
+            if (event.getPhase() == phase && event.getType() == type
+                && (property == null ? event.getProperty() == null : property.equals(event.getProperty()))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private List<BeanUnitEvent> snapshot() {
+        synchronized (this.events) {
+            return new ArrayList<BeanUnitEvent>(this.events);
+        }
+    }
+}
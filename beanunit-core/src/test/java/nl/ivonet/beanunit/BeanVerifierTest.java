@@ -0,0 +1,88 @@
+/*
+ * Copyright 2011 Ivo Woltring
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package nl.ivonet.beanunit;
+
+import java.util.Collections;
+
+import org.junit.Test;
+
+import immutable.NotImmutableBuildingDto;
+import simplepojo.SimpleBean;
+import simplepojo.WrongSinpleBean;
+
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Unit tests for the {@link BeanVerifier} class.
+ *
+ * @author Ivo Woltring
+ */
+public class BeanVerifierTest {
+
+    @Test
+    public void testCachedPerClass() throws Exception {
+        assertSame(BeanVerifier.of(SimpleBean.class), BeanVerifier.of(SimpleBean.class));
+    }
+
+    @Test
+    public void testCachedPerInvocationStrategy() throws Exception {
+        final InvocationStrategy current = InvocationStrategy.current();
+        try {
+            InvocationStrategy.use(InvocationStrategy.REFLECTION);
+            final BeanVerifier reflection = BeanVerifier.of(SimpleBean.class);
+            assertSame(reflection, BeanVerifier.of(SimpleBean.class));
+            reflection.assertEqualsHashCodePerProperty(new SimpleBean(), new SimpleBean(),
+                                                       Collections.singletonList("class"));
+            InvocationStrategy.use(InvocationStrategy.METHOD_HANDLE);
+            assertNotSame(reflection, BeanVerifier.of(SimpleBean.class));
+        } finally {
+            InvocationStrategy.use(current);
+        }
+    }
+
+    @Test
+    public void testEvictedWithTheMetadata() throws Exception {
+        final BeanVerifier verifier = BeanVerifier.of(SimpleBean.class);
+        assertSame(verifier, BeanMetadataCache.get(SimpleBean.class).verifier());
+
+        BeanMetadataCache.clear();
+
+        assertNotSame(verifier, BeanVerifier.of(SimpleBean.class));
+    }
+
+    @Test
+    public void testEqualsHashCodePerProperty() throws Exception {
+        BeanVerifier.of(SimpleBean.class).assertEqualsHashCodePerProperty(new SimpleBean(), new SimpleBean(),
+                                                                          Collections.singletonList("class"));
+    }
+
+    @Test(expected = AssertionError.class)
+    public void testEqualsHashCodePerPropertyWrongBean() throws Exception {
+        BeanVerifier.of(WrongSinpleBean.class).assertEqualsHashCodePerProperty(new WrongSinpleBean(),
+                                                                               new WrongSinpleBean(),
+                                                                               Collections.singletonList("class"));
+    }
+
+    @Test(expected = AssertionError.class)
+    public void testNotImmutable() throws Exception {
+        BeanVerifier.of(NotImmutableBuildingDto.class).assertImmutableWithDefaults(
+                ConstructedBeanAsserter.createObject(NotImmutableBuildingDto.class),
+                Collections.singletonList("class"));
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2011 Ivo Woltring
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nl.ivonet.beanunit;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Test;
+
+import builder.AddressDto;
+import builder.SimpleBuilderBean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Unit tests for the {@link BuildPlan} class.
+ *
+ * @author Ivo Woltring
+ */
+public class BuildPlanTest {
+    private static final List<String> EXCLUDED = Collections.singletonList(Asserter.ALWAYS_EXCLUDED);
+
+    @After
+    public void tearDown() throws Exception {
+        Asserter.resetToDefaultTypes();
+    }
+
+    @Test
+    public void testPlanIsCompiledOnce() throws Exception {
+        final BeanMetadata metadata = BeanMetadataCache.get(SimpleBuilderBean.Builder.class);
+        final BuildPlan plan = metadata.buildPlan("build", EXCLUDED);
+
+        assertSame(plan, metadata.buildPlan("build", EXCLUDED));
+        assertSame(plan, metadata.buildPlan("build", Arrays.asList(Asserter.ALWAYS_EXCLUDED,
+                                                                   Asserter.ALWAYS_EXCLUDED)));
+        assertNotSame(plan, metadata.buildPlan("build", Arrays.asList(Asserter.ALWAYS_EXCLUDED, "setFoo")));
+    }
+
+    @Test
+    public void testBuild() throws Exception {
+        final BuildPlan plan = BeanMetadataCache.get(AddressDto.Builder.class).buildPlan("build", EXCLUDED);
+
+        final AddressDto one = (AddressDto) plan.build();
+        final AddressDto two = (AddressDto) plan.build();
+
+        assertNotSame(one, two);
+        assertEquals(one, two);
+        assertEquals("String", one.getCity());
+    }
+
+    @Test
+    public void testExcludedBuilderMethodIsNotCalled() throws Exception {
+        final BuildPlan plan = BeanMetadataCache.get(SimpleBuilderBean.Builder.class)
+                                                .buildPlan("build", Arrays.asList(Asserter.ALWAYS_EXCLUDED, "setFoo"));
+
+        final SimpleBuilderBean bean = (SimpleBuilderBean) plan.build();
+
+        assertNull(bean.getFoo());
+        assertSame(Asserter.typeArguments().get(java.util.Date.class), bean.getDate());
+    }
+
+    @Test
+    public void testRegisteredTypeArgumentsAreRebound() throws Exception {
+        final BuildPlan plan = BeanMetadataCache.get(SimpleBuilderBean.Builder.class).buildPlan("build", EXCLUDED);
+        assertEquals("String", ((SimpleBuilderBean) plan.build()).getFoo());
+
+        Asserter.registerTypeAndDefaultArgument(String.class, "Rebound");
+
+        assertEquals("Rebound", ((SimpleBuilderBean) plan.build()).getFoo());
+    }
+}
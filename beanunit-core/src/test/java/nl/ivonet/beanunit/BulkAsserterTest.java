@@ -0,0 +1,167 @@
+/*
+ * Copyright 2011 Ivo Woltring
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nl.ivonet.beanunit;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import builder.AddressDto;
+import builder.SimpleBuilderBean;
+import immutable.BusinessLocationDto;
+import immutable.Employee;
+import immutable.InventoryDto;
+import simplepojo.Person;
+import simplepojo.SimpleBean;
+import simplepojo.WrongSinpleBean;
+import simplepojo.ZipCode;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Unit tests for the {@link BulkAsserter} class.
+ *
+ * @author Ivo Woltring
+ */
+public class BulkAsserterTest {
+
+    private TypeArgumentScope scope;
+
+    @Before
+    public void openScope() throws Exception {
+        this.scope = TypeArgumentScope.open();
+    }
+
+    @After
+    public void closeScope() throws Exception {
+        this.scope.close();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        BulkAsserter.configure(null);
+    }
+
+    @Test
+    public void testAutoMode() throws Exception {
+        final List<Class<?>> beans = Arrays.<Class<?>>asList(Person.class, SimpleBean.class, ZipCode.class,
+                                                             AddressDto.class, SimpleBuilderBean.class,
+                                                             immutable.Person.class, Employee.class);
+        final BulkResult result = BulkAsserter.assertBeans(beans);
+
+        result.assertSuccessful();
+        assertEquals(beans.size(), result.getResults().size());
+        assertSame(AddressDto.class, result.getResults().get(3).getType());
+        assertEquals(BulkAsserter.Mode.BUILDER, result.getResults().get(3).getMode());
+        assertEquals(BulkAsserter.Mode.POJO, result.getResults().get(0).getMode());
+        assertEquals(BulkAsserter.Mode.CONSTRUCTED, result.getResults().get(6).getMode());
+    }
+
+    @Test
+    public void testFailuresAreCollected() throws Exception {
+        final BulkResult result = BulkAsserter.assertBeans(
+                Arrays.<Class<?>>asList(WrongSinpleBean.class, SimpleBean.class, BusinessLocationDto.class),
+                BulkAsserter.Mode.AUTO);
+
+        assertFalse(result.isSuccessful());
+        assertEquals(2, result.getFailures().size());
+        assertSame(WrongSinpleBean.class, result.getFailures().get(0).getType());
+        assertSame(BusinessLocationDto.class, result.getFailures().get(1).getType());
+        try {
+            result.assertSuccessful();
+            fail("Failures should be reported");
+        } catch (AssertionError e) {
+            assertTrue(e.getMessage().startsWith("2 of 3 beans failed verification:"));
+            assertEquals(2, e.getSuppressed().length);
+        }
+    }
+
+    @Test
+    public void testAllocationsAndGcAreAccounted() throws Exception {
+        final BulkResult result = BulkAsserter.assertBeans(
+                Arrays.<Class<?>>asList(Person.class, AddressDto.class, InventoryDto.class), BulkAsserter.Mode.AUTO);
+
+        assertTrue(result.getGcCount() >= 0);
+        assertTrue(result.getGcMillis() >= 0);
+        long bytes = 0;
+        for (final BulkResult.BeanResult bean : result.getResults()) {
+            bytes += bean.getAllocatedBytes();
+        }
+        assertEquals(bytes, result.getAllocatedBytes());
+        assertTrue(result.toString(), result.toString().contains(" GCs in "));
+    }
+
+    @Test
+    public void testForcedMode() throws Exception {
+        final BulkResult result = BulkAsserter.assertBeans(Collections.<Class<?>>singletonList(AddressDto.class),
+                                                           BulkAsserter.Mode.POJO);
+        assertEquals(BulkAsserter.Mode.POJO, result.getResults().get(0).getMode());
+        assertFalse(result.isSuccessful());
+    }
+
+    @Test
+    public void testCallersTypeArgumentsAreUsed() throws Exception {
+        Asserter.deregisterType(int.class);
+
+        final Collection<Class<?>> beans = new ArrayList<Class<?>>();
+        for (int i = 0; i < 64; i++) {
+            beans.add(ZipCode.class);
+        }
+        final BulkResult result = BulkAsserter.assertBeans(beans, BulkAsserter.Mode.POJO, new ForkJoinPool(4));
+
+        assertEquals(64, result.getFailures().size());
+    }
+
+    @Test
+    public void testPackage() throws Exception {
+        BulkAsserter.configure(new ForkJoinPool(2));
+        final BulkResult result = BulkAsserter.assertPackage("immutable", BulkAsserter.Mode.AUTO);
+
+        final Map<Class<?>, BulkResult.BeanResult> byType = new HashMap<Class<?>, BulkResult.BeanResult>();
+        for (final BulkResult.BeanResult bean : result.getResults()) {
+            byType.put(bean.getType(), bean);
+        }
+        assertEquals(5, byType.size());
+        assertTrue(byType.get(immutable.Person.class).isSuccessful());
+        assertTrue(byType.get(Employee.class).isSuccessful());
+        assertFalse(byType.get(BusinessLocationDto.class).isSuccessful());
+        assertFalse(byType.get(InventoryDto.class).isSuccessful());
+    }
+
+    @Test
+    public void testInvalidParallelismFallsBackToTheCommonPool() throws Exception {
+        assertSame(ForkJoinPool.commonPool(), BulkAsserter.createPool(null));
+        assertSame(ForkJoinPool.commonPool(), BulkAsserter.createPool("four"));
+        assertSame(ForkJoinPool.commonPool(), BulkAsserter.createPool("0"));
+        final ForkJoinPool pool = BulkAsserter.createPool(" 3 ");
+        assertEquals(3, pool.getParallelism());
+        pool.shutdown();
+    }
+}
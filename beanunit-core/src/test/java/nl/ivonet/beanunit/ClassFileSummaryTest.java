@@ -0,0 +1,128 @@
+/*
+ * Copyright 2011 Ivo Woltring
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package nl.ivonet.beanunit;
+
+import java.io.File;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+import org.junit.Test;
+
+import builder.AddressDto;
+import builder.EqualsMethodButNoHasCode;
+import builder.SimpleBuilderBean;
+import immutable.Employee;
+import simplepojo.Address;
+import simplepojo.Person;
+import simplepojo.PrivateConstructor;
+import simplepojo.SimpleBean;
+import simplepojo.ZipCode;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Unit tests for the {@link ClassFileSummary} class.
+ *
+ * @author Ivo Woltring
+ */
+public class ClassFileSummaryTest {
+
+    @Test
+    public void testSameModeAsLoadedClass() throws Exception {
+        final Class<?>[] types = {SimpleBuilderBean.class, SimpleBean.class, Person.class, Address.class,
+                                  ZipCode.class, Employee.class, immutable.Person.class, PrivateConstructor.class,
+                                  Asserter.class, BulkAsserter.Mode.class, TypeArgumentScope.class};
+        for (final Class<?> type : types) {
+            final BeanCandidate candidate = BeanScanner.classify(type);
+            final BulkAsserter.Mode mode = summarize(type).getMode();
+            if (mode == BulkAsserter.Mode.AUTO) {
+                assertNotNull(type.getName(), candidate);
+            } else {
+                assertEquals(type.getName(), candidate == null ? null : candidate.getMode(), mode);
+            }
+        }
+    }
+
+    @Test
+    public void testInheritedPropertiesAreLeftToTheLoadedClass() throws Exception {
+        assertEquals(BulkAsserter.Mode.AUTO, summarize(Employee.class).getMode());
+    }
+
+    @Test
+    public void testMembers() throws Exception {
+        final ClassFileSummary summary = summarize(SimpleBuilderBean.class);
+
+        assertEquals("builder.SimpleBuilderBean", summary.getClassName());
+        assertTrue(summary.hasBuilder());
+        assertFalse(summary.overridesEquals());
+        assertEquals(0, summary.getSetters());
+        assertFalse(summarize(SimpleBean.class).hasBuilder());
+        assertTrue(summarize(SimpleBean.class).getSetters() > 0);
+        assertTrue(summarize(EqualsMethodButNoHasCode.class).overridesEquals());
+        assertFalse(summarize(EqualsMethodButNoHasCode.class).overridesHashCode());
+        assertTrue(summarize(AddressDto.class).overridesHashCode());
+    }
+
+    @Test
+    public void testStream() throws Exception {
+        final InputStream in = SimpleBean.class.getResourceAsStream("SimpleBean.class");
+        try {
+            assertEquals(BulkAsserter.Mode.POJO, ClassFileSummary.parse(in, -1).getMode());
+        } finally {
+            in.close();
+        }
+    }
+
+    @Test
+    public void testNoClassFile() throws Exception {
+        try {
+            ClassFileSummary.parse(ByteBuffer.wrap(new byte[]{1, 2, 3, 4, 5, 6, 7, 8}));
+            fail("Should fail on a file that is no class file");
+        } catch (IllegalArgumentException e) {
+            assertEquals("Not a class file", e.getMessage());
+        }
+        try {
+            ClassFileSummary.parse(ByteBuffer.wrap(new byte[]{(byte) 0xCA, (byte) 0xFE, (byte) 0xBA, (byte) 0xBE}));
+            fail("Should fail on a truncated class file");
+        } catch (IllegalArgumentException e) {
+            assertEquals("Truncated class file", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testPrefilterFindsTheSameBeans() throws Exception {
+        final File testClasses = new File(SimpleBean.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+        final BeanScanner scanner = BeanScanner.of(getClass().getClassLoader(), testClasses);
+
+        assertEquals(scanner.prefilter(false).stream().map(BeanCandidate::toString).sorted().collect(toList()),
+                     scanner.stream().map(BeanCandidate::toString).sorted().collect(toList()));
+        assertNull(summarize(BeanScannerTest.class).getMode());
+    }
+
+    private static ClassFileSummary summarize(final Class<?> type) throws Exception {
+        final String name = type.getName();
+        final String resource = name.substring(name.lastIndexOf('.') + 1) + ".class";
+        return ClassFileSummary.parse(new File(type.getResource(resource).toURI()));
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2011 Ivo Woltring
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nl.ivonet.beanunit;
+
+import java.io.File;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import simplepojo.Person;
+import simplepojo.SimpleBean;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the {@link CostHistory} class.
+ *
+ * @author Ivo Woltring
+ */
+public class CostHistoryTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private CostHistory history;
+    private CostHistory previous;
+
+    @Before
+    public void setUp() throws Exception {
+        this.history = CostHistory.open(new File(this.folder.getRoot(), "beanunit.costs"));
+        this.previous = CostHistory.install(this.history);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        CostHistory.install(this.previous);
+        this.history.close();
+    }
+
+    @Test
+    public void testSmoothing() throws Exception {
+        assertEquals(CostHistory.UNKNOWN, this.history.estimate("a.Bean"));
+        this.history.add("a.Bean", 1000);
+        assertEquals(1000, this.history.estimate("a.Bean"));
+        this.history.add("a.Bean", 2000);
+        assertEquals(1250, this.history.estimate("a.Bean"));
+        this.history.add("a.Bean", 0);
+        assertTrue(this.history.estimate("a.Bean") > 0);
+        assertEquals(CostHistory.UNKNOWN, this.history.estimate("a.OtherBean"));
+    }
+
+    @Test
+    public void testKey() throws Exception {
+        assertEquals(CostHistory.key("a.Bean"), CostHistory.key("a.Bean"));
+        assertNotEquals(CostHistory.key("a.Bean"), CostHistory.key("a.Bean2"));
+    }
+
+    @Test
+    public void testMerge() throws Exception {
+        this.history.add("a.Bean", 400);
+        final CostHistory recorded = CostHistory.open(new File(this.folder.getRoot(), "recorded.costs"));
+        try {
+            recorded.add("a.Bean", 800);
+            recorded.add("a.Bean2", 100);
+            this.history.merge(recorded);
+        } finally {
+            recorded.close();
+        }
+        assertEquals(500, this.history.estimate("a.Bean"));
+        assertEquals(100, this.history.estimate("a.Bean2"));
+    }
+
+    @Test
+    public void testEveryShardRecordsInAFileOfItsOwn() throws Exception {
+        assertEquals(new File("target/beanunit.costs"), CostHistory.file("target/beanunit.costs", null));
+        assertEquals(new File("target/beanunit.costs.shard-3-of-8"),
+                     CostHistory.file("target/beanunit.costs", Shard.parse("3/8")));
+    }
+
+    @Test
+    public void testBulkAsserterRecords() throws Exception {
+        BulkAsserter.assertBeans(java.util.Arrays.<Class<?>>asList(Person.class)).assertSuccessful();
+        assertTrue(this.history.estimate(Person.class.getName()) > 0);
+    }
+
+    @Test
+    public void testUnknownCostsAreEstimatedAtTheAverage() throws Exception {
+        this.history.add(Person.class.getName(), 3000);
+        this.history.add(String.class.getName(), 1000);
+        assertArrayEquals(new long[]{3000, 2000, 1000},
+                          WorkQueue.estimate(new Class<?>[]{Person.class, SimpleBean.class, String.class}));
+
+        CostHistory.install(null);
+        assertArrayEquals(new long[]{1, 1}, WorkQueue.estimate(new Class<?>[]{Person.class, SimpleBean.class}));
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2011 Ivo Woltring
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nl.ivonet.beanunit;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.GregorianCalendar;
+import java.util.NavigableMap;
+import java.util.SortedMap;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import simplepojo.Address;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Unit tests for the {@link DefaultValue} class.
+ *
+ * @author Ivo Woltring
+ */
+public class DefaultValueTest {
+
+    private TypeArgumentScope scope;
+
+    @Before
+    public void openScope() throws Exception {
+        this.scope = TypeArgumentScope.open();
+    }
+
+    @After
+    public void closeScope() throws Exception {
+        this.scope.close();
+    }
+
+    @Test
+    public void testResolvedOncePerSnapshot() throws Exception {
+        final TypeArguments snapshot = Asserter.typeArguments();
+        assertSame(snapshot.resolve(NavigableMap.class), snapshot.resolve(NavigableMap.class));
+
+        Asserter.registerTypeAndDefaultArgument(String.class, "Other");
+
+        assertNotSame(snapshot.resolve(String.class), Asserter.typeArguments().resolve(String.class));
+        assertEquals("Other", Asserter.retrieveDefaultValueByType(String.class));
+    }
+
+    @Test
+    public void testNearestRegisteredSupertype() throws Exception {
+        final Object sortedMap = Asserter.retrieveDefaultValueByType(SortedMap.class);
+        assertSame(sortedMap, Asserter.retrieveDefaultValueByType(NavigableMap.class));
+        assertTrue(Asserter.typeArguments().resolve(NavigableMap.class).isShared());
+    }
+
+    @Test
+    public void testRegisteredInstance() throws Exception {
+        assertSame(Asserter.retrieveDefaultValueByType(Collection.class),
+                   Asserter.retrieveDefaultValueByType(Iterable.class));
+    }
+
+    @Test
+    public void testDefaultConstructorBeforeRegisteredSupertype() throws Exception {
+        assertNotSame(Asserter.retrieveDefaultValueByType(ArrayList.class),
+                      Asserter.retrieveDefaultValueByType(ArrayList.class));
+        assertTrue(Asserter.retrieveDefaultValueByType(GregorianCalendar.class) instanceof GregorianCalendar);
+        assertNotSame(Asserter.retrieveDefaultValueByType(Address.class),
+                      Asserter.retrieveDefaultValueByType(Address.class));
+        assertFalse(Asserter.typeArguments().resolve(Address.class).isShared());
+    }
+
+    @Test
+    public void testUnresolvableFailsEveryTime() throws Exception {
+        for (int i = 0; i < 2; i++) {
+            try {
+                Asserter.retrieveDefaultValueByType(Deque.class);
+                fail("Deque has no default value");
+            } catch (AssertionError e) {
+                assertEquals("java.util.Deque.<init>()", e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2011 Ivo Woltring
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nl.ivonet.beanunit;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import builder.SimpleBuilderBean;
+import simplepojo.Person;
+
+import java.io.File;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the {@link FlightRecorderEvents} class.
+ *
+ * @author Ivo Woltring
+ */
+public class FlightRecorderEventsTest {
+
+    private TypeArgumentScope scope;
+
+    @Before
+    public void openScope() throws Exception {
+        this.scope = TypeArgumentScope.open();
+    }
+
+    @After
+    public void closeScope() throws Exception {
+        this.scope.close();
+    }
+
+    @Test
+    public void testEventsAreRecorded() throws Exception {
+        final File file = File.createTempFile("beanunit", ".jfr");
+        file.deleteOnExit();
+        final Instant started = Instant.now();
+        final Recording recording = new Recording();
+        try {
+            recording.enable("nl.ivonet.beanunit.*");
+            recording.start();
+            assertNotNull(Timing.start(BeanUnitEvent.Phase.BUILD));
+
+            BeanMetadataCache.clear();
+            VerificationReport.verify(Person.class).assertPassed();
+            VerificationReport.verify(SimpleBuilderBean.class).assertPassed();
+
+            recording.stop();
+            recording.dump(file.toPath());
+        } finally {
+            recording.close();
+        }
+
+        final Set<String> names = new HashSet<String>();
+        Duration total = Duration.ZERO;
+        final List<RecordedEvent> events = RecordingFile.readAllEvents(file.toPath());
+        for (final RecordedEvent event : events) {
+            names.add(event.getEventType().getName());
+            total = total.plus(event.getDuration());
+            if ("nl.ivonet.beanunit.PropertyChecked".equals(event.getEventType().getName())
+                && "name".equals(event.getString("property"))) {
+                assertEquals("simplepojo.Person", event.getClass("beanClass").getName());
+                assertFalse(event.getStartTime().isBefore(started));
+                assertFalse(event.getDuration().isNegative());
+            }
+        }
+        assertTrue(names.toString(), names.contains("nl.ivonet.beanunit.BeanIntrospected"));
+        assertTrue(names.toString(), names.contains("nl.ivonet.beanunit.BeanInstantiated"));
+        assertTrue(names.toString(), names.contains("nl.ivonet.beanunit.PropertyChecked"));
+        assertTrue(names.toString(), names.contains("nl.ivonet.beanunit.EqualsHashCodeChecked"));
+        assertTrue(names.toString(), names.contains("nl.ivonet.beanunit.BuilderBuilt"));
+        assertFalse(total.isZero());
+        file.delete();
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2011 Ivo Woltring
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nl.ivonet.beanunit;
+
+import java.lang.reflect.InvocationTargetException;
+import java.math.BigDecimal;
+
+import org.junit.After;
+import org.junit.Test;
+
+import builder.AddressDto;
+import builder.BuilderMethodIsWrong;
+import immutable.InventoryDto;
+import simplepojo.Person;
+import simplepojo.SimpleBean;
+import simplepojo.WrongSinpleBean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Unit tests for the {@link InvocationStrategy} enum.
+ * All asserters must behave the same whatever the strategy.
+ *
+ * @author Ivo Woltring
+ */
+public class InvocationStrategyTest {
+
+    @After
+    public void tearDown() throws Exception {
+        InvocationStrategy.use(null);
+        Asserter.resetToDefaultTypes();
+    }
+
+    @Test
+    public void testAllStrategiesPassCorrectBeans() throws Exception {
+        Asserter.registerTypeAndDefaultArgument(BigDecimal.class, new BigDecimal(42));
+        for (final InvocationStrategy strategy : InvocationStrategy.values()) {
+            InvocationStrategy.use(strategy);
+            PojoContractAsserter.assertBean(Person.class);
+            PojoContractAsserter.assertBean(SimpleBean.class);
+            BuilderBeanAsserter.assertBean(AddressDto.class);
+            ConstructedBeanAsserter.assertBean(InventoryDto.class);
+            assertEquals("SimpleBean{hello='String', times=42, trueOrFalse=true}",
+                         PojoContractAsserter.createObject(SimpleBean.class).toString());
+        }
+    }
+
+    @Test
+    public void testAllStrategiesFailWrongBeans() throws Exception {
+        for (final InvocationStrategy strategy : InvocationStrategy.values()) {
+            InvocationStrategy.use(strategy);
+            assertFails(WrongSinpleBean.class, false);
+            assertFails(BuilderMethodIsWrong.class, true);
+        }
+    }
+
+    @Test
+    public void testExceptionsAreWrapped() throws Exception {
+        for (final InvocationStrategy strategy : InvocationStrategy.values()) {
+            final Invokers.Getter getter = strategy.getter(Throwing.class.getMethod("getValue"));
+            try {
+                getter.get(new Throwing());
+                fail("Exception expected for " + strategy);
+            } catch (InvocationTargetException e) {
+                assertTrue(e.getCause() instanceof IllegalStateException);
+            }
+        }
+    }
+
+    @Test
+    public void testCurrent() throws Exception {
+        InvocationStrategy.use(null);
+        assertNotNull(InvocationStrategy.current());
+        InvocationStrategy.use(InvocationStrategy.REFLECTION);
+        assertEquals(InvocationStrategy.REFLECTION, InvocationStrategy.current());
+    }
+
+    private static void assertFails(final Class<?> classUnderTest, final boolean builder) {
+        try {
+            if (builder) {
+                BuilderBeanAsserter.assertBean(classUnderTest);
+            } else {
+                PojoContractAsserter.assertBean(classUnderTest);
+            }
+        } catch (AssertionError e) {
+            return;
+        }
+        fail(classUnderTest.getSimpleName() + " should not pass with " + InvocationStrategy.current());
+    }
+
+    public static class Throwing {
+        public String getValue() {
+            throw new IllegalStateException("getter failed");
+        }
+    }
+}
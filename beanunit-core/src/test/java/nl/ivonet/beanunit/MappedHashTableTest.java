@@ -0,0 +1,192 @@
+/*
+ * Copyright 2011 Ivo Woltring
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nl.ivonet.beanunit;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the {@link MappedHashTable} class.
+ *
+ * @author Ivo Woltring
+ */
+public class MappedHashTableTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File file;
+    private MappedHashTable table;
+
+    @Before
+    public void setUp() throws Exception {
+        this.file = new File(this.folder.getRoot(), "nested/results.table");
+        this.table = MappedHashTable.open(this.file);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        this.table.close();
+    }
+
+    @Test
+    public void testPutAndGet() throws Exception {
+        assertEquals(0, this.table.get(42));
+        this.table.put(42, 7);
+        this.table.put(-42, 8);
+        this.table.put(0, 9);
+        assertEquals(7, this.table.get(42));
+        assertEquals(8, this.table.get(-42));
+        assertEquals(9, this.table.get(0));
+        assertEquals(3, this.table.size());
+
+        this.table.put(42, 10);
+        assertEquals(10, this.table.get(42));
+        assertEquals(3, this.table.size());
+    }
+
+    @Test
+    public void testCompareAndPut() throws Exception {
+        assertEquals(0, this.table.compareAndPut(42, 0, 7));
+        assertEquals(7, this.table.compareAndPut(42, 0, 8));
+        assertEquals(7, this.table.get(42));
+        assertEquals(7, this.table.compareAndPut(42, 7, 8));
+        assertEquals(8, this.table.get(42));
+        assertEquals(1, this.table.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testValueCanNotBeZero() throws Exception {
+        this.table.put(42, 0);
+    }
+
+    @Test
+    public void testGrowsAndPersists() throws Exception {
+        final int count = 100000;
+        for (int i = 1; i <= count; i++) {
+            this.table.put(i * 0x9E3779B97F4A7C15L, i);
+        }
+        assertEquals(count, this.table.size());
+        assertTrue(this.file.length() > count * 16L);
+        this.table.close();
+
+        this.table = MappedHashTable.open(this.file);
+        assertEquals(count, this.table.size());
+        for (int i = 1; i <= count; i++) {
+            assertEquals(i, this.table.get(i * 0x9E3779B97F4A7C15L));
+        }
+        assertEquals(0, this.table.get(count + 1));
+    }
+
+    @Test
+    public void testClear() throws Exception {
+        this.table.put(1, 1);
+        this.table.clear();
+        assertEquals(0, this.table.size());
+        assertEquals(0, this.table.get(1));
+    }
+
+    @Test
+    public void testOverwritesOtherFiles() throws Exception {
+        this.table.close();
+        final FileOutputStream out = new FileOutputStream(this.file);
+        try {
+            out.write("not a table at all".getBytes("UTF-8"));
+        } finally {
+            out.close();
+        }
+        this.table = MappedHashTable.open(this.file);
+        assertEquals(0, this.table.size());
+        this.table.put(1, 2);
+        assertEquals(2, this.table.get(1));
+    }
+
+    @Test
+    public void testConcurrentPuts() throws Exception {
+        final int threads = 4;
+        final int perThread = 5000;
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            final List<Future<Void>> futures = new ArrayList<Future<Void>>();
+            for (int t = 0; t < threads; t++) {
+                final int offset = t * perThread;
+                futures.add(executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception {
+                        for (int i = 1; i <= perThread; i++) {
+                            MappedHashTableTest.this.table.put(offset + i, offset + i);
+                        }
+                        return null;
+                    }
+                }));
+            }
+            for (final Future<Void> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(threads * perThread, this.table.size());
+        for (int i = 1; i <= threads * perThread; i++) {
+            assertEquals(i, this.table.get(i));
+        }
+    }
+
+    @Test
+    public void testOpeningTheSameFileSharesTheTable() throws Exception {
+        final File sameFile = new File(this.folder.getRoot(), "nested/../nested/results.table");
+        final MappedHashTable other = MappedHashTable.open(sameFile);
+        assertSame(this.table, other);
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            final Future<Void> first = executor.submit(new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    for (int i = 1; i <= 2000; i++) {
+                        MappedHashTableTest.this.table.put(i, i);
+                    }
+                    return null;
+                }
+            });
+            for (int i = 1; i <= 2000; i++) {
+                other.get(i);
+            }
+            first.get();
+        } finally {
+            executor.shutdown();
+        }
+        other.close();
+
+        assertEquals(2000, this.table.size());
+    }
+}
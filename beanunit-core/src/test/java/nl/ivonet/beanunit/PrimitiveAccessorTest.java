@@ -0,0 +1,159 @@
+/*
+ * Copyright 2011 Ivo Woltring
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package nl.ivonet.beanunit;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Test;
+
+import simplepojo.PrimitiveBean;
+
+import static nl.ivonet.beanunit.PojoContractAsserter.assertBasicGetterSetterBehavior;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Unit tests for the {@link PrimitiveAccessor} class.
+ *
+ * @author Ivo Woltring
+ */
+public class PrimitiveAccessorTest {
+    private static final int WARM_UP = 200000;
+    private static final int MEASURED = 10000;
+
+    @After
+    public void tearDown() throws Exception {
+        Asserter.resetToDefaultTypes();
+    }
+
+    @Test
+    public void testPrimitiveProperties() throws Exception {
+        assertBasicGetterSetterBehavior(PrimitiveBean.class);
+    }
+
+    @Test
+    public void testRegisteredPrimitiveDefault() throws Exception {
+        Asserter.registerTypeAndDefaultArgument(int.class, 7);
+        final PrimitiveBean bean = new PrimitiveBean();
+        assertTrue(accessor("count").roundTrip(bean, Asserter.typeArguments().primitives()));
+        assertEquals(7, bean.getCount());
+    }
+
+    @Test
+    public void testDeregisteredPrimitiveDefault() throws Exception {
+        Asserter.deregisterType(long.class);
+        assertFalse(Asserter.typeArguments().primitives().isRegistered(long.class));
+        Asserter.resetToDefaultTypes();
+        assertTrue(Asserter.typeArguments().primitives().isRegistered(long.class));
+    }
+
+    @Test
+    public void testRoundTripAllocatesNothing() throws Exception {
+        final java.lang.management.ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(threadMXBean instanceof com.sun.management.ThreadMXBean);
+        final com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) threadMXBean;
+        Assume.assumeTrue(allocations.isThreadAllocatedMemorySupported());
+        allocations.setThreadAllocatedMemoryEnabled(true);
+
+        final PrimitiveBean bean = new PrimitiveBean();
+        final PrimitiveAccessor[] accessors = new PrimitiveAccessor[]{
+                accessor("active"), accessor("initial"), accessor("level"), accessor("rank"), accessor("count"),
+                accessor("total"), accessor("ratio"), accessor("amount")};
+        final PrimitiveDefaults primitives = Asserter.typeArguments().primitives();
+        final long threadId = Thread.currentThread().getId();
+
+        roundTrips(accessors, bean, primitives, WARM_UP);
+        final long measuringOverhead = -allocations.getThreadAllocatedBytes(threadId)
+                                       + allocations.getThreadAllocatedBytes(threadId);
+        final long before = allocations.getThreadAllocatedBytes(threadId);
+        roundTrips(accessors, bean, primitives, MEASURED);
+        final long allocated = allocations.getThreadAllocatedBytes(threadId) - before - measuringOverhead;
+
+        assertEquals("Bytes allocated by " + MEASURED + " round trips of every primitive property", 0, allocated);
+    }
+
+    private static void roundTrips(final PrimitiveAccessor[] accessors, final PrimitiveBean bean,
+                                   final PrimitiveDefaults primitives, final int times) throws Exception {
+        for (int i = 0; i < times; i++) {
+            for (final PrimitiveAccessor accessor : accessors) {
+                if (!accessor.roundTrip(bean, primitives)) {
+                    throw new AssertionError("round trip failed");
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testFailureTellsExpectedAndActual() throws Exception {
+        Asserter.registerTypeAndDefaultArgument(int.class, 7);
+        try {
+            assertBasicGetterSetterBehavior(OffByOneBean.class, "count");
+            fail("Should have failed");
+        } catch (AssertionError e) {
+            assertEquals("count getter/setter failed test expected:<7> but was:<8>", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testPrimitivePropertiesAreTimed() throws Exception {
+        final List<String> events = Collections.synchronizedList(new ArrayList<String>());
+        final BeanUnitListener listener = new BeanUnitListener() {
+            @Override
+            public void phaseCompleted(final BeanUnitEvent event) {
+                events.add(event.getPhase() + " " + event.getProperty());
+            }
+        };
+        BeanUnitListeners.add(listener);
+        try {
+            assertBasicGetterSetterBehavior(PrimitiveBean.class, "count");
+        } finally {
+            BeanUnitListeners.remove(listener);
+        }
+        assertTrue(events.toString(), events.contains("SETTER count"));
+        assertTrue(events.toString(), events.contains("GETTER count"));
+    }
+
+    private static PrimitiveAccessor accessor(final String property) throws Exception {
+        final BeanMetadata metadata = BeanMetadataCache.get(PrimitiveBean.class);
+        final PrimitiveAccessor accessor = metadata.primitiveAccessor(metadata.getPropertyDescriptor(property));
+        assertTrue(accessor.isAvailable());
+        return accessor;
+    }
+
+    /**
+     * Its getter returns one more than was set.
+     */
+    public static class OffByOneBean {
+        private int count;
+
+        public int getCount() {
+            return count + 1;
+        }
+
+        public void setCount(final int count) {
+            this.count = count;
+        }
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2011 Ivo Woltring
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nl.ivonet.beanunit;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import builder.SimpleBuilderBean;
+import simplepojo.Person;
+import simplepojo.WrongSinpleBean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Unit tests for the {@link ResultCache} class.
+ *
+ * @author Ivo Woltring
+ */
+public class ResultCacheTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final AtomicInteger setters = new AtomicInteger();
+    private final BeanUnitListener listener = new BeanUnitListener() {
+        @Override
+        public void phaseCompleted(final BeanUnitEvent event) {
+            if (event.getPhase() == BeanUnitEvent.Phase.SETTER) {
+                ResultCacheTest.this.setters.incrementAndGet();
+            }
+        }
+    };
+
+    private TypeArgumentScope scope;
+    private ResultCache cache;
+    private ResultCache previous;
+
+    @Before
+    public void setUp() throws Exception {
+        this.scope = TypeArgumentScope.open();
+        this.cache = ResultCache.open(new File(this.folder.getRoot(), "beanunit.cache"));
+        this.previous = ResultCache.install(this.cache);
+        BeanUnitListeners.add(this.listener);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        BeanUnitListeners.remove(this.listener);
+        ResultCache.install(this.previous);
+        this.cache.close();
+        this.scope.close();
+    }
+
+    @Test
+    public void testPassedBeanIsNotVerifiedAgain() throws Exception {
+        PojoContractAsserter.assertBean(Person.class);
+        assertTrue(this.setters.get() > 0);
+        assertEquals(1, this.cache.size());
+
+        this.setters.set(0);
+        PojoContractAsserter.assertBean(Person.class);
+        assertEquals(0, this.setters.get());
+        assertEquals(1, this.cache.size());
+    }
+
+    @Test
+    public void testOptionsAndRegistryAreInTheKey() throws Exception {
+        final long key = ResultCache.key("PojoContractAsserter.assertBean", Person.class, null);
+        assertEquals(key, ResultCache.key("PojoContractAsserter.assertBean", Person.class, null));
+        assertNotEquals(key, ResultCache.key("PojoContractAsserter.assertBean", Person.class, null, "name"));
+        assertNotEquals(key, ResultCache.key("ConstructedBeanAsserter.assertBean", Person.class, null));
+        assertNotEquals(key, ResultCache.key("PojoContractAsserter.assertBean", SimpleBuilderBean.class, null));
+
+        Asserter.registerTypeAndDefaultArgument(Person.class, "not a person");
+        assertNotEquals(key, ResultCache.key("PojoContractAsserter.assertBean", Person.class, null));
+    }
+
+    @Test
+    public void testNoKeyWithoutCache() throws Exception {
+        ResultCache.install(null);
+        assertEquals(ResultCache.MISS, ResultCache.key("PojoContractAsserter.assertBean", Person.class, null));
+        assertEquals(ResultCache.MISS, ResultCache.lookup(ResultCache.MISS));
+    }
+
+    @Test
+    public void testFailuresAreNotCached() throws Exception {
+        try {
+            PojoContractAsserter.assertBean(WrongSinpleBean.class);
+            fail("Should have failed");
+        } catch (AssertionError e) {
+            assertEquals(0, this.cache.size());
+        }
+        final BulkResult result = BulkAsserter.assertBeans(Arrays.<Class<?>>asList(WrongSinpleBean.class));
+        assertFalse(result.isSuccessful());
+        assertEquals(0, this.cache.size());
+    }
+
+    @Test
+    public void testBulkResultsAreCached() throws Exception {
+        final BulkResult first =
+                BulkAsserter.assertBeans(Arrays.<Class<?>>asList(Person.class, SimpleBuilderBean.class));
+        first.assertSuccessful();
+        assertEquals(0, first.getCachedCount());
+
+        final BulkResult second =
+                BulkAsserter.assertBeans(Arrays.<Class<?>>asList(Person.class, SimpleBuilderBean.class));
+        second.assertSuccessful();
+        assertEquals(2, second.getCachedCount());
+        assertEquals(BulkAsserter.Mode.POJO, second.getResults().get(0).getMode());
+        assertEquals(BulkAsserter.Mode.BUILDER, second.getResults().get(1).getMode());
+        assertTrue(second.getResults().get(0).getReport().toString().endsWith("ok (cached)"));
+    }
+
+    @Test
+    public void testEntry() throws Exception {
+        final long key = ResultCache.key("test", Person.class, null);
+        ResultCache.passed(key, BulkAsserter.Mode.CONSTRUCTED, System.nanoTime() - 1000000);
+        final long entry = ResultCache.lookup(key);
+        assertEquals(BulkAsserter.Mode.CONSTRUCTED, ResultCache.mode(entry));
+        assertTrue(ResultCache.nanos(entry) >= 1000000);
+    }
+}
@@ -0,0 +1,252 @@
+/*
+ * Copyright 2011 Ivo Woltring
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nl.ivonet.beanunit;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import builder.AddressDto;
+import builder.SimpleBuilderBean;
+import immutable.Employee;
+import simplepojo.Person;
+import simplepojo.SimpleBean;
+import simplepojo.ZipCode;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the {@link Shard} class.
+ *
+ * @author Ivo Woltring
+ */
+public class ShardTest {
+
+    private static final List<Class<?>> BEANS = Arrays.<Class<?>>asList(Person.class, SimpleBean.class, ZipCode.class,
+                                                                        AddressDto.class, SimpleBuilderBean.class,
+                                                                        Employee.class);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private TypeArgumentScope scope;
+    private CostHistory history;
+    private CostHistory plan;
+    private CostHistory previousHistory;
+    private CostHistory previousPlan;
+    private Shard previousShard;
+
+    @Before
+    public void setUp() throws Exception {
+        this.scope = TypeArgumentScope.open();
+        this.history = CostHistory.open(new File(this.folder.getRoot(), "beanunit.costs"));
+        this.plan = CostHistory.open(new File(this.folder.getRoot(), "beanunit.costs.plan"));
+        this.previousHistory = CostHistory.install(this.history);
+        this.previousPlan = Shard.installPlan(this.plan);
+        this.previousShard = Shard.install(null);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        Shard.install(this.previousShard);
+        Shard.installPlan(this.previousPlan);
+        CostHistory.install(this.previousHistory);
+        this.plan.close();
+        this.history.close();
+        this.scope.close();
+    }
+
+    @Test
+    public void testParse() throws Exception {
+        final Shard shard = Shard.parse("3/8");
+        assertEquals(3, shard.getNumber());
+        assertEquals(8, shard.getCount());
+        assertEquals("3/8", shard.toString());
+        assertEquals("1/1", Shard.parse(" 1 / 1 ").toString());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testParseNotAShard() throws Exception {
+        Shard.parse("3");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testParseNotANumber() throws Exception {
+        Shard.parse("three/8");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testShardDoesNotExist() throws Exception {
+        Shard.parse("0/8");
+    }
+
+    @Test
+    public void testPlanBalancesCosts() throws Exception {
+        final String[] names = {"a", "b", "c", "d", "e", "f"};
+        final int[] plan = Shard.plan(names, new long[]{800, 400, 400, 200, 100, 100}, 2);
+        assertArrayEquals(new int[]{0, 1, 1, 0, 1, 1}, plan);
+        assertArrayEquals(plan, Shard.plan(names, new long[]{900, 500, 400, 250, 120, 110}, 2));
+    }
+
+    @Test
+    public void testNewBeansStayInTheirShard() throws Exception {
+        final String[] names = {"a.One", "a.Two", "a.Three"};
+        final int[] plan = Shard.plan(names, new long[3], 8);
+        final int[] more = Shard.plan(new String[]{"a.One", "a.Two", "a.Three", "a.Four"}, new long[4], 8);
+        for (int i = 0; i < names.length; i++) {
+            assertEquals(plan[i], more[i]);
+            assertEquals(plan[i], Math.floorMod(CostHistory.key(names[i]), 8));
+        }
+    }
+
+    @Test
+    public void testEveryBeanIsVerifiedByOneShard() throws Exception {
+        this.plan.add(Person.class.getName(), 4000);
+        this.plan.add(SimpleBuilderBean.class.getName(), 8000);
+        this.plan.add(Employee.class.getName(), 2000);
+        final Set<Class<?>> verified = new HashSet<Class<?>>();
+        int total = 0;
+        for (int number = 1; number <= 3; number++) {
+            Shard.install(new Shard(number, 3));
+            final BulkResult result = BulkAsserter.assertBeans(BEANS);
+            result.assertSuccessful();
+            for (final BulkResult.BeanResult each : result.getResults()) {
+                verified.add(each.getType());
+            }
+            total += result.getResults().size();
+        }
+        assertEquals(BEANS.size(), total);
+        assertEquals(new HashSet<Class<?>>(BEANS), verified);
+    }
+
+    @Test
+    public void testCostsAreRecordedWhileShardingButNotPlannedWith() throws Exception {
+        Shard.install(new Shard(1, 1));
+        BulkAsserter.assertBeans(BEANS).assertSuccessful();
+        assertTrue(this.history.estimate(Person.class.getName()) > 0);
+        assertEquals(CostHistory.UNKNOWN, this.plan.estimate(Person.class.getName()));
+    }
+
+    @Test
+    public void testCostsRecordedByShardsRebalanceTheNextRun() throws Exception {
+        final List<Class<?>> beans = Arrays.<Class<?>>asList(HeavyBean1.class, HeavyBean3.class, LightBean1.class,
+                                                             LightBean3.class);
+        final List<Set<Class<?>>> first = verifyShards(beans, 2);
+        assertTrue(first.get(0).contains(HeavyBean1.class) && first.get(0).contains(HeavyBean3.class));
+
+        for (int number = 1; number <= 2; number++) {
+            final CostHistory recorded = CostHistory.open(recorded(number, 2));
+            try {
+                this.plan.merge(recorded);
+            } finally {
+                recorded.close();
+            }
+        }
+        final List<Set<Class<?>>> next = verifyShards(beans, 2);
+        assertEquals(1, count(next.get(0), HeavyBean1.class, HeavyBean3.class));
+        assertEquals(1, count(next.get(1), HeavyBean1.class, HeavyBean3.class));
+    }
+
+    /**
+     * Verifies every shard like a CI executor would, each recording the costs in a file of its own.
+     */
+    private List<Set<Class<?>>> verifyShards(final List<Class<?>> beans, final int count) throws Exception {
+        final List<Set<Class<?>>> shards = new ArrayList<Set<Class<?>>>();
+        for (int number = 1; number <= count; number++) {
+            final Shard shard = new Shard(number, count);
+            final CostHistory recorded = CostHistory.open(recorded(number, count));
+            CostHistory.install(recorded);
+            Shard.install(shard);
+            try {
+                final BulkResult result = BulkAsserter.assertBeans(beans);
+                result.assertSuccessful();
+                final Set<Class<?>> verified = new HashSet<Class<?>>();
+                for (final BulkResult.BeanResult each : result.getResults()) {
+                    verified.add(each.getType());
+                }
+                shards.add(verified);
+            } finally {
+                CostHistory.install(this.history);
+                recorded.close();
+            }
+        }
+        return shards;
+    }
+
+    private File recorded(final int number, final int count) {
+        return CostHistory.file(new File(this.folder.getRoot(), "beanunit.costs").getPath(), new Shard(number, count));
+    }
+
+    private static int count(final Set<Class<?>> verified, final Class<?>... types) {
+        int count = 0;
+        for (final Class<?> type : types) {
+            if (verified.contains(type)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * A bean that takes a while to verify, in the same shard as {@link HeavyBean3} by the hash of its name.
+     */
+    public static class HeavyBean1 {
+        private String name;
+
+        public String getName() {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return this.name;
+        }
+
+        public void setName(final String name) {
+            this.name = name;
+        }
+    }
+
+    public static class HeavyBean3 extends HeavyBean1 {
+    }
+
+    public static class LightBean1 {
+        private String name;
+
+        public String getName() {
+            return this.name;
+        }
+
+        public void setName(final String name) {
+            this.name = name;
+        }
+    }
+
+    public static class LightBean3 extends LightBean1 {
+    }
+}
@@ -0,0 +1,462 @@
+/*
+ * Copyright 2011 Ivo Woltring
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nl.ivonet.beanunit;
+
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Defines bean classes of any shape in memory, to test and benchmark beanunit on wide and deep beans without
+ * committing their sources.
+ * <p/>
+ * A bean has N properties named p0 to pN-1. Their types are taken round robin from the configured mix and should
+ * have a default value in beanunit. With a depth D the properties are spread over the class and D superclasses.
+ * <pre>
+ * final Class&lt;?&gt; wide = SyntheticBean.pojo(1000).types(String.class, int.class, Date.class).depth(3).define();
+ * </pre>
+ * Every call to {@link #define()} compiles the sources (a JDK is needed) into a new class loader, so the same bean
+ * can be defined more than once.
+ *
+ * @author Ivo Woltring
+ */
+public final class SyntheticBean {
+    /**
+     * A constructor can have at most 255 parameter slots, including <code>this</code>.
+     */
+    public static final int MAXIMUM_CONSTRUCTOR_SLOTS = 254;
+
+    static final String PACKAGE = "synthetic";
+
+    /**
+     * How the bean is created.
+     */
+    public enum Shape {
+        /**
+         * A public default constructor and a getter and setter per property.
+         */
+        POJO,
+        /**
+         * Immutable, created by a nested Builder with a builder method per property and a build() method.
+         */
+        BUILDER,
+        /**
+         * Immutable, created by a public constructor taking all properties.
+         */
+        CONSTRUCTED
+    }
+
+    /**
+     * The equals and hashCode of the bean.
+     */
+    public enum Equality {
+        /**
+         * Not overridden.
+         */
+        NONE,
+        /**
+         * Comparing all properties.
+         */
+        CORRECT,
+        /**
+         * Equal instances have equal hash codes, but equals ignores the last property.
+         */
+        BROKEN,
+        /**
+         * Correct but comparing and hashing all properties through reflection, like a reflection based equals
+         * builder does.
+         */
+        SLOW
+    }
+
+    private final Shape shape;
+    private final int properties;
+    private final int depth;
+    private final List<Class<?>> types;
+    private final Equality equality;
+    private final String name;
+
+    private SyntheticBean(final Shape shape, final int properties, final int depth, final List<Class<?>> types,
+                          final Equality equality, final String name) {
+        this.shape = shape;
+        this.properties = properties;
+        this.depth = depth;
+        this.types = types;
+        this.equality = equality;
+        this.name = name;
+    }
+
+    /**
+     * @param properties the number of properties
+     * @return a POJO with String properties and a correct equals and hashCode
+     */
+    public static SyntheticBean pojo(final int properties) {
+        return of(Shape.POJO, properties);
+    }
+
+    /**
+     * @param properties the number of properties (and builder methods)
+     * @return a bean with a Builder, String properties and a correct equals and hashCode
+     */
+    public static SyntheticBean builder(final int properties) {
+        return of(Shape.BUILDER, properties);
+    }
+
+    /**
+     * @param properties the number of properties (and constructor parameters)
+     * @return a constructed bean with String properties and a correct equals and hashCode
+     */
+    public static SyntheticBean constructed(final int properties) {
+        return of(Shape.CONSTRUCTED, properties);
+    }
+
+    private static SyntheticBean of(final Shape shape, final int properties) {
+        if (properties < 1) {
+            throw new IllegalArgumentException("A bean needs at least one property but got: " + properties);
+        }
+        final String name = shape.name().charAt(0) + shape.name().substring(1).toLowerCase() + properties;
+        return new SyntheticBean(shape, properties, 0, Collections.<Class<?>>singletonList(String.class),
+                                 Equality.CORRECT, name);
+    }
+
+    /**
+     * @param types the property types to use round robin
+     * @return a copy with the given mix of property types
+     */
+    public SyntheticBean types(final Class<?>... types) {
+        if (types.length == 0) {
+            throw new IllegalArgumentException("At least one property type must be provided.");
+        }
+        return new SyntheticBean(this.shape, this.properties, this.depth,
+                                 Collections.unmodifiableList(new ArrayList<Class<?>>(Arrays.asList(types))),
+                                 this.equality, this.name);
+    }
+
+    /**
+     * @param depth the number of superclasses (besides Object) to spread the properties over
+     * @return a copy with the given inheritance depth
+     */
+    public SyntheticBean depth(final int depth) {
+        if (depth < 0) {
+            throw new IllegalArgumentException("The depth can not be negative but was: " + depth);
+        }
+        return new SyntheticBean(this.shape, this.properties, depth, this.types, this.equality, this.name);
+    }
+
+    /**
+     * @param equality the kind of equals and hashCode
+     * @return a copy with the given equals and hashCode
+     */
+    public SyntheticBean equality(final Equality equality) {
+        return new SyntheticBean(this.shape, this.properties, this.depth, this.types, equality, this.name);
+    }
+
+    /**
+     * @param name the simple name of the class, by default the shape and the number of properties, e.g. Pojo100
+     * @return a copy with the given name
+     */
+    public SyntheticBean named(final String name) {
+        return new SyntheticBean(this.shape, this.properties, this.depth, this.types, this.equality, name);
+    }
+
+    /**
+     * Compiles the bean and its superclasses in a new class loader.
+     *
+     * @return the bean class
+     */
+    public Class<?> define() {
+        if (this.shape == Shape.CONSTRUCTED && constructorSlots() > MAXIMUM_CONSTRUCTOR_SLOTS) {
+            throw new IllegalArgumentException(
+                    "A constructor can not take " + this.properties + " parameters of " + this.types);
+        }
+        final Map<String, CharSequence> sources = sources();
+        final Map<String, byte[]> classes = compile(sources);
+        try {
+            return Class.forName(PACKAGE + "." + this.name, true, new MemoryClassLoader(classes));
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @return the source of the bean and its superclasses by fully qualified class name
+     */
+    Map<String, CharSequence> sources() {
+        final Map<String, CharSequence> sources = new LinkedHashMap<String, CharSequence>();
+        for (int level = this.depth; level > 0; level--) {
+            sources.put(PACKAGE + "." + className(level), superclass(level));
+        }
+        sources.put(PACKAGE + "." + this.name, bean());
+        return sources;
+    }
+
+    private String className(final int level) {
+        return level == 0 ? this.name : this.name + "Level" + level;
+    }
+
+    private int level(final int property) {
+        return property % (this.depth + 1);
+    }
+
+    private Class<?> type(final int property) {
+        return this.types.get(property % this.types.size());
+    }
+
+    private String typeName(final int property) {
+        return type(property).getCanonicalName();
+    }
+
+    private int constructorSlots() {
+        int slots = 0;
+        for (int i = 0; i < this.properties; i++) {
+            slots += type(i) == long.class || type(i) == double.class ? 2 : 1;
+        }
+        return slots;
+    }
+
+    private StringBuilder superclass(final int level) {
+        final StringBuilder source = new StringBuilder("package " + PACKAGE + ";\n\npublic abstract class ")
+                .append(className(level)).append(level < this.depth ? " extends " + className(level + 1) : "")
+                .append(" {\n");
+        members(source, level, "protected ");
+        return source.append("}\n");
+    }
+
+    private StringBuilder bean() {
+        final StringBuilder source = new StringBuilder("package " + PACKAGE + ";\n\npublic final class ")
+                .append(this.name).append(this.depth > 0 ? " extends " + className(1) : "").append(" {\n");
+        members(source, 0, "private ");
+        if (this.shape == Shape.BUILDER) {
+            source.append("    private ").append(this.name).append("(final Builder builder) {\n");
+            for (int i = 0; i < this.properties; i++) {
+                source.append("        this.p").append(i).append(" = builder.p").append(i).append(";\n");
+            }
+            source.append("    }\n");
+            builder(source);
+        } else if (this.shape == Shape.CONSTRUCTED) {
+            source.append("    public ").append(this.name).append("(");
+            for (int i = 0; i < this.properties; i++) {
+                source.append(i == 0 ? "" : ", ").append("final ").append(typeName(i)).append(" p").append(i);
+            }
+            source.append(") {\n");
+            for (int i = 0; i < this.properties; i++) {
+                source.append("        this.p").append(i).append(" = p").append(i).append(";\n");
+            }
+            source.append("    }\n");
+        }
+        if (this.equality == Equality.CORRECT || this.equality == Equality.BROKEN) {
+            equalsAndHashCode(source);
+        } else if (this.equality == Equality.SLOW) {
+            reflectionEqualsAndHashCode(source);
+        }
+        return source.append("}\n");
+    }
+
+    /**
+     * The fields of a level with their getters and, for a POJO, setters. Fields of superclasses are protected so the
+     * constructor and equals of the bean can reach them.
+     */
+    private void members(final StringBuilder source, final int level, final String fieldModifier) {
+        for (int i = level; i < this.properties; i += this.depth + 1) {
+            source.append("    ").append(fieldModifier).append(typeName(i)).append(" p").append(i).append(";\n");
+        }
+        for (int i = level; i < this.properties; i += this.depth + 1) {
+            source.append("    public ").append(typeName(i)).append(" ").append(type(i) == boolean.class ? "is" : "get")
+                  .append("P").append(i).append("() {\n        return this.p").append(i).append(";\n    }\n");
+            if (this.shape == Shape.POJO) {
+                source.append("    public void setP").append(i).append("(final ").append(typeName(i)).append(" p")
+                      .append(i).append(") {\n        this.p").append(i).append(" = p").append(i)
+                      .append(";\n    }\n");
+            }
+        }
+    }
+
+    private void builder(final StringBuilder source) {
+        source.append("    public static final class Builder {\n");
+        for (int i = 0; i < this.properties; i++) {
+            source.append("        private ").append(typeName(i)).append(" p").append(i).append(";\n");
+        }
+        for (int i = 0; i < this.properties; i++) {
+            source.append("        public Builder setP").append(i).append("(final ").append(typeName(i)).append(" p")
+                  .append(i).append(") {\n            this.p").append(i).append(" = p").append(i)
+                  .append(";\n            return this;\n        }\n");
+        }
+        source.append("        public ").append(this.name).append(" build() {\n            return new ")
+              .append(this.name).append("(this);\n        }\n    }\n");
+    }
+
+    private void equalsAndHashCode(final StringBuilder source) {
+        final int compared = this.equality == Equality.BROKEN ? this.properties - 1 : this.properties;
+        source.append("    @Override\n    public boolean equals(final Object o) {\n")
+              .append("        if (!(o instanceof ").append(this.name).append(")) {\n            return false;\n")
+              .append("        }\n        final ").append(this.name).append(" other = (").append(this.name)
+              .append(") o;\n");
+        for (int i = 0; i < compared; i++) {
+            source.append("        if (").append(different(i)).append(") {\n            return false;\n        }\n");
+        }
+        source.append("        return true;\n    }\n")
+              .append("    @Override\n    public int hashCode() {\n        int result = 17;\n");
+        for (int i = 0; i < compared; i++) {
+            source.append("        result = 31 * result + ").append(hash(i)).append(";\n");
+        }
+        source.append("        return result;\n    }\n");
+    }
+
+    private String different(final int property) {
+        final Class<?> type = type(property);
+        final String field = "this.p" + property;
+        final String other = "other.p" + property;
+        if (type == float.class) {
+            return "Float.compare(" + field + ", " + other + ") != 0";
+        }
+        if (type == double.class) {
+            return "Double.compare(" + field + ", " + other + ") != 0";
+        }
+        if (type.isPrimitive()) {
+            return field + " != " + other;
+        }
+        return "!java.util.Objects.deepEquals(" + field + ", " + other + ")";
+    }
+
+    private String hash(final int property) {
+        final Class<?> type = type(property);
+        final String field = "this.p" + property;
+        if (type.isPrimitive()) {
+            final String wrapper = type == int.class ? "Integer" : type == char.class ? "Character"
+                    : Character.toUpperCase(type.getName().charAt(0)) + type.getName().substring(1);
+            return wrapper + ".hashCode(" + field + ")";
+        }
+        return "java.util.Arrays.deepHashCode(new Object[]{" + field + "})";
+    }
+
+    private void reflectionEqualsAndHashCode(final StringBuilder source) {
+        source.append("    @Override\n    public boolean equals(final Object o) {\n")
+              .append("        if (!(o instanceof ").append(this.name).append(")) {\n            return false;\n")
+              .append("        }\n        return java.util.Arrays.deepEquals(values(this), values(o));\n    }\n")
+              .append("    @Override\n    public int hashCode() {\n")
+              .append("        return java.util.Arrays.deepHashCode(values(this));\n    }\n")
+              .append("    private static Object[] values(final Object bean) {\n")
+              .append("        final java.util.List<Object> values = new java.util.ArrayList<Object>();\n")
+              .append("        for (Class<?> type = bean.getClass(); type != Object.class; ")
+              .append("type = type.getSuperclass()) {\n")
+              .append("            for (final java.lang.reflect.Field field : type.getDeclaredFields()) {\n")
+              .append("                if (java.lang.reflect.Modifier.isStatic(field.getModifiers())) {\n")
+              .append("                    continue;\n                }\n")
+              .append("                try {\n                    field.setAccessible(true);\n")
+              .append("                    values.add(field.get(bean));\n")
+              .append("                } catch (IllegalAccessException e) {\n")
+              .append("                    throw new IllegalStateException(e);\n                }\n")
+              .append("            }\n        }\n        return values.toArray();\n    }\n");
+    }
+
+    private static Map<String, byte[]> compile(final Map<String, CharSequence> sources) {
+        final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null) {
+            throw new IllegalStateException("Synthetic beans can only be defined when running on a JDK.");
+        }
+        final List<JavaFileObject> units = new ArrayList<JavaFileObject>();
+        for (final Map.Entry<String, CharSequence> source : sources.entrySet()) {
+            units.add(new SourceFile(source.getKey(), source.getValue()));
+        }
+        final MemoryFileManager files = new MemoryFileManager(compiler.getStandardFileManager(null, null, null));
+        final StringWriter errors = new StringWriter();
+        if (!compiler.getTask(errors, files, null, Arrays.asList("-g:none", "-nowarn"), null, units).call()) {
+            throw new IllegalStateException("Could not compile " + sources.keySet() + ":\n" + errors);
+        }
+        final Map<String, byte[]> classes = new HashMap<String, byte[]>();
+        for (final Map.Entry<String, ByteArrayOutputStream> entry : files.classes.entrySet()) {
+            classes.put(entry.getKey(), entry.getValue().toByteArray());
+        }
+        return classes;
+    }
+
+    private static final class SourceFile extends SimpleJavaFileObject {
+        private final CharSequence source;
+
+        SourceFile(final String className, final CharSequence source) {
+            super(URI.create("string:///" + className.replace('.', '/') + Kind.SOURCE.extension), Kind.SOURCE);
+            this.source = source;
+        }
+
+        @Override
+        public CharSequence getCharContent(final boolean ignoreEncodingErrors) {
+            return this.source;
+        }
+    }
+
+    /**
+     * Keeps the compiled class files in memory.
+     */
+    private static final class MemoryFileManager extends ForwardingJavaFileManager<StandardJavaFileManager> {
+        private final Map<String, ByteArrayOutputStream> classes = new HashMap<String, ByteArrayOutputStream>();
+
+        MemoryFileManager(final StandardJavaFileManager fileManager) {
+            super(fileManager);
+        }
+
+        @Override
+        public JavaFileObject getJavaFileForOutput(final JavaFileManager.Location location, final String className,
+                                                   final JavaFileObject.Kind kind, final FileObject sibling) {
+            return new SimpleJavaFileObject(URI.create("mem:///" + className.replace('.', '/') + kind.extension),
+                                            kind) {
+                @Override
+                public OutputStream openOutputStream() {
+                    final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                    MemoryFileManager.this.classes.put(className, bytes);
+                    return bytes;
+                }
+            };
+        }
+    }
+
+    /**
+     * Defines the compiled classes.
+     */
+    private static final class MemoryClassLoader extends ClassLoader {
+        private final Map<String, byte[]> classes;
+
+        MemoryClassLoader(final Map<String, byte[]> classes) {
+            super(SyntheticBean.class.getClassLoader());
+            this.classes = classes;
+        }
+
+        @Override
+        protected Class<?> findClass(final String name) throws ClassNotFoundException {
+            final byte[] definition = this.classes.get(name);
+            if (definition == null) {
+                throw new ClassNotFoundException(name);
+            }
+            return defineClass(name, definition, 0, definition.length);
+        }
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2011 Ivo Woltring
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nl.ivonet.beanunit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Verifies wide and deep {@link SyntheticBean}s, which also tests the generator itself.
+ *
+ * @author Ivo Woltring
+ */
+public class SyntheticBeanTest {
+
+    private TypeArgumentScope scope;
+
+    @Before
+    public void openScope() throws Exception {
+        this.scope = TypeArgumentScope.open();
+    }
+
+    @After
+    public void closeScope() throws Exception {
+        this.scope.close();
+    }
+
+    @Test
+    public void testWidePojo() throws Exception {
+        final Class<?> bean = SyntheticBean.pojo(1000).define();
+
+        assertEquals("synthetic.Pojo1000", bean.getName());
+        assertEquals(1001, BeanMetadataCache.get(bean).getPropertyDescriptors().length);
+        PojoContractAsserter.assertBean(bean);
+    }
+
+    @Test
+    public void testDeepPojoWithMixedTypes() throws Exception {
+        final Class<?> bean = SyntheticBean.pojo(40).depth(4)
+                                           .types(String.class, int.class, Date.class, boolean.class, Long.class,
+                                                  double.class, BigDecimal.class, List.class, char.class)
+                                           .define();
+
+        assertEquals("Pojo40Level1", bean.getSuperclass().getSimpleName());
+        assertEquals("Pojo40Level4", bean.getSuperclass().getSuperclass().getSuperclass().getSuperclass()
+                                         .getSimpleName());
+        assertEquals(int.class, bean.getMethod("getP1").getReturnType());
+        PojoContractAsserter.assertBean(bean);
+    }
+
+    @Test
+    public void testBuilder() throws Exception {
+        final Class<?> bean = SyntheticBean.builder(100).depth(2).types(String.class, long.class, Date.class).define();
+
+        assertEquals(BulkAsserter.Mode.BUILDER, BulkAsserter.Mode.detect(bean));
+        BuilderBeanAsserter.assertBean(bean);
+    }
+
+    @Test
+    public void testConstructed() throws Exception {
+        final Class<?> bean = SyntheticBean.constructed(SyntheticBean.MAXIMUM_CONSTRUCTOR_SLOTS).define();
+
+        assertEquals(BulkAsserter.Mode.CONSTRUCTED, BulkAsserter.Mode.detect(bean));
+        ConstructedBeanAsserter.assertBean(bean);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testConstructorTooWide() throws Exception {
+        SyntheticBean.constructed(200).types(long.class).define();
+    }
+
+    @Test
+    public void testBrokenEquals() throws Exception {
+        final VerificationReport report =
+                VerificationReport.verify(SyntheticBean.pojo(5).equality(SyntheticBean.Equality.BROKEN).define());
+
+        assertFalse(report.isPassed());
+        assertTrue(report.getMessage(),
+                   report.getMessage().contains("Instances with o1 having p4 set and o2 having it not set are equal"));
+    }
+
+    @Test
+    public void testSlowEquals() throws Exception {
+        PojoContractAsserter.assertBean(SyntheticBean.pojo(20).depth(1).equality(SyntheticBean.Equality.SLOW)
+                                                     .define());
+    }
+
+    @Test
+    public void testNoEquals() throws Exception {
+        final Class<?> bean = SyntheticBean.pojo(3).equality(SyntheticBean.Equality.NONE).define();
+
+        assertEquals(Object.class, bean.getMethod("equals", Object.class).getDeclaringClass());
+        PojoContractAsserter.assertBean(bean);
+    }
+
+    @Test
+    public void testDefinedInNewClassLoaders() throws Exception {
+        final SyntheticBean bean = SyntheticBean.pojo(2).named("Twice");
+
+        final Class<?> first = bean.define();
+        final Class<?> second = bean.define();
+
+        assertEquals("synthetic.Twice", first.getName());
+        assertNotSame(first, second);
+    }
+}
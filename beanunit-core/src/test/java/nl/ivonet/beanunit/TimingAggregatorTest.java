@@ -0,0 +1,123 @@
+/*
+ * Copyright 2011 Ivo Woltring
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nl.ivonet.beanunit;
+
+import org.junit.Test;
+
+import simplepojo.Person;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the {@link TimingAggregator} class.
+ *
+ * @author Ivo Woltring
+ */
+public class TimingAggregatorTest {
+
+    @Test
+    public void testSlowestClasses() throws Exception {
+        final TimingAggregator aggregator = new TimingAggregator();
+        aggregator.phaseCompleted(new BeanUnitEvent(BeanUnitEvent.Phase.GETTER, String.class, "bytes", 100, 800));
+        aggregator.phaseCompleted(new BeanUnitEvent(BeanUnitEvent.Phase.SETTER, Integer.class, "value", 300, 2400));
+        aggregator.phaseCompleted(new BeanUnitEvent(BeanUnitEvent.Phase.GETTER, String.class, "empty", 250, 2000));
+        aggregator.phaseCompleted(new BeanUnitEvent(BeanUnitEvent.Phase.BUILD, Long.class, null, 10, 80));
+
+        final List<TimingAggregator.Total> slowest = aggregator.getSlowestClasses(2);
+        assertEquals(2, slowest.size());
+        assertEquals("java.lang.String", slowest.get(0).getName());
+        assertEquals(2, slowest.get(0).getCount());
+        assertEquals(350, slowest.get(0).getNanos());
+        assertEquals(2800, slowest.get(0).getAllocatedBytes());
+        assertEquals("java.lang.Integer", slowest.get(1).getName());
+        assertEquals(3, aggregator.getSlowestClasses(10).size());
+        assertTrue(aggregator.getSlowestClasses(-1).isEmpty());
+    }
+
+    @Test
+    public void testMostAllocatingClasses() throws Exception {
+        final TimingAggregator aggregator = new TimingAggregator();
+        aggregator.phaseCompleted(new BeanUnitEvent(BeanUnitEvent.Phase.GETTER, String.class, "bytes", 900, 16));
+        aggregator.phaseCompleted(new BeanUnitEvent(BeanUnitEvent.Phase.INSTANTIATION, int[].class, null, 10, 184));
+        aggregator.phaseCompleted(new BeanUnitEvent(BeanUnitEvent.Phase.GETTER, Long.class, "value", 50, -1));
+        aggregator.phaseCompleted(new BeanUnitEvent(BeanUnitEvent.Phase.DEFAULT_VALUE, Double.class, null, 10, 999));
+
+        final List<TimingAggregator.Total> most = aggregator.getMostAllocatingClasses(10);
+        assertEquals(3, most.size());
+        assertEquals("[I", most.get(0).getName());
+        assertEquals(184, most.get(0).getAllocatedBytes());
+        assertEquals("java.lang.String", most.get(1).getName());
+        assertEquals(0, most.get(2).getAllocatedBytes());
+    }
+
+    @Test
+    public void testPhases() throws Exception {
+        final TimingAggregator aggregator = new TimingAggregator();
+        aggregator.phaseCompleted(new BeanUnitEvent(BeanUnitEvent.Phase.GETTER, String.class, "bytes", 100, 800));
+        aggregator.phaseCompleted(new BeanUnitEvent(BeanUnitEvent.Phase.INTROSPECTION, String.class, null, 400, 3200));
+        aggregator.phaseCompleted(new BeanUnitEvent(BeanUnitEvent.Phase.GETTER, String.class, "empty", 200, 1600));
+
+        final List<TimingAggregator.Total> phases = aggregator.getPhases();
+        assertEquals(BeanUnitEvent.Phase.values().length, phases.size());
+        assertEquals("INTROSPECTION", phases.get(0).getName());
+        assertEquals("GETTER", phases.get(1).getName());
+        assertEquals(300, phases.get(1).getNanos());
+        assertEquals(0, phases.get(2).getCount());
+
+        aggregator.reset();
+        assertTrue(aggregator.getSlowestClasses(10).isEmpty());
+        assertEquals(0, aggregator.getPhases().get(0).getNanos());
+    }
+
+    @Test
+    public void testPrint() throws Exception {
+        final TimingAggregator aggregator = new TimingAggregator();
+        aggregator.phaseCompleted(new BeanUnitEvent(BeanUnitEvent.Phase.SETTER, String.class, "bytes", 1500000, 12000000));
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        aggregator.print(new PrintStream(bytes, true), 5);
+
+        final String report = bytes.toString();
+        assertTrue(report, report.startsWith("beanunit timings, the 1 slowest of 1 classes:\n"));
+        assertTrue(report, report.contains("1.500 ms        11718.8 KB          1 events  java.lang.String\n"));
+        assertTrue(report, report.contains("most allocating:\n"));
+        assertTrue(report, report.contains("per phase:\n"));
+        assertTrue(report, report.contains("events  SETTER\n"));
+    }
+
+    @Test
+    public void testAsListener() throws Exception {
+        final TimingAggregator aggregator = new TimingAggregator();
+        BeanUnitListeners.add(aggregator);
+        try {
+            VerificationReport.verify(Person.class).assertPassed();
+        } finally {
+            BeanUnitListeners.remove(aggregator);
+        }
+        assertTrue(aggregator.report(10), aggregator.report(10).contains("simplepojo.Person"));
+        for (final TimingAggregator.Total total : aggregator.getSlowestClasses(Integer.MAX_VALUE)) {
+            assertFalse(total.toString(), total.getName().startsWith("java."));
+        }
+        assertTrue(aggregator.report(10), aggregator.report(10).contains("DEFAULT_VALUE"));
+    }
+}
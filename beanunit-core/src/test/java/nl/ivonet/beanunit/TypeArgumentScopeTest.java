@@ -0,0 +1,139 @@
+/*
+ * Copyright 2011 Ivo Woltring
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nl.ivonet.beanunit;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import simplepojo.PrimitiveBean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the {@link TypeArgumentScope} class.
+ *
+ * @author Ivo Woltring
+ */
+public class TypeArgumentScopeTest {
+
+    private TypeArgumentScope scope;
+
+    @Before
+    public void openScope() throws Exception {
+        this.scope = TypeArgumentScope.open();
+    }
+
+    @After
+    public void closeScope() throws Exception {
+        this.scope.close();
+    }
+
+    @Test
+    public void testRegistrationEndsWithScope() throws Exception {
+        final TypeArguments before = Asserter.typeArguments();
+        final TypeArgumentScope scope = TypeArgumentScope.open();
+        Asserter.registerTypeAndDefaultArgument(String.class, "Scoped");
+        Asserter.deregisterType(Integer.class);
+        assertEquals("Scoped", Asserter.retrieveDefaultValueByType(String.class));
+        assertFalse(Asserter.typeArguments().containsKey(Integer.class));
+
+        scope.close();
+        scope.close();
+
+        assertSame(before, Asserter.typeArguments());
+        assertEquals("String", Asserter.retrieveDefaultValueByType(String.class));
+    }
+
+    @Test
+    public void testNestedScopes() throws Exception {
+        try (TypeArgumentScope outer = TypeArgumentScope.open()) {
+            Asserter.registerTypeAndDefaultArgument(int.class, 7);
+            try (TypeArgumentScope inner = TypeArgumentScope.open()) {
+                assertEquals(7, Asserter.retrieveDefaultValueByType(int.class));
+                Asserter.resetToDefaultTypes();
+                assertSame(Asserter.DEFAULT_TYPE_ARGUMENTS, Asserter.typeArguments());
+            }
+            assertEquals(7, Asserter.retrieveDefaultValueByType(int.class));
+            assertEquals(7, Asserter.typeArguments().primitives().intValue());
+        }
+    }
+
+    @Test
+    public void testScopesOfThreadsAreIsolated() throws Exception {
+        final int threads = 4;
+        final CountDownLatch registered = new CountDownLatch(threads);
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            final Future<?>[] results = new Future<?>[threads];
+            for (int i = 0; i < threads; i++) {
+                final int value = i;
+                results[i] = executor.submit(new Callable<Object>() {
+                    @Override
+                    public Object call() throws Exception {
+                        try (TypeArgumentScope scope = TypeArgumentScope.open()) {
+                            Asserter.registerTypeAndDefaultArgument(int.class, value);
+                            registered.countDown();
+                            assertTrue(registered.await(10, TimeUnit.SECONDS));
+                            assertEquals(value, Asserter.retrieveDefaultValueByType(int.class));
+                            PojoContractAsserter.assertBasicGetterSetterBehavior(PrimitiveBean.class);
+                            assertEquals(value, PojoContractAsserter.createObject(PrimitiveBean.class).getCount());
+                            assertEquals(value, BeanFactory.of(PrimitiveBean.class).create().getCount());
+                            return null;
+                        }
+                    }
+                });
+            }
+            for (final Future<?> result : results) {
+                result.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(42, Asserter.retrieveDefaultValueByType(int.class));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testCloseOnOtherThread() throws Throwable {
+        final TypeArgumentScope scope = TypeArgumentScope.open();
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            executor.submit(new Callable<Object>() {
+                @Override
+                public Object call() throws Exception {
+                    scope.close();
+                    return null;
+                }
+            }).get();
+        } catch (java.util.concurrent.ExecutionException e) {
+            throw e.getCause();
+        } finally {
+            executor.shutdown();
+            scope.close();
+        }
+    }
+}
@@ -0,0 +1,201 @@
+/*
+ * Copyright 2011 Ivo Woltring
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package nl.ivonet.beanunit;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import simplepojo.Person;
+import simplepojo.WrongSinpleBean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Unit tests for the {@link VerificationReport} class.
+ *
+ * @author Ivo Woltring
+ */
+public class VerificationReportTest {
+
+    private TypeArgumentScope scope;
+
+    @Before
+    public void openScope() throws Exception {
+        this.scope = TypeArgumentScope.open();
+    }
+
+    @After
+    public void closeScope() throws Exception {
+        this.scope.close();
+    }
+
+    public static class TwoWrongProperties {
+        private String first;
+        private String second;
+
+        public String getFirst() {
+            return this.first + "?";
+        }
+
+        public void setFirst(final String first) {
+            this.first = first;
+        }
+
+        public String getSecond() {
+            return this.second + "?";
+        }
+
+        public void setSecond(final String second) {
+            this.second = second;
+        }
+    }
+
+    public static class AssertingEquals {
+        private String name;
+
+        public String getName() {
+            return this.name;
+        }
+
+        public void setName(final String name) {
+            this.name = name;
+        }
+
+        @Override
+        public boolean equals(final Object other) {
+            throw new AssertionError("equals of a bean asserting too much");
+        }
+
+        @Override
+        public int hashCode() {
+            return 1;
+        }
+    }
+
+    public static class CyclicHashCode {
+        private final List<Object> references = new ArrayList<Object>();
+        private String name;
+
+        public CyclicHashCode() {
+            this.references.add(this.references);
+        }
+
+        public String getName() {
+            return this.name;
+        }
+
+        public void setName(final String name) {
+            this.name = name;
+        }
+
+        @Override
+        public boolean equals(final Object other) {
+            return other instanceof CyclicHashCode && hashCode() == other.hashCode();
+        }
+
+        @Override
+        public int hashCode() {
+            return this.references.hashCode();
+        }
+    }
+
+    @Test
+    public void testMeasurements() throws Exception {
+        final VerificationReport report = VerificationReport.verify(Person.class);
+
+        assertEquals(2, report.getMeasurements().size());
+        assertEquals("properties", report.getMeasurements().get(0).getCheck());
+        assertEquals("equalsAndHashCode", report.getMeasurements().get(1).getCheck());
+        assertTrue(report.getNanos() > 0);
+        if (Allocations.isSupported()) {
+            assertTrue(report.getAllocatedBytes() > 0);
+        } else {
+            assertEquals(Allocations.UNKNOWN, report.getAllocatedBytes());
+        }
+    }
+
+    @Test
+    public void testPassed() throws Exception {
+        final VerificationReport report = VerificationReport.verify(Person.class);
+
+        assertTrue(report.isPassed());
+        assertEquals(BulkAsserter.Mode.POJO, report.getMode());
+        assertNull(report.toAssertionError());
+        report.assertPassed();
+    }
+
+    @Test
+    public void testEveryPropertyIsReported() throws Exception {
+        final VerificationReport report = VerificationReport.verify(TwoWrongProperties.class);
+
+        assertEquals(2, report.getViolations().size());
+        for (final VerificationReport.Violation violation : report.getViolations()) {
+            assertEquals("properties", violation.getCheck());
+            assertNull(violation.getError());
+        }
+        assertTrue(report.getViolations().get(0).getMessage().startsWith("first getter/setter failed test"));
+        assertTrue(report.getViolations().get(1).getMessage().startsWith("second getter/setter failed test"));
+    }
+
+    @Test
+    public void testEveryCheckIsReported() throws Exception {
+        final VerificationReport report = VerificationReport.verify(WrongSinpleBean.class);
+
+        assertEquals(2, report.getViolations().size());
+        assertEquals("properties", report.getViolations().get(0).getCheck());
+        assertEquals("equalsAndHashCode", report.getViolations().get(1).getCheck());
+        try {
+            report.assertPassed();
+            fail("Should fail with all the violations");
+        } catch (AssertionError e) {
+            assertTrue(e.getMessage().startsWith("2 violations in simplepojo.WrongSinpleBean:\n  properties: "));
+        }
+    }
+
+    @Test
+    public void testAssertersStillFailRightAway() throws Exception {
+        VerificationReport.verify(WrongSinpleBean.class);
+        try {
+            PojoContractAsserter.assertBean(WrongSinpleBean.class);
+            fail("Should fail outside a report");
+        } catch (AssertionError e) {
+            assertEquals("wrong getter/setter failed test expected same:<String> was not:<Stringwrong>",
+                         e.getMessage());
+        }
+    }
+
+    @Test
+    public void testErrorsOfTheBeanAreViolations() throws Exception {
+        final BulkResult result = BulkAsserter.assertBeans(Arrays.<Class<?>>asList(AssertingEquals.class,
+                                                                                   CyclicHashCode.class));
+
+        assertEquals(2, result.getFailures().size());
+        assertTrue(result.getFailures().get(0).getReport().getViolations().get(0).getError()
+                   instanceof AssertionError);
+        assertTrue(result.getFailures().get(1).getReport().getViolations().get(0).getError()
+                   instanceof StackOverflowError);
+    }
+}
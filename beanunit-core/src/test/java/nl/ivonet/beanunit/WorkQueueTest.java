@@ -0,0 +1,259 @@
+/*
+ * Copyright 2011 Ivo Woltring
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nl.ivonet.beanunit;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import builder.SimpleBuilderBean;
+import simplepojo.Person;
+import simplepojo.WrongSinpleBean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the {@link WorkQueue} class.
+ * <p/>
+ * The main method is the other JVM of {@link #testBeansVerifiedByAnotherJvm()} and
+ * {@link #testJvmDoneWithItsOwnBeansHelpsAnother()}.
+ *
+ * @author Ivo Woltring
+ */
+public class WorkQueueTest {
+
+    private static final List<Class<?>> BEANS = Arrays.<Class<?>>asList(Person.class, SimpleBuilderBean.class);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private TypeArgumentScope scope;
+    private WorkQueue queue;
+    private WorkQueue previous;
+
+    @Before
+    public void setUp() throws Exception {
+        this.scope = TypeArgumentScope.open();
+        this.queue = WorkQueue.open(this.folder.getRoot());
+        this.previous = WorkQueue.install(this.queue);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        WorkQueue.install(this.previous);
+        this.queue.close();
+        this.scope.close();
+    }
+
+    public static void main(final String[] args) throws Exception {
+        final List<Class<?>> beans = new ArrayList<Class<?>>(BEANS);
+        if (args.length > 0) {
+            beans.clear();
+            for (final String className : args) {
+                beans.add(Class.forName(className));
+            }
+        }
+        BulkAsserter.assertBeans(beans).assertSuccessful();
+        System.exit(WorkQueue.installed() == null ? 1 : 0);
+    }
+
+    @Test
+    public void testVerifiesAllBeans() throws Exception {
+        final BulkResult result = BulkAsserter.assertBeans(BEANS);
+        result.assertSuccessful();
+        assertEquals(2, result.getResults().size());
+        assertEquals(0, result.getCachedCount());
+        assertEquals(BulkAsserter.Mode.POJO, result.getResults().get(0).getMode());
+        assertEquals(BulkAsserter.Mode.BUILDER, result.getResults().get(1).getMode());
+
+        final BulkResult again = BulkAsserter.assertBeans(BEANS);
+        again.assertSuccessful();
+        assertEquals(2, again.getCachedCount());
+        assertEquals(BulkAsserter.Mode.BUILDER, again.getResults().get(1).getMode());
+    }
+
+    @Test
+    public void testFailuresAreVerifiedAgain() throws Exception {
+        final List<Class<?>> beans = Arrays.<Class<?>>asList(WrongSinpleBean.class, Person.class);
+        assertFalse(BulkAsserter.assertBeans(beans).isSuccessful());
+
+        final BulkResult again = BulkAsserter.assertBeans(beans);
+        assertEquals(1, again.getFailures().size());
+        assertFalse(again.getFailures().get(0).isCached());
+        assertFalse(again.getFailures().get(0).getReport().getViolations().isEmpty());
+    }
+
+    @Test
+    public void testClaimOfDeadJvmIsTakenOver() throws Exception {
+        final long key = ResultCache.digest("BulkAsserter." + BulkAsserter.Mode.AUTO, Person.class, null);
+        final MappedHashTable claims = MappedHashTable.open(new File(this.folder.getRoot(), "claims"));
+        try {
+            claims.put(key, (42L << 2) | 1);
+        } finally {
+            claims.close();
+        }
+        final BulkResult result = BulkAsserter.assertBeans(Arrays.<Class<?>>asList(Person.class));
+        result.assertSuccessful();
+        assertEquals(0, result.getCachedCount());
+    }
+
+    @Test
+    public void testWithoutQueue() throws Exception {
+        WorkQueue.install(null);
+        final BulkResult result = BulkAsserter.assertBeans(BEANS);
+        result.assertSuccessful();
+        assertEquals(0, BulkAsserter.assertBeans(BEANS).getCachedCount());
+    }
+
+    @Test
+    public void testBeansVerifiedByAnotherJvm() throws Exception {
+        assertEquals(0, startJvm().waitFor());
+
+        final BulkResult result = BulkAsserter.assertBeans(BEANS);
+        result.assertSuccessful();
+        assertEquals(2, result.getCachedCount());
+        assertTrue(result.getResults().get(0).getReport().isCached());
+    }
+
+    @Test
+    public void testJvmDoneWithItsOwnBeansHelpsAnother() throws Exception {
+        final List<Class<?>> slowBeans = Arrays.<Class<?>>asList(SlowBean1.class, SlowBean2.class, SlowBean3.class,
+                                                                 SlowBean4.class, SlowBean5.class, SlowBean6.class);
+        final ForkJoinPool pool = new ForkJoinPool(1);
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            final Future<BulkResult> heavy = executor.submit(
+                    () -> BulkAsserter.assertBeans(slowBeans, BulkAsserter.Mode.AUTO, pool));
+            final File journal = new File(this.folder.getRoot(), "journal");
+            while (journal.length() == 0) {
+                Thread.sleep(10);
+            }
+            final Process light = startJvm(Person.class.getName());
+
+            final BulkResult result = heavy.get();
+            assertEquals(0, light.waitFor());
+            result.assertSuccessful();
+            assertEquals(6, result.getResults().size());
+            assertTrue(result.getCachedCount() > 0);
+        } finally {
+            executor.shutdown();
+            pool.shutdown();
+        }
+    }
+
+    @Test(timeout = 30000)
+    public void testBeanThrowingAnErrorFailsInsteadOfHanging() throws Exception {
+        final BulkResult result = BulkAsserter.assertBeans(Arrays.<Class<?>>asList(BrokenEquals.class, Person.class));
+
+        assertEquals(1, result.getFailures().size());
+        assertTrue(result.getFailures().get(0).getReport().getViolations().get(0).getError() instanceof InternalError);
+        final long key = ResultCache.digest("BulkAsserter." + BulkAsserter.Mode.AUTO, BrokenEquals.class, null);
+        final MappedHashTable claims = MappedHashTable.open(new File(this.folder.getRoot(), "claims"));
+        try {
+            assertEquals(3, claims.get(key) & 3);
+        } finally {
+            claims.close();
+        }
+    }
+
+    private Process startJvm(final String... beans) throws Exception {
+        final List<String> command = new ArrayList<String>();
+        command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add("-D" + WorkQueue.QUEUE_PROPERTY + "=" + this.folder.getRoot().getAbsolutePath());
+        command.add(WorkQueueTest.class.getName());
+        command.addAll(Arrays.asList(beans));
+        return new ProcessBuilder(command).inheritIO().start();
+    }
+
+    /**
+     * A bean of which the equals throws an error the verification does not expect.
+     */
+    public static class BrokenEquals {
+        private String name;
+
+        public String getName() {
+            return this.name;
+        }
+
+        public void setName(final String name) {
+            this.name = name;
+        }
+
+        @Override
+        public boolean equals(final Object other) {
+            throw new InternalError("broken equals");
+        }
+
+        @Override
+        public int hashCode() {
+            return 1;
+        }
+    }
+
+    /**
+     * A bean that takes a while to verify.
+     */
+    public abstract static class SlowBean {
+        private String name;
+
+        public String getName() {
+            try {
+                Thread.sleep(400);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return this.name;
+        }
+
+        public void setName(final String name) {
+            this.name = name;
+        }
+    }
+
+    public static class SlowBean1 extends SlowBean {
+    }
+
+    public static class SlowBean2 extends SlowBean {
+    }
+
+    public static class SlowBean3 extends SlowBean {
+    }
+
+    public static class SlowBean4 extends SlowBean {
+    }
+
+    public static class SlowBean5 extends SlowBean {
+    }
+
+    public static class SlowBean6 extends SlowBean {
+    }
+}
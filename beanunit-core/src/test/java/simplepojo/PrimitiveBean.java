@@ -0,0 +1,98 @@
+/*
+ * Copyright 2011 Ivo Woltring
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package simplepojo;
+
+/**
+ * Pojo with a property of every primitive type.
+ *
+ * @author Ivo Woltring
+ */
+public class PrimitiveBean {
+    private boolean active;
+    private char initial;
+    private byte level;
+    private short rank;
+    private int count;
+    private long total;
+    private float ratio;
+    private double amount;
+
+    public boolean isActive() {
+        return active;
+    }
+
+    public void setActive(final boolean active) {
+        this.active = active;
+    }
+
+    public char getInitial() {
+        return initial;
+    }
+
+    public void setInitial(final char initial) {
+        this.initial = initial;
+    }
+
+    public byte getLevel() {
+        return level;
+    }
+
+    public void setLevel(final byte level) {
+        this.level = level;
+    }
+
+    public short getRank() {
+        return rank;
+    }
+
+    public void setRank(final short rank) {
+        this.rank = rank;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public void setCount(final int count) {
+        this.count = count;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public void setTotal(final long total) {
+        this.total = total;
+    }
+
+    public float getRatio() {
+        return ratio;
+    }
+
+    public void setRatio(final float ratio) {
+        this.ratio = ratio;
+    }
+
+    public double getAmount() {
+        return amount;
+    }
+
+    public void setAmount(final double amount) {
+        this.amount = amount;
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright 2011 Ivo Woltring
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nl.ivonet.beanunit.junit4;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Consumer;
+
+import org.junit.runner.Description;
+import org.junit.runner.notification.RunNotifier;
+import org.junit.runners.ParentRunner;
+import org.junit.runners.model.InitializationError;
+import org.junit.runners.model.RunnerScheduler;
+import org.junit.runners.model.Statement;
+
+import nl.ivonet.beanunit.BeanCandidate;
+import nl.ivonet.beanunit.BeanCheck;
+import nl.ivonet.beanunit.BeanScanner;
+import nl.ivonet.beanunit.BulkAsserter;
+
+/**
+ * Runs the beans of a {@link BeanUnitSuite} as separate tests, one per bean and check, in parallel.
+ * <p/>
+ * Every {@link BeanCheck} of every bean is a test. All checks share the metadata cache of beanunit, so a bean is
+ * introspected once no matter how many checks it has. The checks run with the types registered when the suite
+ * starts, e.g. in a <code>@BeforeClass</code> method.
+ *
+ * @author Ivo Woltring
+ */
+public class BeanUnitRunner extends ParentRunner<BeanCheck> {
+    private List<BeanCheck> checks;
+    private volatile Map<BeanCheck, BeanCheck> bound;
+
+    /**
+     * @param testClass the class annotated with {@link BeanUnitSuite}
+     * @throws InitializationError if the annotation is missing
+     */
+    public BeanUnitRunner(final Class<?> testClass) throws InitializationError {
+        super(testClass);
+        final BeanUnitSuite suite = testClass.getAnnotation(BeanUnitSuite.class);
+        if (suite == null) {
+            throw new InitializationError(
+                    String.format("Class<%s> should be annotated with @BeanUnitSuite", testClass.getName()));
+        }
+        setScheduler(createScheduler(suite.parallelism()));
+    }
+
+    @Override
+    protected synchronized List<BeanCheck> getChildren() {
+        if (this.checks == null) {
+            this.checks = findChecks();
+        }
+        return this.checks;
+    }
+
+    private List<BeanCheck> findChecks() {
+        final BeanUnitSuite suite = getTestClass().getJavaClass().getAnnotation(BeanUnitSuite.class);
+        final List<BeanCandidate> candidates = new ArrayList<BeanCandidate>();
+        for (final Class<?> bean : suite.beans()) {
+            candidates.add(BeanCandidate.of(bean));
+        }
+        if (suite.packages().length > 0) {
+            final List<BeanCandidate> scanned = Collections.synchronizedList(new ArrayList<BeanCandidate>());
+            BeanScanner.classpath().packages(suite.packages()).scan(new Consumer<BeanCandidate>() {
+                @Override
+                public void accept(final BeanCandidate candidate) {
+                    scanned.add(candidate);
+                }
+            });
+            final List<BeanCandidate> sorted = new ArrayList<BeanCandidate>(scanned);
+            Collections.sort(sorted, new Comparator<BeanCandidate>() {
+                @Override
+                public int compare(final BeanCandidate first, final BeanCandidate second) {
+                    return first.getType().getName().compareTo(second.getType().getName());
+                }
+            });
+            candidates.addAll(sorted);
+        }
+        final List<BeanCheck> checks = new ArrayList<BeanCheck>();
+        for (final BeanCandidate candidate : candidates) {
+            checks.addAll(BeanCheck.of(candidate));
+        }
+        return checks;
+    }
+
+    @Override
+    protected Description describeChild(final BeanCheck child) {
+        return Description.createTestDescription(child.getBean(), child.getName());
+    }
+
+    @Override
+    protected Statement childrenInvoker(final RunNotifier notifier) {
+        final Statement children = super.childrenInvoker(notifier);
+        return new Statement() {
+            @Override
+            public void evaluate() throws Throwable {
+                final Map<BeanCheck, BeanCheck> withTypes = new IdentityHashMap<BeanCheck, BeanCheck>();
+                for (final BeanCheck check : getChildren()) {
+                    withTypes.put(check, check.withCurrentTypes());
+                }
+                BeanUnitRunner.this.bound = withTypes;
+                children.evaluate();
+            }
+        };
+    }
+
+    @Override
+    protected void runChild(final BeanCheck child, final RunNotifier notifier) {
+        final BeanCheck check = this.bound.get(child);
+        runLeaf(new Statement() {
+            @Override
+            public void evaluate() throws Throwable {
+                check.verify();
+            }
+        }, describeChild(child), notifier);
+    }
+
+    private static RunnerScheduler createScheduler(final int parallelism) {
+        final ForkJoinPool pool = parallelism > 0 ? new ForkJoinPool(parallelism) : null;
+        return new RunnerScheduler() {
+            private final List<ForkJoinTask<?>> running = new ArrayList<ForkJoinTask<?>>();
+
+            @Override
+            public void schedule(final Runnable childStatement) {
+                this.running.add((pool == null ? BulkAsserter.pool() : pool).submit(childStatement));
+            }
+
+            @Override
+            public void finished() {
+                for (final ForkJoinTask<?> task : this.running) {
+                    task.join();
+                }
+                this.running.clear();
+                if (pool != null) {
+                    pool.shutdown();
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2011 Ivo Woltring
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nl.ivonet.beanunit.junit4;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import nl.ivonet.beanunit.BulkAsserter;
+
+/**
+ * Tells the {@link BeanUnitRunner} which beans to verify:
+ * <pre>
+ * &#64;RunWith(BeanUnitRunner.class)
+ * &#64;BeanUnitSuite(packages = "nl.ivonet.dto", beans = LegacyBean.class)
+ * public class DtoTest {
+ * }
+ * </pre>
+ *
+ * @author Ivo Woltring
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface BeanUnitSuite {
+
+    /**
+     * @return the beans to verify, with the asserter chosen per bean
+     */
+    Class<?>[] beans() default {};
+
+    /**
+     * @return the packages (and their sub packages) to scan for beans on the class path
+     */
+    String[] packages() default {};
+
+    /**
+     * @return the number of threads to verify on, 0 for the pool of the {@link BulkAsserter}
+     */
+    int parallelism() default 0;
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2011 Ivo Woltring
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nl.ivonet.beanunit.junit4;
+
+import org.junit.rules.ExternalResource;
+
+import nl.ivonet.beanunit.TypeArgumentScope;
+
+/**
+ * Runs every test in its own {@link TypeArgumentScope}, so registered types never leak into other tests and tests
+ * can run in parallel:
+ * <pre>
+ * &#64;Rule
+ * public final TypeArgumentsRule typeArguments = new TypeArgumentsRule();
+ * </pre>
+ *
+ * @author Ivo Woltring
+ */
+public class TypeArgumentsRule extends ExternalResource {
+    private TypeArgumentScope scope;
+
+    @Override
+    protected void before() throws Throwable {
+        this.scope = TypeArgumentScope.open();
+    }
+
+    @Override
+    protected void after() {
+        this.scope.close();
+        this.scope = null;
+    }
+}
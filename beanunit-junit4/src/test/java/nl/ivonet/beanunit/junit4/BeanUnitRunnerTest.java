@@ -0,0 +1,109 @@
+/*
+ * Copyright 2011 Ivo Woltring
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package nl.ivonet.beanunit.junit4;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+import org.junit.runner.Description;
+import org.junit.runner.JUnitCore;
+import org.junit.runner.Result;
+import org.junit.runner.RunWith;
+import org.junit.runner.notification.Failure;
+import org.junit.runners.model.InitializationError;
+
+import builder.AddressDto;
+import immutable.Employee;
+import immutable.InventoryDto;
+import simplepojo.Person;
+import simplepojo.ZipCode;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Unit tests for the {@link BeanUnitRunner} class.
+ *
+ * @author Ivo Woltring
+ */
+public class BeanUnitRunnerTest {
+
+    @RunWith(BeanUnitRunner.class)
+    @BeanUnitSuite(beans = {Person.class, ZipCode.class, AddressDto.class, immutable.Person.class}, parallelism = 2)
+    public static class Beans {
+    }
+
+    @RunWith(BeanUnitRunner.class)
+    @BeanUnitSuite(packages = "immutable")
+    public static class ImmutablePackage {
+    }
+
+    public static class NoSuite {
+    }
+
+    @Test
+    public void testDescriptions() throws Exception {
+        final List<String> names = new ArrayList<String>();
+        for (final Description child : new BeanUnitRunner(Beans.class).getDescription().getChildren()) {
+            names.add(child.getClassName() + "#" + child.getMethodName());
+        }
+
+        assertTrue(names.contains("simplepojo.Person#properties"));
+        assertTrue(names.contains("simplepojo.Person#equalsAndHashCode"));
+        assertTrue(names.contains("simplepojo.ZipCode#properties"));
+        assertTrue(names.contains("builder.AddressDto#equalsAndHashCode"));
+        assertTrue(names.contains("immutable.Person#properties"));
+        assertEquals(names.size(), new BeanUnitRunner(Beans.class).testCount());
+    }
+
+    @Test
+    public void testRun() throws Exception {
+        final Result result = JUnitCore.runClasses(Beans.class);
+
+        assertTrue(result.getFailures().toString(), result.wasSuccessful());
+        assertEquals(new BeanUnitRunner(Beans.class).testCount(), result.getRunCount());
+    }
+
+    @Test
+    public void testScannedPackageReportsFailuresPerBean() throws Exception {
+        final Result result = JUnitCore.runClasses(ImmutablePackage.class);
+
+        assertFalse(result.wasSuccessful());
+        final List<String> failed = new ArrayList<String>();
+        for (final Failure failure : result.getFailures()) {
+            failed.add(failure.getDescription().getClassName());
+        }
+        assertTrue(failed.contains(InventoryDto.class.getName()));
+        assertFalse(failed.contains(Employee.class.getName()));
+        assertFalse(failed.contains(immutable.Person.class.getName()));
+    }
+
+    @Test
+    public void testAnnotationRequired() throws Exception {
+        try {
+            new BeanUnitRunner(NoSuite.class);
+            fail("Should not run a class without @BeanUnitSuite");
+        } catch (InitializationError e) {
+            assertEquals("Class<nl.ivonet.beanunit.junit4.BeanUnitRunnerTest$NoSuite> should be annotated with @BeanUnitSuite",
+                         e.getCauses().get(0).getMessage());
+        }
+    }
+}
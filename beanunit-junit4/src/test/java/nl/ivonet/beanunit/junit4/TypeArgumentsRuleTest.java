@@ -0,0 +1,62 @@
+/*
+ * Copyright 2011 Ivo Woltring
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package nl.ivonet.beanunit.junit4;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+import nl.ivonet.beanunit.Asserter;
+import nl.ivonet.beanunit.PojoContractAsserter;
+import simplepojo.ZipCode;
+
+import static org.junit.Assert.fail;
+
+/**
+ * Unit tests for the {@link TypeArgumentsRule} class.
+ * <p/>
+ * Both tests change the registered types, so whichever runs second only passes if the changes of the first stayed
+ * in its own test.
+ *
+ * @author Ivo Woltring
+ */
+public class TypeArgumentsRuleTest {
+
+    @Rule
+    public final TypeArgumentsRule typeArguments = new TypeArgumentsRule();
+
+    @Test
+    public void testDeregistration() throws Exception {
+        assertRegistrationIsScoped();
+    }
+
+    @Test
+    public void testDeregistrationAgain() throws Exception {
+        assertRegistrationIsScoped();
+    }
+
+    private static void assertRegistrationIsScoped() {
+        PojoContractAsserter.assertBean(ZipCode.class);
+        Asserter.deregisterType(int.class);
+        try {
+            PojoContractAsserter.assertBean(ZipCode.class);
+        } catch (AssertionError e) {
+            return;
+        }
+        fail("ZipCode can not be verified without a default int");
+    }
+}
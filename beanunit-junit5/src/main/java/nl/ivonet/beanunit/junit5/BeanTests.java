@@ -0,0 +1,104 @@
+/*
+ * Copyright 2011 Ivo Woltring
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nl.ivonet.beanunit.junit5;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.DynamicContainer;
+import org.junit.jupiter.api.DynamicNode;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.function.Executable;
+
+import nl.ivonet.beanunit.BeanCandidate;
+import nl.ivonet.beanunit.BeanCheck;
+import nl.ivonet.beanunit.BeanScanner;
+
+/**
+ * Turns beans into JUnit 5 dynamic tests, a container per bean with a test per {@link BeanCheck}:
+ * <pre>
+ * &#64;TestFactory
+ * Stream&lt;DynamicNode&gt; beans() {
+ *     return BeanTests.forPackages("nl.ivonet.dto");
+ * }
+ * </pre>
+ * The checks are bound to the types registered when the stream is consumed (see {@link TypeArgumentsExtension}), so
+ * they can run concurrently with <code>junit.jupiter.execution.parallel.enabled=true</code>.
+ *
+ * @author Ivo Woltring
+ */
+public final class BeanTests {
+
+    private BeanTests() {
+        //All static so don't create
+    }
+
+    /**
+     * @param beans the beans to verify, with the asserter chosen per bean
+     * @return a container per bean
+     */
+    public static Stream<DynamicNode> forBeans(final Class<?>... beans) {
+        return forCandidates(Arrays.stream(beans).map(new Function<Class<?>, BeanCandidate>() {
+            @Override
+            public BeanCandidate apply(final Class<?> bean) {
+                return BeanCandidate.of(bean);
+            }
+        }));
+    }
+
+    /**
+     * Scans the class path while the tests are already running.
+     *
+     * @param packages the packages (and their sub packages) to find the beans in
+     * @return a container per bean found
+     */
+    public static Stream<DynamicNode> forPackages(final String... packages) {
+        return forCandidates(BeanScanner.classpath().packages(packages).stream());
+    }
+
+    /**
+     * @param candidates the beans, e.g. from a {@link BeanScanner}
+     * @return a container per bean
+     */
+    public static Stream<DynamicNode> forCandidates(final Stream<BeanCandidate> candidates) {
+        return candidates.map(new Function<BeanCandidate, DynamicNode>() {
+            @Override
+            public DynamicNode apply(final BeanCandidate candidate) {
+                return container(candidate);
+            }
+        });
+    }
+
+    private static DynamicNode container(final BeanCandidate candidate) {
+        final URI source = URI.create("class:" + candidate.getType().getName());
+        final List<DynamicTest> tests = new ArrayList<DynamicTest>();
+        for (final BeanCheck check : BeanCheck.of(candidate)) {
+            final BeanCheck bound = check.withCurrentTypes();
+            tests.add(DynamicTest.dynamicTest(check.getName(), source, new Executable() {
+                @Override
+                public void execute() {
+                    bound.verify();
+                }
+            }));
+        }
+        return DynamicContainer.dynamicContainer(candidate.toString(), source, tests.stream());
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2011 Ivo Woltring
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nl.ivonet.beanunit.junit5;
+
+import org.junit.jupiter.api.extension.AfterEachCallback;
+import org.junit.jupiter.api.extension.BeforeEachCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+
+import nl.ivonet.beanunit.TypeArgumentScope;
+
+/**
+ * Runs every test in its own {@link TypeArgumentScope}, so registered types never leak into other tests and tests
+ * can run in parallel:
+ * <pre>
+ * &#64;ExtendWith(TypeArgumentsExtension.class)
+ * </pre>
+ * The JUnit 5 counterpart of the TypeArgumentsRule of beanunit-junit4.
+ *
+ * @author Ivo Woltring
+ */
+public class TypeArgumentsExtension implements BeforeEachCallback, AfterEachCallback {
+    private static final ExtensionContext.Namespace NAMESPACE =
+            ExtensionContext.Namespace.create(TypeArgumentsExtension.class);
+
+    @Override
+    public void beforeEach(final ExtensionContext context) {
+        context.getStore(NAMESPACE).put(context.getUniqueId(), TypeArgumentScope.open());
+    }
+
+    @Override
+    public void afterEach(final ExtensionContext context) {
+        final TypeArgumentScope scope = context.getStore(NAMESPACE)
+                                               .remove(context.getUniqueId(), TypeArgumentScope.class);
+        if (scope != null) {
+            scope.close();
+        }
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2011 Ivo Woltring
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package nl.ivonet.beanunit.junit5;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.DynamicContainer;
+import org.junit.jupiter.api.DynamicNode;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestFactory;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import builder.AddressDto;
+import immutable.Employee;
+import immutable.InventoryDto;
+import nl.ivonet.beanunit.Asserter;
+import simplepojo.Person;
+import simplepojo.ZipCode;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for the {@link BeanTests} class.
+ *
+ * @author Ivo Woltring
+ */
+@ExtendWith(TypeArgumentsExtension.class)
+public class BeanTestsTest {
+
+    @TestFactory
+    Stream<DynamicNode> beans() {
+        return BeanTests.forBeans(Person.class, ZipCode.class, AddressDto.class, immutable.Person.class,
+                                  Employee.class);
+    }
+
+    @Test
+    void testContainerPerBean() throws Throwable {
+        final Map<String, List<DynamicTest>> tests = collect(BeanTests.forBeans(Person.class, ZipCode.class));
+
+        assertEquals("[simplepojo.Person (POJO), simplepojo.ZipCode (POJO)]", tests.keySet().toString());
+        assertEquals("[properties, equalsAndHashCode]", names(tests.get("simplepojo.Person (POJO)")));
+        for (final DynamicTest test : tests.get("simplepojo.Person (POJO)")) {
+            test.getExecutable().execute();
+        }
+    }
+
+    @Test
+    void testScannedPackage() throws Throwable {
+        final Map<String, List<DynamicTest>> tests = collect(BeanTests.forPackages("immutable"));
+
+        assertTrue(tests.containsKey("immutable.Employee (CONSTRUCTED)"));
+        final DynamicTest properties = tests.get(InventoryDto.class.getName() + " (CONSTRUCTED)").get(0);
+        assertThrows(AssertionError.class, properties.getExecutable()::execute);
+    }
+
+    @Test
+    void testChecksKeepTheRegisteredTypesOnOtherThreads() throws Exception {
+        Asserter.deregisterType(int.class);
+        final DynamicTest properties = collect(BeanTests.forBeans(ZipCode.class)).get("simplepojo.ZipCode (POJO)")
+                                                                                .get(0);
+
+        final CompletableFuture<Throwable> failure = CompletableFuture.supplyAsync(() -> {
+            try {
+                properties.getExecutable().execute();
+                return null;
+            } catch (Throwable e) {
+                return e;
+            }
+        });
+        assertTrue(failure.get() instanceof AssertionError);
+    }
+
+    private static Map<String, List<DynamicTest>> collect(final Stream<DynamicNode> nodes) {
+        final Map<String, List<DynamicTest>> tests = new TreeMap<>();
+        nodes.forEach(node -> tests.put(node.getDisplayName(), ((DynamicContainer) node).getChildren()
+                                                                                        .map(DynamicTest.class::cast)
+                                                                                        .collect(Collectors.toList())));
+        return tests;
+    }
+
+    private static String names(final List<DynamicTest> tests) {
+        final List<String> names = new ArrayList<>();
+        for (final DynamicTest test : tests) {
+            names.add(test.getDisplayName());
+        }
+        return names.toString();
+    }
+}
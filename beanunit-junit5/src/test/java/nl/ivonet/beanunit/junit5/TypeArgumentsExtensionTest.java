@@ -0,0 +1,55 @@
+/*
+ * Copyright 2011 Ivo Woltring
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package nl.ivonet.beanunit.junit5;
+
+import org.junit.jupiter.api.RepeatedTest;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import nl.ivonet.beanunit.Asserter;
+import nl.ivonet.beanunit.PojoContractAsserter;
+import simplepojo.ZipCode;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Unit tests for the {@link TypeArgumentsExtension} class.
+ * <p/>
+ * The tests run concurrently and each one changes the registered types, so they only pass if the changes stay in
+ * their own test.
+ *
+ * @author Ivo Woltring
+ */
+@ExtendWith(TypeArgumentsExtension.class)
+public class TypeArgumentsExtensionTest {
+
+    @RepeatedTest(4)
+    void testDefaultsEveryTime() {
+        PojoContractAsserter.assertBean(ZipCode.class);
+        Asserter.deregisterType(int.class);
+        assertThrows(AssertionError.class, () -> PojoContractAsserter.assertBean(ZipCode.class));
+    }
+
+    @RepeatedTest(4)
+    void testOwnRegistration() {
+        Asserter.deregisterType(String.class);
+        Asserter.registerTypeAndDefaultArgument(String.class, "scoped");
+        PojoContractAsserter.assertBean(ZipCode.class);
+        Asserter.deregisterType(int.class);
+        assertThrows(AssertionError.class, () -> PojoContractAsserter.assertBean(ZipCode.class));
+    }
+}
@@ -0,0 +1,265 @@
+/*
+ * Copyright 2011 Ivo Woltring
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nl.ivonet.beanunit.processor;
+
+import java.beans.Introspector;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+
+/**
+ * The compile time view of a bean: its properties, constructors, equals/hashCode declarations and Builder.
+ * <p/>
+ * This mirrors what the asserters find at runtime with the <code>java.beans.Introspector</code> and reflection.
+ *
+ * @author Ivo Woltring
+ */
+final class BeanShape {
+    static final String BUILDER_NAME = "Builder";
+    static final String BUILD_METHOD_NAME = "build";
+    private static final String JAVA_LANG_OBJECT = "java.lang.Object";
+    private static final String METHOD_IGNORE_CHARACTER = "$";
+
+    /**
+     * The asserter that applies to a bean.
+     */
+    enum Kind {
+        POJO, BUILDER, CONSTRUCTED
+    }
+
+    /**
+     * A property with its getter and/or setter.
+     */
+    static final class Property {
+        private final String name;
+        private ExecutableElement getter;
+        private ExecutableElement setter;
+
+        private Property(final String name) {
+            this.name = name;
+        }
+
+        String getName() {
+            return this.name;
+        }
+
+        ExecutableElement getGetter() {
+            return this.getter;
+        }
+
+        ExecutableElement getSetter() {
+            return this.setter;
+        }
+
+        TypeMirror getType() {
+            return this.getter != null ? this.getter.getReturnType() : this.setter.getParameters().get(0).asType();
+        }
+    }
+
+    private final TypeElement type;
+    private final List<Property> properties;
+    private final TypeElement equalsDeclaringType;
+    private final TypeElement hashCodeDeclaringType;
+    private final List<ExecutableElement> constructors;
+    private final TypeElement builder;
+
+    private BeanShape(final TypeElement type, final Elements elements) {
+        this.type = type;
+        this.properties = findProperties(type, elements);
+        this.equalsDeclaringType = findDeclaringType(type, "equals", JAVA_LANG_OBJECT);
+        this.hashCodeDeclaringType = findDeclaringType(type, "hashCode", null);
+        this.constructors = ElementFilter.constructorsIn(type.getEnclosedElements());
+        this.builder = findBuilder(type);
+    }
+
+    static BeanShape of(final TypeElement type, final Elements elements) {
+        return new BeanShape(type, elements);
+    }
+
+    TypeElement getType() {
+        return this.type;
+    }
+
+    Kind getKind() {
+        if (this.builder != null) {
+            return Kind.BUILDER;
+        }
+        for (final Property property : this.properties) {
+            if (property.setter != null) {
+                return Kind.POJO;
+            }
+        }
+        return Kind.CONSTRUCTED;
+    }
+
+    List<Property> getProperties() {
+        return this.properties;
+    }
+
+    List<ExecutableElement> getConstructors() {
+        return this.constructors;
+    }
+
+    TypeElement getBuilder() {
+        return this.builder;
+    }
+
+    /**
+     * @return true if the asserters would test equals and hashCode, i.e. the bean declares equals itself
+     */
+    boolean declaresEquals() {
+        return this.equalsDeclaringType != null
+               && this.equalsDeclaringType.getSimpleName().contentEquals(this.type.getSimpleName());
+    }
+
+    TypeElement getEqualsDeclaringType() {
+        return this.equalsDeclaringType;
+    }
+
+    TypeElement getHashCodeDeclaringType() {
+        return this.hashCodeDeclaringType;
+    }
+
+    /**
+     * @return the public methods of the Builder returning the Builder itself (the build method excluded)
+     */
+    List<ExecutableElement> getBuilderMethods(final Types types) {
+        final List<ExecutableElement> methods = new ArrayList<ExecutableElement>();
+        for (final ExecutableElement method : ElementFilter.methodsIn(this.builder.getEnclosedElements())) {
+            if (isBuilderMethod(method, types)) {
+                methods.add(method);
+            }
+        }
+        return methods;
+    }
+
+    /**
+     * @return the names of the Builder methods that do not return the Builder (and are not the build method)
+     */
+    List<String> getWrongBuilderMethods(final Types types) {
+        final List<String> wrong = new ArrayList<String>();
+        for (final ExecutableElement method : ElementFilter.methodsIn(this.builder.getEnclosedElements())) {
+            final String name = method.getSimpleName().toString();
+            if (!isBuilderMethod(method, types) && !BUILD_METHOD_NAME.equals(name)
+                && !name.contains(METHOD_IGNORE_CHARACTER)) {
+                wrong.add(name);
+            }
+        }
+        return wrong;
+    }
+
+    ExecutableElement getBuildMethod() {
+        for (final ExecutableElement method : ElementFilter.methodsIn(this.builder.getEnclosedElements())) {
+            if (method.getSimpleName().contentEquals(BUILD_METHOD_NAME) && method.getParameters().isEmpty()) {
+                return method;
+            }
+        }
+        return null;
+    }
+
+    private boolean isBuilderMethod(final ExecutableElement method, final Types types) {
+        final TypeMirror returnType = method.getReturnType();
+        return returnType.getKind() == TypeKind.DECLARED
+               && types.asElement(returnType).getSimpleName().contentEquals(this.builder.getSimpleName());
+    }
+
+    private static List<Property> findProperties(final TypeElement type, final Elements elements) {
+        final Map<String, Property> properties = new LinkedHashMap<String, Property>();
+        for (final ExecutableElement method : ElementFilter.methodsIn(elements.getAllMembers(type))) {
+            final Set<Modifier> modifiers = method.getModifiers();
+            if (!modifiers.contains(Modifier.PUBLIC) || modifiers.contains(Modifier.STATIC)
+                || isDeclaredByObject(method)) {
+                continue;
+            }
+            final String name = method.getSimpleName().toString();
+            final int parameters = method.getParameters().size();
+            final TypeKind returnKind = method.getReturnType().getKind();
+            if (parameters == 0 && name.startsWith("get") && name.length() > 3 && returnKind != TypeKind.VOID) {
+                property(properties, name.substring(3)).getter = method;
+            } else if (parameters == 0 && name.startsWith("is") && name.length() > 2
+                       && returnKind == TypeKind.BOOLEAN) {
+                property(properties, name.substring(2)).getter = method;
+            } else if (parameters == 1 && name.startsWith("set") && name.length() > 3
+                       && returnKind == TypeKind.VOID) {
+                property(properties, name.substring(3)).setter = method;
+            }
+        }
+        return new ArrayList<Property>(properties.values());
+    }
+
+    private static Property property(final Map<String, Property> properties, final String capitalized) {
+        final String name = Introspector.decapitalize(capitalized);
+        Property property = properties.get(name);
+        if (property == null) {
+            property = new Property(name);
+            properties.put(name, property);
+        }
+        return property;
+    }
+
+    private static boolean isDeclaredByObject(final ExecutableElement method) {
+        return ((TypeElement) method.getEnclosingElement()).getQualifiedName().contentEquals(JAVA_LANG_OBJECT);
+    }
+
+    private static TypeElement findDeclaringType(final TypeElement type, final String methodName,
+                                                 final String parameterType) {
+        TypeElement current = type;
+        while (current != null) {
+            for (final ExecutableElement method : ElementFilter.methodsIn(current.getEnclosedElements())) {
+                if (method.getSimpleName().contentEquals(methodName) && hasParameters(method, parameterType)) {
+                    return current;
+                }
+            }
+            final TypeMirror superclass = current.getSuperclass();
+            current = superclass.getKind() == TypeKind.DECLARED
+                      ? (TypeElement) ((DeclaredType) superclass).asElement()
+                      : null;
+        }
+        return null;
+    }
+
+    private static boolean hasParameters(final ExecutableElement method, final String parameterType) {
+        if (parameterType == null) {
+            return method.getParameters().isEmpty();
+        }
+        return method.getParameters().size() == 1
+               && method.getParameters().get(0).asType().toString().equals(parameterType);
+    }
+
+    private static TypeElement findBuilder(final TypeElement type) {
+        for (final Element element : type.getEnclosedElements()) {
+            if ((element.getKind() == ElementKind.CLASS) && element.getSimpleName().contentEquals(BUILDER_NAME)) {
+                return (TypeElement) element;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,553 @@
+/*
+ * Copyright 2011 Ivo Woltring
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nl.ivonet.beanunit.processor;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Types;
+
+/**
+ * Writes the source of a JUnit test class checking the contracts of a number of beans with direct method calls.
+ * <p/>
+ * The default values are the ones the asserters use out of the box. Every type gets one shared constant, just like
+ * the asserters share one registered default value per type.
+ *
+ * @author Ivo Woltring
+ */
+final class ContractTestWriter {
+    private static final int TEST_ARRAY_SIZE = 42;
+    private static final Map<String, String> DEFAULT_VALUES = new HashMap<String, String>();
+
+    static {
+        DEFAULT_VALUES.put("boolean", "true");
+        DEFAULT_VALUES.put("char", "'Z'");
+        DEFAULT_VALUES.put("byte", "(byte) 42");
+        DEFAULT_VALUES.put("short", "(short) 42");
+        DEFAULT_VALUES.put("int", "42");
+        DEFAULT_VALUES.put("long", "42L");
+        DEFAULT_VALUES.put("float", "3.14159F");
+        DEFAULT_VALUES.put("double", "3.14159");
+        DEFAULT_VALUES.put("java.lang.Boolean", "Boolean.TRUE");
+        DEFAULT_VALUES.put("java.lang.Character", "Character.valueOf('Z')");
+        DEFAULT_VALUES.put("java.lang.Byte", "Byte.valueOf((byte) 42)");
+        DEFAULT_VALUES.put("java.lang.Short", "Short.valueOf((short) 42)");
+        DEFAULT_VALUES.put("java.lang.Integer", "Integer.valueOf(42)");
+        DEFAULT_VALUES.put("java.lang.Long", "Long.valueOf(42L)");
+        DEFAULT_VALUES.put("java.lang.Float", "Float.valueOf(3.14159F)");
+        DEFAULT_VALUES.put("java.lang.Double", "Double.valueOf(3.14159)");
+        DEFAULT_VALUES.put("java.lang.String", "\"String\"");
+        DEFAULT_VALUES.put("java.math.BigDecimal", "new java.math.BigDecimal(\"3.14159\")");
+        DEFAULT_VALUES.put("java.util.Collection", "new java.util.ArrayList()");
+        DEFAULT_VALUES.put("java.util.List", "new java.util.ArrayList()");
+        DEFAULT_VALUES.put("java.util.Set", "new java.util.HashSet()");
+        DEFAULT_VALUES.put("java.util.SortedSet", "new java.util.TreeSet()");
+        DEFAULT_VALUES.put("java.util.Map", "new java.util.HashMap()");
+        DEFAULT_VALUES.put("java.util.SortedMap", "new java.util.TreeMap()");
+        DEFAULT_VALUES.put("java.util.Date", "new java.util.Date()");
+        DEFAULT_VALUES.put("java.sql.Date", "new java.sql.Date(System.currentTimeMillis())");
+        DEFAULT_VALUES.put("java.sql.Timestamp", "new java.sql.Timestamp(System.currentTimeMillis())");
+        DEFAULT_VALUES.put("java.util.Calendar", "java.util.Calendar.getInstance()");
+    }
+
+    private final Types types;
+    private final String packageName;
+    private final String className;
+    private final List<String> excluded;
+    private final Map<String, String> constants = new LinkedHashMap<String, String>();
+    private final Map<String, String> constantTypes = new HashMap<String, String>();
+    private final StringBuilder body = new StringBuilder();
+
+    ContractTestWriter(final Types types, final String packageName, final String className,
+                       final List<String> excluded) {
+        this.types = types;
+        this.packageName = packageName;
+        this.className = className;
+        this.excluded = new ArrayList<String>(excluded);
+        this.excluded.add("class");
+    }
+
+    /**
+     * Adds the tests for a bean, choosing the checks of the asserter that applies to it.
+     *
+     * @param shape the bean
+     */
+    void addBean(final BeanShape shape) {
+        final String prefix = "test" + methodPrefix(shape.getType());
+        switch (shape.getKind()) {
+            case BUILDER:
+                writeBuilderTests(shape, prefix);
+                break;
+            case POJO:
+                writePojoTests(shape, prefix);
+                break;
+            default:
+                writeConstructedTests(shape, prefix);
+                break;
+        }
+    }
+
+    /**
+     * @return the complete source of the test class
+     */
+    String toSource() {
+        final StringBuilder source = new StringBuilder();
+        if (!this.packageName.isEmpty()) {
+            source.append("package ").append(this.packageName).append(";\n\n");
+        }
+        source.append("import static org.junit.Assert.assertEquals;\n");
+        source.append("import static org.junit.Assert.assertFalse;\n");
+        source.append("import static org.junit.Assert.assertSame;\n");
+        source.append("import static org.junit.Assert.assertTrue;\n");
+        source.append("import static org.junit.Assert.fail;\n\n");
+        source.append("/**\n * Generated by the beanunit VerifyBeanProcessor. Do not edit.\n */\n");
+        source.append("@SuppressWarnings({\"unchecked\", \"rawtypes\"})\n");
+        source.append("public class ").append(this.className).append(" {\n");
+        for (final Map.Entry<String, String> constant : this.constants.entrySet()) {
+            source.append("    private static final ").append(this.constantTypes.get(constant.getKey()))
+                  .append(' ').append(constant.getValue()).append(" = ").append(constant.getKey()).append(";\n");
+        }
+        source.append(this.body);
+        source.append("}\n");
+        return source.toString();
+    }
+
+    // ------------------------------------------------------------------------------------------------------ POJO
+
+    private void writePojoTests(final BeanShape shape, final String prefix) {
+        final String bean = typeName(shape.getType().asType());
+        final boolean instantiable = hasPublicDefaultConstructor(shape);
+
+        startTest(prefix + "GetterSetterBehavior");
+        if (!instantiable) {
+            line("fail(\"Error instantiating target\");");
+        } else {
+            line("final " + bean + " bean = new " + bean + "();");
+            for (final BeanShape.Property property : shape.getProperties()) {
+                if (property.getSetter() == null || property.getGetter() == null
+                    || this.excluded.contains(property.getName())) {
+                    continue;
+                }
+                final String value = defaultValue(property.getType());
+                final String message = quote(property.getName() + " getter/setter failed test");
+                if (value == null) {
+                    line("fail(" + quote(noDefaultValue(property.getType())) + ");");
+                    continue;
+                }
+                line("bean." + property.getSetter().getSimpleName() + "(" + value + ");");
+                if (property.getType().getKind().isPrimitive()) {
+                    line("assertTrue(" + message + ", " + value + " == bean." + getter(property) + ");");
+                } else {
+                    line("assertSame(" + message + ", " + value + ", bean." + getter(property) + ");");
+                }
+            }
+        }
+        endTest();
+
+        if (!shape.declaresEquals()) {
+            return;
+        }
+        startTest(prefix + "EqualsHashCode");
+        if (!instantiable) {
+            line("fail(\"Error instantiating target\");");
+        } else if (!sameDeclaringType(shape)) {
+            line("fail(" + quote(differentDeclaringTypes(shape)) + ");");
+        } else {
+            line("final " + bean + " one = new " + bean + "();");
+            line("final " + bean + " two = new " + bean + "();");
+            line("assertTrue(\"Instances with default constructor not equal (o1.equals(o2))\", one.equals(two));");
+            writeEqualityBasics();
+            for (final BeanShape.Property property : shape.getProperties()) {
+                if (property.getSetter() == null || this.excluded.contains(property.getName())) {
+                    continue;
+                }
+                writePropertyEquality(shape, property);
+            }
+        }
+        endTest();
+    }
+
+    private void writePropertyEquality(final BeanShape shape, final BeanShape.Property property) {
+        final String value = defaultValue(property.getType());
+        if (value == null) {
+            line("fail(" + quote(noDefaultValue(property.getType())) + ");");
+            return;
+        }
+        final String setter = property.getSetter().getSimpleName().toString();
+        final String simpleName = shape.getType().getSimpleName().toString();
+        line("one." + setter + "(" + value + ");");
+        line("assertFalse(" + quote("Instances with o1 having " + property.getName()
+                                    + " set and o2 having it not set are equal") + ", one.equals(two));");
+        line("two." + setter + "(" + value + ");");
+        line("assertTrue(" + quote("Instances of " + simpleName + " with method " + setter
+                                   + "() set and second instance having it set to the same object are not equal")
+             + ", one.equals(two));");
+        line("assertTrue(" + quote("Instances of " + simpleName + " with method " + setter
+                                   + "() set and second instance having it set to the same object have different "
+                                   + "hashCode") + ", one.hashCode() == two.hashCode());");
+        if (property.getType().getKind().isPrimitive()) {
+            return;
+        }
+        line("one." + setter + "(null);");
+        line("assertFalse(" + quote("Instances with o1 having " + property.getName()
+                                    + " set to null and o2 having it not set are equal") + ", one.equals(two));");
+        line("two." + setter + "(null);");
+        line("assertTrue(" + quote("Instances of " + simpleName + " with method " + setter
+                                   + "() set to null and second instance having it set to null are not equal")
+             + ", one.equals(two));");
+        line("assertTrue(" + quote("Instances of " + simpleName + " with method " + setter
+                                   + "() set to null and second instance having it set to null have different "
+                                   + "hashCode") + ", one.hashCode() == two.hashCode());");
+    }
+
+    // ------------------------------------------------------------------------------------------------------ Builder
+
+    private void writeBuilderTests(final BeanShape shape, final String prefix) {
+        final String bean = typeName(shape.getType().asType());
+        final String buildHelper = "build" + prefix.substring("test".length());
+        final String builderProblem = builderProblem(shape);
+
+        startTest(prefix + "BuildObjectGetterBehavior");
+        if (builderProblem != null) {
+            line("fail(" + quote(builderProblem) + ");");
+        } else {
+            line("final " + bean + " bean = " + buildHelper + "();");
+            writeImmutableGetters(shape, "Not the expected value for method %s");
+        }
+        endTest();
+
+        if (shape.declaresEquals()) {
+            startTest(prefix + "EqualsHashCode");
+            if (builderProblem != null) {
+                line("fail(" + quote(builderProblem) + ");");
+            } else {
+                writeEqualsHashCode(shape, buildHelper + "()");
+            }
+            endTest();
+        }
+
+        if (builderProblem == null) {
+            writeBuildHelper(shape, buildHelper);
+        }
+    }
+
+    private String builderProblem(final BeanShape shape) {
+        final TypeElement builder = shape.getBuilder();
+        final List<ExecutableElement> constructors = ElementFilter.constructorsIn(builder.getEnclosedElements());
+        if (constructors.size() > 1) {
+            return "There should only be one constructor in a Builder class";
+        }
+        if (constructors.isEmpty() || !constructors.get(0).getModifiers().contains(Modifier.PUBLIC)
+            || !isPublic(builder)) {
+            return "The Builder of " + shape.getType().getQualifiedName() + " can not be instantiated";
+        }
+        if (shape.getBuildMethod() == null) {
+            return builder.getQualifiedName() + "." + BeanShape.BUILD_METHOD_NAME + "()";
+        }
+        final List<String> wrong = shape.getWrongBuilderMethods(this.types);
+        if (!wrong.isEmpty()) {
+            return String.format("The return type of method %s is not the Builder type.", wrong.get(0));
+        }
+        if (shape.getBuilderMethods(this.types).isEmpty()) {
+            return "No builder methods found in the builder. Do the builder methods have the Builder as returnType?";
+        }
+        for (final VariableElement parameter : constructors.get(0).getParameters()) {
+            if (defaultValue(parameter.asType()) == null) {
+                return noDefaultValue(parameter.asType());
+            }
+        }
+        for (final ExecutableElement method : shape.getBuilderMethods(this.types)) {
+            for (final VariableElement parameter : method.getParameters()) {
+                if (defaultValue(parameter.asType()) == null) {
+                    return noDefaultValue(parameter.asType());
+                }
+            }
+        }
+        return null;
+    }
+
+    private void writeBuildHelper(final BeanShape shape, final String buildHelper) {
+        final String bean = typeName(shape.getType().asType());
+        final String builder = typeName(shape.getBuilder().asType());
+        final ExecutableElement constructor = ElementFilter.constructorsIn(
+                shape.getBuilder().getEnclosedElements()).get(0);
+        this.body.append("\n    private static ").append(bean).append(' ').append(buildHelper).append("() {\n");
+        line("final " + builder + " builder = new " + builder + "(" + arguments(constructor) + ");");
+        for (final ExecutableElement method : shape.getBuilderMethods(this.types)) {
+            if (method.getModifiers().contains(Modifier.STATIC)
+                || this.excluded.contains(method.getSimpleName().toString())) {
+                continue;
+            }
+            line("builder." + method.getSimpleName() + "(" + arguments(method) + ");");
+        }
+        line("return builder." + BeanShape.BUILD_METHOD_NAME + "();");
+        this.body.append("    }\n");
+    }
+
+    // ------------------------------------------------------------------------------------------------------ Constructed
+
+    private void writeConstructedTests(final BeanShape shape, final String prefix) {
+        final String bean = typeName(shape.getType().asType());
+        final List<ExecutableElement> constructors = shape.getConstructors();
+
+        startTest(prefix + "GettersOnConstructorImmutableObject");
+        for (final ExecutableElement constructor : constructors) {
+            final String problem = constructorProblem(constructor);
+            if (problem != null) {
+                line("fail(" + quote(problem) + ");");
+                continue;
+            }
+            line("{");
+            line("    final " + bean + " bean = new " + bean + "(" + arguments(constructor) + ");");
+            writeImmutableGetters(shape, null);
+            line("}");
+        }
+        endTest();
+
+        if (!shape.declaresEquals()) {
+            return;
+        }
+        startTest(prefix + "EqualsHashCode");
+        for (final ExecutableElement constructor : constructors) {
+            final String problem = constructorProblem(constructor);
+            if (problem != null) {
+                line("fail(" + quote(problem) + ");");
+                continue;
+            }
+            line("{");
+            writeEqualsHashCode(shape, "new " + bean + "(" + arguments(constructor) + ")");
+            line("}");
+        }
+        endTest();
+    }
+
+    private String constructorProblem(final ExecutableElement constructor) {
+        if (!constructor.getModifiers().contains(Modifier.PUBLIC)) {
+            return "Could not create the object";
+        }
+        for (final VariableElement parameter : constructor.getParameters()) {
+            if (defaultValue(parameter.asType()) == null) {
+                return noDefaultValue(parameter.asType());
+            }
+        }
+        return null;
+    }
+
+    // ------------------------------------------------------------------------------------------------------ shared
+
+    private void writeImmutableGetters(final BeanShape shape, final String messageFormat) {
+        for (final BeanShape.Property property : shape.getProperties()) {
+            if (property.getSetter() != null) {
+                line("fail(" + quote("This object is not immutable. It has a writeMethod for: " + property.getName())
+                     + ");");
+                return;
+            }
+            if (this.excluded.contains(property.getName())) {
+                continue;
+            }
+            final String value = defaultValue(property.getType());
+            if (value == null) {
+                line("fail(" + quote(noDefaultValue(property.getType())) + ");");
+                continue;
+            }
+            final String message = messageFormat == null
+                                   ? ""
+                                   : quote(String.format(messageFormat, property.getGetter().getSimpleName()))
+                                     + ", ";
+            line("assertEquals(" + message + "(Object) " + value + ", (Object) bean." + getter(property) + ");");
+        }
+    }
+
+    private void writeEqualsHashCode(final BeanShape shape, final String creation) {
+        if (isDeclaredByObject(shape.getHashCodeDeclaringType())) {
+            line("fail(\"If equals() method is overridden the hashCode() method must also be overridden by the class"
+                 + " under test.\");");
+            return;
+        }
+        if (!sameDeclaringType(shape)) {
+            line("fail(" + quote(differentDeclaringTypes(shape)) + ");");
+            return;
+        }
+        final String bean = typeName(shape.getType().asType());
+        line("final " + bean + " one = " + creation + ";");
+        line("final " + bean + " two = " + creation + ";");
+        line("assertTrue(\"Two instances build the same way are not equal (o1.equals(o2))\", one.equals(two));");
+        line("assertTrue(\"Two instances build the same way do not have the same hashcode\", "
+             + "one.hashCode() == two.hashCode());");
+        writeEqualityBasics();
+    }
+
+    private void writeEqualityBasics() {
+        line("assertTrue(\"Instances with default constructor not equal (o1.equals(o1))\", one.equals(one));");
+        line("assertTrue(\"Instances with default constructor not equal (o2.equals(o1))\", two.equals(one));");
+        line("assertFalse(\"Equaling different types of object should not be equal\", one.equals(new Object()));");
+        line("assertFalse(\"Equaling null type should not be equal\", one.equals(null));");
+    }
+
+    private boolean sameDeclaringType(final BeanShape shape) {
+        return shape.getHashCodeDeclaringType() != null && shape.getEqualsDeclaringType() != null
+               && shape.getHashCodeDeclaringType().getQualifiedName()
+                       .contentEquals(shape.getEqualsDeclaringType().getQualifiedName());
+    }
+
+    private static String differentDeclaringTypes(final BeanShape shape) {
+        return String.format("The equals and hashCode methods of Class<%s> have different declaring classes.",
+                             "class " + shape.getType().getQualifiedName());
+    }
+
+    private static boolean isDeclaredByObject(final TypeElement type) {
+        return type == null || type.getQualifiedName().contentEquals("java.lang.Object");
+    }
+
+    private String arguments(final ExecutableElement executable) {
+        final StringBuilder arguments = new StringBuilder();
+        for (final VariableElement parameter : executable.getParameters()) {
+            if (arguments.length() > 0) {
+                arguments.append(", ");
+            }
+            arguments.append(defaultValue(parameter.asType()));
+        }
+        return arguments.toString();
+    }
+
+    /**
+     * @return the name of the shared constant holding the default value of the type or null if there is none
+     */
+    private String defaultValue(final TypeMirror type) {
+        final TypeMirror erasure = this.types.erasure(type);
+        final String typeName = erasure.toString();
+        final String expression = defaultValueExpression(erasure, typeName);
+        if (expression == null) {
+            return null;
+        }
+        String constant = this.constants.get(expression);
+        if (constant == null) {
+            constant = "DEFAULT_" + this.constants.size();
+            this.constants.put(expression, constant);
+            this.constantTypes.put(expression, typeName);
+        }
+        return constant;
+    }
+
+    private String defaultValueExpression(final TypeMirror erasure, final String typeName) {
+        if (erasure.getKind() == TypeKind.ARRAY) {
+            final String component = typeName.substring(0, typeName.indexOf('['));
+            return "new " + component + "[" + TEST_ARRAY_SIZE + "]" + typeName.substring(typeName.indexOf(']') + 1);
+        }
+        final String known = DEFAULT_VALUES.get(typeName);
+        if (known != null) {
+            //Keep primitive and boxed constants apart although their expressions could be equal
+            return erasure.getKind().isPrimitive() ? known : "(" + typeName + ") " + known;
+        }
+        if (erasure.getKind() != TypeKind.DECLARED) {
+            return null;
+        }
+        final TypeElement element = (TypeElement) this.types.asElement(erasure);
+        if (!isPublic(element)) {
+            return null;
+        }
+        if (element.getKind() == ElementKind.ENUM) {
+            return typeName + ".values()[0]";
+        }
+        if (element.getKind() == ElementKind.CLASS && !element.getModifiers().contains(Modifier.ABSTRACT)) {
+            for (final ExecutableElement constructor : ElementFilter.constructorsIn(element.getEnclosedElements())) {
+                if (constructor.getParameters().isEmpty() && constructor.getModifiers().contains(Modifier.PUBLIC)) {
+                    return "new " + typeName + "()";
+                }
+            }
+        }
+        return null;
+    }
+
+    private static String noDefaultValue(final TypeMirror type) {
+        return "No default value for type " + type;
+    }
+
+    private static boolean hasPublicDefaultConstructor(final BeanShape shape) {
+        final Set<Modifier> modifiers = shape.getType().getModifiers();
+        if (modifiers.contains(Modifier.ABSTRACT)) {
+            return false;
+        }
+        for (final ExecutableElement constructor : shape.getConstructors()) {
+            if (constructor.getParameters().isEmpty() && constructor.getModifiers().contains(Modifier.PUBLIC)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isPublic(final TypeElement type) {
+        for (javax.lang.model.element.Element current = type;
+             current instanceof TypeElement; current = current.getEnclosingElement()) {
+            if (!current.getModifiers().contains(Modifier.PUBLIC)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String getter(final BeanShape.Property property) {
+        return property.getGetter().getSimpleName() + "()";
+    }
+
+    private String typeName(final TypeMirror type) {
+        return this.types.erasure(type).toString();
+    }
+
+    private static String methodPrefix(final TypeElement type) {
+        final StringBuilder prefix = new StringBuilder();
+        for (final String part : type.getQualifiedName().toString().split("\\.")) {
+            prefix.append(Character.toUpperCase(part.charAt(0))).append(part.substring(1));
+        }
+        return prefix.toString();
+    }
+
+    private void startTest(final String name) {
+        this.body.append("\n    @org.junit.Test\n    public void ").append(name).append("() {\n");
+    }
+
+    private void endTest() {
+        this.body.append("    }\n");
+    }
+
+    private void line(final String code) {
+        this.body.append("        ").append(code).append('\n');
+    }
+
+    private static String quote(final String text) {
+        final StringBuilder quoted = new StringBuilder("\"");
+        for (final char c : text.toCharArray()) {
+            if (c == '"' || c == '\\') {
+                quoted.append('\\');
+            }
+            quoted.append(c);
+        }
+        return quoted.append('"').toString();
+    }
+}
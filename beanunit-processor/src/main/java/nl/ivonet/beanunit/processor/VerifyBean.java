@@ -0,0 +1,59 @@
+/*
+ * Copyright 2011 Ivo Woltring
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nl.ivonet.beanunit.processor;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Makes the {@link VerifyBeanProcessor} generate a plain JUnit test class for beans at compile time.
+ * <p/>
+ * Put it on a class in the test sources and list the beans to verify:
+ * <pre>
+ * &#64;VerifyBean({Person.class, AddressDto.class})
+ * public class BeanContracts {
+ * }
+ * </pre>
+ * This generates <code>BeanContractsBeanUnitTest</code> next to the annotated class. Without a value the annotated
+ * class itself is verified.
+ * <p/>
+ * The generated tests perform the same checks as <code>assertBean</code> of the <code>PojoContractAsserter</code>,
+ * <code>BuilderBeanAsserter</code> and <code>ConstructedBeanAsserter</code> (chosen the same way: a nested
+ * "Builder" class, setters or only a constructor) but call all methods directly. Only the built in default values
+ * are used; types registered at runtime with <code>Asserter.registerTypeAndDefaultArgument</code> are unknown at
+ * compile time.
+ *
+ * @author Ivo Woltring
+ */
+@Documented
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.TYPE)
+public @interface VerifyBean {
+
+    /**
+     * @return the beans to generate tests for, the annotated class if empty
+     */
+    Class<?>[] value() default {};
+
+    /**
+     * @return the names of the properties (and builder methods) that should not be tested
+     */
+    String[] excluded() default {};
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2011 Ivo Woltring
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nl.ivonet.beanunit.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+
+/**
+ * Generates a <code>&lt;Holder&gt;BeanUnitTest</code> class for every class annotated with {@link VerifyBean}.
+ * <p/>
+ * The generated tests need no reflection at all, so they start fast and fail at compile time when a bean changes
+ * in an incompatible way.
+ *
+ * @author Ivo Woltring
+ */
+@SupportedAnnotationTypes("nl.ivonet.beanunit.processor.VerifyBean")
+public class VerifyBeanProcessor extends AbstractProcessor {
+    static final String GENERATED_CLASS_SUFFIX = "BeanUnitTest";
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(final Set<? extends TypeElement> annotations, final RoundEnvironment roundEnv) {
+        for (final Element element : roundEnv.getElementsAnnotatedWith(VerifyBean.class)) {
+            if (element instanceof TypeElement) {
+                generate((TypeElement) element);
+            }
+        }
+        return true;
+    }
+
+    private void generate(final TypeElement holder) {
+        final AnnotationMirror annotation = findAnnotation(holder);
+        final List<TypeElement> beans = new ArrayList<TypeElement>();
+        for (final AnnotationValue value : values(annotation, "value")) {
+            beans.add((TypeElement) ((DeclaredType) value.getValue()).asElement());
+        }
+        if (beans.isEmpty()) {
+            beans.add(holder);
+        }
+        final List<String> excluded = new ArrayList<String>();
+        for (final AnnotationValue value : values(annotation, "excluded")) {
+            excluded.add((String) value.getValue());
+        }
+
+        final String packageName = this.processingEnv.getElementUtils().getPackageOf(holder).getQualifiedName()
+                                                     .toString();
+        final String className = holder.getSimpleName() + GENERATED_CLASS_SUFFIX;
+        final ContractTestWriter writer = new ContractTestWriter(this.processingEnv.getTypeUtils(), packageName,
+                                                                 className, excluded);
+        for (final TypeElement bean : beans) {
+            if (!bean.getModifiers().contains(Modifier.PUBLIC)) {
+                this.processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                                                              "Only public beans can be verified: "
+                                                              + bean.getQualifiedName(), holder, annotation);
+                return;
+            }
+            writer.addBean(BeanShape.of(bean, this.processingEnv.getElementUtils()));
+        }
+
+        final String qualifiedName = packageName.isEmpty() ? className : packageName + "." + className;
+        try {
+            final JavaFileObject file = this.processingEnv.getFiler().createSourceFile(qualifiedName, holder);
+            final Writer out = file.openWriter();
+            try {
+                out.write(writer.toSource());
+            } finally {
+                out.close();
+            }
+        } catch (IOException e) {
+            this.processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                                                          "Could not write " + qualifiedName + ": " + e.getMessage(),
+                                                          holder);
+        }
+    }
+
+    private static AnnotationMirror findAnnotation(final TypeElement holder) {
+        for (final AnnotationMirror mirror : holder.getAnnotationMirrors()) {
+            if (((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName()
+                    .contentEquals(VerifyBean.class.getName())) {
+                return mirror;
+            }
+        }
+        throw new IllegalStateException("Not annotated with @VerifyBean: " + holder);
+    }
+
+    /**
+     * Class values have to be read through the mirrors as the classes are not loaded while compiling.
+     */
+    @SuppressWarnings("unchecked")
+    private static List<? extends AnnotationValue> values(final AnnotationMirror annotation, final String name) {
+        for (final Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry
+                : annotation.getElementValues().entrySet()) {
+            if (entry.getKey().getSimpleName().contentEquals(name)) {
+                final Object value = entry.getValue().getValue();
+                if (value instanceof List) {
+                    return (List<? extends AnnotationValue>) value;
+                }
+                return Collections.singletonList(entry.getValue());
+            }
+        }
+        return Collections.emptyList();
+    }
+}
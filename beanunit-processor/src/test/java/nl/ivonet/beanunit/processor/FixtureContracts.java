@@ -0,0 +1,28 @@
+/*
+ * Copyright 2011 Ivo Woltring
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nl.ivonet.beanunit.processor;
+
+/**
+ * The generated <code>FixtureContractsBeanUnitTest</code> verifies the beans below, which all pass the asserters.
+ *
+ * @author Ivo Woltring
+ */
+@VerifyBean({simplepojo.Person.class, simplepojo.SimpleBean.class, simplepojo.ZipCode.class,
+             simplepojo.PrimitiveBean.class, builder.AddressDto.class, builder.SimpleBuilderBean.class,
+             immutable.Person.class})
+public class FixtureContracts {
+}
@@ -0,0 +1,180 @@
+/*
+ * Copyright 2011 Ivo Woltring
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package nl.ivonet.beanunit.processor;
+
+import java.io.File;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.JUnitCore;
+import org.junit.runner.Result;
+import org.junit.runner.notification.Failure;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Compiles beans that break their contracts with the {@link VerifyBeanProcessor} and runs the generated tests,
+ * which must fail with the same messages the asserters use.
+ *
+ * @author Ivo Woltring
+ */
+public class VerifyBeanProcessorTest {
+
+    @ClassRule
+    public static final TemporaryFolder FOLDER = new TemporaryFolder();
+
+    private static final String HOLDER = "package broken;\n"
+                                         + "@nl.ivonet.beanunit.processor.VerifyBean({"
+                                         + "simplepojo.WrongSinpleBean.class, "
+                                         + "builder.EqualsMethodButNoHasCode.class, "
+                                         + "builder.BuilderMethodIsWrong.class, "
+                                         + "builder.BuilderWithMultipleConstructorBean.class, "
+                                         + "immutable.BusinessLocationDto.class, "
+                                         + "broken.BrokenContracts.HiddenConstructor.class, "
+                                         + "broken.BrokenContracts.UnknownProperty.class, "
+                                         + "broken.BrokenContracts.EqualsOnly.class})\n"
+                                         + "public class BrokenContracts {\n"
+                                         + "    public static class HiddenConstructor {\n"
+                                         + "        private final String name;\n"
+                                         + "        private HiddenConstructor(final String name) {\n"
+                                         + "            this.name = name;\n"
+                                         + "        }\n"
+                                         + "        public String getName() {\n"
+                                         + "            return this.name;\n"
+                                         + "        }\n"
+                                         + "    }\n"
+                                         + "    public static class UnknownProperty {\n"
+                                         + "        private Runnable task;\n"
+                                         + "        public Runnable getTask() {\n"
+                                         + "            return this.task;\n"
+                                         + "        }\n"
+                                         + "        public void setTask(final Runnable task) {\n"
+                                         + "            this.task = task;\n"
+                                         + "        }\n"
+                                         + "    }\n"
+                                         + "    public static class EqualsOnly extends immutable.Person {\n"
+                                         + "        public EqualsOnly(final String name) {\n"
+                                         + "            super(name);\n"
+                                         + "        }\n"
+                                         + "        @Override\n"
+                                         + "        public boolean equals(final Object o) {\n"
+                                         + "            return o instanceof EqualsOnly && super.equals(o);\n"
+                                         + "        }\n"
+                                         + "    }\n"
+                                         + "}\n";
+
+    private static Result result;
+    private static final Map<String, String> FAILURES = new HashMap<String, String>();
+
+    @BeforeClass
+    public static void compileAndRun() throws Exception {
+        final File sources = FOLDER.newFolder("sources");
+        final File classes = FOLDER.newFolder("classes");
+        final File holder = new File(new File(sources, "broken"), "BrokenContracts.java");
+        assertTrue(holder.getParentFile().mkdirs());
+        Files.write(holder.toPath(), HOLDER.getBytes(StandardCharsets.UTF_8));
+
+        final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        final int status = compiler.run(null, null, null, "-proc:only", "-processor",
+                                        VerifyBeanProcessor.class.getName(), "-classpath",
+                                        System.getProperty("java.class.path"), "-s", sources.getPath(),
+                                        holder.getPath());
+        assertEquals("The processor failed", 0, status);
+        final File generated = new File(holder.getParentFile(),
+                                         "BrokenContracts" + VerifyBeanProcessor.GENERATED_CLASS_SUFFIX + ".java");
+        assertEquals("The generated tests do not compile", 0,
+                     compiler.run(null, null, null, "-proc:none", "-classpath",
+                                  System.getProperty("java.class.path"), "-d", classes.getPath(),
+                                  holder.getPath(), generated.getPath()));
+
+        final URLClassLoader loader = new URLClassLoader(new URL[]{classes.toURI().toURL()},
+                                                         VerifyBeanProcessorTest.class.getClassLoader());
+        try {
+            result = new JUnitCore().run(loader.loadClass("broken.BrokenContracts"
+                                                          + VerifyBeanProcessor.GENERATED_CLASS_SUFFIX));
+        } finally {
+            loader.close();
+        }
+        for (final Failure failure : result.getFailures()) {
+            FAILURES.put(failure.getDescription().getMethodName(), failure.getMessage());
+        }
+    }
+
+    @Test
+    public void testOnlyTheSoundGettersPass() throws Exception {
+        assertEquals(12, result.getRunCount());
+        assertEquals(10, result.getFailureCount());
+        assertFalse(FAILURES.containsKey("testBuilderEqualsMethodButNoHasCodeBuildObjectGetterBehavior"));
+        assertFalse(FAILURES.containsKey("testBrokenBrokenContractsEqualsOnlyGettersOnConstructorImmutableObject"));
+    }
+
+    @Test
+    public void testBuilderProblems() throws Exception {
+        assertFailure("BuilderBuilderWithMultipleConstructorBeanBuildObjectGetterBehavior",
+                      "There should only be one constructor in a Builder class");
+        assertFailure("BuilderBuilderMethodIsWrongBuildObjectGetterBehavior",
+                      "The return type of method foo is not the Builder type.");
+    }
+
+    @Test
+    public void testConstructorProblems() throws Exception {
+        assertFailure("BrokenBrokenContractsHiddenConstructorGettersOnConstructorImmutableObject",
+                      "Could not create the object");
+        assertFailure("ImmutableBusinessLocationDtoGettersOnConstructorImmutableObject",
+                      "No default value for type builder.AddressDto");
+        assertFailure("ImmutableBusinessLocationDtoEqualsHashCode", "No default value for type builder.AddressDto");
+    }
+
+    @Test
+    public void testEqualsHashCodeProblems() throws Exception {
+        assertFailure("BuilderEqualsMethodButNoHasCodeEqualsHashCode",
+                      "If equals() method is overridden the hashCode() method must also be overridden by the class"
+                      + " under test.");
+        assertFailure("BrokenBrokenContractsEqualsOnlyEqualsHashCode",
+                      "The equals and hashCode methods of Class<class broken.BrokenContracts.EqualsOnly> have "
+                      + "different declaring classes.");
+        assertFailure("SimplepojoWrongSinpleBeanEqualsHashCode",
+                      "Instances of WrongSinpleBean with method setWrong() set and second instance having it set to "
+                      + "the same object are not equal");
+    }
+
+    @Test
+    public void testPropertyProblems() throws Exception {
+        assertFailure("BrokenBrokenContractsUnknownPropertyGetterSetterBehavior",
+                      "No default value for type java.lang.Runnable");
+        assertTrue(FAILURES.get("testSimplepojoWrongSinpleBeanGetterSetterBehavior")
+                           .startsWith("wrong getter/setter failed test"));
+    }
+
+    private static void assertFailure(final String test, final String message) {
+        assertEquals(test, message, FAILURES.get("test" + test));
+    }
+}